@@ -0,0 +1,200 @@
+package com.urovo.scanner.scanner.ar.scanarcore.decoder.kyd;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.urovo.scanner.scanner.ar.kyddecoder.KydDecoderManager;
+import com.urovo.scanner.scanner.ar.scanarcore.decoder.BarcodeDecoder;
+import com.urovo.scanner.scanner.ar.scanarcore.decoder.BarcodeResult;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 在录制的帧上对比 FULL_FRAME 与 DETECT_ROI 两种解码流程的延迟
+ * <p>
+ * 帧文件为 FileManager.saveYuvAndJpeg 保存的 NV21 数据（文件名以 _宽x高.yuv 结尾）。
+ * 默认读取应用外部存储的 frames 目录，可以通过 instrumentation 参数 framesDir 指定：
+ * <pre>
+ * adb push Scan/. /sdcard/Android/data/com.urovo.scanner.scanner.ar.scanarcore/files/frames/
+ * adb shell am instrument -w -e class ...PipelineModeBenchmarkTest -e framesDir /sdcard/... ...
+ * </pre>
+ * 每帧同步等待解码完成，逐帧记录延迟，结果输出到 logcat（TAG: PipelineBenchmark）。
+ * DETECT_ROI 的中位延迟不得高于 FULL_FRAME（允许 {@link #MAX_MEDIAN_RATIO} 的抖动），
+ * 解出的条码数不得少于 FULL_FRAME 的 {@link #MIN_YIELD_RATIO}。
+ * 没有录制帧或检测器不可用（DETECT_ROI 退化为整帧解码）时跳过。
+ */
+@RunWith(AndroidJUnit4.class)
+public class PipelineModeBenchmarkTest {
+
+    private static final String TAG = "PipelineBenchmark";
+    private static final Pattern SIZE_PATTERN = Pattern.compile("_(\\d+)x(\\d+)\\.yuv$");
+    private static final int WARMUP_FRAMES = 3;
+    private static final int ROUNDS = 3;
+    // DETECT_ROI 与 FULL_FRAME 中位延迟之比的上限
+    private static final double MAX_MEDIAN_RATIO = 1.1;
+    // DETECT_ROI 与 FULL_FRAME 解出条码数之比的下限
+    private static final double MIN_YIELD_RATIO = 0.9;
+
+    @Test
+    public void compareFullFrameAndDetectRoi() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        List<Frame> frames = loadFrames(context);
+        assumeTrue("No recorded frames found", !frames.isEmpty());
+
+        KydBarcodeDecoder decoder = new KydBarcodeDecoder(context);
+        try {
+            assumeTrue("Detector not ready", KydDecoderManager.getInstance().isDetectorReady());
+            Stats fullFrame = run(decoder, KydBarcodeDecoder.PipelineMode.FULL_FRAME, frames);
+            Stats detectRoi = run(decoder, KydBarcodeDecoder.PipelineMode.DETECT_ROI, frames);
+
+            Log.i(TAG, "frames=" + frames.size() + " rounds=" + ROUNDS);
+            Log.i(TAG, "FULL_FRAME " + fullFrame);
+            Log.i(TAG, "DETECT_ROI " + detectRoi);
+            assertTrue("DETECT_ROI median " + detectRoi.percentileMs(0.5) + "ms vs FULL_FRAME "
+                            + fullFrame.percentileMs(0.5) + "ms",
+                    detectRoi.percentileMs(0.5) <= fullFrame.percentileMs(0.5) * MAX_MEDIAN_RATIO);
+            assertTrue("DETECT_ROI decoded " + detectRoi.decoded + " vs FULL_FRAME " + fullFrame.decoded,
+                    detectRoi.decoded >= fullFrame.decoded * MIN_YIELD_RATIO);
+        } finally {
+            decoder.release();
+        }
+    }
+
+    private static Stats run(KydBarcodeDecoder decoder, KydBarcodeDecoder.PipelineMode mode,
+                             List<Frame> frames) throws InterruptedException {
+        decoder.setPipelineMode(mode);
+        for (int i = 0; i < Math.min(WARMUP_FRAMES, frames.size()); i++) {
+            decodeBlocking(decoder, frames.get(i), new int[1]);
+        }
+
+        long[] latencies = new long[frames.size() * ROUNDS];
+        int[] decoded = new int[1];
+        int n = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            for (Frame frame : frames) {
+                long start = System.nanoTime();
+                decodeBlocking(decoder, frame, decoded);
+                latencies[n++] = System.nanoTime() - start;
+            }
+        }
+        return new Stats(latencies, decoded[0]);
+    }
+
+    private static void decodeBlocking(KydBarcodeDecoder decoder, Frame frame, int[] decoded)
+            throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        decoder.decodeYuv(frame.data, frame.width, frame.height, 0, new BarcodeDecoder.DecodeCallback() {
+            @Override
+            public void onSuccess(List<BarcodeResult> results) {
+                decoded[0] += results.size();
+                done.countDown();
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                Log.w(TAG, "Decode failed", e);
+                done.countDown();
+            }
+
+            @Override
+            public void onDropped() {
+                done.countDown();
+            }
+        });
+        assertTrue("Decode timed out", done.await(10, TimeUnit.SECONDS));
+    }
+
+    private static List<Frame> loadFrames(Context context) throws IOException {
+        Bundle arguments = InstrumentationRegistry.getArguments();
+        String path = arguments.getString("framesDir");
+        File dir = path != null ? new File(path) : context.getExternalFilesDir("frames");
+        List<Frame> frames = new ArrayList<>();
+        File[] files = dir != null ? dir.listFiles() : null;
+        if (files == null) {
+            return frames;
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            Matcher matcher = SIZE_PATTERN.matcher(file.getName());
+            if (!matcher.find()) {
+                continue;
+            }
+            int width = Integer.parseInt(matcher.group(1));
+            int height = Integer.parseInt(matcher.group(2));
+            byte[] data = new byte[(int) file.length()];
+            if (data.length < width * height) {
+                continue;
+            }
+            try (FileInputStream in = new FileInputStream(file)) {
+                int read = 0;
+                while (read < data.length) {
+                    int count = in.read(data, read, data.length - read);
+                    if (count < 0) {
+                        break;
+                    }
+                    read += count;
+                }
+            }
+            frames.add(new Frame(data, width, height));
+        }
+        return frames;
+    }
+
+    private static class Frame {
+        final byte[] data;
+        final int width;
+        final int height;
+
+        Frame(byte[] data, int width, int height) {
+            this.data = data;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    private static class Stats {
+        final long[] latenciesNanos;
+        final int decoded;
+
+        Stats(long[] latenciesNanos, int decoded) {
+            this.latenciesNanos = latenciesNanos.clone();
+            Arrays.sort(this.latenciesNanos);
+            this.decoded = decoded;
+        }
+
+        private double percentileMs(double p) {
+            int index = (int) Math.min(latenciesNanos.length - 1, Math.round(p * (latenciesNanos.length - 1)));
+            return latenciesNanos[index] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            long sum = 0;
+            for (long latency : latenciesNanos) {
+                sum += latency;
+            }
+            return String.format("mean=%.1fms p50=%.1fms p90=%.1fms max=%.1fms decoded=%d",
+                    sum / 1e6 / latenciesNanos.length, percentileMs(0.5), percentileMs(0.9),
+                    percentileMs(1.0), decoded);
+        }
+    }
+}
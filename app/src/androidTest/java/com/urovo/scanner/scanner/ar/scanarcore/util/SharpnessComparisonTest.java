@@ -0,0 +1,77 @@
+package com.urovo.scanner.scanner.ar.scanarcore.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.opencv.android.OpenCVLoader;
+
+import java.util.Random;
+
+/**
+ * 设备上对比 SharpnessEstimator 与 ImageEnhancer.calculateSharpness（OpenCV）
+ * <p>
+ * 两者分值应接近（同一阈值可通用），耗时记录在 logcat（TAG: SharpnessComparison）。
+ */
+@RunWith(AndroidJUnit4.class)
+public class SharpnessComparisonTest {
+
+    private static final String TAG = "SharpnessComparison";
+    private static final int ITERATIONS = 50;
+
+    @BeforeClass
+    public static void loadOpenCv() {
+        assertTrue("OpenCV failed to load", OpenCVLoader.initLocal());
+    }
+
+    @Test
+    public void compareWithOpenCv() {
+        int[][] sizes = {{640, 480}, {1920, 1080}, {3840, 2160}, {4032, 3024}};
+        for (int[] size : sizes) {
+            int width = size[0];
+            int height = size[1];
+            byte[] luma = texturedImage(width, height);
+
+            double expected = ImageEnhancer.calculateSharpness(luma, width, height);
+            double actual = SharpnessEstimator.estimate(luma, width, height);
+
+            long openCvNanos = time(() -> ImageEnhancer.calculateSharpness(luma, width, height));
+            long estimatorNanos = time(() -> SharpnessEstimator.estimate(luma, width, height));
+
+            Log.i(TAG, width + "x" + height
+                    + " opencv=" + String.format("%.1f", expected) + " (" + openCvNanos / 1000 + "us)"
+                    + " estimator=" + String.format("%.1f", actual) + " (" + estimatorNanos / 1000 + "us)");
+
+            assertEquals(width + "x" + height, expected, actual, expected * 0.15);
+        }
+    }
+
+    private static long time(Runnable task) {
+        for (int i = 0; i < 5; i++) {
+            task.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            task.run();
+        }
+        return (System.nanoTime() - start) / ITERATIONS;
+    }
+
+    private static byte[] texturedImage(int width, int height) {
+        Random random = new Random(7);
+        byte[] luma = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int bar = ((x / 24) + (y / 64)) % 2 == 0 ? 40 : 210;
+                luma[y * width + x] = (byte) Math.max(0, Math.min(255, bar + random.nextInt(31) - 15));
+            }
+        }
+        return luma;
+    }
+}
@@ -38,18 +38,34 @@ import com.google.ar.core.TrackingState;
 import com.google.ar.core.exceptions.CameraNotAvailableException;
 import com.google.ar.core.exceptions.NotYetAvailableException;
 import com.google.ar.core.exceptions.UnavailableUserDeclinedInstallationException;
+import com.urovo.scanner.scanner.ar.scanarcore.anchor.AnchorRegistry;
 import com.urovo.scanner.scanner.ar.scanarcore.decoder.BarcodeDecoder;
 import com.urovo.scanner.scanner.ar.scanarcore.decoder.BarcodeResult;
 import com.urovo.scanner.scanner.ar.scanarcore.decoder.DecoderFactory;
+import com.urovo.scanner.scanner.ar.scanarcore.decoder.kyd.KydBarcodeDecoder;
+import com.urovo.scanner.scanner.ar.scanarcore.metrics.MetricsRegistry;
+import com.urovo.scanner.scanner.ar.scanarcore.metrics.PipelineMetrics;
+import com.urovo.scanner.scanner.ar.scanarcore.metrics.PipelineStage;
+import com.urovo.scanner.scanner.ar.scanarcore.recording.FrameRecordFormat;
+import com.urovo.scanner.scanner.ar.scanarcore.recording.FrameRecorder;
 import com.urovo.scanner.scanner.ar.scanarcore.renderer.BackgroundRenderer;
+import com.urovo.scanner.scanner.ar.scanarcore.renderer.AnchorPointCollector;
 import com.urovo.scanner.scanner.ar.scanarcore.renderer.PointRenderer;
-import com.urovo.scanner.scanner.ar.scanarcore.util.ImageEnhancer;
+import com.urovo.scanner.scanner.ar.scanarcore.renderer.ViewProjection;
+import com.urovo.scanner.scanner.ar.scanarcore.util.FileWriteService;
+import com.urovo.scanner.scanner.ar.scanarcore.util.FrameBufferPool;
 import com.urovo.scanner.scanner.ar.scanarcore.util.PicUtil;
+import com.urovo.scanner.scanner.ar.scanarcore.util.SharpnessEstimator;
 
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.microedition.khronos.egl.EGLConfig;
 import javax.microedition.khronos.opengles.GL10;
@@ -82,11 +98,17 @@ public class BarcodeARActivity extends AppCompatActivity implements GLSurfaceVie
     private long lastScanTime = 0;
     private static final long SCAN_INTERVAL_MS = 200; // 扫描间隔
 
-    // 锚点管理 - 使用同步锁保证原子操作
-    private final CopyOnWriteArrayList<AnchorData> anchors = new CopyOnWriteArrayList<>();
+    // 锚点管理：按条码内容查找 + 世界坐标体素占用查询，增删和位置更新在 GL 线程
+    // 体素边长接近常见的去重半径，占用查询只检查 3×3×3 个体素
+    private static final float ANCHOR_VOXEL_SIZE_M = 0.1f;
+    // 去重半径下限（米）：条码很小或距离很近时避免半径过小
+    private static final float MIN_DEDUP_RADIUS_M = 0.03f;
+    private final AnchorRegistry<AnchorData> anchors = new AnchorRegistry<>(ANCHOR_VOXEL_SIZE_M);
     private final Set<String> registeredBarcodes = new HashSet<>(); // 已注册的条码（包括pending和已创建）
     private final Object barcodeLock = new Object();
-    private static final int MAX_ANCHORS = 50;
+    private static final int MAX_ANCHORS = 5000;
+    // 单个批次最多创建的锚点数，避免一次创建过多锚点导致 ARCore 卡顿
+    private static final int MAX_ANCHORS_PER_BATCH = 32;
     // 锚点创建间隔（毫秒）- 避免短时间内创建过多锚点导致 ARCore 崩溃
 //    private long lastAnchorCreateTime = 0;
 //    private static final long ANCHOR_CREATE_INTERVAL_MS = 300;
@@ -94,10 +116,34 @@ public class BarcodeARActivity extends AppCompatActivity implements GLSurfaceVie
     private static final float[] ANCHOR_COLOR_TRACKING = {0.0f, 1.0f, 0.0f, 1.0f}; // 绿色 - 正常追踪
     private static final float[] ANCHOR_COLOR_STOPPED = {1.0f, 1.0f, 0.0f, 0.8f}; // 黄色 - 失效
     private static final float ANCHOR_SIZE = 80.0f;
+    // 逐帧把锚点收集到点批次：TRACKING 绿色并更新体素索引，其他状态黄色
+    private final AnchorPointCollector<AnchorData> anchorPoints = new AnchorPointCollector<>(
+            new AnchorPointCollector.PoseSource<AnchorData>() {
+                @Override
+                public boolean isTracking(AnchorData data) {
+                    return data.anchor.getTrackingState() == TrackingState.TRACKING;
+                }
+
+                @Override
+                public boolean readPosition(AnchorData data, float[] position) {
+                    try {
+                        Pose pose = data.anchor.getPose();
+                        position[0] = pose.tx();
+                        position[1] = pose.ty();
+                        position[2] = pose.tz();
+                        return true;
+                    } catch (Exception e) {
+                        // 锚点获取位置失败，跳过渲染但不删除
+                        return false;
+                    }
+                }
+            }, ANCHOR_COLOR_TRACKING, ANCHOR_COLOR_STOPPED);
 
     // 投影矩阵
     private final float[] projectionMatrix = new float[16];
     private final float[] viewMatrix = new float[16];
+    // 每帧计算一次的视图投影矩阵，供所有渲染器共用
+    private final ViewProjection viewProjection = new ViewProjection();
 
     // 当前帧（在 onDrawFrame 中更新，供其他方法使用）
     private Frame currentFrame;
@@ -109,6 +155,32 @@ public class BarcodeARActivity extends AppCompatActivity implements GLSurfaceVie
     // 条码解码器
     private BarcodeDecoder barcodeDecoder;
 
+    // 帧缓冲区池：一帧在 GL 线程提取、一帧在解码，缓冲区在解码回调中归还
+    private final FrameBufferPool framePool = new FrameBufferPool(2);
+
+    // 流水线阶段耗时统计（onPause 时导出到外部存储 metrics 目录）
+    private static final String METRICS_FILE_NAME = "pipeline_metrics.txt";
+    private final PipelineMetrics metrics = PipelineMetrics.getInstance();
+
+    // 运行时计数器（onPause 时与流水线统计一起导出）
+    private static final String REGISTRY_FILE_NAME = "metrics_registry.txt";
+    private final MetricsRegistry registry = MetricsRegistry.getInstance();
+    private final MetricsRegistry.Counter scansCounter = registry.counter("ar.scans");
+    private final MetricsRegistry.Counter blurryFramesCounter = registry.counter("ar.blurry_frames");
+    private final MetricsRegistry.Counter barcodesDetectedCounter = registry.counter("ar.barcodes_detected");
+    private final MetricsRegistry.Counter anchorsCreatedCounter = registry.counter("ar.anchors_created");
+    private final MetricsRegistry.Counter positionOccupiedCounter = registry.counter("ar.anchor_position_occupied");
+    private final MetricsRegistry.Counter anchorFailuresCounter = registry.counter("ar.anchor_failures");
+    private final MetricsRegistry.Gauge anchorsGauge = registry.gauge("ar.anchors");
+    private final MetricsRegistry.Timer renderAnchorsTimer = registry.timer("ar.render_anchors");
+
+    // 调试录制：ENABLE_YUV_DEBUG_SAVE 打开时，每次 onResume 在外部存储 recordings 目录下开始一段录制
+    private final FrameRecorder frameRecorder = new FrameRecorder();
+    // 相机位姿（tx, ty, tz, qx, qy, qz, qw），GL 线程复用
+    private final float[] cameraPose = new float[FrameRecordFormat.POSE_LENGTH];
+    // 退出时等待调试文件写完的最长时间
+    private static final long FILE_WRITER_SHUTDOWN_TIMEOUT_MS = 1000;
+
     /**
      * 锚点数据
      */
@@ -116,12 +188,6 @@ public class BarcodeARActivity extends AppCompatActivity implements GLSurfaceVie
         final Anchor anchor;
         final String barcodeValue;
         final long createTime;
-        // 当前帧的屏幕坐标（每帧更新）
-        float screenX;
-        float screenY;
-        // 最后一次有效追踪的位置
-        float lastValidScreenX;
-        float lastValidScreenY;
         // 是否来自 InstantPlacementPoint
         boolean isInstantPlacement;
         // 是否已升级到 FULL_TRACKING
@@ -344,6 +410,27 @@ public class BarcodeARActivity extends AppCompatActivity implements GLSurfaceVie
 
         glSurfaceView.onResume();
         Log.i(TAG, "GLSurfaceView resumed");
+
+        startFrameRecordingIfEnabled();
+    }
+
+    /**
+     * 调试开关打开时开始录制实时帧
+     */
+    private void startFrameRecordingIfEnabled() {
+        if (!KydBarcodeDecoder.ENABLE_YUV_DEBUG_SAVE || frameRecorder.isRecording()) {
+            return;
+        }
+        File recordingsDir = getExternalFilesDir("recordings");
+        if (recordingsDir == null) {
+            return;
+        }
+        String recordingName = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.US).format(new Date());
+        try {
+            frameRecorder.start(new File(recordingsDir, recordingName));
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to start frame recording", e);
+        }
     }
 
     @Override
@@ -353,6 +440,15 @@ public class BarcodeARActivity extends AppCompatActivity implements GLSurfaceVie
             glSurfaceView.onPause();
             session.pause();
         }
+        // GL 线程已暂停，不会再有新帧，等待录制写完
+        frameRecorder.stop();
+        // 导出流水线耗时统计
+        File metricsDir = getExternalFilesDir("metrics");
+        if (metricsDir != null) {
+            metrics.dump(new File(metricsDir, METRICS_FILE_NAME));
+            registry.dump(new File(metricsDir, REGISTRY_FILE_NAME));
+        }
+        Log.i(TAG, "Pipeline metrics:\n" + metrics.report());
     }
 
     /**
@@ -385,8 +481,8 @@ public class BarcodeARActivity extends AppCompatActivity implements GLSurfaceVie
     protected void onDestroy() {
         super.onDestroy();
         // 清理所有锚点
-        for (AnchorData data : anchors) {
-            data.anchor.detach();
+        for (AnchorRegistry.Entry<AnchorData> entry : anchors.entries()) {
+            entry.getPayload().anchor.detach();
         }
         anchors.clear();
         synchronized (barcodeLock) {
@@ -399,6 +495,9 @@ public class BarcodeARActivity extends AppCompatActivity implements GLSurfaceVie
             barcodeDecoder = null;
         }
 
+        // 写完排队中的调试文件后停止写线程
+        FileWriteService.getInstance(this).shutdown(FILE_WRITER_SHUTDOWN_TIMEOUT_MS);
+
         if (session != null) {
             session.close();
             session = null;
@@ -433,6 +532,8 @@ public class BarcodeARActivity extends AppCompatActivity implements GLSurfaceVie
         try {
             session.setCameraTextureName(backgroundRenderer.getTextureId());
             currentFrame = session.update();
+            // 端到端延迟的起点：Frame.getTimestamp() 的基准未定义，不能与 System.nanoTime 相减
+            long frameStartNs = System.nanoTime();
             Camera camera = currentFrame.getCamera();
 
             // 绘制相机背景
@@ -443,6 +544,7 @@ public class BarcodeARActivity extends AppCompatActivity implements GLSurfaceVie
                 // 获取投影和视图矩阵
                 camera.getProjectionMatrix(projectionMatrix, 0, 0.1f, 100.0f);
                 camera.getViewMatrix(viewMatrix, 0);
+                viewProjection.update(viewMatrix, projectionMatrix);
 
                 // 平面检测模式下，需要等待平面检测完成
                 if (usePlaneDetection && !planeDetected) {
@@ -454,12 +556,15 @@ public class BarcodeARActivity extends AppCompatActivity implements GLSurfaceVie
                     long now = System.currentTimeMillis();
                     if (now - lastScanTime > SCAN_INTERVAL_MS) {
                         lastScanTime = now;
-                        scanBarcodesFromFrame(currentFrame);
+                        scansCounter.inc();
+                        scanBarcodesFromFrame(currentFrame, frameStartNs);
                     }
                 }
 
                 // 渲染所有锚点
+                long renderStart = System.nanoTime();
                 renderAnchors();
+                renderAnchorsTimer.recordSince(renderStart);
             }
         } catch (CameraNotAvailableException e) {
             Log.e(TAG, "Camera not available", e);
@@ -487,45 +592,24 @@ public class BarcodeARActivity extends AppCompatActivity implements GLSurfaceVie
     /**
      * 渲染所有锚点
      * STOPPED状态显示黄色，TRACKING状态显示绿色，不自动删除
+     * 所有锚点收集到同一批次，一次绘制调用完成
+     * 每帧执行：按下标遍历、复用批次缓冲区，除 ARCore 返回的 Pose 外不分配对象
      */
     private void renderAnchors() {
-        int viewWidth = glSurfaceView.getWidth();
-        int viewHeight = glSurfaceView.getHeight();
-
-        for (AnchorData data : anchors) {
-            Anchor anchor = data.anchor;
-            TrackingState state = anchor.getTrackingState();
-
-            try {
-                Pose pose = anchor.getPose();
-                float[] position = new float[]{pose.tx(), pose.ty(), pose.tz()};
-
-                // 根据状态选择颜色：TRACKING绿色，其他黄色
-                float[] color = (state == TrackingState.TRACKING) ? ANCHOR_COLOR_TRACKING : ANCHOR_COLOR_STOPPED;
-                pointRenderer.draw(position, viewMatrix, projectionMatrix, color, ANCHOR_SIZE);
-
-                // 更新屏幕坐标
-                float[] screenPos = worldToScreen(position, viewWidth, viewHeight);
-                data.screenX = screenPos[0];
-                data.screenY = screenPos[1];
-                if (state == TrackingState.TRACKING) {
-                    data.lastValidScreenX = screenPos[0];
-                    data.lastValidScreenY = screenPos[1];
-                }
-            } catch (Exception e) {
-                // 锚点获取位置失败，跳过渲染但不删除
-            }
-        }
+        pointRenderer.begin();
+        anchorPoints.collect(anchors, pointRenderer.getBatch());
+        pointRenderer.draw(viewProjection.getMatrix(), ANCHOR_SIZE);
     }
 
     /**
      * 清除所有锚点 - 由用户手动触发
      */
     private void clearAllAnchors() {
-        for (AnchorData data : anchors) {
-            data.anchor.detach();
+        for (AnchorRegistry.Entry<AnchorData> entry : anchors.entries()) {
+            entry.getPayload().anchor.detach();
         }
         anchors.clear();
+        anchorsGauge.set(0);
         synchronized (barcodeLock) {
             registeredBarcodes.clear();
         }
@@ -533,71 +617,20 @@ public class BarcodeARActivity extends AppCompatActivity implements GLSurfaceVie
         runOnUiThread(() -> Toast.makeText(this, "已清除所有锚点", Toast.LENGTH_SHORT).show());
     }
 
-    /**
-     * 将3D世界坐标投影到2D屏幕坐标
-     */
-    private float[] worldToScreen(float[] worldPos, int viewWidth, int viewHeight) {
-        float[] viewPos = new float[4];
-        float[] projPos = new float[4];
-
-        // 应用视图矩阵
-        viewPos[0] = viewMatrix[0] * worldPos[0] + viewMatrix[4] * worldPos[1] + viewMatrix[8] * worldPos[2] + viewMatrix[12];
-        viewPos[1] = viewMatrix[1] * worldPos[0] + viewMatrix[5] * worldPos[1] + viewMatrix[9] * worldPos[2] + viewMatrix[13];
-        viewPos[2] = viewMatrix[2] * worldPos[0] + viewMatrix[6] * worldPos[1] + viewMatrix[10] * worldPos[2] + viewMatrix[14];
-        viewPos[3] = 1.0f;
-
-        // 应用投影矩阵
-        projPos[0] = projectionMatrix[0] * viewPos[0] + projectionMatrix[4] * viewPos[1] + projectionMatrix[8] * viewPos[2] + projectionMatrix[12] * viewPos[3];
-        projPos[1] = projectionMatrix[1] * viewPos[0] + projectionMatrix[5] * viewPos[1] + projectionMatrix[9] * viewPos[2] + projectionMatrix[13] * viewPos[3];
-        projPos[2] = projectionMatrix[2] * viewPos[0] + projectionMatrix[6] * viewPos[1] + projectionMatrix[10] * viewPos[2] + projectionMatrix[14] * viewPos[3];
-        projPos[3] = projectionMatrix[3] * viewPos[0] + projectionMatrix[7] * viewPos[1] + projectionMatrix[11] * viewPos[2] + projectionMatrix[15] * viewPos[3];
-
-        // 透视除法，转换到NDC
-        if (projPos[3] != 0) {
-            projPos[0] /= projPos[3];
-            projPos[1] /= projPos[3];
-        }
-
-        // NDC到屏幕坐标
-        float screenX = (projPos[0] + 1.0f) * 0.5f * viewWidth;
-        float screenY = (1.0f - projPos[1]) * 0.5f * viewHeight;
-
-        return new float[]{screenX, screenY};
-    }
-
-    /**
-     * 检查指定屏幕坐标是否与已有锚点位置重叠
-     *
-     * @param screenX   屏幕X坐标
-     * @param screenY   屏幕Y坐标
-     * @param threshold 距离阈值（像素）
-     * @return true表示位置已被占用
-     */
-    private boolean isScreenPositionOccupied(float screenX, float screenY, float threshold) {
-        for (AnchorData data : anchors) {
-            // 使用最后有效位置进行比较（即使锚点暂停/停止也参与去重）
-            float existingX = data.lastValidScreenX != 0 ? data.lastValidScreenX : data.screenX;
-            float existingY = data.lastValidScreenY != 0 ? data.lastValidScreenY : data.screenY;
-
-            float dx = existingX - screenX;
-            float dy = existingY - screenY;
-            float distance = (float) Math.sqrt(dx * dx + dy * dy);
-            Log.d(TAG, "Position check: new(" + String.format("%.1f", screenX) + "," + String.format("%.1f", screenY) + ") vs existing[" + data.barcodeValue + "](" + String.format("%.1f", existingX) + "," + String.format("%.1f", existingY) + ") distance=" + String.format("%.1f", distance) + " threshold=" + String.format("%.1f", threshold));
-            if (distance < threshold) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     /**
      * 从ARCore Frame中扫描条码
      * 关键：在 GL 线程中同步提取 YUV 数据并立即关闭 Image，避免 native 内存竞态
+     *
+     * @param frameStartNs session.update() 返回时的 System.nanoTime()，端到端延迟的起点
      */
-    private void scanBarcodesFromFrame(Frame frame) {
+    private void scanBarcodesFromFrame(Frame frame, long frameStartNs) {
         Image image = null;
         try {
+            // ARCore 帧时间戳（基准未定义）只用于标识帧：随结果和录制帧传递，不参与延迟计算
+            final long frameTimestampNs = frame.getTimestamp();
+            long acquireStart = System.nanoTime();
             image = frame.acquireCameraImage();
+            metrics.record(PipelineStage.ACQUIRE, System.nanoTime() - acquireStart);
             if (image.getFormat() != ImageFormat.YUV_420_888) {
                 image.close();
                 return;
@@ -609,38 +642,61 @@ public class BarcodeARActivity extends AppCompatActivity implements GLSurfaceVie
             imageWidth = width;
             imageHeight = height;
 
-            // 关键：在 GL 线程中同步提取 YUV 数据
+            // 关键：在 GL 线程中同步提取亮度数据
             // 这样可以确保 Image 在同一帧内被关闭，避免 native 内存被 ARCore 重用导致数据损坏
-            final byte[] yuvData;
+            // 解码和清晰度检测都只使用Y通道，不再提取色度平面
+            final byte[] lumaData;
+            long extractStart = System.nanoTime();
+            byte[] buffer = framePool.acquire(width * height);
             try {
-                yuvData = PicUtil.imageToYUV(image, null);
+                lumaData = PicUtil.imageToLuma(image, buffer);
+                metrics.record(PipelineStage.YUV_EXTRACT, System.nanoTime() - extractStart);
+            } catch (RuntimeException e) {
+                framePool.release(buffer);
+                throw e;
             } finally {
                 // 立即关闭 Image，不管提取是否成功
                 image.close();
                 image = null;
             }
+            if (lumaData != buffer) {
+                framePool.release(buffer);
+            }
 
-            if (yuvData == null) {
-                Log.w(TAG, "Failed to extract YUV data from image");
-                return;
+            // 调试录制：模糊帧也录制，回放时与现场的帧序列一致
+            if (frameRecorder.isRecording()) {
+                Pose pose = frame.getCamera().getPose();
+                pose.getTranslation(cameraPose, 0);
+                pose.getRotationQuaternion(cameraPose, 3);
+                frameRecorder.record(lumaData, width, height, FrameRecordFormat.FORMAT_LUMA, 0,
+                        frameTimestampNs, cameraPose);
             }
 
-            // 模糊检测：使用 ImageEnhancer 的方法检测图像清晰度
-            if (!ImageEnhancer.isSharp(yuvData, width, height, BLUR_THRESHOLD)) {
+            // 模糊检测：纯Java稀疏采样估计清晰度，阈值与 ImageEnhancer.isSharp 相同
+            long sharpnessStart = System.nanoTime();
+            boolean sharp = SharpnessEstimator.isSharp(lumaData, width, height, BLUR_THRESHOLD);
+            metrics.record(PipelineStage.SHARPNESS, System.nanoTime() - sharpnessStart);
+            if (!sharp) {
+                blurryFramesCounter.inc();
+                framePool.release(lumaData);
                 return; // 图像模糊，跳过解码
             }
 
-            // 异步解码 YUV 数据（此时 Image 已关闭，使用的是 Java 堆内存中的数据）
-            barcodeDecoder.decodeYuv(yuvData, width, height, 0, new BarcodeDecoder.DecodeCallback() {
+            // 异步解码亮度数据（此时 Image 已关闭，使用的是 Java 堆内存中的数据）
+            // 缓冲区所有权交给解码器，回调时归还到池中
+            barcodeDecoder.decodeLuma(lumaData, width, height, 0, frameTimestampNs, new BarcodeDecoder.DecodeCallback() {
                 @Override
                 public void onSuccess(List<BarcodeResult> results) {
+                    framePool.release(lumaData);
+                    metrics.recordFrameAge(PipelineStage.FRAME_TO_RESULT, frameStartNs, System.nanoTime());
                     if (!results.isEmpty()) {
-                        onBarcodesDetected(results);
+                        onBarcodesDetected(results, frameStartNs);
                     }
                 }
 
                 @Override
                 public void onFailure(Exception e) {
+                    framePool.release(lumaData);
                     Log.e(TAG, "Barcode scan failed", e);
                 }
             });
@@ -661,23 +717,26 @@ public class BarcodeARActivity extends AppCompatActivity implements GLSurfaceVie
 
     /**
      * 条码检测回调
-     * 每帧只为一个新条码创建锚点，避免瞬间创建过多锚点导致 ARCore 崩溃
+     * 一帧中所有新条码打包成一个批次，在 GL 线程的一个任务中完成去重、命中测试和锚点创建
+     *
+     * @param frameStartNs 来源帧交给应用时的 System.nanoTime()
      */
-    private void onBarcodesDetected(List<BarcodeResult> results) {
+    private void onBarcodesDetected(List<BarcodeResult> results, long frameStartNs) {
         if (results.isEmpty() || currentFrame == null) {
             return;
         }
 
-        Log.i(TAG, "Detected " + results.size() + " barcodes in this frame");
-
-        int viewWidth = glSurfaceView.getWidth();
-        int viewHeight = glSurfaceView.getHeight();
+        barcodesDetectedCounter.add(results.size());
+        if (registry.isDebugLogEnabled()) {
+            Log.i(TAG, "Detected " + results.size() + " barcodes in this frame");
+        }
 
-        // 找出第一个需要创建锚点的新条码
-        BarcodeResult targetResult = null;
+        // 收集需要创建锚点的新条码（同一帧中重复的内容只取第一个）
+        List<AnchorRequest> batch = new ArrayList<>(results.size());
+        Set<String> batchValues = new HashSet<>();
         for (BarcodeResult result : results) {
             String value = result.getContent();
-            if (value == null || value.isEmpty()) continue;
+            if (value == null || value.isEmpty() || !batchValues.add(value)) continue;
 
             // 检查是否已有锚点
             if (findAnchorByValue(value) != null) {
@@ -691,200 +750,218 @@ public class BarcodeARActivity extends AppCompatActivity implements GLSurfaceVie
                 }
             }
 
-            // 找到第一个需要创建锚点的条码
-            targetResult = result;
-            break;
+            // 获取条码边界框（原始图像坐标）
+            android.graphics.RectF bounds = result.getBoundingBox();
+            if (bounds == null) {
+                continue;
+            }
+            batch.add(new AnchorRequest(value, bounds.centerX(), bounds.centerY(),
+                    bounds.width(), bounds.height(), frameStartNs));
+            if (batch.size() >= MAX_ANCHORS_PER_BATCH) {
+                break;
+            }
         }
 
-        if (targetResult == null) {
+        if (batch.isEmpty()) {
             return; // 所有条码都已有锚点
         }
 
-        // 获取条码边界框（原始图像坐标）
-        android.graphics.RectF bounds = targetResult.getBoundingBox();
-        if (bounds == null) {
-            return;
+        if (registry.isDebugLogEnabled()) {
+            Log.i(TAG, "Creating anchors for " + batch.size() + " barcodes");
         }
 
-        String value = targetResult.getContent();
-        float centerX = bounds.centerX();
-        float centerY = bounds.centerY();
-        float barcodeWidth = bounds.width();
-        float barcodeHeight = bounds.height();
-
-        // 立即进行坐标转换（使用当前帧）
-        float normalizedX = centerX / imageWidth;
-        float normalizedY = centerY / imageHeight;
-        float[] normalizedCoords = new float[]{normalizedX, normalizedY};
-        float[] viewCoords = new float[2];
-        try {
-            currentFrame.transformCoordinates2d(
-                    Coordinates2d.IMAGE_NORMALIZED,
-                    normalizedCoords,
-                    Coordinates2d.VIEW,
-                    viewCoords
-            );
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to transform coordinates", e);
-            return;
-        }
-        float screenX = viewCoords[0];
-        float screenY = viewCoords[1];
-
-        Log.i(TAG, "Creating anchor for: " + value + " at pixel(" + centerX + ", " + centerY + ")");
-
         // 在GL线程中创建锚点
-        final String fv = value;
-        final float fx = centerX;
-        final float fy = centerY;
-        final float fw = barcodeWidth;
-        final float fh = barcodeHeight;
+        glSurfaceView.queueEvent(() -> createAnchorsBatch(batch));
+    }
 
-        glSurfaceView.queueEvent(() -> createAnchorDirect(fx, fy, fw, fh, fv));
+    /**
+     * 待创建锚点的条码（原始图像坐标）
+     */
+    private static class AnchorRequest {
+        final String barcodeValue;
+        final float pixelX;
+        final float pixelY;
+        final float barcodeWidth;
+        final float barcodeHeight;
+        // 条码来源帧交给应用时的 System.nanoTime()，用于统计帧到锚点的端到端延迟（0 表示未知）
+        final long frameStartNs;
+
+        AnchorRequest(String barcodeValue, float pixelX, float pixelY, float barcodeWidth, float barcodeHeight,
+                      long frameStartNs) {
+            this.barcodeValue = barcodeValue;
+            this.pixelX = pixelX;
+            this.pixelY = pixelY;
+            this.barcodeWidth = barcodeWidth;
+            this.barcodeHeight = barcodeHeight;
+            this.frameStartNs = frameStartNs;
+        }
     }
 
     /**
-     * 直接创建锚点 - 必须在 GL 线程调用
+     * 批量创建锚点 - 必须在 GL 线程调用
+     * <p>
+     * 追踪状态和相机参数只读取一次。每个条码先命中测试得到世界坐标，
+     * 再按物理距离与已有锚点去重（体素索引，离开视野的锚点同样参与）；
+     * 批次内新建的锚点立即登记，在后续条码的去重中视为已占用。
      */
-    private void createAnchorDirect(float pixelX, float pixelY, float barcodeWidth, float barcodeHeight, String barcodeValue) {
+    private void createAnchorsBatch(List<AnchorRequest> batch) {
         if (session == null || currentFrame == null || imageWidth == 0 || imageHeight == 0) {
             return;
         }
-
-//        // 检查锚点创建间隔，避免短时间内创建过多锚点
-//        long now = System.currentTimeMillis();
-//        if (now - lastAnchorCreateTime < ANCHOR_CREATE_INTERVAL_MS) {
-//            Log.d(TAG, "Anchor creation throttled for: " + barcodeValue);
-//            // 移除注册，允许下次重试
-//            synchronized (barcodeLock) {
-//                registeredBarcodes.remove(barcodeValue);
-//            }
-//            return;
-//        }
+        long batchStart = System.nanoTime();
 
         try {
             Camera camera = currentFrame.getCamera();
             if (camera.getTrackingState() != TrackingState.TRACKING) {
                 return;
             }
-
-            int viewWidth = glSurfaceView.getWidth();
-            int viewHeight = glSurfaceView.getHeight();
-
-            // 坐标转换
-            float normalizedX = pixelX / imageWidth;
-            float normalizedY = pixelY / imageHeight;
-            float[] normalizedCoords = new float[]{normalizedX, normalizedY};
-            float[] viewCoords = new float[2];
+            Pose cameraPose = camera.getPose();
+            // CPU 图像的焦距（像素），与条码边界框同一坐标系
+            float focalLength = camera.getImageIntrinsics().getFocalLength()[0];
+
+            // 一次转换批次内所有条码中心：图像归一化坐标 -> 屏幕坐标
+            int count = batch.size();
+            float[] normalizedCoords = new float[count * 2];
+            for (int i = 0; i < count; i++) {
+                AnchorRequest request = batch.get(i);
+                normalizedCoords[i * 2] = request.pixelX / imageWidth;
+                normalizedCoords[i * 2 + 1] = request.pixelY / imageHeight;
+            }
+            float[] viewCoords = new float[count * 2];
             currentFrame.transformCoordinates2d(
                     Coordinates2d.IMAGE_NORMALIZED,
                     normalizedCoords,
                     Coordinates2d.VIEW,
                     viewCoords
             );
-            float screenX = viewCoords[0];
-            float screenY = viewCoords[1];
 
-            // 查找已有锚点
-            AnchorData existingAnchor = findAnchorByValue(barcodeValue);
-
-            if (existingAnchor != null) {
-                if (existingAnchor.anchor.getTrackingState() == TrackingState.STOPPED) {
-                    existingAnchor.anchor.detach();
-                    anchors.remove(existingAnchor);
-                    Log.i(TAG, "Replacing STOPPED anchor for: " + barcodeValue);
-                } else {
-                    return;
+            int created = 0;
+            for (int i = 0; i < count; i++) {
+                AnchorRequest request = batch.get(i);
+                if (anchors.size() >= MAX_ANCHORS) {
+                    Log.w(TAG, "Max anchors reached, skip remaining " + (count - i) + " barcodes");
+                    break;
                 }
-            } else {
-                float minBarcodeDim = Math.min(barcodeWidth, barcodeHeight);
-                float avgScale = ((float) viewWidth / imageWidth + (float) viewHeight / imageHeight) / 2.0f;
-                float threshold = Math.max(minBarcodeDim * avgScale * 0.5f, 20.0f);
 
-                if (isScreenPositionOccupied(screenX, screenY, threshold)) {
-                    Log.i(TAG, "Position occupied, skip: " + barcodeValue);
-                    return;
+                // 查找已有锚点（解码回调与本任务之间可能已为该条码创建了锚点）
+                AnchorData existingAnchor = findAnchorByValue(request.barcodeValue);
+                boolean replacing = false;
+                if (existingAnchor != null) {
+                    if (existingAnchor.anchor.getTrackingState() != TrackingState.STOPPED) {
+                        continue;
+                    }
+                    replacing = true;
                 }
 
-                synchronized (barcodeLock) {
-                    registeredBarcodes.add(barcodeValue);
+                HitResult hit = hitTestForAnchor(viewCoords[i * 2], viewCoords[i * 2 + 1], request.barcodeValue);
+                if (hit == null) {
+                    continue;
                 }
-            }
-
-            // 创建锚点
-            Anchor anchor = null;
-            boolean isInstantPlacement = false;
+                Pose hitPose = hit.getHitPose();
 
-            if (usePlaneDetection) {
-                List<HitResult> hitResults = currentFrame.hitTest(screenX, screenY);
-                for (HitResult hit : hitResults) {
-                    if (hit.getTrackable() instanceof Plane) {
-                        Plane plane = (Plane) hit.getTrackable();
-                        if (plane.getTrackingState() == TrackingState.TRACKING) {
-                            anchor = hit.createAnchor();
-                            isInstantPlacement = false;
-                            Log.i(TAG, "Anchor created on plane for: " + barcodeValue);
-                            break;
+                if (replacing) {
+                    existingAnchor.anchor.detach();
+                    anchors.remove(request.barcodeValue);
+                    Log.i(TAG, "Replacing STOPPED anchor for: " + request.barcodeValue);
+                } else {
+                    float radius = dedupRadius(request, hitPose, cameraPose, focalLength);
+                    if (anchors.isOccupied(hitPose.tx(), hitPose.ty(), hitPose.tz(), radius)) {
+                        positionOccupiedCounter.inc();
+                        if (registry.isDebugLogEnabled()) {
+                            Log.i(TAG, "Position occupied, skip: " + request.barcodeValue);
                         }
+                        continue;
                     }
-                }
-                if (anchor == null) {
-                    float approximateDistanceMeters = 0.5f;
-                    List<HitResult> instantHits = currentFrame.hitTestInstantPlacement(screenX, screenY, approximateDistanceMeters);
-                    if (!instantHits.isEmpty()) {
-                        InstantPlacementPoint point = (InstantPlacementPoint) instantHits.get(0).getTrackable();
-                        anchor = point.createAnchor(point.getPose());
-                        isInstantPlacement = true;
-                        Log.i(TAG, "Anchor created with InstantPlacement for: " + barcodeValue);
-                    } else {
-                        Log.w(TAG, "Failed to create anchor for: " + barcodeValue);
-                        return;
+
+                    synchronized (barcodeLock) {
+                        registeredBarcodes.add(request.barcodeValue);
                     }
                 }
-            } else {
-                float approximateDistanceMeters = 0.5f;
-                List<HitResult> hitResults = currentFrame.hitTestInstantPlacement(screenX, screenY, approximateDistanceMeters);
-                if (hitResults.isEmpty()) {
-                    Log.w(TAG, "hitTestInstantPlacement failed for: " + barcodeValue);
-                    return;
-                }
-                InstantPlacementPoint point = (InstantPlacementPoint) hitResults.get(0).getTrackable();
-                anchor = point.createAnchor(point.getPose());
-                isInstantPlacement = true;
+
+                AnchorData anchorData = createAnchorFromHit(hit, request.barcodeValue);
+                Pose anchorPose = anchorData.anchor.getPose();
+                anchors.add(request.barcodeValue, anchorData, anchorPose.tx(), anchorPose.ty(), anchorPose.tz());
+                created++;
+                anchorsCreatedCounter.inc();
+                metrics.recordFrameAge(PipelineStage.FRAME_TO_ANCHOR, request.frameStartNs, System.nanoTime());
+                Log.i(TAG, "Anchor created for: " + request.barcodeValue + ", isInstantPlacement: "
+                        + anchorData.isInstantPlacement + ", total: " + anchors.size());
             }
 
-            if (anchor != null) {
-                if (anchors.size() >= MAX_ANCHORS) {
-                    Log.w(TAG, "Max anchors reached, skip: " + barcodeValue);
-                    anchor.detach();
-                    return;
+            if (created > 0) {
+                anchorsGauge.set(anchors.size());
+                metrics.record(PipelineStage.ANCHOR, System.nanoTime() - batchStart);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to create anchors: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 去重半径（米）：条码短边在命中点深度处的物理尺寸的一半
+     * 像素尺寸按 距离/焦距 换算为米，与原屏幕阈值（短边像素的一半）含义相同
+     */
+    private static float dedupRadius(AnchorRequest request, Pose hitPose, Pose cameraPose, float focalLength) {
+        float dx = hitPose.tx() - cameraPose.tx();
+        float dy = hitPose.ty() - cameraPose.ty();
+        float dz = hitPose.tz() - cameraPose.tz();
+        float distance = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+        float metersPerPixel = focalLength > 0 ? distance / focalLength : 0;
+        float minBarcodeDim = Math.min(request.barcodeWidth, request.barcodeHeight);
+        return Math.max(minBarcodeDim * metersPerPixel * 0.5f, MIN_DEDUP_RADIUS_M);
+    }
+
+    /**
+     * 在屏幕坐标处命中测试 - 必须在 GL 线程调用
+     * 平面检测模式优先命中已追踪的平面，否则使用即时放置
+     *
+     * @return 命中结果，失败时返回 null
+     */
+    private HitResult hitTestForAnchor(float screenX, float screenY, String barcodeValue) {
+        if (usePlaneDetection) {
+            List<HitResult> hitResults = currentFrame.hitTest(screenX, screenY);
+            for (HitResult hit : hitResults) {
+                if (hit.getTrackable() instanceof Plane) {
+                    Plane plane = (Plane) hit.getTrackable();
+                    if (plane.getTrackingState() == TrackingState.TRACKING) {
+                        return hit;
+                    }
                 }
-                AnchorData anchorData = new AnchorData(anchor, barcodeValue, isInstantPlacement);
-                anchorData.screenX = screenX;
-                anchorData.screenY = screenY;
-                anchorData.lastValidScreenX = screenX;
-                anchorData.lastValidScreenY = screenY;
-                anchors.add(anchorData);
-                // 更新最后创建时间
-//                lastAnchorCreateTime = System.currentTimeMillis();
-                Log.i(TAG, "Anchor created for: " + barcodeValue + ", isInstantPlacement: " + isInstantPlacement + ", total: " + anchors.size());
             }
+        }
+        float approximateDistanceMeters = 0.5f;
+        List<HitResult> instantHits = currentFrame.hitTestInstantPlacement(screenX, screenY, approximateDistanceMeters);
+        if (instantHits.isEmpty()) {
+            anchorFailuresCounter.inc();
+            Log.w(TAG, "hitTestInstantPlacement failed for: " + barcodeValue);
+            return null;
+        }
+        return instantHits.get(0);
+    }
 
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to create anchor: " + e.getMessage(), e);
+    /**
+     * 在命中点创建锚点 - 必须在 GL 线程调用
+     */
+    private AnchorData createAnchorFromHit(HitResult hit, String barcodeValue) {
+        if (hit.getTrackable() instanceof InstantPlacementPoint) {
+            InstantPlacementPoint point = (InstantPlacementPoint) hit.getTrackable();
+            Anchor anchor = point.createAnchor(point.getPose());
+            if (usePlaneDetection) {
+                Log.i(TAG, "Anchor created with InstantPlacement for: " + barcodeValue);
+            }
+            return new AnchorData(anchor, barcodeValue, true);
         }
+        Anchor anchor = hit.createAnchor();
+        Log.i(TAG, "Anchor created on plane for: " + barcodeValue);
+        return new AnchorData(anchor, barcodeValue, false);
     }
 
     /**
      * 根据条码值查找已有锚点
      */
     private AnchorData findAnchorByValue(String barcodeValue) {
-        for (AnchorData data : anchors) {
-            if (data.barcodeValue.equals(barcodeValue)) {
-                return data;
-            }
-        }
-        return null;
+        AnchorRegistry.Entry<AnchorData> entry = anchors.get(barcodeValue);
+        return entry != null ? entry.getPayload() : null;
     }
 
     private boolean checkCameraPermission() {
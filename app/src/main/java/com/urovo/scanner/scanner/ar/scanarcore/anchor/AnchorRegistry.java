@@ -0,0 +1,258 @@
+package com.urovo.scanner.scanner.ar.scanarcore.anchor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 锚点注册表：按条码内容索引 + 世界坐标体素哈希索引
+ * <p>
+ * 条码内容查找使用 {@link ConcurrentHashMap}，可以在解码回调线程调用；
+ * 体素索引把世界空间划分为边长 voxelSize（米）的立方体，每个锚点按其位姿平移登记在一个体素中，
+ * 占用查询只检查半径覆盖的体素（半径不超过体素边长时为 3×3×3 个），与锚点总数无关。
+ * 与屏幕坐标不同，世界坐标不随相机转动失效，离开视野的锚点同样参与去重。
+ * 位置更新只在体素变化时移动登记，适合每帧随 ARCore 位姿修正增量调用。
+ * <p>
+ * 线程安全：{@link #get}、{@link #size}、{@link #entries} 可在任意线程调用；
+ * 其他方法会修改或读取体素索引，应在同一线程（GL 线程）调用。
+ * <p>
+ * 逐帧遍历使用 {@link #entryAt(int)} 按下标访问，不创建迭代器。
+ *
+ * @param <T> 锚点数据类型
+ */
+public class AnchorRegistry<T> {
+
+    /**
+     * 登记项
+     */
+    public static final class Entry<T> {
+        private final String value;
+        private final T payload;
+        private float x;
+        private float y;
+        private float z;
+        private long cellKey;
+        // 在按下标遍历的列表中的位置
+        private int index;
+
+        Entry(String value, T payload) {
+            this.value = value;
+            this.payload = payload;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+
+        /**
+         * 登记位置（世界坐标，米）
+         */
+        public float getX() {
+            return x;
+        }
+
+        public float getY() {
+            return y;
+        }
+
+        public float getZ() {
+            return z;
+        }
+    }
+
+    // 每个轴的体素坐标占 21 位（有符号），体素边长 0.1 米时覆盖 ±100 公里
+    private static final int AXIS_BITS = 21;
+    private static final long AXIS_MASK = (1L << AXIS_BITS) - 1;
+
+    private final float voxelSize;
+    private final Map<String, Entry<T>> byValue = new ConcurrentHashMap<>();
+    private final Map<Long, ArrayList<Entry<T>>> grid = new HashMap<>();
+    // 与 byValue 内容相同，供 GL 线程按下标遍历；删除时与末尾交换
+    private final ArrayList<Entry<T>> dense = new ArrayList<>();
+
+    /**
+     * @param voxelSize 体素边长（米），取常见去重半径附近的值
+     */
+    public AnchorRegistry(float voxelSize) {
+        if (voxelSize <= 0) {
+            throw new IllegalArgumentException("Invalid voxel size: " + voxelSize);
+        }
+        this.voxelSize = voxelSize;
+    }
+
+    /**
+     * 登记锚点（同内容的旧登记会被替换）
+     *
+     * @param x 初始位置（世界坐标，米）
+     */
+    public Entry<T> add(String value, T payload, float x, float y, float z) {
+        Entry<T> previous = byValue.get(value);
+        if (previous != null) {
+            removeFromCell(previous);
+            removeFromDense(previous);
+        }
+        Entry<T> entry = new Entry<>(value, payload);
+        entry.x = x;
+        entry.y = y;
+        entry.z = z;
+        entry.cellKey = cellKey(x, y, z);
+        addToCell(entry);
+        entry.index = dense.size();
+        dense.add(entry);
+        byValue.put(value, entry);
+        return entry;
+    }
+
+    /**
+     * 按条码内容查找
+     */
+    public Entry<T> get(String value) {
+        return byValue.get(value);
+    }
+
+    /**
+     * 移除登记
+     *
+     * @return 被移除的登记项，不存在时为 null
+     */
+    public Entry<T> remove(String value) {
+        Entry<T> entry = byValue.remove(value);
+        if (entry != null) {
+            removeFromCell(entry);
+            removeFromDense(entry);
+        }
+        return entry;
+    }
+
+    /**
+     * 更新位置（体素不变时只更新坐标）
+     */
+    public void moveTo(Entry<T> entry, float x, float y, float z) {
+        entry.x = x;
+        entry.y = y;
+        entry.z = z;
+        long key = cellKey(x, y, z);
+        if (key != entry.cellKey) {
+            removeFromCell(entry);
+            entry.cellKey = key;
+            addToCell(entry);
+        }
+    }
+
+    /**
+     * 指定位置 radius 半径内是否有已登记的锚点
+     *
+     * @param radius 距离阈值（米）
+     */
+    public boolean isOccupied(float x, float y, float z, float radius) {
+        return findNearest(x, y, z, radius) != null;
+    }
+
+    /**
+     * 查找 radius 半径内距离最近的锚点
+     *
+     * @param radius 距离阈值（米）
+     * @return 半径内没有锚点时返回 null
+     */
+    public Entry<T> findNearest(float x, float y, float z, float radius) {
+        float bestSq = radius * radius;
+        Entry<T> best = null;
+        int range = Math.max(1, (int) Math.ceil(radius / voxelSize));
+        int cx = cellCoord(x);
+        int cy = cellCoord(y);
+        int cz = cellCoord(z);
+        for (int gz = cz - range; gz <= cz + range; gz++) {
+            for (int gy = cy - range; gy <= cy + range; gy++) {
+                for (int gx = cx - range; gx <= cx + range; gx++) {
+                    ArrayList<Entry<T>> cell = grid.get(key(gx, gy, gz));
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (int i = 0; i < cell.size(); i++) {
+                        Entry<T> entry = cell.get(i);
+                        float dx = entry.x - x;
+                        float dy = entry.y - y;
+                        float dz = entry.z - z;
+                        float distanceSq = dx * dx + dy * dy + dz * dz;
+                        if (distanceSq < bestSq) {
+                            bestSq = distanceSq;
+                            best = entry;
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    public int size() {
+        return byValue.size();
+    }
+
+    /**
+     * 按下标访问登记项（0 到 {@link #size()} - 1），顺序不固定，只能在 GL 线程调用
+     * 遍历期间不能增删登记
+     */
+    public Entry<T> entryAt(int index) {
+        return dense.get(index);
+    }
+
+    /**
+     * 所有登记项（弱一致视图，遍历期间的修改可能不可见）
+     */
+    public Collection<Entry<T>> entries() {
+        return byValue.values();
+    }
+
+    public void clear() {
+        byValue.clear();
+        grid.clear();
+        dense.clear();
+    }
+
+    private void addToCell(Entry<T> entry) {
+        ArrayList<Entry<T>> cell = grid.get(entry.cellKey);
+        if (cell == null) {
+            cell = new ArrayList<>(4);
+            grid.put(entry.cellKey, cell);
+        }
+        cell.add(entry);
+    }
+
+    private void removeFromCell(Entry<T> entry) {
+        ArrayList<Entry<T>> cell = grid.get(entry.cellKey);
+        if (cell == null) {
+            return;
+        }
+        cell.remove(entry);
+        if (cell.isEmpty()) {
+            grid.remove(entry.cellKey);
+        }
+    }
+
+    private void removeFromDense(Entry<T> entry) {
+        int last = dense.size() - 1;
+        Entry<T> moved = dense.get(last);
+        dense.set(entry.index, moved);
+        moved.index = entry.index;
+        dense.remove(last);
+    }
+
+    private int cellCoord(float value) {
+        return (int) Math.floor(value / voxelSize);
+    }
+
+    private long cellKey(float x, float y, float z) {
+        return key(cellCoord(x), cellCoord(y), cellCoord(z));
+    }
+
+    private static long key(int gx, int gy, int gz) {
+        return ((gx & AXIS_MASK) << (AXIS_BITS * 2)) | ((gy & AXIS_MASK) << AXIS_BITS) | (gz & AXIS_MASK);
+    }
+}
@@ -0,0 +1,410 @@
+package com.urovo.scanner.scanner.ar.scanarcore.decoder;
+
+import android.util.Log;
+
+import com.urovo.scanner.scanner.ar.scanarcore.util.SharpnessEstimator;
+
+import java.util.Arrays;
+
+/**
+ * 自适应图像增强控制器
+ * <p>
+ * 按滑动窗口统计最近若干帧的解码成功率、清晰度和亮度直方图，逐帧决定是否增强：
+ * <ul>
+ *     <li>原始解码成功率低于开启阈值，且光照不理想（过暗、过亮或对比度低）时开启增强；</li>
+ *     <li>增强期间光照良好的帧仍按原始数据解码，另外每隔若干帧插入一次原始解码探测，
+ *     原始成功率恢复到关闭阈值以上时关闭增强；</li>
+ *     <li>增强参数随窗口统计调整：对比度越低 clipLimit 越大，清晰度越低锐化越强。</li>
+ * </ul>
+ * 参数按固定步长量化，避免 CLAHE 每帧重新配置。
+ * <p>
+ * 线程安全说明：所有方法都可以在解码工作线程中并发调用。
+ */
+public class AdaptiveEnhanceController {
+
+    private static final String TAG = "AdaptiveEnhance";
+
+    // 亮度统计采样点数上限
+    private static final int BRIGHTNESS_SAMPLES = 4096;
+
+    /**
+     * 控制参数
+     */
+    public static class Config {
+        /** 滑动窗口帧数 */
+        public int windowSize = 30;
+        /** 做出开启决定前至少需要的原始解码帧数 */
+        public int minFramesForDecision = 10;
+        /** 原始解码成功率低于此值时考虑开启增强 */
+        public float enableBelowSuccessRate = 0.3f;
+        /** 增强期间原始探测成功率高于此值时关闭增强 */
+        public float disableAboveSuccessRate = 0.6f;
+        /** 增强期间每隔多少帧插入一次原始解码探测 */
+        public int rawProbeInterval = 8;
+
+        /** 平均亮度低于此值视为过暗 */
+        public int darkMean = 60;
+        /** 平均亮度高于此值视为过亮 */
+        public int brightMean = 190;
+        /** 5%-95% 亮度跨度低于此值视为低对比度 */
+        public int lowContrast = 60;
+
+        /** clipLimit 调整范围 */
+        public float minClipLimit = 1.5f;
+        public float maxClipLimit = 4.0f;
+        /** 锐化强度调整范围 */
+        public float minSharpenStrength = 0.1f;
+        public float maxSharpenStrength = 0.6f;
+        /** 清晰度达到此值时使用最小锐化强度 */
+        public double sharpnessReference = 400;
+        /** CLAHE 网格大小（不自动调整） */
+        public int claheTileSize = 16;
+
+        public Config() {
+        }
+    }
+
+    /**
+     * 控制器状态快照
+     */
+    public static class Stats {
+        /** 当前是否处于增强状态 */
+        public final boolean enhancing;
+        /** 累计观察帧数 */
+        public final long framesObserved;
+        /** 累计增强帧数 */
+        public final long framesEnhanced;
+        /** 累计开启/关闭次数 */
+        public final long enableCount;
+        public final long disableCount;
+        /** 窗口内原始解码成功率（无原始帧时为 -1） */
+        public final float rawSuccessRate;
+        /** 窗口内增强解码成功率（无增强帧时为 -1） */
+        public final float enhancedSuccessRate;
+        /** 窗口内平均清晰度 */
+        public final double meanSharpness;
+        /** 窗口内平均亮度 */
+        public final float meanBrightness;
+        /** 窗口内平均对比度（5%-95% 亮度跨度） */
+        public final float meanContrast;
+        /** 当前增强参数 */
+        public final float claheClipLimit;
+        public final float sharpenStrength;
+        /** 最近一次状态变化的原因 */
+        public final String lastReason;
+
+        Stats(boolean enhancing, long framesObserved, long framesEnhanced, long enableCount, long disableCount,
+              float rawSuccessRate, float enhancedSuccessRate, double meanSharpness,
+              float meanBrightness, float meanContrast, float claheClipLimit, float sharpenStrength,
+              String lastReason) {
+            this.enhancing = enhancing;
+            this.framesObserved = framesObserved;
+            this.framesEnhanced = framesEnhanced;
+            this.enableCount = enableCount;
+            this.disableCount = disableCount;
+            this.rawSuccessRate = rawSuccessRate;
+            this.enhancedSuccessRate = enhancedSuccessRate;
+            this.meanSharpness = meanSharpness;
+            this.meanBrightness = meanBrightness;
+            this.meanContrast = meanContrast;
+            this.claheClipLimit = claheClipLimit;
+            this.sharpenStrength = sharpenStrength;
+            this.lastReason = lastReason;
+        }
+
+        @Override
+        public String toString() {
+            return "AdaptiveEnhanceStats{" +
+                    "enhancing=" + enhancing +
+                    ", observed=" + framesObserved +
+                    ", enhanced=" + framesEnhanced +
+                    ", on/off=" + enableCount + "/" + disableCount +
+                    ", rawRate=" + String.format("%.2f", rawSuccessRate) +
+                    ", enhancedRate=" + String.format("%.2f", enhancedSuccessRate) +
+                    ", sharpness=" + String.format("%.0f", meanSharpness) +
+                    ", brightness=" + String.format("%.0f", meanBrightness) +
+                    ", contrast=" + String.format("%.0f", meanContrast) +
+                    ", clip=" + claheClipLimit +
+                    ", sharpen=" + sharpenStrength +
+                    ", reason=" + lastReason +
+                    '}';
+        }
+    }
+
+    /**
+     * 单帧决策
+     * <p>
+     * 由 {@link #beginFrame} 返回，解码完成后交回 {@link #endFrame}。
+     */
+    public static class FrameDecision {
+        /** 本帧使用的增强配置，null 表示按原始数据解码 */
+        public final BarcodeDecoder.EnhanceConfig enhance;
+        final int slot;
+
+        FrameDecision(BarcodeDecoder.EnhanceConfig enhance, int slot) {
+            this.enhance = enhance;
+            this.slot = slot;
+        }
+    }
+
+    private final Config config;
+
+    // 滑动窗口（环形数组）
+    private final boolean[] windowEnhanced;
+    private final boolean[] windowSuccess;
+    private final boolean[] windowDone;
+    private final double[] windowSharpness;
+    private final float[] windowBrightness;
+    private final float[] windowContrast;
+    private int windowNext = 0;
+    private int windowCount = 0;
+
+    private final int[] histogram = new int[256];
+
+    private boolean enhancing = false;
+    private long framesObserved = 0;
+    private long framesEnhanced = 0;
+    private long enableCount = 0;
+    private long disableCount = 0;
+    private int framesSinceProbe = 0;
+    private String lastReason = "initial";
+
+    private BarcodeDecoder.EnhanceConfig currentEnhance;
+
+    // countOutcomes() 的结果，逐帧更新时不分配数组
+    private float rawSuccessRate;
+    private float enhancedSuccessRate;
+    private int rawFrames;
+
+    public AdaptiveEnhanceController() {
+        this(new Config());
+    }
+
+    public AdaptiveEnhanceController(Config config) {
+        this.config = config;
+        int size = Math.max(4, config.windowSize);
+        windowEnhanced = new boolean[size];
+        windowSuccess = new boolean[size];
+        windowDone = new boolean[size];
+        windowSharpness = new double[size];
+        windowBrightness = new float[size];
+        windowContrast = new float[size];
+        currentEnhance = new BarcodeDecoder.EnhanceConfig(true, config.minClipLimit,
+                config.claheTileSize, config.minSharpenStrength);
+    }
+
+    /**
+     * 分析一帧并决定是否增强（在解码前调用）
+     *
+     * @param luma   Y数据（只读取前 width*height 字节）
+     * @param width  图像宽度
+     * @param height 图像高度
+     */
+    public FrameDecision beginFrame(byte[] luma, int width, int height) {
+        double sharpness = SharpnessEstimator.estimate(luma, width, height);
+
+        synchronized (this) {
+            analyzeBrightness(luma, width, height);
+            float brightness = histogramMean();
+            float contrast = histogramPercentile(0.95f) - histogramPercentile(0.05f);
+            boolean goodLighting = brightness >= config.darkMean && brightness <= config.brightMean
+                    && contrast >= config.lowContrast;
+
+            updateState();
+
+            boolean enhance = false;
+            if (enhancing && !goodLighting) {
+                // 增强期间定期插入原始探测帧，用于判断原始解码是否已经恢复
+                if (++framesSinceProbe >= config.rawProbeInterval) {
+                    framesSinceProbe = 0;
+                } else {
+                    enhance = true;
+                }
+            }
+
+            int slot = windowNext;
+            windowNext = (windowNext + 1) % windowEnhanced.length;
+            windowCount = Math.min(windowCount + 1, windowEnhanced.length);
+            windowEnhanced[slot] = enhance;
+            windowSuccess[slot] = false;
+            windowDone[slot] = false;
+            windowSharpness[slot] = sharpness;
+            windowBrightness[slot] = brightness;
+            windowContrast[slot] = contrast;
+
+            framesObserved++;
+            if (enhance) {
+                framesEnhanced++;
+            }
+            return new FrameDecision(enhance ? currentEnhance : null, slot);
+        }
+    }
+
+    /**
+     * 记录一帧的解码结果（在解码后调用）
+     *
+     * @param decision {@link #beginFrame} 的返回值
+     * @param success  是否解出至少一个条码
+     */
+    public synchronized void endFrame(FrameDecision decision, boolean success) {
+        windowSuccess[decision.slot] = success;
+        windowDone[decision.slot] = true;
+    }
+
+    /**
+     * 获取当前状态
+     */
+    public synchronized Stats getStats() {
+        countOutcomes();
+        return new Stats(enhancing, framesObserved, framesEnhanced, enableCount, disableCount,
+                rawSuccessRate, enhancedSuccessRate, meanSharpness(), mean(windowBrightness), mean(windowContrast),
+                currentEnhance.claheClipLimit, currentEnhance.sharpenStrength, lastReason);
+    }
+
+    /**
+     * 根据窗口统计切换增强状态、调整参数
+     */
+    private void updateState() {
+        countOutcomes();
+        float rawRate = rawSuccessRate;
+
+        float meanBrightness = mean(windowBrightness);
+        float meanContrast = mean(windowContrast);
+        boolean poorLighting = meanBrightness < config.darkMean || meanBrightness > config.brightMean
+                || meanContrast < config.lowContrast;
+
+        if (!enhancing) {
+            if (rawFrames >= config.minFramesForDecision && rawRate < config.enableBelowSuccessRate && poorLighting) {
+                enhancing = true;
+                enableCount++;
+                framesSinceProbe = 0;
+                lastReason = "raw success " + String.format("%.2f", rawRate) + " with poor lighting"
+                        + " (brightness=" + Math.round(meanBrightness) + ", contrast=" + Math.round(meanContrast) + ")";
+                Log.d(TAG, "Enhancement on: " + lastReason);
+            }
+        } else if (rawFrames > 0 && rawRate > config.disableAboveSuccessRate) {
+            enhancing = false;
+            disableCount++;
+            lastReason = "raw success recovered to " + String.format("%.2f", rawRate);
+            Log.d(TAG, "Enhancement off: " + lastReason);
+        } else if (!poorLighting && rawFrames >= config.minFramesForDecision) {
+            enhancing = false;
+            disableCount++;
+            lastReason = "lighting recovered";
+            Log.d(TAG, "Enhancement off: " + lastReason);
+        }
+
+        if (enhancing) {
+            adjustParameters(meanContrast, meanSharpness());
+        }
+    }
+
+    /**
+     * 对比度越低 clipLimit 越大；清晰度越低锐化越强
+     */
+    private void adjustParameters(float contrast, double sharpness) {
+        float contrastFactor = clamp(1f - contrast / 128f);
+        float clip = config.minClipLimit + (config.maxClipLimit - config.minClipLimit) * contrastFactor;
+
+        float blurFactor = clamp((float) (1.0 - sharpness / config.sharpnessReference));
+        float sharpen = config.minSharpenStrength
+                + (config.maxSharpenStrength - config.minSharpenStrength) * blurFactor;
+
+        // 量化：clipLimit 步长 0.25，锐化步长 0.05
+        clip = Math.round(clip * 4f) / 4f;
+        sharpen = Math.round(sharpen * 20f) / 20f;
+
+        if (clip != currentEnhance.claheClipLimit || sharpen != currentEnhance.sharpenStrength) {
+            currentEnhance = new BarcodeDecoder.EnhanceConfig(true, clip, config.claheTileSize, sharpen);
+        }
+    }
+
+    /**
+     * 统计窗口内已完成的帧，更新 rawSuccessRate、enhancedSuccessRate、rawFrames
+     * 没有样本时成功率为 -1
+     */
+    private void countOutcomes() {
+        int raw = 0, rawSuccess = 0, enhanced = 0, enhancedSuccess = 0;
+        for (int i = 0; i < windowCount; i++) {
+            if (!windowDone[i]) {
+                continue;
+            }
+            if (windowEnhanced[i]) {
+                enhanced++;
+                if (windowSuccess[i]) enhancedSuccess++;
+            } else {
+                raw++;
+                if (windowSuccess[i]) rawSuccess++;
+            }
+        }
+        rawSuccessRate = raw > 0 ? (float) rawSuccess / raw : -1;
+        enhancedSuccessRate = enhanced > 0 ? (float) enhancedSuccess / enhanced : -1;
+        rawFrames = raw;
+    }
+
+    private double meanSharpness() {
+        if (windowCount == 0) {
+            return 0;
+        }
+        double sum = 0;
+        for (int i = 0; i < windowCount; i++) {
+            sum += windowSharpness[i];
+        }
+        return sum / windowCount;
+    }
+
+    private float mean(float[] values) {
+        if (windowCount == 0) {
+            return 0;
+        }
+        float sum = 0;
+        for (int i = 0; i < windowCount; i++) {
+            sum += values[i];
+        }
+        return sum / windowCount;
+    }
+
+    /**
+     * 稀疏采样亮度直方图
+     */
+    private void analyzeBrightness(byte[] luma, int width, int height) {
+        Arrays.fill(histogram, 0);
+        int step = Math.max(1, (int) Math.sqrt((double) width * height / BRIGHTNESS_SAMPLES));
+        for (int y = step / 2; y < height; y += step) {
+            int row = y * width;
+            for (int x = step / 2; x < width; x += step) {
+                histogram[luma[row + x] & 0xff]++;
+            }
+        }
+    }
+
+    private float histogramMean() {
+        long sum = 0;
+        long count = 0;
+        for (int i = 0; i < 256; i++) {
+            sum += (long) i * histogram[i];
+            count += histogram[i];
+        }
+        return count > 0 ? (float) sum / count : 0;
+    }
+
+    private int histogramPercentile(float fraction) {
+        long count = 0;
+        for (int value : histogram) {
+            count += value;
+        }
+        long target = (long) Math.ceil(count * fraction);
+        long cumulative = 0;
+        for (int i = 0; i < 256; i++) {
+            cumulative += histogram[i];
+            if (cumulative >= target && cumulative > 0) {
+                return i;
+            }
+        }
+        return 255;
+    }
+
+    private static float clamp(float value) {
+        return Math.max(0f, Math.min(1f, value));
+    }
+}
@@ -3,6 +3,7 @@ package com.urovo.scanner.scanner.ar.scanarcore.decoder;
 import android.graphics.Bitmap;
 import android.media.Image;
 
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -16,6 +17,57 @@ public interface BarcodeDecoder {
     interface DecodeCallback {
         void onSuccess(List<BarcodeResult> results);
         void onFailure(Exception e);
+
+        /**
+         * 帧因准入策略被丢弃，未进行解码
+         * <p>
+         * 默认按空结果处理，需要区分丢帧的调用方可以覆盖此方法。
+         */
+        default void onDropped() {
+            onSuccess(Collections.emptyList());
+        }
+    }
+
+    /**
+     * 帧丢弃策略（实时帧解码繁忙时新帧的处理方式）
+     */
+    enum FrameDropPolicy {
+        /** 丢弃新帧：解码繁忙时直接丢弃新到达的帧 */
+        DROP_NEWEST,
+        /** 保留最新帧：解码繁忙时新帧替换等待中的帧，被替换的旧帧丢弃 */
+        KEEP_LATEST,
+        /** 有界队列：最多排队 N 帧，队列满时丢弃新帧 */
+        BOUNDED_QUEUE
+    }
+
+    /**
+     * 帧准入统计
+     */
+    class FrameStats {
+        public final FrameDropPolicy policy;
+        /** 已交给解码的帧数 */
+        public final long admitted;
+        /** 未解码即被丢弃的帧数 */
+        public final long dropped;
+        /** 当前等待解码的帧数 */
+        public final int pending;
+
+        public FrameStats(FrameDropPolicy policy, long admitted, long dropped, int pending) {
+            this.policy = policy;
+            this.admitted = admitted;
+            this.dropped = dropped;
+            this.pending = pending;
+        }
+
+        @Override
+        public String toString() {
+            return "FrameStats{" +
+                    "policy=" + policy +
+                    ", admitted=" + admitted +
+                    ", dropped=" + dropped +
+                    ", pending=" + pending +
+                    '}';
+        }
     }
 
     /**
@@ -45,6 +97,22 @@ public interface BarcodeDecoder {
      * @param config 增强配置，null 表示禁用增强
      */
     void setEnhanceConfig(EnhanceConfig config);
+
+    /**
+     * 设置实时帧的丢弃策略
+     * <p>
+     * 作用于 decode(Image) 和 decodeYuv()，默认 DROP_NEWEST。
+     * 被丢弃的帧会回调 {@link DecodeCallback#onDropped()}。
+     *
+     * @param policy        丢弃策略
+     * @param queueCapacity BOUNDED_QUEUE 模式下的队列长度，其他模式忽略
+     */
+    void setFrameDropPolicy(FrameDropPolicy policy, int queueCapacity);
+
+    /**
+     * 获取实时帧准入统计
+     */
+    FrameStats getFrameStats();
     
     /**
      * 从Bitmap解码（异步）
@@ -67,6 +135,7 @@ public interface BarcodeDecoder {
      * 从Camera2 Image解码（异步）
      * <p>
      * 如果设置了增强配置且 enabled=true，会先增强再解码。
+     * 结果携带 image.getTimestamp() 作为来源帧时间戳。
      * 
      * @param image YUV_420_888格式图像
      * @param rotationDegrees 图像旋转角度
@@ -107,7 +176,44 @@ public interface BarcodeDecoder {
      * @param rotationDegrees 图像旋转角度
      * @param callback 回调
      */
-    void decodeYuv(byte[] yuvData, int width, int height, int rotationDegrees, DecodeCallback callback);
+    default void decodeYuv(byte[] yuvData, int width, int height, int rotationDegrees, DecodeCallback callback) {
+        decodeYuv(yuvData, width, height, rotationDegrees, 0, callback);
+    }
+
+    /**
+     * 从YUV数据解码（异步），结果携带来源帧时间戳
+     *
+     * @param frameTimestampNs 来源帧采集时间戳（纳秒，Frame.getTimestamp()），0 表示未知
+     * @see #decodeYuv(byte[], int, int, int, DecodeCallback)
+     */
+    void decodeYuv(byte[] yuvData, int width, int height, int rotationDegrees, long frameTimestampNs,
+                   DecodeCallback callback);
+
+    /**
+     * 从Y平面（亮度）数据解码实时帧（异步）
+     * <p>
+     * 与 decodeYuv 相同的帧准入策略，但只需要 width*height 字节的亮度数据，
+     * 配合 PicUtil.imageToLuma 使用可以跳过色度平面的提取。
+     * 调用方在回调触发前不得修改 lumaData。
+     *
+     * @param lumaData 亮度数据（行优先紧密排列，长度至少为 width*height）
+     * @param width 图像宽度
+     * @param height 图像高度
+     * @param rotationDegrees 图像旋转角度
+     * @param callback 回调
+     */
+    default void decodeLuma(byte[] lumaData, int width, int height, int rotationDegrees, DecodeCallback callback) {
+        decodeLuma(lumaData, width, height, rotationDegrees, 0, callback);
+    }
+
+    /**
+     * 从Y平面（亮度）数据解码实时帧（异步），结果携带来源帧时间戳
+     *
+     * @param frameTimestampNs 来源帧采集时间戳（纳秒，Frame.getTimestamp()），0 表示未知
+     * @see #decodeLuma(byte[], int, int, int, DecodeCallback)
+     */
+    void decodeLuma(byte[] lumaData, int width, int height, int rotationDegrees, long frameTimestampNs,
+                    DecodeCallback callback);
     
     /**
      * 释放资源
@@ -20,6 +20,9 @@ public class BarcodeResult {
     
     // 解码成功标记
     private final boolean decodeSuccess;
+
+    // 来源帧的采集时间戳（纳秒，Frame.getTimestamp()/Image.getTimestamp()），0 表示未知
+    private final long frameTimestampNs;
     
     public BarcodeResult(String content, String format, PointF centerPoint, 
                          RectF boundingBox, PointF[] cornerPoints) {
@@ -31,11 +34,19 @@ public class BarcodeResult {
         this.roiBox = null;
         this.roiCornerPoints = null;
         this.decodeSuccess = true;
+        this.frameTimestampNs = 0;
     }
     
     public BarcodeResult(String content, String format, PointF centerPoint, 
                          RectF boundingBox, PointF[] cornerPoints,
                          RectF roiBox, PointF[] roiCornerPoints, boolean decodeSuccess) {
+        this(content, format, centerPoint, boundingBox, cornerPoints, roiBox, roiCornerPoints, decodeSuccess, 0);
+    }
+
+    public BarcodeResult(String content, String format, PointF centerPoint,
+                         RectF boundingBox, PointF[] cornerPoints,
+                         RectF roiBox, PointF[] roiCornerPoints, boolean decodeSuccess,
+                         long frameTimestampNs) {
         this.content = content;
         this.format = format;
         this.centerPoint = centerPoint;
@@ -44,6 +55,15 @@ public class BarcodeResult {
         this.roiBox = roiBox;
         this.roiCornerPoints = roiCornerPoints;
         this.decodeSuccess = decodeSuccess;
+        this.frameTimestampNs = frameTimestampNs;
+    }
+
+    /**
+     * 返回带来源帧时间戳的副本（几何对象共享）
+     */
+    public BarcodeResult withFrameTimestamp(long frameTimestampNs) {
+        return new BarcodeResult(content, format, centerPoint, boundingBox, cornerPoints,
+                roiBox, roiCornerPoints, decodeSuccess, frameTimestampNs);
     }
     
     public String getContent() {
@@ -95,6 +115,13 @@ public class BarcodeResult {
     public boolean isDecodeSuccess() {
         return decodeSuccess;
     }
+
+    /**
+     * 来源帧的采集时间戳（纳秒），0 表示未知
+     */
+    public long getFrameTimestamp() {
+        return frameTimestampNs;
+    }
     
     @Override
     public String toString() {
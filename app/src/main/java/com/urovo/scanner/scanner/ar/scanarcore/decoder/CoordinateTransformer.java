@@ -107,6 +107,18 @@ public class CoordinateTransformer {
      * @return 屏幕坐标
      */
     public PointF imageToScreen(float imageX, float imageY) {
+        float[] screen = new float[2];
+        imageToScreen(imageX, imageY, screen);
+        return new PointF(screen[0], screen[1]);
+    }
+    
+    /**
+     * 将图像坐标转换为屏幕坐标（写入调用方提供的数组，不分配对象）
+     * @param imageX 图像X坐标
+     * @param imageY 图像Y坐标
+     * @param out 输出数组，写入 out[0]=screenX, out[1]=screenY
+     */
+    public void imageToScreen(float imageX, float imageY, float[] out) {
         float rotatedX, rotatedY;
         
         // 根据旋转角度转换坐标
@@ -133,7 +145,8 @@ public class CoordinateTransformer {
         float screenX = rotatedX * scale + offsetX;
         float screenY = rotatedY * scale + offsetY;
         
-        return new PointF(screenX, screenY);
+        out[0] = screenX;
+        out[1] = screenY;
     }
     
     /**
@@ -0,0 +1,209 @@
+package com.urovo.scanner.scanner.ar.scanarcore.decoder;
+
+import android.util.Log;
+
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 多线程解码引擎
+ * <p>
+ * 固定 N 个工作线程，每个线程持有独立的解码上下文（由 {@link WorkerContextFactory} 创建），
+ * 相邻帧可以在不同线程上重叠解码。
+ * <p>
+ * 结果按帧序交付：提交时通过 {@link #nextSequence()} 领取序号，完成后调用
+ * {@link #deliver(long, Runnable)}，引擎保证交付动作严格按序号顺序执行。
+ * <p>
+ * 后端不是线程安全时（{@link WorkerContextFactory#isThreadSafe()} 返回 false），
+ * 自动退化为单线程执行。
+ *
+ * @param <C> 工作线程上下文类型
+ */
+public class DecodeEngine<C> implements Executor {
+
+    private static final String TAG = "DecodeEngine";
+
+    /**
+     * 工作线程上下文工厂
+     */
+    public interface WorkerContextFactory<C> {
+        /**
+         * 在工作线程中创建该线程专用的上下文
+         *
+         * @param workerIndex 工作线程序号（从0开始）
+         */
+        C create(int workerIndex);
+
+        /**
+         * 销毁上下文（工作线程退出时在该线程中调用）
+         */
+        void destroy(C context);
+
+        /**
+         * 后端是否支持多个上下文并发解码
+         */
+        boolean isThreadSafe();
+    }
+
+    private final String name;
+    private final WorkerContextFactory<C> factory;
+    private final int workerCount;
+    private final ExecutorService executor;
+
+    private final AtomicInteger workerIndex = new AtomicInteger();
+    private final ThreadLocal<C> workerContext = new ThreadLocal<>();
+
+    // 按序交付
+    private final Object deliveryLock = new Object();
+    private final TreeMap<Long, Runnable> completed = new TreeMap<>();
+    private long nextSequence = 0;
+    private long nextDelivery = 0;
+    private boolean delivering = false;
+
+    /**
+     * @param name         引擎名称（用于线程命名）
+     * @param workerCount  期望的工作线程数
+     * @param factory      上下文工厂
+     */
+    public DecodeEngine(String name, int workerCount, WorkerContextFactory<C> factory) {
+        this.name = name;
+        this.factory = factory;
+        this.workerCount = factory.isThreadSafe() ? Math.max(1, workerCount) : 1;
+        this.executor = new ThreadPoolExecutor(this.workerCount, this.workerCount,
+                0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                r -> {
+                    int index = workerIndex.getAndIncrement();
+                    return new Thread(() -> runWorker(index, r), name + "-" + index);
+                });
+
+        Log.i(TAG, name + " started with " + this.workerCount + " worker(s)"
+                + (this.workerCount < workerCount ? " (backend not thread-safe)" : ""));
+    }
+
+    /**
+     * 推荐的工作线程数：保留一个核心给 GL/ARCore 线程
+     */
+    public static int defaultWorkerCount() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    /**
+     * 实际工作线程数
+     */
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
+    /**
+     * 获取当前工作线程的上下文
+     *
+     * @throws IllegalStateException 不在本引擎的工作线程中调用时
+     */
+    public C currentContext() {
+        C context = workerContext.get();
+        if (context == null) {
+            throw new IllegalStateException("Not on a " + name + " worker thread");
+        }
+        return context;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        executor.execute(command);
+    }
+
+    /**
+     * 领取交付序号（按帧到达顺序调用）
+     */
+    public long nextSequence() {
+        synchronized (deliveryLock) {
+            return nextSequence++;
+        }
+    }
+
+    /**
+     * 提交某序号的交付动作
+     * <p>
+     * 前面的序号全部交付之后才会执行，交付在调用方线程中进行。
+     * 每个序号必须且只能交付一次（包括被丢弃的帧），否则后续帧会一直等待。
+     *
+     * @param sequence 由 {@link #nextSequence()} 领取的序号
+     * @param delivery 交付动作（通常是调用回调）
+     */
+    public void deliver(long sequence, Runnable delivery) {
+        synchronized (deliveryLock) {
+            completed.put(sequence, delivery);
+        }
+        drain();
+    }
+
+    /**
+     * 按序执行已完成的交付动作，直到下一个序号尚未完成
+     */
+    private void drain() {
+        synchronized (deliveryLock) {
+            // 已有线程在交付时由它继续处理，避免回调重入乱序
+            if (delivering || !completed.containsKey(nextDelivery)) {
+                return;
+            }
+            delivering = true;
+        }
+
+        boolean drained = false;
+        try {
+            while (true) {
+                Runnable next;
+                synchronized (deliveryLock) {
+                    next = completed.remove(nextDelivery);
+                    if (next == null) {
+                        delivering = false;
+                        drained = true;
+                        return;
+                    }
+                    nextDelivery++;
+                }
+                try {
+                    next.run();
+                } catch (Exception e) {
+                    Log.e(TAG, "Delivery failed", e);
+                }
+            }
+        } finally {
+            if (!drained) {
+                // 回调抛出 Error 时释放交付权并继续交付其余已完成的结果，
+                // 否则这些结果要等下一次 deliver 才会交付，最后几帧则永远不会交付
+                synchronized (deliveryLock) {
+                    delivering = false;
+                }
+                drain();
+            }
+        }
+    }
+
+    /**
+     * 关闭引擎
+     * <p>
+     * 不再接受新任务；已提交的任务执行完后各工作线程退出，并在退出时销毁自己的上下文，
+     * 耗时很长的解码不会在执行中被销毁上下文。
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void runWorker(int index, Runnable loop) {
+        C context = factory.create(index);
+        workerContext.set(context);
+        try {
+            loop.run();
+        } finally {
+            // 线程退出（引擎关闭，或任务抛出异常后线程被替换）时销毁本线程的上下文
+            workerContext.remove();
+            factory.destroy(context);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.urovo.scanner.scanner.ar.scanarcore.decoder;
+
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 帧准入调度器
+ * <p>
+ * 根据 {@link BarcodeDecoder.FrameDropPolicy} 决定解码繁忙时新到达的帧是丢弃、替换还是排队。
+ * 准入判断和状态更新在同一把锁内完成，避免 "检查 isDecoding 再置位" 的竞态。
+ * <p>
+ * 统计口径：admitted 为实际交给执行器解码的帧数，dropped 为未解码即被丢弃的帧数，
+ * 两者之和加上当前等待中的帧数等于提交的总帧数。
+ */
+public class FrameScheduler {
+
+    private static final String TAG = "FrameScheduler";
+
+    /**
+     * 帧任务
+     */
+    public interface FrameTask {
+        /**
+         * 执行解码（在执行器线程中调用）
+         */
+        void run();
+
+        /**
+         * 帧被丢弃，未执行解码（在提交线程或执行器线程中调用）
+         * <p>
+         * 实现方需要在这里通知回调并释放帧持有的缓冲区。
+         */
+        void onDropped();
+    }
+
+    private final Executor executor;
+    private final Object lock = new Object();
+    private final ArrayDeque<FrameTask> pending = new ArrayDeque<>();
+
+    private final int maxInFlight;
+    private int inFlight = 0;
+
+    private BarcodeDecoder.FrameDropPolicy policy = BarcodeDecoder.FrameDropPolicy.DROP_NEWEST;
+    private int queueCapacity = 1;
+
+    private long admittedCount = 0;
+    private long droppedCount = 0;
+
+    /**
+     * @param executor    解码执行器
+     * @param maxInFlight 同时解码的最大帧数
+     */
+    public FrameScheduler(Executor executor, int maxInFlight) {
+        this.executor = executor;
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    /**
+     * 设置帧丢弃策略
+     *
+     * @param policy        丢弃策略
+     * @param queueCapacity BOUNDED_QUEUE 模式下的队列长度，其他模式忽略
+     */
+    public void setPolicy(BarcodeDecoder.FrameDropPolicy policy, int queueCapacity) {
+        ArrayDeque<FrameTask> overflow = new ArrayDeque<>();
+        synchronized (lock) {
+            this.policy = policy != null ? policy : BarcodeDecoder.FrameDropPolicy.DROP_NEWEST;
+            this.queueCapacity = Math.max(1, queueCapacity);
+            // 缩小队列时丢弃多出的旧帧
+            int capacity = pendingCapacity();
+            while (pending.size() > capacity) {
+                overflow.add(pending.pollFirst());
+                droppedCount++;
+            }
+        }
+        for (FrameTask task : overflow) {
+            task.onDropped();
+        }
+    }
+
+    /**
+     * DROP_NEWEST 模式下解码繁忙时直接计为丢帧
+     * <p>
+     * 用于在提交前跳过注定被丢弃的帧的数据提取。
+     *
+     * @return true 表示该帧已计为丢弃，调用方不应再提交
+     */
+    public boolean dropIfBusy() {
+        synchronized (lock) {
+            if (policy == BarcodeDecoder.FrameDropPolicy.DROP_NEWEST && inFlight >= maxInFlight) {
+                droppedCount++;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 提交一帧
+     *
+     * @param task 帧任务
+     * @return true 表示帧被执行或进入等待队列，false 表示帧被立即丢弃
+     */
+    public boolean submit(FrameTask task) {
+        FrameTask dropped = null;
+        boolean dispatch = false;
+
+        synchronized (lock) {
+            if (inFlight < maxInFlight) {
+                inFlight++;
+                admittedCount++;
+                dispatch = true;
+            } else {
+                switch (policy) {
+                    case KEEP_LATEST:
+                        // 用新帧替换等待中的旧帧
+                        dropped = pending.pollFirst();
+                        if (dropped != null) {
+                            droppedCount++;
+                        }
+                        pending.addLast(task);
+                        break;
+                    case BOUNDED_QUEUE:
+                        if (pending.size() < queueCapacity) {
+                            pending.addLast(task);
+                        } else {
+                            dropped = task;
+                            droppedCount++;
+                        }
+                        break;
+                    case DROP_NEWEST:
+                    default:
+                        dropped = task;
+                        droppedCount++;
+                        break;
+                }
+            }
+        }
+
+        if (dropped != null) {
+            dropped.onDropped();
+        }
+        if (dispatch) {
+            return dispatch(task);
+        }
+        return dropped != task;
+    }
+
+    /**
+     * 丢弃所有等待中的帧（释放解码器时调用）
+     */
+    public void clear() {
+        ArrayDeque<FrameTask> drained;
+        synchronized (lock) {
+            drained = new ArrayDeque<>(pending);
+            droppedCount += pending.size();
+            pending.clear();
+        }
+        for (FrameTask task : drained) {
+            task.onDropped();
+        }
+    }
+
+    /**
+     * 获取准入统计
+     */
+    public BarcodeDecoder.FrameStats getStats() {
+        synchronized (lock) {
+            return new BarcodeDecoder.FrameStats(policy, admittedCount, droppedCount, pending.size());
+        }
+    }
+
+    private int pendingCapacity() {
+        switch (policy) {
+            case KEEP_LATEST:
+                return 1;
+            case BOUNDED_QUEUE:
+                return queueCapacity;
+            case DROP_NEWEST:
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * @return false 表示执行器拒绝，该帧已回滚为丢弃
+     */
+    private boolean dispatch(FrameTask task) {
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    onTaskFinished();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "Executor rejected frame, dropping");
+            synchronized (lock) {
+                inFlight--;
+                admittedCount--;
+                droppedCount++;
+            }
+            task.onDropped();
+            return false;
+        }
+    }
+
+    /**
+     * 一帧解码结束：有等待帧则继续调度，否则释放槽位
+     */
+    private void onTaskFinished() {
+        FrameTask next;
+        synchronized (lock) {
+            next = pending.pollFirst();
+            if (next != null) {
+                admittedCount++;
+            } else {
+                inFlight--;
+            }
+        }
+        if (next != null) {
+            dispatch(next);
+        }
+    }
+}
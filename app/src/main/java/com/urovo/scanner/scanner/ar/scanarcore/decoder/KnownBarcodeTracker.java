@@ -0,0 +1,210 @@
+package com.urovo.scanner.scanner.ar.scanarcore.decoder;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 已解码条码的检测框跟踪
+ * <p>
+ * 检测器每帧给出条码区域但不给内容。这里记录已经解出内容的条码及其最近的检测框，
+ * 新一帧的检测框按位置和尺寸与已知条码匹配：匹配上的直接沿用已知内容、更新几何，
+ * 不再调用解码器；只有新出现的、匹配不上的、或距上次解码超过 {@link Config#redecodeInterval}
+ * 帧（重新校验内容）的区域才需要完整解码。
+ * <p>
+ * 检测框使用 [left, top, right, bottom] 数组（与 ROIDetectionResult 相同的坐标系），
+ * 不依赖 Android 图形类。所有方法线程安全。
+ */
+public class KnownBarcodeTracker {
+
+    /**
+     * 匹配参数
+     */
+    public static class Config {
+        /** 中心点最大位移（相对于已知框对角线长度） */
+        public float maxCenterShift = 0.5f;
+        /** 宽、高的最大变化倍数 */
+        public float maxSizeRatio = 1.5f;
+        /** 连续多少帧未检测到后移除 */
+        public int maxMissedFrames = 10;
+        /** 跟踪多少帧后重新解码一次，校验内容 */
+        public int redecodeInterval = 30;
+
+        public Config() {
+        }
+    }
+
+    /**
+     * 已知条码
+     */
+    public static class Track {
+        public final String content;
+        public final String format;
+        // 最近一次的检测框
+        final float[] box = new float[4];
+        long lastSeenFrame;
+        long lastDecodedFrame;
+
+        Track(String content, String format, float[] box, long frame) {
+            this.content = content;
+            this.format = format;
+            System.arraycopy(box, 0, this.box, 0, 4);
+            this.lastSeenFrame = frame;
+            this.lastDecodedFrame = frame;
+        }
+    }
+
+    private final Config config;
+    private final List<Track> tracks = new ArrayList<>();
+    private long frame = 0;
+
+    // 统计
+    private long trackedRegions = 0;
+    private long decodedRegions = 0;
+
+    public KnownBarcodeTracker() {
+        this(new Config());
+    }
+
+    public KnownBarcodeTracker(Config config) {
+        this.config = config;
+    }
+
+    /**
+     * 为一帧的检测框分配已知条码（每帧调用一次）
+     * <p>
+     * 每个已知条码最多匹配一个检测框，按中心距离由近到远贪心分配。
+     * 匹配上的条码更新检测框；长期未出现的条码被移除。
+     *
+     * @param boxes 本帧检测框，每个为 [left, top, right, bottom]
+     * @return 与 boxes 一一对应的已知条码；null 表示该区域需要完整解码
+     */
+    public synchronized Track[] assign(List<float[]> boxes) {
+        frame++;
+        Track[] assigned = new Track[boxes.size()];
+        boolean[] taken = new boolean[tracks.size()];
+
+        // 候选对按距离排序后贪心分配，检测框通常只有几个，直接两两比较
+        List<long[]> candidates = new ArrayList<>();
+        for (int b = 0; b < boxes.size(); b++) {
+            float[] box = boxes.get(b);
+            for (int t = 0; t < tracks.size(); t++) {
+                float distance = matchDistance(tracks.get(t).box, box);
+                if (distance >= 0) {
+                    candidates.add(new long[]{Float.floatToIntBits(distance), b, t});
+                }
+            }
+        }
+        // 非负 float 的位表示与数值同序
+        candidates.sort((x, y) -> Long.compare(x[0], y[0]));
+
+        for (long[] candidate : candidates) {
+            int b = (int) candidate[1];
+            int t = (int) candidate[2];
+            if (assigned[b] != null || taken[t]) {
+                continue;
+            }
+            Track track = tracks.get(t);
+            taken[t] = true;
+            track.lastSeenFrame = frame;
+            System.arraycopy(boxes.get(b), 0, track.box, 0, 4);
+            if (frame - track.lastDecodedFrame < config.redecodeInterval) {
+                assigned[b] = track;
+            }
+        }
+
+        Iterator<Track> iterator = tracks.iterator();
+        while (iterator.hasNext()) {
+            if (frame - iterator.next().lastSeenFrame > config.maxMissedFrames) {
+                iterator.remove();
+            }
+        }
+
+        for (Track track : assigned) {
+            if (track != null) {
+                trackedRegions++;
+            } else {
+                decodedRegions++;
+            }
+        }
+        return assigned;
+    }
+
+    /**
+     * 记录一个区域的解码结果
+     * <p>
+     * 与已知条码内容相同且位置匹配时刷新该条码，否则新增。
+     *
+     * @param box 该区域本帧的检测框
+     */
+    public synchronized void onDecoded(String content, String format, float[] box) {
+        if (content == null) {
+            return;
+        }
+        for (Track track : tracks) {
+            if (content.equals(track.content) && matchDistance(track.box, box) >= 0) {
+                System.arraycopy(box, 0, track.box, 0, 4);
+                track.lastSeenFrame = frame;
+                track.lastDecodedFrame = frame;
+                return;
+            }
+        }
+        tracks.add(new Track(content, format, box, frame));
+    }
+
+    /**
+     * 清空已知条码
+     */
+    public synchronized void clear() {
+        tracks.clear();
+    }
+
+    /**
+     * 当前已知条码数量
+     */
+    public synchronized int size() {
+        return tracks.size();
+    }
+
+    /**
+     * 累计按已知内容跟踪（跳过解码）的区域数
+     */
+    public synchronized long getTrackedRegions() {
+        return trackedRegions;
+    }
+
+    /**
+     * 累计需要完整解码的区域数
+     */
+    public synchronized long getDecodedRegions() {
+        return decodedRegions;
+    }
+
+    /**
+     * 计算匹配距离
+     *
+     * @return 中心距离与已知框对角线之比；不满足位置或尺寸条件时返回 -1
+     */
+    private float matchDistance(float[] known, float[] box) {
+        float knownW = known[2] - known[0];
+        float knownH = known[3] - known[1];
+        float boxW = box[2] - box[0];
+        float boxH = box[3] - box[1];
+        if (knownW <= 0 || knownH <= 0 || boxW <= 0 || boxH <= 0) {
+            return -1;
+        }
+        if (!withinRatio(knownW, boxW) || !withinRatio(knownH, boxH)) {
+            return -1;
+        }
+
+        float dx = (box[0] + box[2] - known[0] - known[2]) / 2f;
+        float dy = (box[1] + box[3] - known[1] - known[3]) / 2f;
+        float diagonal = (float) Math.sqrt(knownW * knownW + knownH * knownH);
+        float shift = (float) Math.sqrt(dx * dx + dy * dy) / diagonal;
+        return shift <= config.maxCenterShift ? shift : -1;
+    }
+
+    private boolean withinRatio(float a, float b) {
+        return a <= b * config.maxSizeRatio && b <= a * config.maxSizeRatio;
+    }
+}
@@ -0,0 +1,69 @@
+package com.urovo.scanner.scanner.ar.scanarcore.decoder;
+
+/**
+ * 亮度图像上的矩形区域（原始图像坐标系，未旋转）
+ * <p>
+ * 用于分块解码和ROI解码：从整帧Y平面中裁剪出子图单独送解码器。
+ */
+public class LumaRegion {
+
+    public final int x;
+    public final int y;
+    public final int width;
+    public final int height;
+
+    public LumaRegion(int x, int y, int width, int height) {
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * 区域像素数（裁剪所需的缓冲区大小）
+     */
+    public int size() {
+        return width * height;
+    }
+
+    /**
+     * 将区域从整帧Y平面裁剪到目标缓冲区（行优先、紧密排列）
+     *
+     * @param src      整帧数据（NV21 或纯Y，只读取前 srcWidth*srcHeight 字节）
+     * @param srcWidth 整帧宽度（行步长）
+     * @param dst      目标缓冲区，长度至少为 {@link #size()}
+     * @param dstOffset 目标起始偏移
+     */
+    public void crop(byte[] src, int srcWidth, byte[] dst, int dstOffset) {
+        int srcPos = y * srcWidth + x;
+        int dstPos = dstOffset;
+        for (int row = 0; row < height; row++) {
+            System.arraycopy(src, srcPos, dst, dstPos, width);
+            srcPos += srcWidth;
+            dstPos += width;
+        }
+    }
+
+    /**
+     * {@link #crop} 的逆操作：把紧密排列的区域数据写回整帧Y平面的对应位置
+     *
+     * @param src       区域数据（行优先、紧密排列）
+     * @param srcOffset 区域数据起始偏移
+     * @param dst       整帧数据
+     * @param dstWidth  整帧宽度（行步长）
+     */
+    public void paste(byte[] src, int srcOffset, byte[] dst, int dstWidth) {
+        int srcPos = srcOffset;
+        int dstPos = y * dstWidth + x;
+        for (int row = 0; row < height; row++) {
+            System.arraycopy(src, srcPos, dst, dstPos, width);
+            srcPos += width;
+            dstPos += dstWidth;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LumaRegion{" + x + "," + y + " " + width + "x" + height + '}';
+    }
+}
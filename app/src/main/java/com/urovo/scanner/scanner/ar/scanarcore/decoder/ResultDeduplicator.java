@@ -0,0 +1,94 @@
+package com.urovo.scanner.scanner.ar.scanarcore.decoder;
+
+import android.graphics.RectF;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 解码结果去重
+ * <p>
+ * 分块解码时相邻块的重叠区域会解出同一个条码，这里按内容和角点几何合并：
+ * 内容相同且边界框明显重叠视为同一条码，保留边界框面积更大（更完整）的结果；
+ * 内容相同但位置不重叠的（货架上的相同标签）保留为多个结果。
+ */
+public class ResultDeduplicator {
+
+    // 边界框交并比阈值
+    private static final float IOU_THRESHOLD = 0.3f;
+
+    private ResultDeduplicator() {
+    }
+
+    /**
+     * 合并重复结果
+     *
+     * @param results 原始结果（不会被修改）
+     * @return 去重后的结果
+     */
+    public static List<BarcodeResult> deduplicate(List<BarcodeResult> results) {
+        if (results.size() < 2) {
+            return results;
+        }
+
+        List<BarcodeResult> unique = new ArrayList<>(results.size());
+        for (BarcodeResult candidate : results) {
+            int duplicateIndex = -1;
+            for (int i = 0; i < unique.size(); i++) {
+                if (isSameBarcode(unique.get(i), candidate)) {
+                    duplicateIndex = i;
+                    break;
+                }
+            }
+
+            if (duplicateIndex < 0) {
+                unique.add(candidate);
+            } else if (area(candidate.getBoundingBox()) > area(unique.get(duplicateIndex).getBoundingBox())) {
+                unique.set(duplicateIndex, candidate);
+            }
+        }
+        return unique;
+    }
+
+    /**
+     * 判断两个结果是否为同一个条码
+     */
+    public static boolean isSameBarcode(BarcodeResult a, BarcodeResult b) {
+        if (a.getContent() == null || !a.getContent().equals(b.getContent())) {
+            return false;
+        }
+        RectF boxA = a.getBoundingBox();
+        RectF boxB = b.getBoundingBox();
+        if (boxA == null || boxB == null) {
+            // 缺少几何信息时只能按内容判断
+            return true;
+        }
+        return iou(boxA, boxB) >= IOU_THRESHOLD || contains(boxA, boxB) || contains(boxB, boxA);
+    }
+
+    private static float iou(RectF a, RectF b) {
+        float left = Math.max(a.left, b.left);
+        float top = Math.max(a.top, b.top);
+        float right = Math.min(a.right, b.right);
+        float bottom = Math.min(a.bottom, b.bottom);
+        if (right <= left || bottom <= top) {
+            return 0;
+        }
+        float intersection = (right - left) * (bottom - top);
+        float union = area(a) + area(b) - intersection;
+        return union > 0 ? intersection / union : 0;
+    }
+
+    /**
+     * outer 是否包含 inner 的中心（块边缘截断的条码边界框通常落在完整边界框内）
+     */
+    private static boolean contains(RectF outer, RectF inner) {
+        float cx = (inner.left + inner.right) / 2f;
+        float cy = (inner.top + inner.bottom) / 2f;
+        return cx >= outer.left && cx <= outer.right && cy >= outer.top && cy <= outer.bottom;
+    }
+
+    private static float area(RectF box) {
+        return box == null ? 0 : Math.max(0, box.right - box.left) * Math.max(0, box.bottom - box.top);
+    }
+}
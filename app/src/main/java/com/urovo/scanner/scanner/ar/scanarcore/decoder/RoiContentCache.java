@@ -0,0 +1,458 @@
+package com.urovo.scanner.scanner.ar.scanarcore.decoder;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 按ROI外观缓存解码内容
+ * <p>
+ * 仓储场景中同一批标签会在画面中停留数秒，检测器每帧都给出相同的区域。
+ * 这里用ROI图块的外观哈希作为键缓存解码内容，按图块类型使用两种哈希：
+ * <ul>
+ * <li>一维码（沿长轴的亮度剖面在短轴方向上一致）：取中部条带的剖面，以首末两根暗条为端点重采样到256格并二值化。
+ * 一维码各行相同，网格 dHash 只有约16个独立位，相邻流水号标签几乎无法区分；剖面的分辨率达到每模块2格以上，
+ * 只差一两位数字的标签也会有成段的格不同。比较时忽略孤立的单格差异（边缘抖动），只统计成段的差异。</li>
+ * <li>其他图块（二维码、倾斜的一维码）：差分哈希（dHash），把ROI归一化到 17x16 网格，
+ * 比较水平相邻格的平均亮度得到256位，对亮度、对比度和缩放不敏感。</li>
+ * </ul>
+ * 命中要求类型相同、距离不超过阈值，并且本帧检测框与条目上次出现的位置相符（同一个实物标签），
+ * 此时直接返回缓存的内容和格式，调用方用本帧检测框作为几何，不再调用原生解码器。
+ * 外观相同但位置跳变（例如并排的另一张标签）不会命中，而是重新解码。
+ * <p>
+ * 缓存按LRU淘汰，条目自写入起超过 TTL 后失效，保证内容定期重新解码校验。所有方法线程安全。
+ */
+public class RoiContentCache {
+
+    // 哈希网格：17列16行，每行16个水平差分位
+    private static final int GRID_COLS = 17;
+    private static final int GRID_ROWS = 16;
+    private static final int GRID_WORDS = GRID_ROWS * (GRID_COLS - 1) / 64;
+    // 条码剖面：首末暗条之间重采样的格数（EAN-13 的95个模块约每模块2.7格）
+    private static final int PROFILE_BINS = 256;
+    private static final int PROFILE_WORDS = PROFILE_BINS / 64;
+    // 哈希布局：[网格 dHash | 剖面 | 类型]，只填写与类型对应的部分
+    private static final int KIND_WORD = GRID_WORDS + PROFILE_WORDS;
+    private static final int HASH_WORDS = KIND_WORD + 1;
+    private static final long KIND_GRID = 0;
+    private static final long KIND_PROFILE = 1;
+    // 剖面条带内的最多采样行数（前后各一半分别求平均，用于判断是否为一维码）
+    private static final int PROFILE_LINES = 8;
+    // 剖面最小亮度差，低于此值视为没有条码
+    private static final int MIN_PROFILE_CONTRAST = 24;
+    // 条带前后两半剖面的平均差异不超过亮度范围的此比例时视为一维码
+    private static final float MAX_PROFILE_SKEW = 0.2f;
+    // profileHash 的返回值
+    private static final int PROFILE_FLAT = -1;
+    private static final int PROFILE_NOT_1D = 0;
+    private static final int PROFILE_WRITTEN = 1;
+    // ROI最小边长（像素），太小的区域哈希不可靠
+    private static final int MIN_ROI_SIZE = 24;
+    // 每个网格格子内的最大采样点数（水平 x 垂直）
+    private static final int CELL_SAMPLES_X = 8;
+    private static final int CELL_SAMPLES_Y = 4;
+
+    /**
+     * 缓存参数
+     */
+    public static class Config {
+        /** 最大条目数 */
+        public int capacity = 64;
+        /** 条目有效期（毫秒） */
+        public long ttlMs = 3000;
+        /** 视为同一图块的最大 dHash 汉明距离（256位） */
+        public int maxHammingDistance = 12;
+        /** 视为同一一维码的最大剖面距离（成段差异的格数，256格；流水号相邻标签约差5-11格） */
+        public int maxProfileDistance = 2;
+        /** 检测框中心与条目上次位置的最大偏移（相对检测框宽高的比例，两轴分别判断） */
+        public float maxCenterShift = 0.5f;
+
+        public Config() {
+        }
+    }
+
+    /**
+     * 缓存条目
+     */
+    public static class Entry {
+        public final String content;
+        public final String format;
+        final long[] hash;
+        final long expiresAtMs;
+        // 上次出现的检测框 {left, top, right, bottom}，命中时跟随更新
+        final float[] box;
+
+        Entry(long[] hash, float[] box, String content, String format, long expiresAtMs) {
+            this.hash = hash;
+            this.box = box.clone();
+            this.content = content;
+            this.format = format;
+            this.expiresAtMs = expiresAtMs;
+        }
+    }
+
+    /**
+     * 缓存统计
+     */
+    public static class Stats {
+        public final long hits;
+        public final long misses;
+        /** 超出容量被LRU淘汰的条目数 */
+        public final long evictions;
+        /** 超过TTL失效的条目数 */
+        public final long expirations;
+        public final int size;
+
+        Stats(long hits, long misses, long evictions, long expirations, int size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.expirations = expirations;
+            this.size = size;
+        }
+
+        public float getHitRate() {
+            long total = hits + misses;
+            return total > 0 ? (float) hits / total : 0f;
+        }
+
+        @Override
+        public String toString() {
+            return "RoiContentCacheStats{" +
+                    "hits=" + hits +
+                    ", misses=" + misses +
+                    ", hitRate=" + String.format("%.2f", getHitRate()) +
+                    ", evictions=" + evictions +
+                    ", expirations=" + expirations +
+                    ", size=" + size +
+                    '}';
+        }
+    }
+
+    private final Config config;
+    private final LinkedHashMap<HashKey, Entry> entries;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long expirations = 0;
+
+    public RoiContentCache() {
+        this(new Config());
+    }
+
+    public RoiContentCache(Config config) {
+        this.config = config;
+        // accessOrder=true：命中的条目移到队尾，超出容量时淘汰最久未使用的条目
+        this.entries = new LinkedHashMap<HashKey, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<HashKey, Entry> eldest) {
+                if (size() > RoiContentCache.this.config.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 计算ROI图块的外观哈希（一维码用条码剖面，其他图块用 dHash）
+     *
+     * @param luma   整帧Y数据
+     * @param width  整帧宽度
+     * @param height 整帧高度
+     * @param left   ROI左边界（原始图像坐标，含）
+     * @param top    ROI上边界（含）
+     * @param right  ROI右边界（不含）
+     * @param bottom ROI下边界（不含）
+     * @return 哈希（9个long）；ROI过小或没有明暗变化时返回 null
+     */
+    public static long[] hash(byte[] luma, int width, int height, int left, int top, int right, int bottom) {
+        left = Math.max(0, left);
+        top = Math.max(0, top);
+        right = Math.min(width, right);
+        bottom = Math.min(height, bottom);
+        int roiW = right - left;
+        int roiH = bottom - top;
+        if (roiW < MIN_ROI_SIZE || roiH < MIN_ROI_SIZE) {
+            return null;
+        }
+
+        long[] hash = new long[HASH_WORDS];
+        int profile = profileHash(luma, width, left, top, right, bottom, hash);
+        if (profile == PROFILE_FLAT) {
+            return null;
+        }
+        if (profile == PROFILE_WRITTEN) {
+            hash[KIND_WORD] = KIND_PROFILE;
+            return hash;
+        }
+
+        hash[KIND_WORD] = KIND_GRID;
+        int[] rowMeans = new int[GRID_COLS];
+        int bit = 0;
+        for (int row = 0; row < GRID_ROWS; row++) {
+            int cellTop = top + row * roiH / GRID_ROWS;
+            int cellBottom = top + (row + 1) * roiH / GRID_ROWS;
+            for (int col = 0; col < GRID_COLS; col++) {
+                int cellLeft = left + col * roiW / GRID_COLS;
+                int cellRight = left + (col + 1) * roiW / GRID_COLS;
+                rowMeans[col] = cellMean(luma, width, cellLeft, cellTop, cellRight, cellBottom);
+            }
+            for (int col = 0; col + 1 < GRID_COLS; col++, bit++) {
+                if (rowMeans[col] < rowMeans[col + 1]) {
+                    hash[bit >>> 6] |= 1L << (bit & 63);
+                }
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * 沿ROI长轴计算条码剖面，写入 hash 的剖面部分
+     * <p>
+     * 剖面取短轴中部一半的条带（最多 PROFILE_LINES 行/列求平均），按 (最小+最大)/2 二值化；
+     * 以首末两根暗条为端点线性插值重采样到 PROFILE_BINS 格，检测框的抖动和缩放不影响结果。
+     * 条带前后两半的剖面差异较大（二维码、倾斜的一维码）时不写入。
+     *
+     * @return PROFILE_FLAT（没有明暗变化）、PROFILE_NOT_1D 或 PROFILE_WRITTEN
+     */
+    private static int profileHash(byte[] luma, int width, int left, int top, int right, int bottom,
+                                   long[] hash) {
+        boolean horizontal = right - left >= bottom - top;
+        int length = horizontal ? right - left : bottom - top;
+        int across = horizontal ? bottom - top : right - left;
+        int bandStart = across / 4;
+        int bandEnd = across - across / 4;
+        int bandMiddle = (bandStart + bandEnd) / 2;
+        int bandStep = Math.max(1, (bandEnd - bandStart) / PROFILE_LINES);
+
+        int[] profile = new int[length];
+        int min = 255;
+        int max = 0;
+        long skew = 0;
+        for (int i = 0; i < length; i++) {
+            int sumFirst = 0;
+            int countFirst = 0;
+            int sumSecond = 0;
+            int countSecond = 0;
+            for (int j = bandStart; j < bandEnd; j += bandStep) {
+                int index = horizontal
+                        ? (top + j) * width + left + i
+                        : (top + i) * width + left + j;
+                if (j < bandMiddle) {
+                    sumFirst += luma[index] & 0xff;
+                    countFirst++;
+                } else {
+                    sumSecond += luma[index] & 0xff;
+                    countSecond++;
+                }
+            }
+            int mean = (sumFirst + sumSecond) / (countFirst + countSecond);
+            if (countFirst > 0 && countSecond > 0) {
+                skew += Math.abs(sumFirst / countFirst - sumSecond / countSecond);
+            }
+            profile[i] = mean;
+            min = Math.min(min, mean);
+            max = Math.max(max, mean);
+        }
+        if (max - min < MIN_PROFILE_CONTRAST) {
+            return PROFILE_FLAT;
+        }
+        if (skew > (long) ((max - min) * MAX_PROFILE_SKEW * length)) {
+            return PROFILE_NOT_1D;
+        }
+
+        int threshold = (min + max) / 2;
+        int first = 0;
+        while (profile[first] >= threshold) {
+            first++;
+        }
+        int last = length - 1;
+        while (profile[last] >= threshold) {
+            last--;
+        }
+        float span = last + 1 - first;
+        for (int bin = 0; bin < PROFILE_BINS; bin++) {
+            // 格中心在剖面上的位置（像素中心坐标），相邻两个采样线性插值
+            float position = first + (bin + 0.5f) * span / PROFILE_BINS - 0.5f;
+            int p0 = Math.max(first, Math.min(last, (int) Math.floor(position)));
+            int p1 = Math.min(last, p0 + 1);
+            float fraction = Math.max(0f, Math.min(1f, position - p0));
+            float value = profile[p0] + (profile[p1] - profile[p0]) * fraction;
+            if (value < threshold) {
+                int bit = GRID_WORDS * 64 + bin;
+                hash[bit >>> 6] |= 1L << (bit & 63);
+            }
+        }
+        return PROFILE_WRITTEN;
+    }
+
+    /**
+     * 按哈希和本帧检测框查找缓存内容
+     * <p>
+     * 命中时条目的位置更新为本帧检测框，跟随标签在画面中的移动。
+     *
+     * @param box 本帧检测框 {left, top, right, bottom}，与 {@link #put} 使用同一坐标系
+     * @return 命中的条目；未命中返回 null
+     */
+    public Entry get(long[] hash, float[] box) {
+        return get(hash, box, nowMs());
+    }
+
+    synchronized Entry get(long[] hash, float[] box, long nowMs) {
+        if (hash == null || box == null) {
+            return null;
+        }
+
+        Entry best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.expiresAtMs <= nowMs) {
+                iterator.remove();
+                expirations++;
+                continue;
+            }
+            if (entry.hash[KIND_WORD] != hash[KIND_WORD] || !samePlace(entry.box, box)) {
+                continue;
+            }
+            int distance;
+            if (hash[KIND_WORD] == KIND_PROFILE) {
+                distance = profileDistance(entry.hash, hash);
+                if (distance > config.maxProfileDistance) {
+                    continue;
+                }
+            } else {
+                distance = gridDistance(entry.hash, hash);
+                if (distance > config.maxHammingDistance) {
+                    continue;
+                }
+            }
+            if (distance < bestDistance) {
+                best = entry;
+                bestDistance = distance;
+            }
+        }
+
+        if (best == null) {
+            misses++;
+            return null;
+        }
+        // 刷新LRU顺序，位置跟随本帧检测框
+        entries.get(new HashKey(best.hash));
+        System.arraycopy(box, 0, best.box, 0, 4);
+        hits++;
+        return best;
+    }
+
+    /**
+     * 写入解码内容（有效期从现在开始计算）
+     *
+     * @param box 解码时的检测框 {left, top, right, bottom}
+     */
+    public void put(long[] hash, float[] box, String content, String format) {
+        put(hash, box, content, format, nowMs());
+    }
+
+    synchronized void put(long[] hash, float[] box, String content, String format, long nowMs) {
+        if (hash == null || box == null || content == null) {
+            return;
+        }
+        entries.put(new HashKey(hash), new Entry(hash, box, content, format, nowMs + config.ttlMs));
+    }
+
+    /**
+     * 清空缓存（统计不清零）
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, evictions, expirations, entries.size());
+    }
+
+    private static int cellMean(byte[] luma, int width, int left, int top, int right, int bottom) {
+        int stepX = Math.max(1, (right - left) / CELL_SAMPLES_X);
+        int stepY = Math.max(1, (bottom - top) / CELL_SAMPLES_Y);
+        int sum = 0;
+        int count = 0;
+        for (int y = top; y < bottom; y += stepY) {
+            int row = y * width;
+            for (int x = left; x < right; x += stepX) {
+                sum += luma[row + x] & 0xff;
+                count++;
+            }
+        }
+        return count > 0 ? sum / count : 0;
+    }
+
+    /**
+     * 检测框中心偏移不超过框宽高的 maxCenterShift 倍（两轴分别判断）
+     */
+    private boolean samePlace(float[] cached, float[] box) {
+        float width = Math.max(cached[2] - cached[0], box[2] - box[0]);
+        float height = Math.max(cached[3] - cached[1], box[3] - box[1]);
+        float dx = Math.abs((cached[0] + cached[2]) - (box[0] + box[2])) * 0.5f;
+        float dy = Math.abs((cached[1] + cached[3]) - (box[1] + box[3])) * 0.5f;
+        return dx <= width * config.maxCenterShift && dy <= height * config.maxCenterShift;
+    }
+
+    /**
+     * 网格 dHash 部分的汉明距离
+     */
+    private static int gridDistance(long[] a, long[] b) {
+        int distance = 0;
+        for (int i = 0; i < GRID_WORDS; i++) {
+            distance += Long.bitCount(a[i] ^ b[i]);
+        }
+        return distance;
+    }
+
+    /**
+     * 剖面部分的距离：只统计相邻格也不同的差异格，边缘抖动造成的孤立单格差异不计
+     */
+    private static int profileDistance(long[] a, long[] b) {
+        int distance = 0;
+        for (int i = GRID_WORDS; i < KIND_WORD; i++) {
+            long diff = a[i] ^ b[i];
+            long previous = i > GRID_WORDS ? (a[i - 1] ^ b[i - 1]) >>> 63 : 0;
+            long next = i + 1 < KIND_WORD ? (a[i + 1] ^ b[i + 1]) & 1L : 0;
+            long leftNeighbor = (diff << 1) | previous;
+            long rightNeighbor = (diff >>> 1) | (next << 63);
+            distance += Long.bitCount(diff & (leftNeighbor | rightNeighbor));
+        }
+        return distance;
+    }
+
+    private static long nowMs() {
+        return System.nanoTime() / 1_000_000L;
+    }
+
+    /**
+     * 哈希键（按内容比较）
+     */
+    private static final class HashKey {
+        private final long[] hash;
+        private final int hashCode;
+
+        HashKey(long[] hash) {
+            this.hash = hash;
+            this.hashCode = Arrays.hashCode(hash);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof HashKey && Arrays.equals(hash, ((HashKey) o).hash);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.urovo.scanner.scanner.ar.scanarcore.decoder;
+
+import android.graphics.RectF;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * 分块/ROI 并行解码
+ * <p>
+ * 将整帧Y平面拆成相互重叠的块（或调用方给出的ROI区域），逐块裁剪后交给解码函数，
+ * 有并行执行器时各块并发解码，最后按内容和几何去重。
+ * <p>
+ * 每个线程使用自己的裁剪缓冲区（ThreadLocal），稳态下不分配内存。
+ */
+public class TileDecoder {
+
+    private static final String TAG = "TileDecoder";
+
+    /**
+     * 区域解码函数
+     */
+    public interface RegionDecodeFunction {
+        /**
+         * 解码单个区域
+         *
+         * @param luma   区域亮度数据（行优先紧密排列，长度可能大于区域尺寸）
+         * @param region 区域位置，结果坐标需要加上 region.x/region.y 还原到整帧
+         * @return 解码结果（整帧坐标系）
+         */
+        List<BarcodeResult> decode(byte[] luma, LumaRegion region) throws Exception;
+    }
+
+    /**
+     * 分块参数
+     */
+    public static class TileConfig {
+        /** 块边长（像素） */
+        public int tileSize = 1024;
+        /** 相邻块重叠（像素），应大于常见条码尺寸的一半 */
+        public int overlap = 192;
+
+        public TileConfig() {
+        }
+
+        public TileConfig(int tileSize, int overlap) {
+            this.tileSize = tileSize;
+            this.overlap = overlap;
+        }
+    }
+
+    private final ExecutorService parallelExecutor;
+    private final ThreadLocal<byte[]> cropBuffer = new ThreadLocal<>();
+
+    /**
+     * @param parallelExecutor 并行执行器，解码函数须能在多个线程上并发调用；为 null 时在调用线程中逐块解码
+     */
+    public TileDecoder(ExecutorService parallelExecutor) {
+        this.parallelExecutor = parallelExecutor;
+    }
+
+    /**
+     * 按网格划分重叠块
+     * <p>
+     * 内部块起点对齐到偶数像素；最后一行/列的块向内收缩保持完整尺寸，并恰好结束于图像边缘
+     * （宽高为奇数时起点可能是奇数），保证覆盖到最后一列/行像素。
+     */
+    public static List<LumaRegion> planGrid(int width, int height, TileConfig config) {
+        int tileSize = Math.max(64, config.tileSize);
+        int overlap = Math.max(0, Math.min(config.overlap, tileSize / 2));
+
+        if (width <= tileSize && height <= tileSize) {
+            return Collections.singletonList(new LumaRegion(0, 0, width, height));
+        }
+
+        int tileW = Math.min(tileSize, width);
+        int tileH = Math.min(tileSize, height);
+        int stepX = Math.max(2, tileW - overlap);
+        int stepY = Math.max(2, tileH - overlap);
+
+        List<LumaRegion> regions = new ArrayList<>();
+        // 下一块起点从上一块的（偶数）起点前进一个步长再向下对齐，相邻块至少重叠 overlap 像素
+        for (int y = 0; ; y = (y + stepY) & ~1) {
+            boolean lastRow = y + tileH >= height;
+            int top = lastRow ? height - tileH : y;
+            for (int x = 0; ; x = (x + stepX) & ~1) {
+                boolean lastColumn = x + tileW >= width;
+                regions.add(new LumaRegion(lastColumn ? width - tileW : x, top, tileW, tileH));
+                if (lastColumn) {
+                    break;
+                }
+            }
+            if (lastRow) {
+                break;
+            }
+        }
+        return regions;
+    }
+
+    /**
+     * 将调用方给出的ROI（原始图像坐标）扩展边距并裁剪到图像范围内
+     *
+     * @param rois    ROI 列表，例如上一帧锚点投影附近的区域
+     * @param padding 每边扩展的像素数
+     */
+    public static List<LumaRegion> planRois(List<RectF> rois, int width, int height, int padding) {
+        List<LumaRegion> regions = new ArrayList<>(rois.size());
+        for (RectF roi : rois) {
+            int left = Math.max(0, (int) Math.floor(roi.left) - padding) & ~1;
+            int top = Math.max(0, (int) Math.floor(roi.top) - padding) & ~1;
+            int right = Math.min(width, (int) Math.ceil(roi.right) + padding);
+            int bottom = Math.min(height, (int) Math.ceil(roi.bottom) + padding);
+            if (right - left >= 16 && bottom - top >= 16) {
+                regions.add(new LumaRegion(left, top, right - left, bottom - top));
+            }
+        }
+        return regions;
+    }
+
+    /**
+     * 解码所有区域并去重
+     *
+     * @param frame   整帧数据（NV21 或纯Y）
+     * @param width   整帧宽度
+     * @param height  整帧高度
+     * @param regions 待解码区域
+     * @param decoder 区域解码函数
+     * @return 去重后的结果（整帧坐标系）
+     */
+    public List<BarcodeResult> decode(byte[] frame, int width, int height,
+                                      List<LumaRegion> regions, RegionDecodeFunction decoder) {
+        return decodeAll(frame, width, regions, null, decoder);
+    }
+
+    /**
+     * 解码已紧凑排列的区域数据并去重
+     * <p>
+     * 各区域按列表顺序紧密排列在 packed 中（例如 EnhancerSession.enhanceRegions 的输出），
+     * 第 i 个区域从前 i 个区域 {@link LumaRegion#size()} 之和的偏移处开始。
+     *
+     * @param packed  紧凑排列的区域数据
+     * @param regions 区域列表（整帧坐标）
+     * @param decoder 区域解码函数
+     * @return 去重后的结果（整帧坐标系）
+     */
+    public List<BarcodeResult> decodePacked(byte[] packed, List<LumaRegion> regions, RegionDecodeFunction decoder) {
+        int[] offsets = new int[regions.size()];
+        int offset = 0;
+        for (int i = 0; i < regions.size(); i++) {
+            offsets[i] = offset;
+            offset += regions.get(i).size();
+        }
+        return decodeAll(packed, 0, regions, offsets, decoder);
+    }
+
+    /**
+     * @param offsets 为 null 时从整帧裁剪区域；否则是各区域在紧凑数据中的偏移
+     */
+    private List<BarcodeResult> decodeAll(byte[] source, int width, List<LumaRegion> regions,
+                                          int[] offsets, RegionDecodeFunction decoder) {
+        if (regions.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<BarcodeResult> merged = new ArrayList<>();
+
+        if (parallelExecutor == null || regions.size() == 1) {
+            for (int i = 0; i < regions.size(); i++) {
+                merged.addAll(decodeRegion(source, width, regions.get(i), offsets != null ? offsets[i] : -1, decoder));
+            }
+        } else {
+            List<Future<List<BarcodeResult>>> futures = new ArrayList<>(regions.size());
+            for (int i = 0; i < regions.size(); i++) {
+                LumaRegion region = regions.get(i);
+                int packedOffset = offsets != null ? offsets[i] : -1;
+                futures.add(parallelExecutor.submit(() -> decodeRegion(source, width, region, packedOffset, decoder)));
+            }
+            for (Future<List<BarcodeResult>> future : futures) {
+                try {
+                    merged.addAll(future.get());
+                } catch (ExecutionException e) {
+                    Log.w(TAG, "Region decode failed", e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+
+        return ResultDeduplicator.deduplicate(merged);
+    }
+
+    private List<BarcodeResult> decodeRegion(byte[] source, int width, LumaRegion region, int packedOffset,
+                                             RegionDecodeFunction decoder) {
+        byte[] buffer = cropBuffer.get();
+        if (buffer == null || buffer.length < region.size()) {
+            buffer = new byte[region.size()];
+            cropBuffer.set(buffer);
+        }
+        if (packedOffset >= 0) {
+            System.arraycopy(source, packedOffset, buffer, 0, region.size());
+        } else {
+            region.crop(source, width, buffer, 0);
+        }
+
+        try {
+            List<BarcodeResult> results = decoder.decode(buffer, region);
+            return results != null ? results : Collections.emptyList();
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to decode " + region, e);
+            return Collections.emptyList();
+        }
+    }
+}
@@ -12,18 +12,30 @@ import android.util.Log;
 import com.ubx.device.decode.DecodeResult;
 import com.ubx.device.decode.Recognition;
 import com.urovo.scanner.scanner.ar.kyddecoder.KydDecoderManager;
+import com.urovo.scanner.scanner.ar.scanarcore.decoder.AdaptiveEnhanceController;
 import com.urovo.scanner.scanner.ar.scanarcore.decoder.BarcodeDecoder;
 import com.urovo.scanner.scanner.ar.scanarcore.decoder.BarcodeResult;
+import com.urovo.scanner.scanner.ar.scanarcore.decoder.DecodeEngine;
+import com.urovo.scanner.scanner.ar.scanarcore.decoder.FrameScheduler;
+import com.urovo.scanner.scanner.ar.scanarcore.decoder.KnownBarcodeTracker;
+import com.urovo.scanner.scanner.ar.scanarcore.decoder.LumaRegion;
 import com.urovo.scanner.scanner.ar.scanarcore.decoder.ROIDetectionResult;
+import com.urovo.scanner.scanner.ar.scanarcore.decoder.RoiContentCache;
+import com.urovo.scanner.scanner.ar.scanarcore.decoder.ResultDeduplicator;
+import com.urovo.scanner.scanner.ar.scanarcore.decoder.TileDecoder;
+import com.urovo.scanner.scanner.ar.scanarcore.metrics.MetricsRegistry;
+import com.urovo.scanner.scanner.ar.scanarcore.metrics.PipelineMetrics;
+import com.urovo.scanner.scanner.ar.scanarcore.metrics.PipelineStage;
+import com.urovo.scanner.scanner.ar.scanarcore.recording.FrameRecordFormat;
+import com.urovo.scanner.scanner.ar.scanarcore.recording.FrameRecorder;
+import com.urovo.scanner.scanner.ar.scanarcore.util.EnhancerSession;
+import com.urovo.scanner.scanner.ar.scanarcore.util.FrameBufferPool;
 import com.urovo.scanner.scanner.ar.scanarcore.util.ImageEnhancer;
 import com.urovo.scanner.scanner.ar.scanarcore.util.PicUtil;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
  * KYD条码解码器实现
@@ -39,19 +51,71 @@ public class KydBarcodeDecoder implements BarcodeDecoder {
 
     private final Context context;
     private final KydDecoderManager decoderManager;
-    private final ExecutorService executor;
+    // 解码引擎：每个工作线程持有独立的 KydDecodeWorker，结果按帧序交付
+    private final DecodeEngine<KydDecodeWorker> engine;
 
     private volatile boolean released = false;
 
-    // 缓冲区复用，减少内存分配
-    private byte[] yuvBuffer;
-    private int lastBufferSize = 0;
+    // 流水线阶段耗时统计
+    private final PipelineMetrics metrics = PipelineMetrics.getInstance();
 
-    // 解码锁，确保同一时间只有一帧在解码（避免缓冲区复用竞态）
-    private volatile boolean isDecoding = false;
+    // 运行时计数器（同名指标在注册表中共享）
+    private final MetricsRegistry registry = MetricsRegistry.getInstance();
+    private final MetricsRegistry.Counter framesDecoded = registry.counter("decoder.frames");
+    private final MetricsRegistry.Counter framesWithResults = registry.counter("decoder.frames_with_results");
+    private final MetricsRegistry.Counter resultsDecoded = registry.counter("decoder.results");
+    private final MetricsRegistry.Counter framesDropped = registry.counter("decoder.frames_dropped");
+    private final MetricsRegistry.Counter decodeFailures = registry.counter("decoder.failures");
+    private final MetricsRegistry.Timer frameDecodeTimer = registry.timer("decoder.frame_decode");
+
+    // 帧缓冲区池：每个工作线程一帧解码中，另有等待中、提取中的帧
+    private final FrameBufferPool framePool;
+
+    // 实时帧准入调度：同时解码的帧数不超过工作线程数，繁忙时按丢弃策略处理新帧
+    private final FrameScheduler frameScheduler;
 
     // 图像增强配置
     private volatile EnhanceConfig enhanceConfig;
+    // 自适应增强：设置后按解码成功率和光照逐帧决定是否增强，取代静态 enhanceConfig
+    private volatile AdaptiveEnhanceController adaptiveEnhance;
+    // 调试录制：录制中时 ENABLE_YUV_DEBUG_SAVE 的实时帧写入录制文件，不再逐帧保存 .yuv
+    private volatile FrameRecorder frameRecorder;
+
+    /**
+     * 解码流程模式
+     */
+    public enum PipelineMode {
+        /** 整帧一次解码 */
+        FULL_FRAME,
+        /**
+         * 分块解码：有ROI提示时只解码ROI区域，否则将整帧拆成重叠块解码。
+         * KYD 原生解码器只有一个进程级上下文，各块在工作线程中逐块解码，整帧网格的总耗时不低于整帧解码，
+         * 只适合配合 ROI 提示使用；默认模式为 FULL_FRAME
+         */
+        TILED,
+        /** 检测器 + ROI 解码：每帧检测一次，只解码检测到的区域；检测器不可用时退化为整帧解码 */
+        DETECT_ROI,
+        /**
+         * 检测 + 跟踪：每帧检测，检测框按位置和尺寸匹配已解码的条码，
+         * 只有新出现或未匹配的区域才解码，已知条码以检测器速度更新几何
+         */
+        DETECT_TRACK
+    }
+
+    // ROI 提示扩展边距（像素）
+    private static final int ROI_HINT_PADDING = 48;
+
+    private volatile PipelineMode pipelineMode = PipelineMode.FULL_FRAME;
+    private volatile TileDecoder.TileConfig tileConfig = new TileDecoder.TileConfig();
+    private volatile List<RectF> roiHints = Collections.emptyList();
+
+    // DETECT_TRACK 模式下已解码条码的跟踪
+    private final KnownBarcodeTracker knownBarcodes = new KnownBarcodeTracker();
+    // 检测区域的外观缓存（DETECT_ROI / DETECT_TRACK），null 表示不缓存
+    private volatile RoiContentCache roiContentCache;
+
+    // 分块解码：原生解码器只有一个共享上下文，各块在当前工作线程中逐块解码
+    private final TileDecoder tileDecoder = new TileDecoder(null);
 
     // 框标记回调接口
     public interface BoxMarkingCallback {
@@ -63,9 +127,20 @@ public class KydBarcodeDecoder implements BarcodeDecoder {
     private BoxMarkingCallback boxMarkingCallback;
 
     public KydBarcodeDecoder(Context context) {
+        this(context, DecodeEngine.defaultWorkerCount());
+    }
+
+    /**
+     * @param context     上下文
+     * @param workerCount 解码工作线程数；原生解码器不支持并发时自动退化为1
+     *                    （KYD 目前只有进程级单例，实际总是1，见 {@link KydDecodeWorker#NATIVE_DECODER_THREAD_SAFE}）
+     */
+    public KydBarcodeDecoder(Context context, int workerCount) {
         this.context = context.getApplicationContext();
         this.decoderManager = KydDecoderManager.getInstance();
-        this.executor = Executors.newSingleThreadExecutor();
+        this.engine = new DecodeEngine<>(TAG, workerCount, new KydDecodeWorker.Factory(decoderManager));
+        this.frameScheduler = new FrameScheduler(engine, engine.getWorkerCount());
+        this.framePool = new FrameBufferPool(engine.getWorkerCount() + 2);
 
         if (!decoderManager.isInitialized()) {
             boolean success = decoderManager.initialize(context, isHoneyWell);
@@ -80,6 +155,115 @@ public class KydBarcodeDecoder implements BarcodeDecoder {
         this.enhanceConfig = config;
     }
 
+    /**
+     * 设置自适应增强控制器
+     * <p>
+     * 设置后实时帧的增强由控制器逐帧决定（原始解码成功率下降且光照不理想时才增强），
+     * {@link #setEnhanceConfig} 的配置不再生效；传入 null 恢复静态配置。
+     */
+    public void setAdaptiveEnhanceController(AdaptiveEnhanceController controller) {
+        this.adaptiveEnhance = controller;
+    }
+
+    public AdaptiveEnhanceController getAdaptiveEnhanceController() {
+        return adaptiveEnhance;
+    }
+
+    /**
+     * 设置调试帧录制器
+     * <p>
+     * ENABLE_YUV_DEBUG_SAVE 打开且录制器正在录制时，decode(Image) 的帧写入录制文件；
+     * 传入 null 或录制器未在录制时仍按原方式逐帧保存。
+     */
+    public void setFrameRecorder(FrameRecorder recorder) {
+        this.frameRecorder = recorder;
+    }
+
+    /**
+     * 设置解码流程模式
+     */
+    public void setPipelineMode(PipelineMode mode) {
+        this.pipelineMode = mode != null ? mode : PipelineMode.FULL_FRAME;
+        knownBarcodes.clear();
+    }
+
+    /**
+     * 设置检测区域的解码内容缓存
+     * <p>
+     * 只在 DETECT_ROI / DETECT_TRACK 模式下生效：检测区域外观与缓存条目相同时跳过原生解码。
+     * 传入 null 关闭缓存。
+     */
+    public void setRoiContentCache(RoiContentCache cache) {
+        this.roiContentCache = cache;
+    }
+
+    public RoiContentCache getRoiContentCache() {
+        return roiContentCache;
+    }
+
+    /**
+     * DETECT_TRACK 模式的已知条码跟踪器（可读取跟踪/解码区域数）
+     */
+    public KnownBarcodeTracker getKnownBarcodeTracker() {
+        return knownBarcodes;
+    }
+
+    public PipelineMode getPipelineMode() {
+        return pipelineMode;
+    }
+
+    /**
+     * 设置分块参数（TILED 模式）
+     */
+    public void setTileConfig(TileDecoder.TileConfig config) {
+        this.tileConfig = config != null ? config : new TileDecoder.TileConfig();
+    }
+
+    /**
+     * 设置 ROI 提示
+     * <p>
+     * 例如上一帧锚点投影位置附近的区域。设置后：
+     * TILED 模式只解码这些区域；启用图像增强时（任意模式）只增强这些区域，
+     * 解码仍按当前 {@link PipelineMode} 进行（检测器、跟踪和外观缓存照常工作）。
+     * 传空列表恢复整帧处理。
+     *
+     * @param rois 原始图像坐标系（未旋转）下的区域
+     */
+    public void setRoiHints(List<RectF> rois) {
+        this.roiHints = rois != null ? new ArrayList<>(rois) : Collections.emptyList();
+    }
+
+    /**
+     * 用检测结果设置 ROI 提示
+     * <p>
+     * ROIDetectionResult 的边界框是旋转后的坐标系，这里还原到原始图像坐标。
+     *
+     * @param detections      检测结果（例如 onROIDetected 回调或上一帧的结果）
+     * @param imageWidth      原始图像宽度
+     * @param imageHeight     原始图像高度
+     * @param rotationDegrees 检测结果使用的旋转角度
+     */
+    public void setRoiHintsFromDetections(List<ROIDetectionResult> detections,
+                                          int imageWidth, int imageHeight, int rotationDegrees) {
+        if (detections == null || detections.isEmpty()) {
+            setRoiHints(null);
+            return;
+        }
+        List<RectF> rois = new ArrayList<>(detections.size());
+        float[] corners = new float[4];
+        for (ROIDetectionResult detection : detections) {
+            RectF box = detection.getBoundingBox();
+            if (box == null) {
+                continue;
+            }
+            KydGeometry.inverseTransformPoint(box.left, box.top, imageWidth, imageHeight, rotationDegrees, corners, 0);
+            KydGeometry.inverseTransformPoint(box.right, box.bottom, imageWidth, imageHeight, rotationDegrees, corners, 2);
+            rois.add(new RectF(Math.min(corners[0], corners[2]), Math.min(corners[1], corners[3]),
+                    Math.max(corners[0], corners[2]), Math.max(corners[1], corners[3])));
+        }
+        setRoiHints(rois);
+    }
+
     @Override
     public void decode(Bitmap bitmap, int rotationDegrees, DecodeCallback callback) {
         decode(bitmap, rotationDegrees, ENABLE_YUV_DEBUG_SAVE, callback);
@@ -97,7 +281,7 @@ public class KydBarcodeDecoder implements BarcodeDecoder {
             return;
         }
 
-        executor.execute(() -> {
+        engine.execute(() -> {
             try {
                 byte[] yuvData = PicUtil.bitmapToYUV(bitmap);
                 if (yuvData == null) {
@@ -131,79 +315,54 @@ public class KydBarcodeDecoder implements BarcodeDecoder {
             return;
         }
 
-        // 如果上一帧还在解码，跳过当前帧（避免帧堆积）
-        if (isDecoding) {
-            callback.onSuccess(Collections.emptyList());
+        // DROP_NEWEST 模式下解码繁忙时，跳过注定被丢弃的帧的数据提取
+        if (frameScheduler.dropIfBusy()) {
+            framesDropped.inc();
+            engine.deliver(engine.nextSequence(), callback::onDropped);
             return;
         }
 
         final int width = image.getWidth();
         final int height = image.getHeight();
 
-        // 检查是否启用增强
+        // 提交时读取增强配置，增强本身在工作线程中用该线程的 EnhancerSession 完成
         EnhanceConfig config = this.enhanceConfig;
-        if (config != null && config.enabled) {
-            // 增强模式：使用 ImageEnhancer 处理
-            try {
-                ImageEnhancer.EnhanceParams params = new ImageEnhancer.EnhanceParams();
-                params.claheClipLimit = config.claheClipLimit;
-                params.claheTileSize = config.claheTileSize;
-                params.sharpenStrength = config.sharpenStrength;
-
-                byte[] enhancedGray = ImageEnhancer.enhanceYuv(image, params);
-                if (enhancedGray == null) {
-                    callback.onSuccess(Collections.emptyList());
-                    return;
-                }
-
-                isDecoding = true;
-                executor.execute(() -> {
-                    try {
-                        // 灰度数据直接作为Y通道解码
-                        List<BarcodeResult> results = decodeYuvData(enhancedGray, width, height, rotationDegrees);
-                        callback.onSuccess(results);
-                    } catch (Exception e) {
-                        callback.onFailure(e);
-                    } finally {
-                        isDecoding = false;
-                    }
-                });
-            } catch (Exception e) {
-                callback.onFailure(e);
-            }
-            return;
-        }
+        final EnhanceConfig enhance = config != null && config.enabled ? config : null;
 
-        // 原始模式：直接提取 YUV 数据解码
-        // 注意：每次都创建新的缓冲区，避免并发修改问题
+        // 从缓冲区池取缓冲区提取数据
+        // 解码和增强只需要Y通道；调试保存需要完整NV21时才提取色度平面
+        // 缓冲区所有权交给解码任务，解码完成或帧被丢弃后归还
+        final boolean debugSave = ENABLE_YUV_DEBUG_SAVE;
+        final long frameTimestampNs = image.getTimestamp();
         final byte[] yuvData;
         try {
-            yuvData = PicUtil.imageToYUV(image, null);  // 不复用缓冲区
+            long extractStart = System.nanoTime();
+            int size = debugSave ? width * height * 3 / 2 : width * height;
+            byte[] buffer = framePool.acquire(size);
+            yuvData = debugSave ? PicUtil.imageToYUV(image, buffer) : PicUtil.imageToLuma(image, buffer);
+            if (yuvData != buffer) {
+                framePool.release(buffer);
+            }
+            metrics.record(PipelineStage.YUV_EXTRACT, System.nanoTime() - extractStart);
         } catch (Exception e) {
             callback.onFailure(e);
             return;
         }
 
-        if (yuvData == null) {
-            callback.onFailure(new RuntimeException("Failed to convert image to YUV"));
-            return;
-        }
-
-        if (ENABLE_YUV_DEBUG_SAVE) {
-            PicUtil.saveYuvDataAsync(context, yuvData, width, height, "image_decode");
+        if (debugSave) {
+            FrameRecorder recorder = frameRecorder;
+            if (recorder != null && recorder.isRecording()) {
+                // 录制器拷贝到自己的槽位，写入在录制线程完成
+                recorder.record(yuvData, width, height, FrameRecordFormat.FORMAT_NV21, rotationDegrees,
+                        frameTimestampNs, null);
+            } else {
+                // 写入服务在提交时拷贝数据，缓冲区可以继续交给解码任务
+                PicUtil.saveYuvDataAsync(context, yuvData, width, height, "image_decode");
+            }
         }
 
-        isDecoding = true;
-        executor.execute(() -> {
-            try {
-                List<BarcodeResult> results = decodeYuvData(yuvData, width, height, rotationDegrees);
-                callback.onSuccess(results);
-            } catch (Exception e) {
-                callback.onFailure(e);
-            } finally {
-                isDecoding = false;
-            }
-        });
+        frameScheduler.submit(new FrameDecodeTask(yuvData, true, enhance, width, height, rotationDegrees,
+                frameTimestampNs, callback));
     }
 
 
@@ -219,7 +378,7 @@ public class KydBarcodeDecoder implements BarcodeDecoder {
             return;
         }
 
-        executor.execute(() -> {
+        engine.execute(() -> {
             try {
                 byte[] dataToProcess = jpegData;
 
@@ -288,7 +447,7 @@ public class KydBarcodeDecoder implements BarcodeDecoder {
             return;
         }
 
-        executor.execute(() -> {
+        engine.execute(() -> {
             try {
                 // 灰度数据直接作为YUV的Y通道传给解码器
                 // KYD解码器只使用Y通道进行条码识别
@@ -302,7 +461,8 @@ public class KydBarcodeDecoder implements BarcodeDecoder {
     }
 
     @Override
-    public void decodeYuv(byte[] yuvData, int width, int height, int rotationDegrees, DecodeCallback callback) {
+    public void decodeYuv(byte[] yuvData, int width, int height, int rotationDegrees, long frameTimestampNs,
+                          DecodeCallback callback) {
         if (released) {
             callback.onFailure(new IllegalStateException("Decoder has been released"));
             return;
@@ -313,108 +473,439 @@ public class KydBarcodeDecoder implements BarcodeDecoder {
             return;
         }
 
-        // 如果上一帧还在解码，跳过当前帧（避免帧堆积）
-        if (isDecoding) {
-            callback.onSuccess(Collections.emptyList());
+        frameScheduler.submit(new FrameDecodeTask(yuvData, false, null, width, height, rotationDegrees,
+                frameTimestampNs, callback));
+    }
+
+    @Override
+    public void decodeLuma(byte[] lumaData, int width, int height, int rotationDegrees, long frameTimestampNs,
+                           DecodeCallback callback) {
+        if (released) {
+            callback.onFailure(new IllegalStateException("Decoder has been released"));
+            return;
+        }
+
+        if (lumaData == null || width <= 0 || height <= 0 || lumaData.length < width * height) {
+            callback.onFailure(new IllegalArgumentException("Luma data is null or smaller than " + width + "x" + height));
             return;
         }
 
-        isDecoding = true;
-        executor.execute(() -> {
+        // KYD解码器只使用Y通道，亮度数据直接按YUV数据解码
+        frameScheduler.submit(new FrameDecodeTask(lumaData, false, null, width, height, rotationDegrees,
+                frameTimestampNs, callback));
+    }
+
+    @Override
+    public void setFrameDropPolicy(FrameDropPolicy policy, int queueCapacity) {
+        frameScheduler.setPolicy(policy, queueCapacity);
+    }
+
+    @Override
+    public FrameStats getFrameStats() {
+        return frameScheduler.getStats();
+    }
+
+    /**
+     * 实际解码工作线程数
+     */
+    public int getWorkerCount() {
+        return engine.getWorkerCount();
+    }
+
+    /**
+     * 实时帧解码任务
+     * <p>
+     * 创建时领取交付序号，保证多线程解码时回调仍按帧到达顺序触发。
+     * pooled 为 true 时数据缓冲区来自 framePool，解码结束或帧被丢弃后归还。
+     * 结果携带来源帧时间戳 frameTimestampNs（0 表示未知）。
+     * enhance 不为 null 时先用工作线程的 EnhancerSession 增强再解码；
+     * 设置了自适应增强控制器时改由控制器决定。
+     */
+    private class FrameDecodeTask implements FrameScheduler.FrameTask {
+        private final long sequence;
+        private final byte[] data;
+        private final boolean pooled;
+        private final EnhanceConfig enhance;
+        private final int width;
+        private final int height;
+        private final int rotationDegrees;
+        private final long frameTimestampNs;
+        private final DecodeCallback callback;
+
+        FrameDecodeTask(byte[] data, boolean pooled, EnhanceConfig enhance,
+                        int width, int height, int rotationDegrees, long frameTimestampNs,
+                        DecodeCallback callback) {
+            this.sequence = engine.nextSequence();
+            this.data = data;
+            this.pooled = pooled;
+            this.enhance = enhance;
+            this.width = width;
+            this.height = height;
+            this.rotationDegrees = rotationDegrees;
+            this.frameTimestampNs = frameTimestampNs;
+            this.callback = callback;
+        }
+
+        @Override
+        public void run() {
+            Runnable delivery = null;
+            long start = System.nanoTime();
             try {
-                List<BarcodeResult> results = decodeYuvData(yuvData, width, height, rotationDegrees);
-                callback.onSuccess(results);
+                AdaptiveEnhanceController controller = adaptiveEnhance;
+                AdaptiveEnhanceController.FrameDecision decision = null;
+                EnhanceConfig frameEnhance = enhance;
+                if (controller != null) {
+                    decision = controller.beginFrame(data, width, height);
+                    frameEnhance = decision.enhance;
+                }
+                List<BarcodeResult> decoded = decodeYuvData(data, width, height, rotationDegrees, frameEnhance);
+                if (decision != null) {
+                    controller.endFrame(decision, !decoded.isEmpty());
+                }
+                List<BarcodeResult> results = stampFrameTimestamp(decoded, frameTimestampNs);
+                framesDecoded.inc();
+                if (!results.isEmpty()) {
+                    framesWithResults.inc();
+                    resultsDecoded.add(results.size());
+                }
+                delivery = () -> callback.onSuccess(results);
             } catch (Exception e) {
-                callback.onFailure(e);
+                decodeFailures.inc();
+                delivery = () -> callback.onFailure(e);
+            } catch (Error e) {
+                // 原生解码器的 Error（UnsatisfiedLinkError、OutOfMemoryError 等）照常抛出，
+                // 但本帧仍以失败交付
+                decodeFailures.inc();
+                Log.e(TAG, "Decoder error", e);
+                IllegalStateException failure = new IllegalStateException("Decoder error: " + e, e);
+                delivery = () -> callback.onFailure(failure);
+                throw e;
             } finally {
-                isDecoding = false;
+                frameDecodeTimer.recordSince(start);
+                if (pooled) {
+                    framePool.release(data);
+                }
+                // 每个序号必须交付，否则后续帧会在交付队列中一直等待
+                if (delivery == null) {
+                    delivery = () -> callback.onFailure(new IllegalStateException("Decode aborted"));
+                }
+                engine.deliver(sequence, delivery);
             }
-        });
+        }
+
+        @Override
+        public void onDropped() {
+            framesDropped.inc();
+            if (pooled) {
+                framePool.release(data);
+            }
+            engine.deliver(sequence, callback::onDropped);
+        }
     }
 
     /**
-     * 解码YUV数据
+     * 解码YUV数据（在工作线程中执行）
      */
     private List<BarcodeResult> decodeYuvData(byte[] yuvData, int width, int height, int rotationDegrees) {
-        if (!decoderManager.isInitialized()) {
+        return decodeYuvData(yuvData, width, height, rotationDegrees, null);
+    }
+
+    /**
+     * 解码YUV数据（在工作线程中执行）
+     *
+     * @param enhance 增强配置，null 表示不增强。有 ROI 提示时只增强 ROI 区域，否则增强整帧；
+     *                增强后仍按 pipelineMode 解码（分块模式直接解码增强后的 ROI 区域）
+     */
+    private List<BarcodeResult> decodeYuvData(byte[] yuvData, int width, int height, int rotationDegrees,
+                                              EnhanceConfig enhance) {
+        // 必须在解码引擎的工作线程中调用，使用该线程自己的解码上下文
+        KydDecodeWorker worker = engine.currentContext();
+        KydDecoderManager decoder = worker.decoder;
+        if (!decoder.isInitialized()) {
             return Collections.emptyList();
         }
 
         List<BarcodeResult> results = new ArrayList<>();
-        List<ROIDetectionResult> roiResults = new ArrayList<>();
-
-        boolean isDetect = false;// 调试,false为不处理找码
-
-        // 优先使用检测器+ROI解码（更精确）
-        if (isDetect && decoderManager.isDetectorReady()) {
-            ArrayList<Recognition> recognitions = decoderManager.detectBarcodes(yuvData, width, height);
-
-            // 收集ROI检测结果（红框）
-            if (recognitions != null && !recognitions.isEmpty()) {
-                for (Recognition recognition : recognitions) {
-                    int[] symBounds = recognition.getSymBounds();
-                    Log.d(TAG, "symBounds:" + Arrays.toString(symBounds));
-                    ROIDetectionResult roiResult = convertToROIResult(recognition, width, height, rotationDegrees);
-                    if (roiResult != null) {
-                        roiResults.add(roiResult);
-                    }
-                }
 
-                // 通知ROI检测结果
-                if (boxMarkingCallback != null && !roiResults.isEmpty()) {
-                    boxMarkingCallback.onROIDetected(roiResults, width, height, rotationDegrees);
+        TileDecoder.RegionDecodeFunction regionDecoder = (luma, region) -> {
+            List<BarcodeResult> regionResults = new ArrayList<>();
+            convertDecodeResults(decoder.decodeImage(luma, region.width, region.height),
+                    region.x, region.y, width, height, rotationDegrees, regionResults);
+            return regionResults;
+        };
+
+        List<RectF> hints = roiHints;
+        PipelineMode mode = pipelineMode;
+        if (enhance != null) {
+            long enhanceStart = System.nanoTime();
+            EnhancerSession session = worker.enhancer();
+            session.configure(enhance.claheClipLimit, enhance.claheTileSize, enhance.sharpenStrength);
+            if (!hints.isEmpty() && mode == PipelineMode.TILED) {
+                // 分块模式下要解码的正是提示区域：只增强这些区域（扩展边距后紧凑排列）并直接解码，
+                // 耗时与条码数量成正比而不是与帧尺寸
+                List<LumaRegion> regions = TileDecoder.planRois(hints, width, height, ROI_HINT_PADDING);
+                byte[] packed = session.enhanceRegions(yuvData, width, regions);
+                metrics.record(PipelineStage.ENHANCE, System.nanoTime() - enhanceStart);
+                if (packed != null) {
+                    long decodeStart = System.nanoTime();
+                    results.addAll(tileDecoder.decodePacked(packed, regions, regionDecoder));
+                    metrics.record(PipelineStage.DECODE, System.nanoTime() - decodeStart);
+                    notifyDecodeSuccess(results, width, height, rotationDegrees);
+                    return results;
                 }
+            } else {
+                // 其他模式：有提示时只增强提示区域并写回整帧副本，否则增强整帧；
+                // 之后照常按解码模式分派（检测器、跟踪和外观缓存都看到增强后的帧），失败时解码原始数据
+                byte[] enhanced = hints.isEmpty()
+                        ? session.enhance(yuvData, width, height)
+                        : session.enhanceRegionsInFrame(yuvData, width, height,
+                                TileDecoder.planRois(hints, width, height, ROI_HINT_PADDING));
+                metrics.record(PipelineStage.ENHANCE, System.nanoTime() - enhanceStart);
+                if (enhanced != null) {
+                    yuvData = enhanced;
+                }
+            }
+        }
+
+        long decodeStart = System.nanoTime();
+        if ((mode == PipelineMode.DETECT_ROI || mode == PipelineMode.DETECT_TRACK) && decoder.isDetectorReady()) {
+            // 检测器 + ROI 解码：每帧检测一次，逐个解码检测区域（跟踪模式跳过已知条码）
+            results.addAll(decodeDetectedRegions(decoder, yuvData, width, height, rotationDegrees,
+                    mode == PipelineMode.DETECT_TRACK));
+            metrics.record(PipelineStage.DECODE, System.nanoTime() - decodeStart);
+        } else if (mode == PipelineMode.TILED) {
+            // 分块解码：ROI 提示或重叠网格，各块解码后按内容和几何去重
+            List<LumaRegion> regions = hints.isEmpty()
+                    ? TileDecoder.planGrid(width, height, tileConfig)
+                    : TileDecoder.planRois(hints, width, height, ROI_HINT_PADDING);
+            results.addAll(tileDecoder.decode(yuvData, width, height, regions, regionDecoder));
+            metrics.record(PipelineStage.DECODE, System.nanoTime() - decodeStart);
+        } else {
+            // 整帧解码（检测器不可用时 DETECT_ROI 也退化为整帧解码）
+            if (registry.isDebugLogEnabled()) {
+                Log.d(TAG, "decodeImage: " + width + " x " + height);
+            }
+            ArrayList<DecodeResult> decodeResults = decoder.decodeImage(yuvData, width, height);
+            metrics.record(PipelineStage.DECODE, System.nanoTime() - decodeStart);
+            convertDecodeResults(decodeResults, 0, 0, width, height, rotationDegrees, results);
+        }
+
+        notifyDecodeSuccess(results, width, height, rotationDegrees);
+        return results;
+    }
+
+    /**
+     * 检测器 + ROI 解码
+     * <p>
+     * 先在整帧上检测一次，立即通过 {@link BoxMarkingCallback#onROIDetected} 通知检测框（红框），
+     * 再逐个检测区域调用 decodeROIRegions。各区域在当前工作线程中依次解码：KYD 原生解码器只有一个
+     * 进程级上下文，不能在多个线程上并发调用（见 {@link KydDecodeWorker#NATIVE_DECODER_THREAD_SAFE}），
+     * 收益来自只解码检测区域而不是整帧。
+     * 一个区域可能解出多个结果，按检测区域对应转换后统一去重。
+     *
+     * @param track 为 true 时与已知条码匹配的区域直接沿用已知内容，不再解码
+     */
+    private List<BarcodeResult> decodeDetectedRegions(KydDecoderManager decoder, byte[] yuvData,
+                                                      int width, int height, int rotationDegrees,
+                                                      boolean track) {
+        ArrayList<Recognition> recognitions = decoder.detectBarcodes(yuvData, width, height);
+        if (recognitions == null || recognitions.isEmpty()) {
+            return Collections.emptyList();
+        }
 
-                // 对ROI区域进行解码
-                ArrayList<DecodeResult> decodeResults = decoderManager.decodeROIRegions(yuvData, width, height, recognitions);
+        // 收集ROI检测结果（红框），无效区域不参与解码
+        List<Recognition> validRecognitions = new ArrayList<>(recognitions.size());
+        List<ROIDetectionResult> roiResults = new ArrayList<>(recognitions.size());
+        for (Recognition recognition : recognitions) {
+            ROIDetectionResult roiResult = convertToROIResult(recognition, width, height, rotationDegrees);
+            if (roiResult != null) {
+                validRecognitions.add(recognition);
+                roiResults.add(roiResult);
+            }
+        }
+        if (roiResults.isEmpty()) {
+            return Collections.emptyList();
+        }
 
-                if (decodeResults != null) {
-                    for (int i = 0; i < decodeResults.size(); i++) {
-                        DecodeResult decodeResult = decodeResults.get(i);
-                        Log.d(TAG, "decodeResult:" + new String(decodeResult.getBarcodeDataBytes()));
+        // 解码前通知ROI检测结果
+        if (boxMarkingCallback != null) {
+            boxMarkingCallback.onROIDetected(roiResults, width, height, rotationDegrees);
+        }
 
-                        Recognition recognition = i < recognitions.size() ? recognitions.get(i) : null;
-                        ROIDetectionResult roiResult = i < roiResults.size() ? roiResults.get(i) : null;
+        List<BarcodeResult> merged = new ArrayList<>();
 
-                        BarcodeResult result = convertToResult(decodeResult, recognition, roiResult, width, height, rotationDegrees);
-                        if (result != null) {
-                            results.add(result);
-                        }
-                    }
+        // 跟踪模式：已知条码直接用检测框生成结果，其余区域继续解码
+        List<Recognition> pendingRecognitions = validRecognitions;
+        List<ROIDetectionResult> pendingRois = roiResults;
+        if (track) {
+            List<float[]> boxes = new ArrayList<>(roiResults.size());
+            for (ROIDetectionResult roiResult : roiResults) {
+                boxes.add(toBox(roiResult.getBoundingBox()));
+            }
+            KnownBarcodeTracker.Track[] known = knownBarcodes.assign(boxes);
+            pendingRecognitions = new ArrayList<>();
+            pendingRois = new ArrayList<>();
+            for (int i = 0; i < known.length; i++) {
+                ROIDetectionResult roiResult = roiResults.get(i);
+                if (known[i] != null) {
+                    merged.add(knownResult(known[i].content, known[i].format, roiResult));
+                } else {
+                    pendingRecognitions.add(validRecognitions.get(i));
+                    pendingRois.add(roiResult);
                 }
             }
         }
 
-        // 如果检测器不可用或未检测到，尝试直接解码
-        if (!isDetect) {
-            Log.d(TAG, "decodeImage: " + width + " x " + height);
-            ArrayList<DecodeResult> decodeResults = decoderManager.decodeImage(yuvData, width, height);
-            if (decodeResults != null) {
-                for (int i = 0; i < decodeResults.size(); i++) {
-                    DecodeResult decodeResult = decodeResults.get(i);
-                    Log.d(TAG, "decodeResult:" + new String(decodeResult.getBarcodeDataBytes()));
-                    int[] barcodeBounds = decodeResult.getBarcodeBounds();
-                    //barcodeBounds转结果识别区域
-                    Recognition recognition = new Recognition();
-                    recognition.setSymBounds(barcodeBounds);
-                    recognition.setLabel(decodeResult.getCodeId());
-                    //
-                    BarcodeResult result = convertToResult(decodeResult, recognition, null, width, height, rotationDegrees);
-                    if (result != null) {
-                        results.add(result);
-                    }
+        for (int i = 0; i < pendingRecognitions.size(); i++) {
+            merged.addAll(decodeDetectedRegion(decoder, yuvData, width, height, rotationDegrees,
+                    pendingRecognitions.get(i), pendingRois.get(i), track));
+        }
+        return ResultDeduplicator.deduplicate(merged);
+    }
+
+    /**
+     * 解码单个检测区域
+     *
+     * @param track 为 true 时把解码结果登记到已知条码跟踪器
+     */
+    private List<BarcodeResult> decodeDetectedRegion(KydDecoderManager decoder, byte[] yuvData,
+                                                     int width, int height, int rotationDegrees,
+                                                     Recognition recognition, ROIDetectionResult roiResult,
+                                                     boolean track) {
+        // 外观缓存：同一位置的同一图块在有效期内直接返回缓存内容，几何使用本帧检测框
+        RoiContentCache cache = roiContentCache;
+        long[] appearance = null;
+        float[] box = toBox(roiResult.getBoundingBox());
+        if (cache != null) {
+            appearance = hashRecognition(yuvData, width, height, recognition);
+            RoiContentCache.Entry cached = cache.get(appearance, box);
+            if (cached != null) {
+                if (track) {
+                    knownBarcodes.onDecoded(cached.content, cached.format, box);
                 }
+                return Collections.singletonList(knownResult(cached.content, cached.format, roiResult));
             }
         }
 
-        // 通知解码成功结果（绿框）
+        ArrayList<Recognition> single = new ArrayList<>(1);
+        single.add(recognition);
+        ArrayList<DecodeResult> decodeResults = decoder.decodeROIRegions(yuvData, width, height, single);
+        if (decodeResults == null || decodeResults.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<BarcodeResult> results = new ArrayList<>(decodeResults.size());
+        for (DecodeResult decodeResult : decodeResults) {
+            BarcodeResult result = convertToResult(decodeResult, recognition, roiResult, width, height, rotationDegrees);
+            if (result != null) {
+                results.add(result);
+                if (track) {
+                    knownBarcodes.onDecoded(result.getContent(), result.getFormat(), box);
+                }
+            }
+        }
+        // 一个区域只缓存单个结果，多码区域每次都重新解码
+        if (cache != null && results.size() == 1) {
+            cache.put(appearance, box, results.get(0).getContent(), results.get(0).getFormat());
+        }
+        return results;
+    }
+
+    /**
+     * 用已知内容和本帧检测框生成结果（跟踪或缓存命中，未调用解码器）
+     */
+    private static BarcodeResult knownResult(String content, String format, ROIDetectionResult roiResult) {
+        return new BarcodeResult(content, format, roiResult.getCenterPoint(),
+                roiResult.getBoundingBox(), roiResult.getCornerPoints(),
+                roiResult.getBoundingBox(), roiResult.getCornerPoints(), true);
+    }
+
+    /**
+     * 计算检测区域（原始图像坐标的外接矩形）的外观哈希
+     */
+    private static long[] hashRecognition(byte[] luma, int width, int height, Recognition recognition) {
+        int[] bounds = recognition.getSymBounds();
+        int left = Integer.MAX_VALUE, top = Integer.MAX_VALUE;
+        int right = Integer.MIN_VALUE, bottom = Integer.MIN_VALUE;
+        for (int i = 0; i + 1 < bounds.length && i < 8; i += 2) {
+            left = Math.min(left, bounds[i]);
+            top = Math.min(top, bounds[i + 1]);
+            right = Math.max(right, bounds[i]);
+            bottom = Math.max(bottom, bounds[i + 1]);
+        }
+        return RoiContentCache.hash(luma, width, height, left, top, right + 1, bottom + 1);
+    }
+
+    private static float[] toBox(RectF rect) {
+        return new float[]{rect.left, rect.top, rect.right, rect.bottom};
+    }
+
+    /**
+     * 通知解码成功结果（绿框）
+     */
+    private void notifyDecodeSuccess(List<BarcodeResult> results, int width, int height, int rotationDegrees) {
         if (boxMarkingCallback != null && !results.isEmpty()) {
             boxMarkingCallback.onDecodeSuccess(results, width, height, rotationDegrees);
         }
+    }
 
-        return results;
+
+    /**
+     * 将整帧/分块解码结果转换为BarcodeResult
+     *
+     * @param decodeResults 解码器输出，坐标相对于被解码的区域
+     * @param offsetX       区域在整帧中的X偏移（整帧解码为0）
+     * @param offsetY       区域在整帧中的Y偏移（整帧解码为0）
+     * @param width         整帧宽度
+     * @param height        整帧高度
+     * @param out           输出列表
+     */
+    private void convertDecodeResults(ArrayList<DecodeResult> decodeResults, int offsetX, int offsetY,
+                                      int width, int height, int rotationDegrees, List<BarcodeResult> out) {
+        if (decodeResults == null) {
+            return;
+        }
+        long convertStart = System.nanoTime();
+        for (int i = 0; i < decodeResults.size(); i++) {
+            DecodeResult decodeResult = decodeResults.get(i);
+            if (registry.isDebugLogEnabled()) {
+                Log.d(TAG, "decodeResult:" + new String(decodeResult.getBarcodeDataBytes()));
+            }
+            int[] barcodeBounds = decodeResult.getBarcodeBounds();
+            if (barcodeBounds != null && (offsetX != 0 || offsetY != 0)) {
+                // 区域坐标还原到整帧坐标
+                barcodeBounds = barcodeBounds.clone();
+                for (int j = 0; j + 1 < barcodeBounds.length; j += 2) {
+                    barcodeBounds[j] += offsetX;
+                    barcodeBounds[j + 1] += offsetY;
+                }
+            }
+            //barcodeBounds转结果识别区域
+            Recognition recognition = new Recognition();
+            recognition.setSymBounds(barcodeBounds);
+            recognition.setLabel(decodeResult.getCodeId());
+            //
+            BarcodeResult result = convertToResult(decodeResult, recognition, null, width, height, rotationDegrees);
+            if (result != null) {
+                out.add(result);
+            }
+        }
+        metrics.record(PipelineStage.CONVERT, System.nanoTime() - convertStart);
     }
 
+    /**
+     * 给结果附上来源帧时间戳
+     */
+    private static List<BarcodeResult> stampFrameTimestamp(List<BarcodeResult> results, long frameTimestampNs) {
+        if (frameTimestampNs == 0 || results.isEmpty()) {
+            return results;
+        }
+        List<BarcodeResult> stamped = new ArrayList<>(results.size());
+        for (BarcodeResult result : results) {
+            stamped.add(result.withFrameTimestamp(frameTimestampNs));
+        }
+        return stamped;
+    }
 
     /**
      * 将Recognition转换为ROI检测结果
@@ -435,37 +926,15 @@ public class KydBarcodeDecoder implements BarcodeDecoder {
             return null;
         }
 
-        // 计算旋转后的图像尺寸
-        int rotatedWidth, rotatedHeight;
-        if (rotationDegrees == 90 || rotationDegrees == 270) {
-            rotatedWidth = imgHeight;
-            rotatedHeight = imgWidth;
-        } else {
-            rotatedWidth = imgWidth;
-            rotatedHeight = imgHeight;
-        }
-
         // 提取4个角点并转换到旋转后的坐标系
-        PointF[] cornerPoints = new PointF[4];
-        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
-        float maxX = Float.MIN_VALUE, maxY = Float.MIN_VALUE;
-
-        for (int i = 0; i < 4; i++) {
-            float x = bounds[i * 2];
-            float y = bounds[i * 2 + 1];
-
-            // 根据旋转角度转换坐标到旋转后的坐标系
-            PointF transformed = transformPoint(x, y, imgWidth, imgHeight, rotationDegrees);
-            cornerPoints[i] = transformed;
-
-            minX = Math.min(minX, transformed.x);
-            minY = Math.min(minY, transformed.y);
-            maxX = Math.max(maxX, transformed.x);
-            maxY = Math.max(maxY, transformed.y);
-        }
+        float[] corners = new float[8];
+        KydGeometry.transformCorners(bounds, imgWidth, imgHeight, rotationDegrees, corners);
+        PointF[] cornerPoints = toPoints(corners);
 
         // 计算边界框
-        RectF boundingBox = new RectF(minX, minY, maxX, maxY);
+        float[] box = new float[4];
+        KydGeometry.boundingBox(corners, box);
+        RectF boundingBox = new RectF(box[0], box[1], box[2], box[3]);
         // 获取置信度（如果Recognition有提供的话，否则使用默认值）
         float confidence = 1.0f; // KYD SDK可能没有直接提供置信度，使用默认值
         return new ROIDetectionResult(boundingBox, cornerPoints, confidence);
@@ -511,44 +980,20 @@ public class KydBarcodeDecoder implements BarcodeDecoder {
                     return null;
                 }
 
-                // 计算旋转后的图像尺寸
-                int rotatedWidth, rotatedHeight;
-                if (rotationDegrees == 90 || rotationDegrees == 270) {
-                    rotatedWidth = imgHeight;
-                    rotatedHeight = imgWidth;
-                } else {
-                    rotatedWidth = imgWidth;
-                    rotatedHeight = imgHeight;
-                }
-
                 // 提取4个角点并转换到旋转后的坐标系
-                cornerPoints = new PointF[4];
-                float sumX = 0, sumY = 0;
-
-                for (int i = 0; i < 4; i++) {
-                    float x = bounds[i * 2];
-                    float y = bounds[i * 2 + 1];
-
-                    // 根据旋转角度转换坐标到旋转后的坐标系
-                    PointF transformed = transformPoint(x, y, imgWidth, imgHeight, rotationDegrees);
-                    cornerPoints[i] = transformed;
-                    sumX += transformed.x;
-                    sumY += transformed.y;
-                }
+                float[] corners = new float[8];
+                KydGeometry.transformCorners(bounds, imgWidth, imgHeight, rotationDegrees, corners);
+                cornerPoints = toPoints(corners);
 
                 // 计算中心点
-                centerPoint = new PointF(sumX / 4, sumY / 4);
+                float[] center = new float[2];
+                KydGeometry.center(corners, center);
+                centerPoint = new PointF(center[0], center[1]);
 
                 // 计算边界框
-                float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
-                float maxX = Float.MIN_VALUE, maxY = Float.MIN_VALUE;
-                for (PointF point : cornerPoints) {
-                    minX = Math.min(minX, point.x);
-                    minY = Math.min(minY, point.y);
-                    maxX = Math.max(maxX, point.x);
-                    maxY = Math.max(maxY, point.y);
-                }
-                boundingBox = new RectF(minX, minY, maxX, maxY);
+                float[] box = new float[4];
+                KydGeometry.boundingBox(corners, box);
+                boundingBox = new RectF(box[0], box[1], box[2], box[3]);
 
 //                // 验证边界框尺寸合理性（使用旋转后的尺寸）
 //                float boxWidth = boundingBox.width();
@@ -604,19 +1049,14 @@ public class KydBarcodeDecoder implements BarcodeDecoder {
 //    }
 
     /**
-     * 根据旋转角度转换坐标点
+     * 角点坐标数组转换为 PointF
      */
-    private PointF transformPoint(float x, float y, int imgWidth, int imgHeight, int rotationDegrees) {
-        switch (rotationDegrees) {
-            case 90:
-                return new PointF(imgHeight - y, x);
-            case 180:
-                return new PointF(imgWidth - x, imgHeight - y);
-            case 270:
-                return new PointF(y, imgWidth - x);
-            default:
-                return new PointF(x, y);
+    private static PointF[] toPoints(float[] corners) {
+        PointF[] points = new PointF[4];
+        for (int i = 0; i < 4; i++) {
+            points[i] = new PointF(corners[i * 2], corners[i * 2 + 1]);
         }
+        return points;
     }
 
     /**
@@ -660,12 +1100,9 @@ public class KydBarcodeDecoder implements BarcodeDecoder {
     @Override
     public void release() {
         released = true;
-        isDecoding = false;
-        executor.shutdown();
-        synchronized (this) {
-            yuvBuffer = null;
-            lastBufferSize = 0;
-        }
+        frameScheduler.clear();
+        engine.shutdown();
+        framePool.clear();
         Log.d(TAG, "KydBarcodeDecoder released");
     }
 
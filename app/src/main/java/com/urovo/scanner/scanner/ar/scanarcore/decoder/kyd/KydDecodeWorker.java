@@ -0,0 +1,81 @@
+package com.urovo.scanner.scanner.ar.scanarcore.decoder.kyd;
+
+import com.urovo.scanner.scanner.ar.kyddecoder.KydDecoderManager;
+import com.urovo.scanner.scanner.ar.scanarcore.decoder.DecodeEngine;
+import com.urovo.scanner.scanner.ar.scanarcore.util.EnhancerSession;
+
+/**
+ * KYD解码工作线程上下文
+ * <p>
+ * 每个解码工作线程持有一个实例，线程内的解码状态（增强会话等）都放在这里，避免线程间共享。
+ * 原生解码器仍是进程级单例，见 {@link #NATIVE_DECODER_THREAD_SAFE}。
+ */
+class KydDecodeWorker {
+
+    /**
+     * 原生解码器是否支持多线程并发调用
+     * <p>
+     * KYD SDK 目前只提供进程级单例 {@link KydDecoderManager}，没有按线程创建的原生句柄，也未声明线程安全，
+     * 所有工作线程只能共用同一个原生上下文。因此解码引擎实际只运行一个工作线程，
+     * 分块和检测区域也在该线程中逐个解码，多工作线程的吞吐提升要等 SDK 提供独立句柄后才能获得。
+     */
+    static final boolean NATIVE_DECODER_THREAD_SAFE = false;
+
+    final int index;
+    final KydDecoderManager decoder;
+
+    // 图像增强会话（首次使用时创建）
+    private EnhancerSession enhancer;
+
+    KydDecodeWorker(int index, KydDecoderManager decoder) {
+        this.index = index;
+        this.decoder = decoder;
+    }
+
+    /**
+     * 获取本线程的图像增强会话
+     */
+    EnhancerSession enhancer() {
+        if (enhancer == null) {
+            enhancer = new EnhancerSession();
+        }
+        return enhancer;
+    }
+
+    /**
+     * 释放线程内资源
+     */
+    void release() {
+        if (enhancer != null) {
+            enhancer.release();
+            enhancer = null;
+        }
+    }
+
+    /**
+     * 工作线程上下文工厂
+     */
+    static class Factory implements DecodeEngine.WorkerContextFactory<KydDecodeWorker> {
+
+        private final KydDecoderManager decoder;
+
+        Factory(KydDecoderManager decoder) {
+            this.decoder = decoder;
+        }
+
+        @Override
+        public KydDecodeWorker create(int workerIndex) {
+            return new KydDecodeWorker(workerIndex, decoder);
+        }
+
+        @Override
+        public void destroy(KydDecodeWorker context) {
+            context.release();
+        }
+
+        @Override
+        public boolean isThreadSafe() {
+            return NATIVE_DECODER_THREAD_SAFE;
+        }
+    }
+}
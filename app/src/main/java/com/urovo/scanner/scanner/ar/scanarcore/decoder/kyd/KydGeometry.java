@@ -0,0 +1,122 @@
+package com.urovo.scanner.scanner.ar.scanarcore.decoder.kyd;
+
+/**
+ * KYD解码结果的几何计算
+ * <p>
+ * 把解码器输出的4个角点（原始图像坐标）转换到旋转后的坐标系，并计算中心点和边界框。
+ * 只使用基本类型数组，不依赖 Android 图形类，可以直接在JVM上测试和基准测试。
+ */
+public final class KydGeometry {
+
+    private KydGeometry() {
+    }
+
+    /**
+     * 根据旋转角度转换单个坐标点
+     *
+     * @param out    输出数组，写入 out[offset]=x, out[offset+1]=y
+     * @param offset 输出偏移
+     */
+    public static void transformPoint(float x, float y, int imgWidth, int imgHeight, int rotationDegrees,
+                                      float[] out, int offset) {
+        switch (rotationDegrees) {
+            case 90:
+                out[offset] = imgHeight - y;
+                out[offset + 1] = x;
+                break;
+            case 180:
+                out[offset] = imgWidth - x;
+                out[offset + 1] = imgHeight - y;
+                break;
+            case 270:
+                out[offset] = y;
+                out[offset + 1] = imgWidth - x;
+                break;
+            default:
+                out[offset] = x;
+                out[offset + 1] = y;
+                break;
+        }
+    }
+
+    /**
+     * {@link #transformPoint} 的逆变换：旋转后坐标还原为原始图像坐标
+     *
+     * @param imgWidth  原始图像宽度
+     * @param imgHeight 原始图像高度
+     */
+    public static void inverseTransformPoint(float x, float y, int imgWidth, int imgHeight, int rotationDegrees,
+                                             float[] out, int offset) {
+        switch (rotationDegrees) {
+            case 90:
+                out[offset] = y;
+                out[offset + 1] = imgHeight - x;
+                break;
+            case 180:
+                out[offset] = imgWidth - x;
+                out[offset + 1] = imgHeight - y;
+                break;
+            case 270:
+                out[offset] = imgWidth - y;
+                out[offset + 1] = x;
+                break;
+            default:
+                out[offset] = x;
+                out[offset + 1] = y;
+                break;
+        }
+    }
+
+    /**
+     * 转换4个角点
+     *
+     * @param bounds  8个坐标值 [x0,y0, x1,y1, x2,y2, x3,y3]
+     * @param corners 输出，长度至少为8，格式同 bounds
+     */
+    public static void transformCorners(int[] bounds, int imgWidth, int imgHeight, int rotationDegrees,
+                                        float[] corners) {
+        for (int i = 0; i < 4; i++) {
+            transformPoint(bounds[i * 2], bounds[i * 2 + 1], imgWidth, imgHeight, rotationDegrees,
+                    corners, i * 2);
+        }
+    }
+
+    /**
+     * 计算角点的边界框
+     * <p>
+     * 与原有实现保持一致：最大值从 Float.MIN_VALUE 开始比较。
+     *
+     * @param corners 8个坐标值
+     * @param box     输出 [left, top, right, bottom]
+     */
+    public static void boundingBox(float[] corners, float[] box) {
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
+        float maxX = Float.MIN_VALUE, maxY = Float.MIN_VALUE;
+        for (int i = 0; i < 8; i += 2) {
+            minX = Math.min(minX, corners[i]);
+            minY = Math.min(minY, corners[i + 1]);
+            maxX = Math.max(maxX, corners[i]);
+            maxY = Math.max(maxY, corners[i + 1]);
+        }
+        box[0] = minX;
+        box[1] = minY;
+        box[2] = maxX;
+        box[3] = maxY;
+    }
+
+    /**
+     * 计算角点中心
+     *
+     * @param corners 8个坐标值
+     * @param center  输出 [x, y]
+     */
+    public static void center(float[] corners, float[] center) {
+        float sumX = 0, sumY = 0;
+        for (int i = 0; i < 8; i += 2) {
+            sumX += corners[i];
+            sumY += corners[i + 1];
+        }
+        center[0] = sumX / 4;
+        center[1] = sumY / 4;
+    }
+}
@@ -11,6 +11,8 @@ import androidx.camera.core.ImageProxy;
 import com.urovo.scanner.scanner.ar.scanarcore.decoder.BarcodeDecoder;
 import com.urovo.scanner.scanner.ar.scanarcore.decoder.BarcodeResult;
 import com.urovo.scanner.scanner.ar.scanarcore.decoder.DecoderFactory;
+import com.urovo.scanner.scanner.ar.scanarcore.metrics.PipelineMetrics;
+import com.urovo.scanner.scanner.ar.scanarcore.metrics.PipelineStage;
 import com.urovo.scanner.scanner.ar.scanarcore.model.BarcodeInfo;
 
 import java.util.ArrayList;
@@ -53,11 +55,17 @@ public class BarcodeDetector {
 
         int rotationDegrees = imageProxy.getImageInfo().getRotationDegrees();
         long timestamp = System.currentTimeMillis();
+        // 端到端延迟的起点：分析器收到帧的时刻。Image.getTimestamp() 的基准取决于设备
+        // （SENSOR_INFO_TIMESTAMP_SOURCE），只随结果传递用于标识帧
+        long frameStartNs = System.nanoTime();
+        long frameTimestampNs = mediaImage.getTimestamp();
 
         scanner.decode(mediaImage, rotationDegrees, new BarcodeDecoder.DecodeCallback() {
             @Override
             public void onSuccess(List<BarcodeResult> results) {
-                List<BarcodeInfo> barcodeInfoList = convertToBarcodeInfo(results, timestamp);
+                PipelineMetrics.getInstance().recordFrameAge(PipelineStage.FRAME_TO_RESULT,
+                        frameStartNs, System.nanoTime());
+                List<BarcodeInfo> barcodeInfoList = convertToBarcodeInfo(results, timestamp, frameTimestampNs);
                 if (callback != null) {
                     callback.onBarcodesDetected(barcodeInfoList);
                 }
@@ -77,7 +85,7 @@ public class BarcodeDetector {
     /**
      * 转换解码结果为BarcodeInfo列表
      */
-    private List<BarcodeInfo> convertToBarcodeInfo(List<BarcodeResult> results, long timestamp) {
+    private List<BarcodeInfo> convertToBarcodeInfo(List<BarcodeResult> results, long timestamp, long frameTimestampNs) {
         List<BarcodeInfo> barcodeInfoList = new ArrayList<>();
 
         for (BarcodeResult result : results) {
@@ -99,7 +107,7 @@ public class BarcodeDetector {
             // format字符串转换为int（BarcodeInfo使用int类型）
             int format = mapFormatStringToInt(result.getFormat());
 
-            BarcodeInfo info = new BarcodeInfo(content, format, cornerPoints, timestamp);
+            BarcodeInfo info = new BarcodeInfo(content, format, cornerPoints, timestamp, frameTimestampNs);
             barcodeInfoList.add(info);
         }
 
@@ -0,0 +1,183 @@
+package com.urovo.scanner.scanner.ar.scanarcore.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁延迟直方图（HDR 风格的对数-线性分桶）
+ * <p>
+ * 数值按2的幂分段，每段再均分为32个子桶，相对误差不超过约3%；
+ * 小于64的数值精确记录。记录只做几次原子自增，可在任意线程（包括GL线程）中调用。
+ * <p>
+ * 数值单位由调用方决定（流水线统计使用纳秒），超过 {@link #MAX_VALUE} 的数值按最大值记录。
+ * 快照逐桶读取，与并发记录之间不是严格的原子视图，用于监控足够。
+ */
+public class LatencyHistogram {
+
+    /** 可精确区分的最大数值（约18分钟的纳秒数） */
+    public static final long MAX_VALUE = (1L << 40) - 1;
+
+    // 每段有效位数：6位（含最高位），即每段32个子桶
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKET_HALF = 1 << (SUB_BUCKET_BITS - 1);
+    private static final int LINEAR_LIMIT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = LINEAR_LIMIT + (40 - SUB_BUCKET_BITS) * SUB_BUCKET_HALF;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalSum = new AtomicLong();
+    private final AtomicLong maxValue = new AtomicLong(0);
+    private final AtomicLong minValue = new AtomicLong(Long.MAX_VALUE);
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 记录一个数值，负数忽略
+     */
+    public void record(long value) {
+        if (value < 0) {
+            return;
+        }
+        if (value > MAX_VALUE) {
+            value = MAX_VALUE;
+        }
+        counts.incrementAndGet(bucketIndex(value));
+        totalCount.incrementAndGet();
+        totalSum.addAndGet(value);
+
+        long max;
+        while (value > (max = maxValue.get()) && !maxValue.compareAndSet(max, value)) {
+            // 重试
+        }
+        long min;
+        while (value < (min = minValue.get()) && !minValue.compareAndSet(min, value)) {
+            // 重试
+        }
+    }
+
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * 获取指定百分位的数值（桶中点）
+     *
+     * @param percentile 百分位（0-100）
+     * @return 没有记录时返回0
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = totalCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100.0 * count));
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulative += counts.get(i);
+            if (cumulative >= target) {
+                return Math.min(bucketMidpoint(i), maxValue.get());
+            }
+        }
+        return maxValue.get();
+    }
+
+    /**
+     * 获取当前统计快照
+     */
+    public Snapshot snapshot() {
+        long count = totalCount.get();
+        long min = minValue.get();
+        return new Snapshot(name, count,
+                count > 0 ? (double) totalSum.get() / count : 0,
+                min == Long.MAX_VALUE ? 0 : min,
+                maxValue.get(),
+                getValueAtPercentile(50), getValueAtPercentile(90),
+                getValueAtPercentile(99), getValueAtPercentile(99.9));
+    }
+
+    /**
+     * 清空记录
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        totalCount.set(0);
+        totalSum.set(0);
+        maxValue.set(0);
+        minValue.set(Long.MAX_VALUE);
+    }
+
+    static int bucketIndex(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - (SUB_BUCKET_BITS - 1);
+        int subBucket = (int) (value >>> shift) - SUB_BUCKET_HALF;
+        return LINEAR_LIMIT + (exponent - SUB_BUCKET_BITS) * SUB_BUCKET_HALF + subBucket;
+    }
+
+    static long bucketLowerBound(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int segment = (index - LINEAR_LIMIT) / SUB_BUCKET_HALF;
+        int subBucket = (index - LINEAR_LIMIT) % SUB_BUCKET_HALF;
+        int shift = segment + 1;
+        return (long) (SUB_BUCKET_HALF + subBucket) << shift;
+    }
+
+    private static long bucketMidpoint(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        long lower = bucketLowerBound(index);
+        long width = 1L << ((index - LINEAR_LIMIT) / SUB_BUCKET_HALF + 1);
+        return lower + width / 2;
+    }
+
+    /**
+     * 直方图快照（数值单位与记录时相同）
+     */
+    public static class Snapshot {
+        public final String name;
+        public final long count;
+        public final double mean;
+        public final long min;
+        public final long max;
+        public final long p50;
+        public final long p90;
+        public final long p99;
+        public final long p999;
+
+        Snapshot(String name, long count, double mean, long min, long max,
+                 long p50, long p90, long p99, long p999) {
+            this.name = name;
+            this.count = count;
+            this.mean = mean;
+            this.min = min;
+            this.max = max;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.p999 = p999;
+        }
+
+        /**
+         * 以毫秒输出（记录单位为纳秒时）
+         */
+        @Override
+        public String toString() {
+            return String.format("%s{count=%d, mean=%.2fms, min=%.2fms, p50=%.2fms, p90=%.2fms, p99=%.2fms, p99.9=%.2fms, max=%.2fms}",
+                    name, count, mean / 1e6, min / 1e6, p50 / 1e6, p90 / 1e6, p99 / 1e6, p999 / 1e6, max / 1e6);
+        }
+    }
+}
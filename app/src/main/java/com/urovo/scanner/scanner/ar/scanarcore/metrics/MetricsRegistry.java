@@ -0,0 +1,264 @@
+package com.urovo.scanner.scanner.ar.scanarcore.metrics;
+
+import java.io.File;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 运行时指标注册表（计数器、仪表、计时器）
+ * <p>
+ * 计数器基于 {@link LongAdder}（分段计数，多线程自增无竞争），计时器基于无锁 {@link LatencyHistogram}。
+ * 指标按名称注册一次，调用方持有返回的对象，热路径上只做原子操作。
+ * <p>
+ * {@link Level} 同时控制热路径调试日志：只有 {@link Level#DEBUG} 时
+ * {@link #isDebugLogEnabled()} 才返回 true，其余级别下调用方应跳过日志字符串的拼接。
+ * 使用本注册表的 {@link PipelineMetrics}（共享实例使用共享注册表）同样跟随级别开关。
+ */
+public class MetricsRegistry {
+
+    /**
+     * 指标级别
+     */
+    public enum Level {
+        /** 不记录指标，不输出热路径日志 */
+        OFF,
+        /** 记录指标，不输出热路径日志（默认） */
+        METRICS,
+        /** 记录指标，并输出热路径调试日志 */
+        DEBUG
+    }
+
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Gauge> gauges = new ConcurrentHashMap<>();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    private volatile Level level = Level.METRICS;
+    // 按级别缓存的开关，热路径只读一个 volatile 布尔值
+    private volatile boolean recording = true;
+    private volatile boolean debugLog = false;
+
+    public MetricsRegistry() {
+    }
+
+    /**
+     * 进程级共享实例
+     */
+    public static MetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    public void setLevel(Level level) {
+        this.level = level;
+        this.recording = level != Level.OFF;
+        this.debugLog = level == Level.DEBUG;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * 是否记录指标
+     */
+    public boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * 是否输出热路径调试日志
+     */
+    public boolean isDebugLogEnabled() {
+        return debugLog;
+    }
+
+    /**
+     * 获取或注册计数器
+     */
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, Counter::new);
+    }
+
+    /**
+     * 获取或注册可设置数值的仪表
+     */
+    public Gauge gauge(String name) {
+        return gauges.computeIfAbsent(name, key -> new Gauge(key, null));
+    }
+
+    /**
+     * 注册按需读取数值的仪表（读取时调用 supplier，同名仪表会被替换）
+     */
+    public Gauge gauge(String name, LongSupplier supplier) {
+        Gauge gauge = new Gauge(name, supplier);
+        gauges.put(name, gauge);
+        return gauge;
+    }
+
+    /**
+     * 获取或注册计时器（纳秒）
+     */
+    public Timer timer(String name) {
+        return timers.computeIfAbsent(name, Timer::new);
+    }
+
+    /**
+     * 生成文本报告（按名称排序）
+     */
+    public String report() {
+        StringBuilder builder = new StringBuilder();
+        for (Counter counter : new TreeMap<>(counters).values()) {
+            builder.append("counter ").append(counter.name).append('=').append(counter.get()).append('\n');
+        }
+        for (Gauge gauge : new TreeMap<>(gauges).values()) {
+            builder.append("gauge ").append(gauge.name).append('=').append(gauge.get()).append('\n');
+        }
+        for (Timer timer : new TreeMap<>(timers).values()) {
+            if (timer.getCount() > 0) {
+                builder.append("timer ").append(timer.snapshot()).append('\n');
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 导出报告到文件（覆盖）
+     *
+     * @return 是否成功
+     */
+    public boolean dump(File file) {
+        return MetricsReports.write(file, report());
+    }
+
+    /**
+     * 清零所有计数器和计时器（仪表保留）
+     */
+    public void reset() {
+        for (Counter counter : counters.values()) {
+            counter.adder.reset();
+        }
+        for (Timer timer : timers.values()) {
+            timer.histogram.reset();
+        }
+    }
+
+    /**
+     * 计数器
+     */
+    public final class Counter {
+        private final String name;
+        private final LongAdder adder = new LongAdder();
+
+        Counter(String name) {
+            this.name = name;
+        }
+
+        public void inc() {
+            if (recording) {
+                adder.increment();
+            }
+        }
+
+        public void add(long delta) {
+            if (recording) {
+                adder.add(delta);
+            }
+        }
+
+        public long get() {
+            return adder.sum();
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * 仪表（当前值）
+     */
+    public final class Gauge {
+        private final String name;
+        private final LongSupplier supplier;
+        private final AtomicLong value = new AtomicLong();
+
+        Gauge(String name, LongSupplier supplier) {
+            this.name = name;
+            this.supplier = supplier;
+        }
+
+        /**
+         * 设置当前值（按需读取的仪表忽略）
+         */
+        public void set(long newValue) {
+            if (recording) {
+                value.set(newValue);
+            }
+        }
+
+        public long get() {
+            if (supplier != null) {
+                try {
+                    return supplier.getAsLong();
+                } catch (RuntimeException e) {
+                    return value.get();
+                }
+            }
+            return value.get();
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * 计时器（纳秒）
+     */
+    public final class Timer {
+        private final String name;
+        private final LatencyHistogram histogram;
+
+        Timer(String name) {
+            this.name = name;
+            this.histogram = new LatencyHistogram(name);
+        }
+
+        /**
+         * 记录耗时
+         *
+         * @param durationNs 纳秒
+         */
+        public void record(long durationNs) {
+            if (recording) {
+                histogram.record(durationNs);
+            }
+        }
+
+        /**
+         * 记录从 startNs（System.nanoTime()）到现在的耗时
+         */
+        public void recordSince(long startNs) {
+            if (recording) {
+                histogram.record(System.nanoTime() - startNs);
+            }
+        }
+
+        public long getCount() {
+            return histogram.getCount();
+        }
+
+        public LatencyHistogram.Snapshot snapshot() {
+            return histogram.snapshot();
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.urovo.scanner.scanner.ar.scanarcore.metrics;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * 指标报告导出（{@link MetricsRegistry} 与 {@link PipelineMetrics} 共用）
+ */
+final class MetricsReports {
+
+    private static final String TAG = "MetricsReports";
+
+    private MetricsReports() {
+    }
+
+    /**
+     * 把文本报告写入文件（覆盖），必要时创建父目录
+     *
+     * @return 是否成功
+     */
+    static boolean write(File file, String report) {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            Log.w(TAG, "Failed to create " + parent);
+            return false;
+        }
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(report);
+            return true;
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to dump metrics to " + file, e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.urovo.scanner.scanner.ar.scanarcore.metrics;
+
+import java.io.File;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 扫码流水线各阶段耗时统计
+ * <p>
+ * 每个 {@link PipelineStage} 对应一个无锁 {@link LatencyHistogram}（纳秒），
+ * 运行时可以查询快照，也可以导出为文本文件。
+ * <p>
+ * 是否记录跟随 {@link MetricsRegistry} 的级别：{@link MetricsRegistry.Level#OFF} 时不记录，
+ * 与计数器和计时器共用同一个开关。
+ * <p>
+ * 端到端耗时以帧交给应用的时刻为起点，起止都用 {@link System#nanoTime()}。
+ * ARCore 文档说明 Frame.getTimestamp() 的基准未定义，Camera2/CameraX 的 Image.getTimestamp()
+ * 取决于设备的 SENSOR_INFO_TIMESTAMP_SOURCE，二者都不能与任何"当前时间"相减，只用于标识帧。
+ * 差值为负或超过 {@link #MAX_FRAME_AGE_NS} 时视为调用方用错了时钟，
+ * 不计入直方图，只累加 {@link #getRejectedFrameAges()}。
+ */
+public class PipelineMetrics {
+
+    /** 端到端耗时的合理上限（纳秒） */
+    public static final long MAX_FRAME_AGE_NS = 10_000_000_000L;
+
+    private static final PipelineMetrics INSTANCE = new PipelineMetrics(MetricsRegistry.getInstance());
+
+    private final Map<PipelineStage, LatencyHistogram> histograms = new EnumMap<>(PipelineStage.class);
+    private final AtomicLong rejectedFrameAges = new AtomicLong();
+    private final MetricsRegistry registry;
+
+    public PipelineMetrics() {
+        this(new MetricsRegistry());
+    }
+
+    /**
+     * @param registry 提供记录开关的注册表
+     */
+    public PipelineMetrics(MetricsRegistry registry) {
+        this.registry = registry;
+        for (PipelineStage stage : PipelineStage.values()) {
+            histograms.put(stage, new LatencyHistogram(stage.name()));
+        }
+    }
+
+    /**
+     * 进程级共享实例
+     */
+    public static PipelineMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 是否记录（由 {@link MetricsRegistry#setLevel} 控制）
+     */
+    public boolean isEnabled() {
+        return registry.isRecording();
+    }
+
+    /**
+     * 记录阶段耗时
+     *
+     * @param durationNs 耗时（纳秒）
+     */
+    public void record(PipelineStage stage, long durationNs) {
+        if (registry.isRecording()) {
+            histograms.get(stage).record(durationNs);
+        }
+    }
+
+    /**
+     * 记录从帧交给应用到现在的端到端耗时
+     *
+     * @param frameStartNs 帧交给应用时的 System.nanoTime()，0 表示未知（忽略）
+     * @param nowNs        当前的 System.nanoTime()
+     */
+    public void recordFrameAge(PipelineStage stage, long frameStartNs, long nowNs) {
+        if (!registry.isRecording() || frameStartNs <= 0) {
+            return;
+        }
+        long age = nowNs - frameStartNs;
+        if (age < 0 || age > MAX_FRAME_AGE_NS) {
+            rejectedFrameAges.incrementAndGet();
+            return;
+        }
+        histograms.get(stage).record(age);
+    }
+
+    public LatencyHistogram getHistogram(PipelineStage stage) {
+        return histograms.get(stage);
+    }
+
+    public LatencyHistogram.Snapshot getSnapshot(PipelineStage stage) {
+        return histograms.get(stage).snapshot();
+    }
+
+    /**
+     * 因时间基准不一致被丢弃的端到端样本数
+     */
+    public long getRejectedFrameAges() {
+        return rejectedFrameAges.get();
+    }
+
+    /**
+     * 生成文本报告（每个有记录的阶段一行）
+     */
+    public String report() {
+        StringBuilder builder = new StringBuilder();
+        for (PipelineStage stage : PipelineStage.values()) {
+            LatencyHistogram.Snapshot snapshot = histograms.get(stage).snapshot();
+            if (snapshot.count > 0) {
+                builder.append(snapshot).append('\n');
+            }
+        }
+        long rejected = rejectedFrameAges.get();
+        if (rejected > 0) {
+            builder.append("rejectedFrameAges=").append(rejected).append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 导出报告到文件（覆盖）
+     *
+     * @return 是否成功
+     */
+    public boolean dump(File file) {
+        return MetricsReports.write(file, report());
+    }
+
+    /**
+     * 清空所有阶段的记录
+     */
+    public void reset() {
+        for (LatencyHistogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+        rejectedFrameAges.set(0);
+    }
+}
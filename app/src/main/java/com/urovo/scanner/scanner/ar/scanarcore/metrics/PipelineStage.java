@@ -0,0 +1,25 @@
+package com.urovo.scanner.scanner.ar.scanarcore.metrics;
+
+/**
+ * 扫码流水线阶段
+ */
+public enum PipelineStage {
+    /** 从 ARCore/相机获取图像 */
+    ACQUIRE,
+    /** 从 Image 提取 YUV/亮度数据 */
+    YUV_EXTRACT,
+    /** 清晰度估计 */
+    SHARPNESS,
+    /** 图像增强（CLAHE + 锐化） */
+    ENHANCE,
+    /** 原生检测/解码（分块和检测器模式包含区域结果转换） */
+    DECODE,
+    /** 整帧解码结果转换为 BarcodeResult */
+    CONVERT,
+    /** 锚点创建（GL线程中的命中测试和创建） */
+    ANCHOR,
+    /** 端到端：帧交给应用（session.update 返回或分析器收到帧）到解码结果回调 */
+    FRAME_TO_RESULT,
+    /** 端到端：帧交给应用到锚点创建完成 */
+    FRAME_TO_ANCHOR
+}
@@ -14,6 +14,8 @@ public class BarcodeInfo {
     private final int format;
     private final Point[] cornerPoints;
     private final long timestamp;
+    // 来源帧的采集时间戳（纳秒），0 表示未知
+    private final long frameTimestampNs;
     
     // 3D空间位置（相对于版面坐标系）
     private float[] position3D;
@@ -24,10 +26,16 @@ public class BarcodeInfo {
     
     public BarcodeInfo(@NonNull String rawValue, int format, 
                        @Nullable Point[] cornerPoints, long timestamp) {
+        this(rawValue, format, cornerPoints, timestamp, 0);
+    }
+
+    public BarcodeInfo(@NonNull String rawValue, int format,
+                       @Nullable Point[] cornerPoints, long timestamp, long frameTimestampNs) {
         this.rawValue = rawValue;
         this.format = format;
         this.cornerPoints = cornerPoints;
         this.timestamp = timestamp;
+        this.frameTimestampNs = frameTimestampNs;
     }
     
     @NonNull
@@ -47,6 +55,13 @@ public class BarcodeInfo {
     public long getTimestamp() {
         return timestamp;
     }
+
+    /**
+     * 来源帧的采集时间戳（纳秒，Image.getTimestamp()），0 表示未知
+     */
+    public long getFrameTimestamp() {
+        return frameTimestampNs;
+    }
     
     public void setPosition3D(float x, float y, float z) {
         this.position3D = new float[]{x, y, z};
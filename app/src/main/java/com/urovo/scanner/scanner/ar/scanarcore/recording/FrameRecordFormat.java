@@ -0,0 +1,104 @@
+package com.urovo.scanner.scanner.ar.scanarcore.recording;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Locale;
+
+/**
+ * 帧录制文件格式
+ * <p>
+ * 一次录制是一个目录，包含若干分段文件和一个帧索引，全部只追加写入、小端字节序：
+ * <pre>
+ * segment_00000.frec   分段头(16) + 帧记录 × N，超过分段大小后切换到下一个分段
+ *   分段头：magic "FREC" | version | segment 序号 | 保留
+ *   帧记录：帧头(80) + 亮度数据(可能经 LZ4 压缩) + 色度数据(NV21 时，原样)
+ * index.fidx           索引头(16) + 索引项(32) × N
+ *   索引头：magic "FIDX" | version | 保留 × 2
+ *   索引项：timestampNs | frame 序号 | segment 序号 | 记录偏移 | 记录长度 | flags
+ * </pre>
+ * 帧头布局见 {@link #encodeHeader}。索引只在帧记录完整写入后追加，录制中断时索引可能落后于分段文件，
+ * {@link FrameRecordReader} 在索引缺失时会扫描分段重建。
+ */
+public final class FrameRecordFormat {
+
+    public static final int VERSION = 1;
+
+    static final int SEGMENT_MAGIC = 0x43455246;   // "FREC"
+    static final int FRAME_MAGIC = 0x304d5246;     // "FRM0"
+    static final int INDEX_MAGIC = 0x58444946;     // "FIDX"
+
+    static final int SEGMENT_HEADER_SIZE = 16;
+    static final int FRAME_HEADER_SIZE = 80;
+    static final int INDEX_HEADER_SIZE = 16;
+    static final int INDEX_ENTRY_SIZE = 32;
+
+    /** 像素格式：只有亮度 */
+    public static final int FORMAT_LUMA = 0;
+    /** 像素格式：NV21（亮度 + 交错色度） */
+    public static final int FORMAT_NV21 = 1;
+
+    /** 亮度数据经 LZ4 压缩 */
+    public static final int FLAG_LZ4 = 1;
+    /** 帧头包含相机位姿 */
+    public static final int FLAG_POSE = 1 << 1;
+
+    /** 位姿长度：平移(tx, ty, tz) + 旋转四元数(qx, qy, qz, qw) */
+    public static final int POSE_LENGTH = 7;
+
+    static final String INDEX_FILE_NAME = "index.fidx";
+    static final String SEGMENT_SUFFIX = ".frec";
+
+    private FrameRecordFormat() {
+    }
+
+    static String segmentFileName(int segment) {
+        return String.format(Locale.US, "segment_%05d%s", segment, SEGMENT_SUFFIX);
+    }
+
+    static ByteBuffer allocate(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * 亮度数据长度
+     */
+    static int lumaLength(int width, int height) {
+        return width * height;
+    }
+
+    /**
+     * 色度数据长度（LUMA 格式为0）
+     */
+    static int chromaLength(int format, int width, int height) {
+        return format == FORMAT_NV21 ? width * height / 2 : 0;
+    }
+
+    /**
+     * 写入帧头（从 buffer 当前位置开始，共 {@link #FRAME_HEADER_SIZE} 字节）
+     * <pre>
+     * 0  magic          4  headerSize     8  frame 序号     12 width
+     * 16 height         20 format         24 rotation       28 flags
+     * 32 timestampNs(8)                   40 亮度原始长度   44 亮度存储长度
+     * 48 色度长度       52 位姿 float × 7（无位姿时为0）
+     * </pre>
+     */
+    static void encodeHeader(ByteBuffer buffer, int frameIndex, int width, int height, int format,
+                             int rotation, int flags, long timestampNs, int lumaStoredLength,
+                             float[] pose) {
+        buffer.putInt(FRAME_MAGIC);
+        buffer.putInt(FRAME_HEADER_SIZE);
+        buffer.putInt(frameIndex);
+        buffer.putInt(width);
+        buffer.putInt(height);
+        buffer.putInt(format);
+        buffer.putInt(rotation);
+        buffer.putInt(flags);
+        buffer.putLong(timestampNs);
+        buffer.putInt(lumaLength(width, height));
+        buffer.putInt(lumaStoredLength);
+        buffer.putInt(chromaLength(format, width, height));
+        for (int i = 0; i < POSE_LENGTH; i++) {
+            buffer.putFloat((flags & FLAG_POSE) != 0 ? pose[i] : 0f);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.urovo.scanner.scanner.ar.scanarcore.recording;
+
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 帧录制读取器
+ * <p>
+ * 先读取索引，再从最后一个索引项之后继续扫描分段文件，补齐录制中断时尚未落盘的索引项；
+ * 索引缺失或损坏时从头扫描。最后一个不完整的帧记录会被忽略。
+ * 非线程安全。
+ */
+public class FrameRecordReader implements Closeable {
+
+    /**
+     * 索引项
+     */
+    public static class IndexEntry {
+        public final long timestampNs;
+        public final int frameIndex;
+        public final int segment;
+        public final long offset;
+        public final int recordLength;
+        public final int flags;
+
+        IndexEntry(long timestampNs, int frameIndex, int segment, long offset, int recordLength, int flags) {
+            this.timestampNs = timestampNs;
+            this.frameIndex = frameIndex;
+            this.segment = segment;
+            this.offset = offset;
+            this.recordLength = recordLength;
+            this.flags = flags;
+        }
+    }
+
+    /**
+     * 解码后的帧
+     */
+    public static class Frame {
+        public final int frameIndex;
+        public final int width;
+        public final int height;
+        /** {@link FrameRecordFormat#FORMAT_LUMA} 或 {@link FrameRecordFormat#FORMAT_NV21} */
+        public final int format;
+        public final int rotation;
+        public final long timestampNs;
+        /** 相机位姿（tx, ty, tz, qx, qy, qz, qw），录制时没有位姿为 null */
+        public final float[] pose;
+        /** 帧数据（已解压），LUMA 为 width*height 字节，NV21 为 width*height*3/2 字节 */
+        public final byte[] data;
+
+        Frame(int frameIndex, int width, int height, int format, int rotation, long timestampNs,
+              float[] pose, byte[] data) {
+            this.frameIndex = frameIndex;
+            this.width = width;
+            this.height = height;
+            this.format = format;
+            this.rotation = rotation;
+            this.timestampNs = timestampNs;
+            this.pose = pose;
+            this.data = data;
+        }
+    }
+
+    private final File directory;
+    private final List<IndexEntry> entries;
+    private final Map<Integer, FileChannel> segments = new HashMap<>();
+    private final ByteBuffer headerBuffer = FrameRecordFormat.allocate(FrameRecordFormat.FRAME_HEADER_SIZE);
+    private LZ4FastDecompressor decompressor;
+    private byte[] compressedBuffer = new byte[0];
+
+    /**
+     * @param directory 录制目录
+     * @throws IOException 目录中没有可读的录制
+     */
+    public FrameRecordReader(File directory) throws IOException {
+        this.directory = directory;
+        List<IndexEntry> indexed = readIndex();
+        this.entries = indexed != null ? indexed : new ArrayList<>();
+        if (entries.isEmpty()) {
+            scanSegments(0, FrameRecordFormat.SEGMENT_HEADER_SIZE);
+        } else {
+            IndexEntry last = entries.get(entries.size() - 1);
+            scanSegments(last.segment, last.offset + last.recordLength);
+        }
+        if (segments.isEmpty()) {
+            throw new IOException("No recording in " + directory);
+        }
+    }
+
+    public int getFrameCount() {
+        return entries.size();
+    }
+
+    public IndexEntry getIndexEntry(int position) {
+        return entries.get(position);
+    }
+
+    /**
+     * 读取第 position 帧（按录制顺序）
+     */
+    public Frame read(int position) throws IOException {
+        IndexEntry entry = entries.get(position);
+        FileChannel channel = segment(entry.segment);
+
+        headerBuffer.clear();
+        readFully(channel, headerBuffer, entry.offset);
+        headerBuffer.flip();
+        if (headerBuffer.getInt() != FrameRecordFormat.FRAME_MAGIC) {
+            throw new IOException("Bad frame magic at segment " + entry.segment + " offset " + entry.offset);
+        }
+        int headerSize = headerBuffer.getInt();
+        int frameIndex = headerBuffer.getInt();
+        int width = headerBuffer.getInt();
+        int height = headerBuffer.getInt();
+        int format = headerBuffer.getInt();
+        int rotation = headerBuffer.getInt();
+        int flags = headerBuffer.getInt();
+        long timestampNs = headerBuffer.getLong();
+        int lumaLength = headerBuffer.getInt();
+        int lumaStored = headerBuffer.getInt();
+        int chromaLength = headerBuffer.getInt();
+        float[] pose = null;
+        if ((flags & FrameRecordFormat.FLAG_POSE) != 0) {
+            pose = new float[FrameRecordFormat.POSE_LENGTH];
+            for (int i = 0; i < pose.length; i++) {
+                pose[i] = headerBuffer.getFloat();
+            }
+        }
+
+        byte[] data = new byte[lumaLength + chromaLength];
+        long payload = entry.offset + headerSize;
+        if ((flags & FrameRecordFormat.FLAG_LZ4) != 0) {
+            if (compressedBuffer.length < lumaStored) {
+                compressedBuffer = new byte[lumaStored];
+            }
+            readFully(channel, ByteBuffer.wrap(compressedBuffer, 0, lumaStored), payload);
+            if (decompressor == null) {
+                decompressor = LZ4Factory.fastestInstance().fastDecompressor();
+            }
+            decompressor.decompress(compressedBuffer, 0, data, 0, lumaLength);
+        } else {
+            readFully(channel, ByteBuffer.wrap(data, 0, lumaLength), payload);
+        }
+        if (chromaLength > 0) {
+            readFully(channel, ByteBuffer.wrap(data, lumaLength, chromaLength), payload + lumaStored);
+        }
+        return new Frame(frameIndex, width, height, format, rotation, timestampNs, pose, data);
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (FileChannel channel : segments.values()) {
+            channel.close();
+        }
+        segments.clear();
+    }
+
+    private List<IndexEntry> readIndex() throws IOException {
+        File file = new File(directory, FrameRecordFormat.INDEX_FILE_NAME);
+        if (!file.isFile() || file.length() < FrameRecordFormat.INDEX_HEADER_SIZE) {
+            return null;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            ByteBuffer buffer = FrameRecordFormat.allocate((int) channel.size());
+            readFully(channel, buffer, 0);
+            buffer.flip();
+            if (buffer.getInt() != FrameRecordFormat.INDEX_MAGIC || buffer.getInt() != FrameRecordFormat.VERSION) {
+                return null;
+            }
+            buffer.position(FrameRecordFormat.INDEX_HEADER_SIZE);
+            List<IndexEntry> result = new ArrayList<>();
+            while (buffer.remaining() >= FrameRecordFormat.INDEX_ENTRY_SIZE) {
+                result.add(new IndexEntry(buffer.getLong(), buffer.getInt(), buffer.getInt(),
+                        buffer.getLong(), buffer.getInt(), buffer.getInt()));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 从指定分段的指定偏移开始扫描帧记录，追加到 entries
+     */
+    private void scanSegments(int firstSegment, long firstOffset) throws IOException {
+        ByteBuffer header = FrameRecordFormat.allocate(FrameRecordFormat.FRAME_HEADER_SIZE);
+        int nextFrameIndex = entries.isEmpty() ? 0 : entries.get(entries.size() - 1).frameIndex + 1;
+        for (int segment = firstSegment; ; segment++) {
+            File file = new File(directory, FrameRecordFormat.segmentFileName(segment));
+            if (!file.isFile()) {
+                break;
+            }
+            FileChannel channel = segment(segment);
+            long size = channel.size();
+            long offset = segment == firstSegment ? firstOffset : FrameRecordFormat.SEGMENT_HEADER_SIZE;
+            while (offset + FrameRecordFormat.FRAME_HEADER_SIZE <= size) {
+                header.clear();
+                readFully(channel, header, offset);
+                if (header.getInt(0) != FrameRecordFormat.FRAME_MAGIC || header.getInt(8) != nextFrameIndex) {
+                    break;
+                }
+                int recordLength = header.getInt(4) + header.getInt(44) + header.getInt(48);
+                if (offset + recordLength > size) {
+                    break;
+                }
+                entries.add(new IndexEntry(header.getLong(32), nextFrameIndex, segment, offset,
+                        recordLength, header.getInt(28)));
+                nextFrameIndex++;
+                offset += recordLength;
+            }
+        }
+    }
+
+    private FileChannel segment(int segment) throws IOException {
+        FileChannel channel = segments.get(segment);
+        if (channel == null) {
+            File file = new File(directory, FrameRecordFormat.segmentFileName(segment));
+            channel = new RandomAccessFile(file, "r").getChannel();
+            segments.put(segment, channel);
+        }
+        return channel;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+            position += read;
+        }
+    }
+}
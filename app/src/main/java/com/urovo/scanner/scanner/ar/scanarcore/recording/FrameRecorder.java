@@ -0,0 +1,419 @@
+package com.urovo.scanner.scanner.ar.scanarcore.recording;
+
+import android.util.Log;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 帧录制器
+ * <p>
+ * 把实时帧写入 {@link FrameRecordFormat} 描述的分段文件，替代逐帧保存 .yuv 文件。
+ * 生产端（GL 线程/解码线程）只把帧拷贝到预分配的环形槽位，不做任何 IO；
+ * 槽位全部被占用时直接丢弃新帧并计数，不阻塞调用方。
+ * 单个写线程按顺序取出槽位，（可选）LZ4 压缩亮度平面后写入当前分段并追加索引，写完归还槽位。
+ * <p>
+ * 线程安全：record() 可在任意线程调用；start()/stop() 应由同一线程调用。
+ */
+public class FrameRecorder {
+
+    private static final String TAG = "FrameRecorder";
+
+    // 索引缓冲的条目数，写满、切换分段和停止时落盘
+    private static final int INDEX_FLUSH_ENTRIES = 32;
+
+    /**
+     * 录制配置
+     */
+    public static class Config {
+        /** 环形槽位数量（最多缓存的待写帧数） */
+        public int ringCapacity = 8;
+        /** 单个分段文件的目标大小（字节），超过后切换到新分段 */
+        public long segmentSizeBytes = 256L * 1024 * 1024;
+        /** 是否 LZ4 压缩亮度平面（压缩后不变小时按原样存储） */
+        public boolean compressLuma = true;
+
+        public Config() {}
+
+        public Config(int ringCapacity, long segmentSizeBytes, boolean compressLuma) {
+            this.ringCapacity = ringCapacity;
+            this.segmentSizeBytes = segmentSizeBytes;
+            this.compressLuma = compressLuma;
+        }
+    }
+
+    /**
+     * 录制统计
+     */
+    public static class Stats {
+        /** 已写入的帧数 */
+        public final long framesWritten;
+        /** 槽位不足被丢弃的帧数 */
+        public final long framesDropped;
+        /** 未压缩的帧数据字节数 */
+        public final long rawBytes;
+        /** 实际写入的字节数（含帧头） */
+        public final long bytesWritten;
+        public final int segments;
+        /** 等待写入的帧数 */
+        public final int pending;
+
+        Stats(long framesWritten, long framesDropped, long rawBytes, long bytesWritten, int segments, int pending) {
+            this.framesWritten = framesWritten;
+            this.framesDropped = framesDropped;
+            this.rawBytes = rawBytes;
+            this.bytesWritten = bytesWritten;
+            this.segments = segments;
+            this.pending = pending;
+        }
+
+        /**
+         * 压缩率（写入字节 / 原始字节）
+         */
+        public double getCompressionRatio() {
+            return rawBytes > 0 ? (double) bytesWritten / rawBytes : 1.0;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "framesWritten=" + framesWritten +
+                    ", framesDropped=" + framesDropped +
+                    ", rawBytes=" + rawBytes +
+                    ", bytesWritten=" + bytesWritten +
+                    ", segments=" + segments +
+                    ", pending=" + pending +
+                    String.format(", ratio=%.2f", getCompressionRatio()) +
+                    '}';
+        }
+    }
+
+    /**
+     * 环形槽位：帧数据与帧头字段
+     */
+    private static class Slot {
+        byte[] data = new byte[0];
+        int width;
+        int height;
+        int format;
+        int rotation;
+        long timestampNs;
+        boolean hasPose;
+        final float[] pose = new float[FrameRecordFormat.POSE_LENGTH];
+    }
+
+    private final Config config;
+    private BlockingQueue<Slot> freeSlots;
+    private BlockingQueue<Slot> readySlots;
+
+    private volatile boolean recording = false;
+    private Thread writerThread;
+    private File directory;
+
+    // 写线程状态
+    private LZ4Compressor compressor;
+    private byte[] compressBuffer = new byte[0];
+    private final ByteBuffer headerBuffer = FrameRecordFormat.allocate(FrameRecordFormat.FRAME_HEADER_SIZE);
+    private final ByteBuffer indexBuffer =
+            FrameRecordFormat.allocate(FrameRecordFormat.INDEX_ENTRY_SIZE * INDEX_FLUSH_ENTRIES);
+    private FileChannel segmentChannel;
+    private FileChannel indexChannel;
+    private long segmentBytes;
+    private int frameIndex;
+
+    // 统计（写线程写，其他线程读）
+    private volatile long framesWritten;
+    private volatile long rawBytes;
+    private volatile long bytesWritten;
+    private volatile int segments;
+    private final AtomicLong framesDropped = new AtomicLong();
+
+    public FrameRecorder() {
+        this(new Config());
+    }
+
+    public FrameRecorder(Config config) {
+        this.config = config;
+    }
+
+    /**
+     * 开始录制到指定目录（目录不存在时创建，目录中已有的录制会被删除）
+     *
+     * @throws IOException 目录或文件无法创建
+     */
+    public synchronized void start(File directory) throws IOException {
+        if (writerThread != null) {
+            throw new IllegalStateException("Already recording to " + this.directory);
+        }
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Failed to create " + directory);
+        }
+        deleteRecording(directory);
+        this.directory = directory;
+
+        int capacity = Math.max(1, config.ringCapacity);
+        freeSlots = new ArrayBlockingQueue<>(capacity);
+        readySlots = new ArrayBlockingQueue<>(capacity);
+        for (int i = 0; i < capacity; i++) {
+            freeSlots.add(new Slot());
+        }
+        compressor = config.compressLuma ? LZ4Factory.fastestInstance().fastCompressor() : null;
+
+        indexChannel = new FileOutputStream(new File(directory, FrameRecordFormat.INDEX_FILE_NAME)).getChannel();
+        ByteBuffer header = FrameRecordFormat.allocate(FrameRecordFormat.INDEX_HEADER_SIZE);
+        header.putInt(FrameRecordFormat.INDEX_MAGIC).putInt(FrameRecordFormat.VERSION).putInt(0).putInt(0);
+        header.flip();
+        writeFully(indexChannel, header);
+        indexBuffer.clear();
+
+        segments = 0;
+        frameIndex = 0;
+        framesWritten = 0;
+        rawBytes = 0;
+        bytesWritten = 0;
+        framesDropped.set(0);
+        openSegment();
+
+        recording = true;
+        writerThread = new Thread(this::drain, TAG);
+        writerThread.start();
+        Log.i(TAG, "Recording to " + directory);
+    }
+
+    /**
+     * 是否正在录制
+     */
+    public boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * 录制一帧（只拷贝数据，立即返回）
+     *
+     * @param data        帧数据：LUMA 至少 width*height 字节，NV21 至少 width*height*3/2 字节
+     * @param format      {@link FrameRecordFormat#FORMAT_LUMA} 或 {@link FrameRecordFormat#FORMAT_NV21}
+     * @param timestampNs 帧采集时间戳
+     * @param pose        相机位姿（tx, ty, tz, qx, qy, qz, qw），null 表示没有
+     * @return 是否进入写队列；未在录制或槽位已满时返回 false
+     */
+    public boolean record(byte[] data, int width, int height, int format, int rotation,
+                          long timestampNs, float[] pose) {
+        if (!recording) {
+            return false;
+        }
+        int length = FrameRecordFormat.lumaLength(width, height)
+                + FrameRecordFormat.chromaLength(format, width, height);
+        if (data == null || width <= 0 || height <= 0 || data.length < length) {
+            Log.w(TAG, "Invalid frame " + width + "x" + height + " format=" + format);
+            return false;
+        }
+        BlockingQueue<Slot> free = freeSlots;
+        Slot slot = free.poll();
+        if (slot == null) {
+            framesDropped.incrementAndGet();
+            return false;
+        }
+
+        if (slot.data.length < length) {
+            slot.data = new byte[length];
+        }
+        System.arraycopy(data, 0, slot.data, 0, length);
+        slot.width = width;
+        slot.height = height;
+        slot.format = format;
+        slot.rotation = rotation;
+        slot.timestampNs = timestampNs;
+        slot.hasPose = pose != null && pose.length >= FrameRecordFormat.POSE_LENGTH;
+        if (slot.hasPose) {
+            System.arraycopy(pose, 0, slot.pose, 0, FrameRecordFormat.POSE_LENGTH);
+        }
+        readySlots.add(slot);
+        return true;
+    }
+
+    /**
+     * 停止录制：等待已入队的帧写完后关闭文件（写入失败自动停止后也需要调用）
+     */
+    public synchronized void stop() {
+        if (writerThread == null) {
+            return;
+        }
+        recording = false;
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writerThread = null;
+        Log.i(TAG, "Recording stopped: " + getStats());
+    }
+
+    /**
+     * 当前录制目录
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    public Stats getStats() {
+        BlockingQueue<Slot> ready = readySlots;
+        return new Stats(framesWritten, framesDropped.get(), rawBytes, bytesWritten, segments,
+                ready != null ? ready.size() : 0);
+    }
+
+    private static void deleteRecording(File directory) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String name = file.getName();
+            if ((name.endsWith(FrameRecordFormat.SEGMENT_SUFFIX) || name.equals(FrameRecordFormat.INDEX_FILE_NAME))
+                    && !file.delete()) {
+                Log.w(TAG, "Failed to delete " + file);
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            while (true) {
+                Slot slot = readySlots.poll(50, TimeUnit.MILLISECONDS);
+                if (slot == null) {
+                    if (!recording) {
+                        break;
+                    }
+                    continue;
+                }
+                try {
+                    writeFrame(slot);
+                } finally {
+                    freeSlots.add(slot);
+                }
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Recording failed, stopping", e);
+            recording = false;
+        } catch (InterruptedException e) {
+            Log.w(TAG, "Writer interrupted");
+        } finally {
+            closeFiles();
+        }
+    }
+
+    private void writeFrame(Slot slot) throws IOException {
+        int lumaLength = FrameRecordFormat.lumaLength(slot.width, slot.height);
+        int chromaLength = FrameRecordFormat.chromaLength(slot.format, slot.width, slot.height);
+
+        int flags = slot.hasPose ? FrameRecordFormat.FLAG_POSE : 0;
+        byte[] luma = slot.data;
+        int lumaStored = lumaLength;
+        if (compressor != null) {
+            int maxLength = compressor.maxCompressedLength(lumaLength);
+            if (compressBuffer.length < maxLength) {
+                compressBuffer = new byte[maxLength];
+            }
+            int compressed = compressor.compress(slot.data, 0, lumaLength, compressBuffer, 0, maxLength);
+            if (compressed < lumaLength) {
+                luma = compressBuffer;
+                lumaStored = compressed;
+                flags |= FrameRecordFormat.FLAG_LZ4;
+            }
+        }
+
+        int recordLength = FrameRecordFormat.FRAME_HEADER_SIZE + lumaStored + chromaLength;
+        if (segmentBytes > FrameRecordFormat.SEGMENT_HEADER_SIZE
+                && segmentBytes + recordLength > config.segmentSizeBytes) {
+            flushIndex();
+            segmentChannel.close();
+            openSegment();
+        }
+
+        headerBuffer.clear();
+        FrameRecordFormat.encodeHeader(headerBuffer, frameIndex, slot.width, slot.height, slot.format,
+                slot.rotation, flags, slot.timestampNs, lumaStored, slot.pose);
+        headerBuffer.flip();
+
+        long offset = segmentBytes;
+        writeFully(segmentChannel, headerBuffer);
+        writeFully(segmentChannel, ByteBuffer.wrap(luma, 0, lumaStored));
+        if (chromaLength > 0) {
+            writeFully(segmentChannel, ByteBuffer.wrap(slot.data, lumaLength, chromaLength));
+        }
+        segmentBytes += recordLength;
+
+        // 帧记录完整写入后再追加索引
+        indexBuffer.putLong(slot.timestampNs);
+        indexBuffer.putInt(frameIndex);
+        indexBuffer.putInt(segments - 1);
+        indexBuffer.putLong(offset);
+        indexBuffer.putInt(recordLength);
+        indexBuffer.putInt(flags);
+        if (!indexBuffer.hasRemaining()) {
+            flushIndex();
+        }
+
+        frameIndex++;
+        framesWritten++;
+        rawBytes += lumaLength + chromaLength;
+        bytesWritten += recordLength;
+    }
+
+    private void openSegment() throws IOException {
+        File file = new File(directory, FrameRecordFormat.segmentFileName(segments));
+        segmentChannel = new FileOutputStream(file).getChannel();
+        ByteBuffer header = FrameRecordFormat.allocate(FrameRecordFormat.SEGMENT_HEADER_SIZE);
+        header.putInt(FrameRecordFormat.SEGMENT_MAGIC).putInt(FrameRecordFormat.VERSION).putInt(segments).putInt(0);
+        header.flip();
+        writeFully(segmentChannel, header);
+        segmentBytes = FrameRecordFormat.SEGMENT_HEADER_SIZE;
+        segments++;
+    }
+
+    private void flushIndex() throws IOException {
+        indexBuffer.flip();
+        writeFully(indexChannel, indexBuffer);
+        indexBuffer.clear();
+    }
+
+    private void closeFiles() {
+        try {
+            if (indexChannel != null && indexChannel.isOpen()) {
+                flushIndex();
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to flush index", e);
+        }
+        close(segmentChannel);
+        close(indexChannel);
+        segmentChannel = null;
+        indexChannel = null;
+    }
+
+    private static void close(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to close channel", e);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -10,6 +10,7 @@ import com.google.ar.core.Anchor;
 import com.google.ar.core.Camera;
 import com.google.ar.core.Frame;
 import com.google.ar.core.Pose;
+import com.urovo.scanner.scanner.ar.scanarcore.metrics.MetricsRegistry;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
@@ -52,6 +53,16 @@ public class ARRenderer {
     private FloatBuffer cubeColors;
     
     private boolean isInitialized = false;
+
+    // 每帧复用的矩阵，render() 不分配对象
+    private final float[] projectionMatrix = new float[16];
+    private final float[] viewMatrix = new float[16];
+    private final float[] modelMatrix = new float[16];
+    private final float[] viewProjectionMatrix = new float[16];
+    private final float[] modelViewProjectionMatrix = new float[16];
+
+    private final MetricsRegistry.Counter drawCalls = MetricsRegistry.getInstance().counter("renderer.cube_draw_calls");
+    private final MetricsRegistry.Counter skippedRenders = MetricsRegistry.getInstance().counter("renderer.uninitialized_renders");
     
     /**
      * 初始化渲染器
@@ -135,30 +146,29 @@ public class ARRenderer {
      */
     public void render(@NonNull Frame frame, @NonNull Anchor anchor) {
         if (!isInitialized) {
-            Log.w(TAG, "Renderer not initialized");
+            // 每帧都会走到这里，只在调试级别输出日志
+            skippedRenders.inc();
+            if (MetricsRegistry.getInstance().isDebugLogEnabled()) {
+                Log.w(TAG, "Renderer not initialized");
+            }
             return;
         }
         
         Camera camera = frame.getCamera();
         
         // 获取投影矩阵
-        float[] projectionMatrix = new float[16];
         camera.getProjectionMatrix(projectionMatrix, 0, 0.1f, 100.0f);
         
         // 获取视图矩阵
-        float[] viewMatrix = new float[16];
         camera.getViewMatrix(viewMatrix, 0);
         
         // 获取Anchor的姿态
         Pose anchorPose = anchor.getPose();
-        float[] modelMatrix = new float[16];
         anchorPose.toMatrix(modelMatrix, 0);
         
         // 计算MVP矩阵
-        float[] viewProjectionMatrix = new float[16];
         Matrix.multiplyMM(viewProjectionMatrix, 0, projectionMatrix, 0, viewMatrix, 0);
         
-        float[] modelViewProjectionMatrix = new float[16];
         Matrix.multiplyMM(modelViewProjectionMatrix, 0, 
                 viewProjectionMatrix, 0, modelMatrix, 0);
         
@@ -191,6 +201,7 @@ public class ARRenderer {
         // 绘制（简化版，实际应使用索引缓冲）
         GLES20.glDrawArrays(GLES20.GL_TRIANGLE_FAN, 0, 4); // 前面
         GLES20.glDrawArrays(GLES20.GL_TRIANGLE_FAN, 4, 4); // 后面
+        drawCalls.add(2);
         
         // 禁用属性
         GLES20.glDisableVertexAttribArray(positionAttribute);
@@ -0,0 +1,80 @@
+package com.urovo.scanner.scanner.ar.scanarcore.renderer;
+
+import com.urovo.scanner.scanner.ar.scanarcore.anchor.AnchorRegistry;
+
+/**
+ * 把锚点登记表收集为一批点（锚点渲染的逐帧循环，不依赖 GL 和 ARCore）
+ * <p>
+ * 每帧按下标遍历 {@link AnchorRegistry}，通过 {@link PoseSource} 读取每个锚点的跟踪状态和当前位置：
+ * 跟踪中的锚点用跟踪颜色并按新位置增量更新体素索引，其他状态用停止颜色、位置不更新；
+ * 位置读取失败的锚点本帧跳过但不删除。位置写入复用的数组，遍历本身不分配对象。
+ * <p>
+ * 不是线程安全的，只在 GL 线程使用。
+ *
+ * @param <T> 锚点登记表的附加数据类型
+ */
+public class AnchorPointCollector<T> {
+
+    /**
+     * 锚点位姿来源
+     */
+    public interface PoseSource<T> {
+        /**
+         * 锚点是否处于跟踪状态
+         */
+        boolean isTracking(T payload);
+
+        /**
+         * 读取锚点当前位置
+         *
+         * @param position 输出 {x, y, z}（世界坐标）
+         * @return 读取失败时返回 false，本帧跳过该锚点
+         */
+        boolean readPosition(T payload, float[] position);
+    }
+
+    private final PoseSource<T> poses;
+    private final float[] trackingColor;
+    private final float[] stoppedColor;
+    private final float[] position = new float[3];
+
+    /**
+     * @param poses         位姿来源
+     * @param trackingColor 跟踪中锚点的 RGBA 颜色
+     * @param stoppedColor  其他状态锚点的 RGBA 颜色
+     */
+    public AnchorPointCollector(PoseSource<T> poses, float[] trackingColor, float[] stoppedColor) {
+        this.poses = poses;
+        this.trackingColor = trackingColor;
+        this.stoppedColor = stoppedColor;
+    }
+
+    /**
+     * 把所有锚点追加到批次（调用方负责先清空批次）
+     *
+     * @return 追加的点数
+     */
+    public int collect(AnchorRegistry<T> anchors, PointBatch batch) {
+        int added = 0;
+        int count = anchors.size();
+        for (int i = 0; i < count; i++) {
+            AnchorRegistry.Entry<T> entry = anchors.entryAt(i);
+            T payload = entry.getPayload();
+            boolean tracking = poses.isTracking(payload);
+            if (!poses.readPosition(payload, position)) {
+                continue;
+            }
+            float x = position[0];
+            float y = position[1];
+            float z = position[2];
+            batch.add(x, y, z, tracking ? trackingColor : stoppedColor);
+            added++;
+
+            if (tracking) {
+                // ARCore 持续修正锚点位姿，增量更新体素索引：只有跨体素时才移动登记
+                anchors.moveTo(entry, x, y, z);
+            }
+        }
+        return added;
+    }
+}
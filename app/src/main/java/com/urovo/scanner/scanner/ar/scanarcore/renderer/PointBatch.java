@@ -0,0 +1,104 @@
+package com.urovo.scanner.scanner.ar.scanarcore.renderer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * 点批次的顶点数据（交错布局：x, y, z, r, g, b, a）
+ * <p>
+ * 每帧调用 {@link #clear()} 后逐点 {@link #add}，再通过 {@link #data()} 整体上传到 VBO。
+ * 顶点数组和直接缓冲区跨帧复用，只在点数超过容量时按倍数扩容，稳定后每帧不产生新对象。
+ * <p>
+ * 不依赖 GL，线程约束由调用方保证（通常只在 GL 线程使用）。
+ */
+public class PointBatch {
+
+    /** 每个顶点的 float 数：位置 3 + 颜色 4 */
+    public static final int FLOATS_PER_VERTEX = 7;
+    /** 每个顶点的字节数 */
+    public static final int STRIDE_BYTES = FLOATS_PER_VERTEX * 4;
+    /** 颜色分量在顶点内的偏移（字节） */
+    public static final int COLOR_OFFSET_BYTES = 3 * 4;
+
+    private float[] vertices;
+    private FloatBuffer buffer;
+    private int count;
+
+    /**
+     * @param initialCapacity 初始容量（点数，至少为1）
+     */
+    public PointBatch(int initialCapacity) {
+        vertices = new float[Math.max(1, initialCapacity) * FLOATS_PER_VERTEX];
+        buffer = allocateBuffer(vertices.length);
+    }
+
+    /**
+     * 清空批次，保留已分配的缓冲区
+     */
+    public void clear() {
+        count = 0;
+    }
+
+    /**
+     * 追加一个点
+     *
+     * @param color RGBA颜色
+     */
+    public void add(float x, float y, float z, float[] color) {
+        int offset = count * FLOATS_PER_VERTEX;
+        if (offset == vertices.length) {
+            vertices = Arrays.copyOf(vertices, vertices.length * 2);
+        }
+        vertices[offset] = x;
+        vertices[offset + 1] = y;
+        vertices[offset + 2] = z;
+        vertices[offset + 3] = color[0];
+        vertices[offset + 4] = color[1];
+        vertices[offset + 5] = color[2];
+        vertices[offset + 6] = color[3];
+        count++;
+    }
+
+    /**
+     * 当前点数
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * 容量（点数），用于判断 VBO 是否需要重新分配
+     */
+    public int capacity() {
+        return vertices.length / FLOATS_PER_VERTEX;
+    }
+
+    /**
+     * 已写入的字节数
+     */
+    public int sizeInBytes() {
+        return count * STRIDE_BYTES;
+    }
+
+    /**
+     * 将已写入的顶点拷贝到直接缓冲区，返回的缓冲区 position 为 0、limit 为有效数据末尾
+     * 缓冲区在下一次调用前有效
+     */
+    public FloatBuffer data() {
+        if (buffer.capacity() < vertices.length) {
+            buffer = allocateBuffer(vertices.length);
+        }
+        buffer.clear();
+        buffer.put(vertices, 0, count * FLOATS_PER_VERTEX);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static FloatBuffer allocateBuffer(int floats) {
+        return ByteBuffer.allocateDirect(floats * 4)
+                .order(ByteOrder.nativeOrder())
+                .asFloatBuffer();
+    }
+}
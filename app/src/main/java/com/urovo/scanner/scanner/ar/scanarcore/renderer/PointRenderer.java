@@ -2,49 +2,62 @@ package com.urovo.scanner.scanner.ar.scanarcore.renderer;
 
 import android.content.Context;
 import android.opengl.GLES20;
-import android.opengl.Matrix;
 
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.nio.FloatBuffer;
+import com.urovo.scanner.scanner.ar.scanarcore.metrics.MetricsRegistry;
 
 /**
- * 渲染锚点标记（十字准星样式）
+ * 渲染锚点标记（圆点样式）
+ * <p>
+ * 批量绘制：每帧 {@link #begin()} 后向 {@link #getBatch()} 收集所有锚点的世界坐标和颜色，
+ * 再由 {@link #draw} 上传到常驻 VBO 并以一次 glDrawArrays(GL_POINTS) 绘制全部锚点。
+ * 锚点只是点，位置直接作为世界坐标使用，不需要模型矩阵；视图投影矩阵由调用方每帧计算一次后传入。
+ * 顶点数据和 VBO 跨帧复用，稳定后每帧不分配对象。所有方法必须在 GL 线程调用。
  */
 public class PointRenderer {
     private static final String TAG = "PointRenderer";
 
+    private static final int INITIAL_CAPACITY = 64;
+
     // 顶点着色器
     private static final String VERTEX_SHADER =
-            "uniform mat4 uMVPMatrix;\n" +
-                    "attribute vec4 aPosition;\n" +
+            "uniform mat4 uViewProjection;\n" +
                     "uniform float uPointSize;\n" +
+                    "attribute vec4 aPosition;\n" +
+                    "attribute vec4 aColor;\n" +
+                    "varying vec4 vColor;\n" +
                     "void main() {\n" +
-                    "    gl_Position = uMVPMatrix * aPosition;\n" +
+                    "    vColor = aColor;\n" +
+                    "    gl_Position = uViewProjection * aPosition;\n" +
                     "    gl_PointSize = uPointSize;\n" +
                     "}";
 
     // 片段着色器 - 绘制圆形点
     private static final String FRAGMENT_SHADER =
             "precision mediump float;\n" +
-                    "uniform vec4 uColor;\n" +
+                    "varying vec4 vColor;\n" +
                     "void main() {\n" +
                     "    vec2 coord = gl_PointCoord - vec2(0.5);\n" +
                     "    float dist = length(coord);\n" +
                     "    if (dist > 0.5) discard;\n" +
                     // 边缘抗锯齿
                     "    float alpha = 1.0 - smoothstep(0.4, 0.5, dist);\n" +
-                    "    gl_FragColor = vec4(uColor.rgb, uColor.a * alpha);\n" +
+                    "    gl_FragColor = vec4(vColor.rgb, vColor.a * alpha);\n" +
                     "}";
 
     private int program;
     private int positionHandle;
-    private int mvpMatrixHandle;
     private int colorHandle;
+    private int viewProjectionHandle;
     private int pointSizeHandle;
 
-    private final float[] modelMatrix = new float[16];
-    private final float[] mvpMatrix = new float[16];
+    // 常驻顶点缓冲区及其已分配的容量（点数）
+    private int vertexBufferId;
+    private int vertexBufferCapacity;
+
+    private final PointBatch batch = new PointBatch(INITIAL_CAPACITY);
+
+    private final MetricsRegistry.Counter drawCalls = MetricsRegistry.getInstance().counter("renderer.point_draw_calls");
+    private final MetricsRegistry.Counter pointsDrawn = MetricsRegistry.getInstance().counter("renderer.points_drawn");
 
     public void createOnGlThread(Context context) {
         int vertexShader = loadShader(GLES20.GL_VERTEX_SHADER, VERTEX_SHADER);
@@ -56,50 +69,75 @@ public class PointRenderer {
         GLES20.glLinkProgram(program);
 
         positionHandle = GLES20.glGetAttribLocation(program, "aPosition");
-        mvpMatrixHandle = GLES20.glGetUniformLocation(program, "uMVPMatrix");
-        colorHandle = GLES20.glGetUniformLocation(program, "uColor");
+        colorHandle = GLES20.glGetAttribLocation(program, "aColor");
+        viewProjectionHandle = GLES20.glGetUniformLocation(program, "uViewProjection");
         pointSizeHandle = GLES20.glGetUniformLocation(program, "uPointSize");
+
+        // 表面重建后旧的 GL 对象已失效，重新创建 VBO
+        int[] buffers = new int[1];
+        GLES20.glGenBuffers(1, buffers, 0);
+        vertexBufferId = buffers[0];
+        vertexBufferCapacity = 0;
     }
 
     /**
-     * 绘制锚点
-     *
-     * @param pose             锚点位姿（包含位置和旋转）
-     * @param viewMatrix       视图矩阵
-     * @param projectionMatrix 投影矩阵
-     * @param color            RGBA颜色
-     * @param pointSize        点大小（像素）
+     * 开始新的一批（清空上一帧收集的点）
      */
-    public void draw(float[] pose, float[] viewMatrix, float[] projectionMatrix,
-                     float[] color, float pointSize) {
-        GLES20.glUseProgram(program);
+    public void begin() {
+        batch.clear();
+    }
 
-        // 设置点位置
-        FloatBuffer vertexBuffer = ByteBuffer.allocateDirect(3 * 4)
-                .order(ByteOrder.nativeOrder())
-                .asFloatBuffer();
-        vertexBuffer.put(new float[]{pose[0], pose[1], pose[2]});
-        vertexBuffer.position(0);
+    /**
+     * 本帧的点批次，{@link #begin()} 之后可以直接填充（例如 {@link AnchorPointCollector#collect}）
+     */
+    public PointBatch getBatch() {
+        return batch;
+    }
+
+    /**
+     * 绘制本批所有锚点（一次绘制调用）
+     *
+     * @param viewProjectionMatrix 本帧的视图投影矩阵
+     * @param pointSize            点大小（像素）
+     */
+    public void draw(float[] viewProjectionMatrix, float pointSize) {
+        int count = batch.size();
+        if (count == 0) {
+            return;
+        }
+
+        GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, vertexBufferId);
+        if (batch.capacity() > vertexBufferCapacity) {
+            // 按批次容量分配，点数在容量内变化时只做子区域更新
+            vertexBufferCapacity = batch.capacity();
+            GLES20.glBufferData(GLES20.GL_ARRAY_BUFFER, vertexBufferCapacity * PointBatch.STRIDE_BYTES,
+                    null, GLES20.GL_DYNAMIC_DRAW);
+        }
+        GLES20.glBufferSubData(GLES20.GL_ARRAY_BUFFER, 0, batch.sizeInBytes(), batch.data());
 
-        // 计算MVP矩阵
-        Matrix.setIdentityM(modelMatrix, 0);
-        Matrix.multiplyMM(mvpMatrix, 0, viewMatrix, 0, modelMatrix, 0);
-        Matrix.multiplyMM(mvpMatrix, 0, projectionMatrix, 0, mvpMatrix, 0);
+        GLES20.glUseProgram(program);
 
-        GLES20.glUniformMatrix4fv(mvpMatrixHandle, 1, false, mvpMatrix, 0);
-        GLES20.glUniform4fv(colorHandle, 1, color, 0);
+        GLES20.glUniformMatrix4fv(viewProjectionHandle, 1, false, viewProjectionMatrix, 0);
         GLES20.glUniform1f(pointSizeHandle, pointSize);
 
         GLES20.glEnableVertexAttribArray(positionHandle);
-        GLES20.glVertexAttribPointer(positionHandle, 3, GLES20.GL_FLOAT, false, 0, vertexBuffer);
+        GLES20.glVertexAttribPointer(positionHandle, 3, GLES20.GL_FLOAT, false,
+                PointBatch.STRIDE_BYTES, 0);
+        GLES20.glEnableVertexAttribArray(colorHandle);
+        GLES20.glVertexAttribPointer(colorHandle, 4, GLES20.GL_FLOAT, false,
+                PointBatch.STRIDE_BYTES, PointBatch.COLOR_OFFSET_BYTES);
 
         GLES20.glEnable(GLES20.GL_BLEND);
         GLES20.glBlendFunc(GLES20.GL_SRC_ALPHA, GLES20.GL_ONE_MINUS_SRC_ALPHA);
 
-        GLES20.glDrawArrays(GLES20.GL_POINTS, 0, 1);
+        GLES20.glDrawArrays(GLES20.GL_POINTS, 0, count);
+        drawCalls.inc();
+        pointsDrawn.add(count);
 
         GLES20.glDisable(GLES20.GL_BLEND);
         GLES20.glDisableVertexAttribArray(positionHandle);
+        GLES20.glDisableVertexAttribArray(colorHandle);
+        GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
     }
 
     private int loadShader(int type, String shaderCode) {
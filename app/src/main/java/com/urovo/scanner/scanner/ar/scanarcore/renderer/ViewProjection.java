@@ -0,0 +1,52 @@
+package com.urovo.scanner.scanner.ar.scanarcore.renderer;
+
+/**
+ * 每帧复用的视图投影矩阵
+ * <p>
+ * 每帧取得相机矩阵后调用一次 {@link #update}，所有渲染器共用同一结果，
+ * 不再各自相乘。矩阵按 OpenGL 列主序存储，与 android.opengl.Matrix 一致；
+ * 乘法用纯 Java 实现，不分配对象，也可以在 JVM 单元测试中运行。
+ * <p>
+ * 非线程安全，只在 GL 线程使用。
+ */
+public class ViewProjection {
+
+    private final float[] matrix = new float[16];
+
+    public ViewProjection() {
+        matrix[0] = matrix[5] = matrix[10] = matrix[15] = 1.0f;
+    }
+
+    /**
+     * 计算 projection × view
+     *
+     * @param viewMatrix       视图矩阵（列主序）
+     * @param projectionMatrix 投影矩阵（列主序）
+     */
+    public void update(float[] viewMatrix, float[] projectionMatrix) {
+        multiply(matrix, projectionMatrix, viewMatrix);
+    }
+
+    /**
+     * 当前视图投影矩阵（内部数组，调用方不得修改）
+     */
+    public float[] getMatrix() {
+        return matrix;
+    }
+
+    /**
+     * result = lhs × rhs（列主序 4×4），result 不能与输入是同一数组
+     */
+    static void multiply(float[] result, float[] lhs, float[] rhs) {
+        for (int column = 0; column < 4; column++) {
+            float r0 = rhs[column * 4];
+            float r1 = rhs[column * 4 + 1];
+            float r2 = rhs[column * 4 + 2];
+            float r3 = rhs[column * 4 + 3];
+            for (int row = 0; row < 4; row++) {
+                result[column * 4 + row] = lhs[row] * r0 + lhs[4 + row] * r1
+                        + lhs[8 + row] * r2 + lhs[12 + row] * r3;
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.urovo.scanner.scanner.ar.scanarcore.replay;
+
+import com.urovo.scanner.scanner.ar.scanarcore.metrics.LatencyHistogram;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 回放报告（汇总统计与逐帧结果）
+ */
+public class ReplayReport {
+
+    /**
+     * 单帧状态
+     */
+    public enum Status {
+        /** 解出至少一个条码 */
+        DECODED,
+        /** 解码完成但没有结果 */
+        EMPTY,
+        /** 被解码器准入策略丢弃 */
+        DROPPED,
+        /** 解码失败或读取文件失败 */
+        FAILED,
+        /** 超时未回调（或回放因超时中止，未提交） */
+        TIMEOUT
+    }
+
+    /**
+     * 单帧结果
+     */
+    public static class FrameResult {
+        public final String fileName;
+        /** 第几轮回放（从0开始） */
+        public final int loop;
+        public final int width;
+        public final int height;
+        public final Status status;
+        /** 提交到回调的耗时（纳秒），未完成时为 -1 */
+        public final long latencyNs;
+        /** 解码内容（按解码器返回顺序） */
+        public final List<String> contents;
+        /** 失败原因，其他状态为 null */
+        public final String error;
+
+        public FrameResult(String fileName, int loop, int width, int height, Status status,
+                           long latencyNs, List<String> contents, String error) {
+            this.fileName = fileName;
+            this.loop = loop;
+            this.width = width;
+            this.height = height;
+            this.status = status;
+            this.latencyNs = latencyNs;
+            this.contents = contents != null ? contents : Collections.emptyList();
+            this.error = error;
+        }
+    }
+
+    public final long frames;
+    public final long decodedFrames;
+    public final long emptyFrames;
+    public final long droppedFrames;
+    public final long failedFrames;
+    public final long timedOutFrames;
+    /** 解出的条码总数 */
+    public final long results;
+    /** 回放墙钟耗时（纳秒） */
+    public final long wallTimeNs;
+    /** 提交到回调的延迟分布（不含丢弃帧） */
+    public final LatencyHistogram.Snapshot latency;
+    /** 逐帧结果（回放顺序） */
+    public final List<FrameResult> frameResults;
+
+    ReplayReport(long wallTimeNs, LatencyHistogram.Snapshot latency, List<FrameResult> frameResults) {
+        long decoded = 0;
+        long empty = 0;
+        long dropped = 0;
+        long failed = 0;
+        long timedOut = 0;
+        long resultCount = 0;
+        for (FrameResult frame : frameResults) {
+            switch (frame.status) {
+                case DECODED:
+                    decoded++;
+                    break;
+                case EMPTY:
+                    empty++;
+                    break;
+                case DROPPED:
+                    dropped++;
+                    break;
+                case FAILED:
+                    failed++;
+                    break;
+                case TIMEOUT:
+                    timedOut++;
+                    break;
+            }
+            resultCount += frame.contents.size();
+        }
+        this.frames = frameResults.size();
+        this.decodedFrames = decoded;
+        this.emptyFrames = empty;
+        this.droppedFrames = dropped;
+        this.failedFrames = failed;
+        this.timedOutFrames = timedOut;
+        this.results = resultCount;
+        this.wallTimeNs = wallTimeNs;
+        this.latency = latency;
+        this.frameResults = Collections.unmodifiableList(frameResults);
+    }
+
+    /**
+     * 吞吐量（已完成解码的帧数/秒，不含丢弃和超时帧）
+     */
+    public double getThroughputFps() {
+        if (wallTimeNs <= 0) {
+            return 0;
+        }
+        return (decodedFrames + emptyFrames + failedFrames) * 1e9 / wallTimeNs;
+    }
+
+    /**
+     * 解码成功率（解出条码的帧 / 完成解码的帧）
+     */
+    public double getDecodeRate() {
+        long completed = decodedFrames + emptyFrames + failedFrames;
+        return completed > 0 ? (double) decodedFrames / completed : 0;
+    }
+
+    /**
+     * 导出逐帧结果为 CSV（首行表头，内容以 | 分隔）
+     */
+    public void writeCsv(File file) throws IOException {
+        try (Writer writer = new FileWriter(file)) {
+            writer.write("file,loop,width,height,status,latency_ms,results,contents,error\n");
+            for (FrameResult frame : frameResults) {
+                writer.write(csv(frame.fileName));
+                writer.write(',');
+                writer.write(Integer.toString(frame.loop));
+                writer.write(',');
+                writer.write(Integer.toString(frame.width));
+                writer.write(',');
+                writer.write(Integer.toString(frame.height));
+                writer.write(',');
+                writer.write(frame.status.name());
+                writer.write(',');
+                writer.write(frame.latencyNs >= 0 ? String.format("%.3f", frame.latencyNs / 1e6) : "");
+                writer.write(',');
+                writer.write(Integer.toString(frame.contents.size()));
+                writer.write(',');
+                writer.write(csv(String.join("|", frame.contents)));
+                writer.write(',');
+                writer.write(frame.error != null ? csv(frame.error) : "");
+                writer.write('\n');
+            }
+        }
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ReplayReport{frames=%d, decoded=%d, empty=%d, dropped=%d, failed=%d, timeout=%d, " +
+                        "results=%d, wall=%.1fms, throughput=%.1ffps, decodeRate=%.1f%%, latency=%s}",
+                frames, decodedFrames, emptyFrames, droppedFrames, failedFrames, timedOutFrames,
+                results, wallTimeNs / 1e6, getThroughputFps(), getDecodeRate() * 100, latency);
+    }
+}
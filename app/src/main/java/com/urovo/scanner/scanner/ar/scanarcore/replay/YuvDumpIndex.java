@@ -0,0 +1,129 @@
+package com.urovo.scanner.scanner.ar.scanarcore.replay;
+
+import java.io.File;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 录制帧目录索引
+ * <p>
+ * 识别 FileManager.saveYuvAndJpeg 保存的文件：{@code <prefix>_<yyyyMMdd_HHmmss_SSS>_<w>x<h>.yuv}
+ * （前缀可省略，也可以包含下划线），按录制时间排序。
+ * 文件长度不小于 w*h*3/2 时按 NV21 处理，不小于 w*h 时按纯亮度处理，更短的文件忽略。
+ */
+public final class YuvDumpIndex {
+
+    private static final Pattern NAME_PATTERN =
+            Pattern.compile("^(?:(.*)_)?(\\d{8}_\\d{6}_\\d{3})_(\\d+)x(\\d+)\\.yuv$");
+    private static final String TIMESTAMP_FORMAT = "yyyyMMdd_HHmmss_SSS";
+
+    private YuvDumpIndex() {
+    }
+
+    /**
+     * 录制帧
+     */
+    public static class Entry implements Comparable<Entry> {
+        public final File file;
+        /** 文件名前缀，没有时为空字符串 */
+        public final String prefix;
+        /** 录制时间（毫秒，本地时区） */
+        public final long timestampMs;
+        public final int width;
+        public final int height;
+        /** 文件是否包含完整 NV21 数据（否则只有亮度） */
+        public final boolean nv21;
+
+        Entry(File file, String prefix, long timestampMs, int width, int height, boolean nv21) {
+            this.file = file;
+            this.prefix = prefix;
+            this.timestampMs = timestampMs;
+            this.width = width;
+            this.height = height;
+            this.nv21 = nv21;
+        }
+
+        /**
+         * 送入解码器的数据长度
+         */
+        public int dataLength() {
+            return nv21 ? width * height * 3 / 2 : width * height;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byTime = Long.compare(timestampMs, other.timestampMs);
+            return byTime != 0 ? byTime : file.getName().compareTo(other.file.getName());
+        }
+
+        @Override
+        public String toString() {
+            return file.getName();
+        }
+    }
+
+    /**
+     * 索引目录下的录制帧（不递归）
+     *
+     * @return 按录制时间排序的帧；目录不存在时返回空列表
+     */
+    public static List<Entry> scan(File directory) {
+        List<Entry> entries = new ArrayList<>();
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return entries;
+        }
+        for (File file : files) {
+            Entry entry = parse(file);
+            if (entry != null) {
+                entries.add(entry);
+            }
+        }
+        Collections.sort(entries);
+        return entries;
+    }
+
+    /**
+     * 解析单个录制帧文件
+     *
+     * @return 文件名不匹配或长度不足时返回 null
+     */
+    public static Entry parse(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        Matcher matcher = NAME_PATTERN.matcher(file.getName());
+        if (!matcher.matches()) {
+            return null;
+        }
+        int width;
+        int height;
+        long timestampMs;
+        try {
+            width = Integer.parseInt(matcher.group(3));
+            height = Integer.parseInt(matcher.group(4));
+            // SimpleDateFormat 不是线程安全的，每次新建
+            timestampMs = new SimpleDateFormat(TIMESTAMP_FORMAT, Locale.US).parse(matcher.group(2)).getTime();
+        } catch (NumberFormatException | ParseException e) {
+            return null;
+        }
+        if (width <= 0 || height <= 0) {
+            return null;
+        }
+
+        long length = file.length();
+        long lumaSize = (long) width * height;
+        if (length < lumaSize) {
+            return null;
+        }
+        boolean nv21 = length >= lumaSize * 3 / 2;
+        String prefix = matcher.group(1) != null ? matcher.group(1) : "";
+        return new Entry(file, prefix, timestampMs, width, height, nv21);
+    }
+}
@@ -0,0 +1,292 @@
+package com.urovo.scanner.scanner.ar.scanarcore.replay;
+
+import android.util.Log;
+
+import com.urovo.scanner.scanner.ar.scanarcore.decoder.BarcodeDecoder;
+import com.urovo.scanner.scanner.ar.scanarcore.decoder.BarcodeResult;
+import com.urovo.scanner.scanner.ar.scanarcore.metrics.LatencyHistogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 录制帧离线回放引擎
+ * <p>
+ * 把 {@link YuvDumpIndex} 索引到的 .yuv 文件按录制顺序送入 {@link BarcodeDecoder}，
+ * NV21 文件走 decodeYuv，纯亮度文件走 decodeLuma，与实时帧经过相同的帧准入策略和解码路径。
+ * 文件以只读方式内存映射（每次回放只映射一次），提交时拷贝到复用的帧缓冲，
+ * 缓冲数量即最大在途帧数：缓冲用完时回放线程等待回调归还，不额外分配。
+ * <p>
+ * {@link Speed#RECORDED} 按文件名中的录制时间间隔提交（可用 {@link Config#speedFactor} 加速），
+ * 用于复现现场的帧率与丢帧行为；{@link Speed#MAX} 缓冲可用即提交，用于测量解码吞吐。
+ * <p>
+ * run() 会阻塞调用线程直到所有帧回调完成或超时，不要在主线程调用。
+ */
+public class YuvReplayEngine {
+
+    private static final String TAG = "YuvReplayEngine";
+
+    /**
+     * 回放速度
+     */
+    public enum Speed {
+        /** 按录制时间间隔提交 */
+        RECORDED,
+        /** 尽快提交 */
+        MAX
+    }
+
+    /**
+     * 回放配置
+     */
+    public static class Config {
+        public Speed speed = Speed.MAX;
+        /** RECORDED 模式下的倍速（2 表示两倍速） */
+        public float speedFactor = 1.0f;
+        /** 最大在途帧数（帧缓冲数量） */
+        public int maxInFlight = 2;
+        /** 回放轮数 */
+        public int loops = 1;
+        /** 传给解码器的旋转角度 */
+        public int rotationDegrees = 0;
+        /** 等待单帧回调的超时，超时后中止回放 */
+        public long frameTimeoutMs = 10_000;
+
+        public Config() {}
+
+        public Config(Speed speed, int maxInFlight) {
+            this.speed = speed;
+            this.maxInFlight = maxInFlight;
+        }
+    }
+
+    /**
+     * 逐帧结果监听（在解码回调线程触发）
+     */
+    public interface FrameListener {
+        void onFrame(ReplayReport.FrameResult result);
+    }
+
+    private final BarcodeDecoder decoder;
+    private final Config config;
+    private volatile FrameListener listener;
+    private volatile boolean cancelled = false;
+
+    public YuvReplayEngine(BarcodeDecoder decoder) {
+        this(decoder, new Config());
+    }
+
+    public YuvReplayEngine(BarcodeDecoder decoder, Config config) {
+        this.decoder = decoder;
+        this.config = config;
+    }
+
+    public void setFrameListener(FrameListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 请求中止回放（已提交的帧仍会等待回调）
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * 回放目录下的全部录制帧
+     */
+    public ReplayReport run(File directory) throws InterruptedException {
+        return run(YuvDumpIndex.scan(directory));
+    }
+
+    /**
+     * 按顺序回放指定帧
+     */
+    public ReplayReport run(List<YuvDumpIndex.Entry> entries) throws InterruptedException {
+        cancelled = false;
+        int loops = Math.max(1, config.loops);
+        int total = entries.size() * loops;
+        ReplayReport.FrameResult[] results = new ReplayReport.FrameResult[total];
+        LatencyHistogram latency = new LatencyHistogram("replay");
+        CountDownLatch completed = new CountDownLatch(total);
+
+        int maxInFlight = Math.max(1, config.maxInFlight);
+        BlockingQueue<byte[]> buffers = new ArrayBlockingQueue<>(maxInFlight);
+        for (int i = 0; i < maxInFlight; i++) {
+            buffers.add(new byte[0]);
+        }
+        Map<File, MappedByteBuffer> mapped = new HashMap<>();
+
+        long startNs = System.nanoTime();
+        int submitted = 0;
+        replay:
+        for (int loop = 0; loop < loops; loop++) {
+            long loopStartNs = System.nanoTime();
+            long firstTimestampMs = entries.isEmpty() ? 0 : entries.get(0).timestampMs;
+            for (YuvDumpIndex.Entry entry : entries) {
+                if (cancelled) {
+                    break replay;
+                }
+                int index = submitted;
+                if (config.speed == Speed.RECORDED) {
+                    waitUntil(loopStartNs + recordedOffsetNs(entry.timestampMs - firstTimestampMs));
+                }
+
+                byte[] buffer = buffers.poll(config.frameTimeoutMs, TimeUnit.MILLISECONDS);
+                if (buffer == null) {
+                    Log.w(TAG, "Timed out waiting for a free frame buffer, aborting replay");
+                    break replay;
+                }
+                submitted++;
+
+                int length = entry.dataLength();
+                try {
+                    ByteBuffer data = map(mapped, entry).duplicate();
+                    if (buffer.length < length) {
+                        buffer = new byte[length];
+                    }
+                    data.get(buffer, 0, length);
+                } catch (IOException e) {
+                    Log.w(TAG, "Failed to read " + entry.file, e);
+                    buffers.add(buffer);
+                    complete(results, index, new ReplayReport.FrameResult(entry.file.getName(), loop,
+                            entry.width, entry.height, ReplayReport.Status.FAILED, -1, null, e.toString()),
+                            completed);
+                    continue;
+                }
+
+                submit(entry, loop, index, buffer, buffers, results, latency, completed);
+            }
+        }
+
+        // 未提交的帧直接计为完成，只等待已提交的回调
+        for (int i = submitted; i < total; i++) {
+            completed.countDown();
+        }
+        if (!completed.await(config.frameTimeoutMs, TimeUnit.MILLISECONDS)) {
+            Log.w(TAG, "Timed out waiting for " + completed.getCount() + " frames");
+        }
+        long wallTimeNs = System.nanoTime() - startNs;
+
+        List<ReplayReport.FrameResult> frameResults = new ArrayList<>(total);
+        synchronized (results) {
+            for (int i = 0; i < total; i++) {
+                ReplayReport.FrameResult result = results[i];
+                if (result == null) {
+                    YuvDumpIndex.Entry entry = entries.get(i % entries.size());
+                    result = new ReplayReport.FrameResult(entry.file.getName(), i / entries.size(),
+                            entry.width, entry.height, ReplayReport.Status.TIMEOUT, -1, null, null);
+                }
+                frameResults.add(result);
+            }
+        }
+        ReplayReport report = new ReplayReport(wallTimeNs, latency.snapshot(), frameResults);
+        Log.i(TAG, report.toString());
+        return report;
+    }
+
+    private void submit(YuvDumpIndex.Entry entry, int loop, int index, byte[] buffer,
+                        BlockingQueue<byte[]> buffers, ReplayReport.FrameResult[] results,
+                        LatencyHistogram latency, CountDownLatch completed) {
+        final long submitNs = System.nanoTime();
+        BarcodeDecoder.DecodeCallback callback = new BarcodeDecoder.DecodeCallback() {
+            @Override
+            public void onSuccess(List<BarcodeResult> barcodes) {
+                long elapsed = System.nanoTime() - submitNs;
+                latency.record(elapsed);
+                List<String> contents = new ArrayList<>(barcodes.size());
+                for (BarcodeResult barcode : barcodes) {
+                    contents.add(barcode.getContent());
+                }
+                finish(contents.isEmpty() ? ReplayReport.Status.EMPTY : ReplayReport.Status.DECODED,
+                        elapsed, contents, null);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                long elapsed = System.nanoTime() - submitNs;
+                latency.record(elapsed);
+                finish(ReplayReport.Status.FAILED, elapsed, null, String.valueOf(e));
+            }
+
+            @Override
+            public void onDropped() {
+                finish(ReplayReport.Status.DROPPED, System.nanoTime() - submitNs, null, null);
+            }
+
+            private void finish(ReplayReport.Status status, long elapsed, List<String> contents, String error) {
+                // 回调之后解码器不再读取缓冲，可以归还
+                buffers.add(buffer);
+                complete(results, index, new ReplayReport.FrameResult(entry.file.getName(), loop,
+                        entry.width, entry.height, status, elapsed, contents, error), completed);
+            }
+        };
+
+        try {
+            if (entry.nv21) {
+                decoder.decodeYuv(buffer, entry.width, entry.height, config.rotationDegrees, callback);
+            } else {
+                decoder.decodeLuma(buffer, entry.width, entry.height, config.rotationDegrees, callback);
+            }
+        } catch (RuntimeException e) {
+            callback.onFailure(e);
+        }
+    }
+
+    private void complete(ReplayReport.FrameResult[] results, int index, ReplayReport.FrameResult result,
+                          CountDownLatch completed) {
+        synchronized (results) {
+            if (results[index] != null) {
+                // 解码器重复回调，只保留第一次
+                return;
+            }
+            results[index] = result;
+        }
+        completed.countDown();
+        FrameListener current = listener;
+        if (current != null) {
+            current.onFrame(result);
+        }
+    }
+
+    private long recordedOffsetNs(long deltaMs) {
+        float factor = config.speedFactor > 0 ? config.speedFactor : 1.0f;
+        return (long) (Math.max(0, deltaMs) * 1_000_000L / factor);
+    }
+
+    private static void waitUntil(long deadlineNs) throws InterruptedException {
+        long remaining;
+        while ((remaining = deadlineNs - System.nanoTime()) > 0) {
+            TimeUnit.NANOSECONDS.sleep(remaining);
+        }
+    }
+
+    private static MappedByteBuffer map(Map<File, MappedByteBuffer> mapped, YuvDumpIndex.Entry entry)
+            throws IOException {
+        MappedByteBuffer buffer = mapped.get(entry.file);
+        if (buffer == null) {
+            // 映射建立后即可关闭通道，映射在缓冲被回收前一直有效
+            try (RandomAccessFile file = new RandomAccessFile(entry.file, "r");
+                 FileChannel channel = file.getChannel()) {
+                if (channel.size() < entry.dataLength()) {
+                    throw new IOException("File truncated: " + entry.file);
+                }
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, entry.dataLength());
+            }
+            mapped.put(entry.file, buffer);
+        }
+        return buffer;
+    }
+}
@@ -0,0 +1,229 @@
+package com.urovo.scanner.scanner.ar.scanarcore.util;
+
+import android.util.Log;
+
+import com.urovo.scanner.scanner.ar.scanarcore.decoder.LumaRegion;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.CLAHE;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.List;
+
+/**
+ * 可复用的图像增强会话（CLAHE + 锐化）
+ * <p>
+ * 与 {@link ImageEnhancer} 的静态方法效果相同，但每个会话持有自己的 CLAHE 实例和按帧尺寸分配的
+ * 中间 Mat，参数只在变化时重新设置，稳态下每帧不分配 Java 或 native 内存。
+ * <p>
+ * 线程安全说明：会话不是线程安全的，每个解码工作线程使用自己的会话。
+ */
+public class EnhancerSession {
+
+    private static final String TAG = "EnhancerSession";
+
+    // 锐化使用的高斯模糊参数（与 ImageEnhancer 一致）
+    private static final Size BLUR_KERNEL = new Size(0, 0);
+    private static final double BLUR_SIGMA = 1.5;
+
+    // ROI增强时每个CLAHE网格块的最小边长（像素），小区域相应减少网格数
+    private static final int MIN_REGION_TILE_PIXELS = 32;
+
+    private CLAHE clahe;
+    private float clipLimit = Float.NaN;
+    private int tileSize = 16;
+    // 当前设置在 CLAHE 上的网格大小
+    private int appliedGrid = -1;
+    private float sharpenStrength;
+
+    private final Mat gray = new Mat();
+    private final Mat enhanced = new Mat();
+    private final Mat blurred = new Mat();
+    private byte[] output = new byte[0];
+    // ROI增强：紧凑排列的输出和单个区域的中间结果
+    private byte[] packed = new byte[0];
+    private byte[] regionOutput = new byte[0];
+
+    private boolean released = false;
+
+    /**
+     * 设置增强参数，与当前参数相同时不做任何操作
+     *
+     * @param clipLimit       CLAHE clipLimit (1.0-4.0)
+     * @param tileSize        CLAHE网格大小 (4-16)
+     * @param sharpenStrength 锐化强度 (0-1)
+     */
+    public void configure(float clipLimit, int tileSize, float sharpenStrength) {
+        if (clahe == null) {
+            clahe = Imgproc.createCLAHE();
+        }
+        if (clipLimit != this.clipLimit) {
+            clahe.setClipLimit(clipLimit);
+            this.clipLimit = clipLimit;
+        }
+        this.tileSize = tileSize;
+        this.sharpenStrength = sharpenStrength;
+    }
+
+    /**
+     * 增强亮度数据
+     * <p>
+     * 返回的数组属于会话，内容在下一次调用前有效；调用方需要保留时自行复制。
+     *
+     * @param luma   Y数据（NV21 或纯Y，只读取前 width*height 字节）
+     * @param width  图像宽度
+     * @param height 图像高度
+     * @return 增强后的灰度数据（长度为 width*height）；失败返回 null
+     */
+    public byte[] enhance(byte[] luma, int width, int height) {
+        if (released) {
+            throw new IllegalStateException("EnhancerSession has been released");
+        }
+        if (clahe == null) {
+            ImageEnhancer.EnhanceParams defaults = ImageEnhancer.EnhanceParams.createDefault();
+            configure(defaults.claheClipLimit, defaults.claheTileSize, defaults.sharpenStrength);
+        }
+
+        // 返回给调用方的缓冲区与帧尺寸严格一致
+        int size = width * height;
+        if (output.length != size) {
+            output = new byte[size];
+        }
+
+        try {
+            applyGrid(tileSize);
+            enhanceInto(luma, 0, width, height, output);
+            return output;
+        } catch (Exception e) {
+            Log.e(TAG, "Enhancement failed", e);
+            return null;
+        }
+    }
+
+    /**
+     * 只增强指定区域
+     * <p>
+     * 各区域从整帧中裁剪后单独增强，按列表顺序紧密排列在返回的缓冲区中：
+     * 第 i 个区域从前 i 个区域 {@link LumaRegion#size()} 之和的偏移处开始，行宽为区域宽度。
+     * 小区域按尺寸减少 CLAHE 网格数，保证每个网格块有足够的像素统计直方图。
+     * <p>
+     * 返回的数组属于会话，内容在下一次调用前有效。
+     *
+     * @param luma    整帧Y数据
+     * @param width   整帧宽度
+     * @param regions 待增强区域（整帧坐标）
+     * @return 紧凑排列的增强结果；失败返回 null
+     */
+    public byte[] enhanceRegions(byte[] luma, int width, List<LumaRegion> regions) {
+        if (released) {
+            throw new IllegalStateException("EnhancerSession has been released");
+        }
+        if (clahe == null) {
+            ImageEnhancer.EnhanceParams defaults = ImageEnhancer.EnhanceParams.createDefault();
+            configure(defaults.claheClipLimit, defaults.claheTileSize, defaults.sharpenStrength);
+        }
+
+        int total = 0;
+        for (LumaRegion region : regions) {
+            total += region.size();
+        }
+        if (packed.length < total) {
+            packed = new byte[total];
+        }
+
+        try {
+            int offset = 0;
+            for (LumaRegion region : regions) {
+                int size = region.size();
+                // Mat.get 最多拷贝 Mat 剩余的字节数，中间缓冲区只增不减
+                if (regionOutput.length < size) {
+                    regionOutput = new byte[size];
+                }
+                region.crop(luma, width, packed, offset);
+
+                int grid = Math.min(region.width, region.height) / MIN_REGION_TILE_PIXELS;
+                applyGrid(Math.max(2, Math.min(tileSize, grid)));
+                enhanceInto(packed, offset, region.width, region.height, regionOutput);
+
+                System.arraycopy(regionOutput, 0, packed, offset, size);
+                offset += size;
+            }
+            return packed;
+        } catch (Exception e) {
+            Log.e(TAG, "Region enhancement failed", e);
+            return null;
+        }
+    }
+
+    /**
+     * 只增强指定区域，结果写回整帧副本
+     * <p>
+     * 区域外保持原始亮度，返回的整帧可以交给任意解码模式（检测器、分块或整帧解码）。
+     * 区域重叠时后面的区域覆盖前面的。返回的数组属于会话，与 {@link #enhance} 共用，内容在下一次调用前有效。
+     *
+     * @param luma    整帧Y数据（NV21 或纯Y，只读取前 width*height 字节）
+     * @param width   整帧宽度
+     * @param height  整帧高度
+     * @param regions 待增强区域（整帧坐标）
+     * @return 增强后的灰度数据（长度为 width*height）；失败返回 null
+     */
+    public byte[] enhanceRegionsInFrame(byte[] luma, int width, int height, List<LumaRegion> regions) {
+        byte[] regionData = enhanceRegions(luma, width, regions);
+        if (regionData == null) {
+            return null;
+        }
+
+        int size = width * height;
+        if (output.length != size) {
+            output = new byte[size];
+        }
+        System.arraycopy(luma, 0, output, 0, size);
+        int offset = 0;
+        for (LumaRegion region : regions) {
+            region.paste(regionData, offset, output, width);
+            offset += region.size();
+        }
+        return output;
+    }
+
+    /**
+     * CLAHE + 锐化，结果写入 out 的前 width*height 字节
+     */
+    private void enhanceInto(byte[] src, int offset, int width, int height, byte[] out) {
+        // Mat.create 尺寸不变时不会重新分配
+        gray.create(height, width, CvType.CV_8UC1);
+        gray.put(0, 0, src, offset, width * height);
+
+        clahe.apply(gray, enhanced);
+
+        // 锐化（Unsharp Mask）
+        if (sharpenStrength > 0.01f) {
+            Imgproc.GaussianBlur(enhanced, blurred, BLUR_KERNEL, BLUR_SIGMA);
+            Core.addWeighted(enhanced, 1.0 + sharpenStrength, blurred, -sharpenStrength, 0, enhanced);
+        }
+
+        enhanced.get(0, 0, out);
+    }
+
+    private void applyGrid(int grid) {
+        if (grid != appliedGrid) {
+            clahe.setTilesGridSize(new Size(grid, grid));
+            appliedGrid = grid;
+        }
+    }
+
+    /**
+     * 释放 native 资源
+     */
+    public void release() {
+        released = true;
+        gray.release();
+        enhanced.release();
+        blurred.release();
+        clahe = null;
+        appliedGrid = -1;
+    }
+}
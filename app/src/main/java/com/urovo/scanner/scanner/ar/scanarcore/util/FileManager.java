@@ -1,8 +1,11 @@
 package com.urovo.scanner.scanner.ar.scanarcore.util;
 
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
 import android.content.ContentResolver;
 import android.content.ContentValues;
 import android.content.Context;
+import android.content.OperationApplicationException;
 import android.database.Cursor;
 import android.graphics.ImageFormat;
 import android.graphics.Rect;
@@ -10,6 +13,7 @@ import android.graphics.YuvImage;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Environment;
+import android.os.RemoteException;
 import android.provider.MediaStore;
 import android.util.Log;
 
@@ -20,7 +24,9 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.OutputStream;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
 
 /**
@@ -62,6 +68,91 @@ public class FileManager {
         }
     }
 
+    /**
+     * 批量保存文件到Download/Scan目录（由 {@link FileWriteService} 的写线程调用）
+     * <p>
+     * Android 10+ 先用一次 applyBatch 插入全部 MediaStore 行（IS_PENDING=1），
+     * 逐个写入内容后再用一次 applyBatch 发布成功的行、删除失败的行。
+     *
+     * @return 成功保存的文件数
+     */
+    public static int saveBatch(@NonNull Context context, @NonNull List<FileWriteService.WriteRequest> requests) {
+        if (requests.isEmpty()) {
+            return 0;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            return saveBatchViaMediaStore(context, requests);
+        }
+        int saved = 0;
+        for (FileWriteService.WriteRequest request : requests) {
+            if (saveViaLegacyStorage(request.data, request.fileName)) {
+                saved++;
+            }
+        }
+        return saved;
+    }
+
+    /**
+     * Android 10+ 批量保存
+     */
+    @RequiresApi(api = Build.VERSION_CODES.Q)
+    private static int saveBatchViaMediaStore(@NonNull Context context,
+                                              @NonNull List<FileWriteService.WriteRequest> requests) {
+        ContentResolver resolver = context.getContentResolver();
+        ArrayList<ContentProviderOperation> inserts = new ArrayList<>(requests.size());
+        for (FileWriteService.WriteRequest request : requests) {
+            ContentValues values = createContentValues(request.fileName, request.mimeType);
+            // 内容写完前对其他应用不可见
+            values.put(MediaStore.Downloads.IS_PENDING, 1);
+            inserts.add(ContentProviderOperation.newInsert(MediaStore.Downloads.EXTERNAL_CONTENT_URI)
+                    .withValues(values)
+                    .build());
+        }
+
+        ContentProviderResult[] results;
+        try {
+            results = resolver.applyBatch(MediaStore.AUTHORITY, inserts);
+        } catch (RemoteException | OperationApplicationException e) {
+            Log.e(TAG, "Failed to insert MediaStore batch of " + requests.size(), e);
+            return 0;
+        }
+
+        int saved = 0;
+        ArrayList<ContentProviderOperation> updates = new ArrayList<>(results.length);
+        for (int i = 0; i < results.length; i++) {
+            Uri uri = results[i].uri;
+            if (uri == null) {
+                continue;
+            }
+            FileWriteService.WriteRequest request = requests.get(i);
+            boolean ok = false;
+            try (OutputStream os = resolver.openOutputStream(uri)) {
+                if (os != null) {
+                    os.write(request.data);
+                    ok = true;
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to write " + request.fileName, e);
+            }
+            if (ok) {
+                saved++;
+                updates.add(ContentProviderOperation.newUpdate(uri)
+                        .withValue(MediaStore.Downloads.IS_PENDING, 0)
+                        .build());
+            } else {
+                updates.add(ContentProviderOperation.newDelete(uri).build());
+            }
+        }
+
+        try {
+            resolver.applyBatch(MediaStore.AUTHORITY, updates);
+        } catch (RemoteException | OperationApplicationException e) {
+            Log.e(TAG, "Failed to publish MediaStore batch", e);
+            return 0;
+        }
+        return saved;
+    }
+
     /**
      * 保存增强后的JPEG图像到Download/Scan目录
      * 用于保存经过OpenCV增强处理的高质量JPEG
@@ -0,0 +1,316 @@
+package com.urovo.scanner.scanner.ar.scanarcore.util;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.urovo.scanner.scanner.ar.scanarcore.metrics.MetricsRegistry;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 调试文件异步写入服务
+ * <p>
+ * 所有调试保存共用一个写线程和一个有界队列：提交时把数据拷贝到池化缓冲区后入队，
+ * 调用方随即可以复用自己的缓冲区；队列满时（存储跟不上）直接丢弃并计数，提交永不阻塞。
+ * 写线程每次取出最多 {@link #maxBatch} 个文件交给 {@link Sink} 批量写入
+ * （默认 {@link FileManager#saveBatch}，MediaStore 行在一次批处理中插入），写完归还缓冲区。
+ * <p>
+ * 写线程在第一次提交时启动；{@link #shutdown(long)} 写完队列中的文件后停止，之后再提交会重新启动。
+ * 任何时刻最多只有一个写线程：每个写线程有自己的停止标记，shutdown 超时后旧线程仍在写时，
+ * 新的提交会撤销它的停止标记继续使用它，而不是再启动一个线程。
+ * <p>
+ * 线程安全：所有方法都可以在多线程环境中调用
+ */
+public class FileWriteService {
+
+    private static final String TAG = "FileWriteService";
+
+    private static final int DEFAULT_QUEUE_CAPACITY = 8;
+    private static final int DEFAULT_MAX_BATCH = 8;
+    // 丢弃日志的间隔（每 N 次丢弃输出一次）
+    private static final int DROP_LOG_INTERVAL = 50;
+
+    private static volatile FileWriteService instance;
+
+    /**
+     * 待写入的文件
+     */
+    public static class WriteRequest {
+        public final String fileName;
+        public final String mimeType;
+        /** 文件内容（池化缓冲区，长度即文件大小，写入完成后归还） */
+        public final byte[] data;
+
+        WriteRequest(String fileName, String mimeType, byte[] data) {
+            this.fileName = fileName;
+            this.mimeType = mimeType;
+            this.data = data;
+        }
+    }
+
+    /**
+     * 批量写入目标
+     */
+    public interface Sink {
+        /**
+         * 写入一批文件（在写线程调用）
+         *
+         * @return 成功写入的文件数
+         */
+        int write(List<WriteRequest> batch);
+    }
+
+    /**
+     * 写入统计
+     */
+    public static class Stats {
+        public final long submitted;
+        public final long written;
+        /** 队列满被丢弃的文件数 */
+        public final long dropped;
+        /** 写入失败的文件数 */
+        public final long failed;
+        public final long batches;
+        /** 当前排队的文件数 */
+        public final int pending;
+
+        Stats(long submitted, long written, long dropped, long failed, long batches, int pending) {
+            this.submitted = submitted;
+            this.written = written;
+            this.dropped = dropped;
+            this.failed = failed;
+            this.batches = batches;
+            this.pending = pending;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "submitted=" + submitted +
+                    ", written=" + written +
+                    ", dropped=" + dropped +
+                    ", failed=" + failed +
+                    ", batches=" + batches +
+                    ", pending=" + pending +
+                    '}';
+        }
+    }
+
+    private final Sink sink;
+    private final int maxBatch;
+    private final BlockingQueue<WriteRequest> queue;
+    private final FrameBufferPool bufferPool;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final MetricsRegistry.Counter droppedCounter = MetricsRegistry.getInstance().counter("file_writer.dropped");
+
+    // 当前写线程，由写线程退出时自己清除（受 this 保护）
+    private Writer writer;
+
+    /**
+     * @param sink          批量写入目标
+     * @param queueCapacity 最多排队的文件数
+     * @param maxBatch      每批最多写入的文件数
+     */
+    public FileWriteService(Sink sink, int queueCapacity, int maxBatch) {
+        this.sink = sink;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        // 排队中 + 正在写的一批都持有缓冲区
+        this.bufferPool = new FrameBufferPool(Math.max(1, queueCapacity) + this.maxBatch);
+    }
+
+    /**
+     * 进程级共享实例，写入 Download/Scan 目录
+     */
+    public static FileWriteService getInstance(Context context) {
+        FileWriteService service = instance;
+        if (service == null) {
+            synchronized (FileWriteService.class) {
+                service = instance;
+                if (service == null) {
+                    Context appContext = context.getApplicationContext();
+                    service = new FileWriteService(batch -> FileManager.saveBatch(appContext, batch),
+                            DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_BATCH);
+                    instance = service;
+                }
+            }
+        }
+        return service;
+    }
+
+    /**
+     * 提交 YUV 数据，文件名与 {@link FileManager#saveYuvAndJpeg} 相同：
+     * {@code <prefix>_<yyyyMMdd_HHmmss_SSS>_<w>x<h>.yuv}（时间为提交时间）
+     *
+     * @return 是否入队；队列已满时丢弃并返回 false
+     */
+    public boolean submitYuv(byte[] yuvData, int width, int height, String prefix) {
+        String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss_SSS", Locale.US).format(new Date());
+        String fileName = (prefix != null ? prefix + "_" : "") + timestamp + "_" + width + "x" + height + ".yuv";
+        return submit(fileName, "application/octet-stream", yuvData, yuvData.length);
+    }
+
+    /**
+     * 提交文件（拷贝 data 的前 length 字节，调用方返回后即可复用 data）
+     *
+     * @return 是否入队；队列已满时丢弃并返回 false
+     */
+    public boolean submit(String fileName, String mimeType, byte[] data, int length) {
+        submitted.incrementAndGet();
+        // 先检查容量，丢弃时不做拷贝
+        if (queue.remainingCapacity() == 0) {
+            onDropped(fileName);
+            return false;
+        }
+        byte[] copy = bufferPool.acquire(length);
+        System.arraycopy(data, 0, copy, 0, length);
+        if (!queue.offer(new WriteRequest(fileName, mimeType, copy))) {
+            bufferPool.release(copy);
+            onDropped(fileName);
+            return false;
+        }
+        ensureStarted();
+        return true;
+    }
+
+    /**
+     * 停止写线程：等待队列中的文件写完（最多 timeoutMs）
+     *
+     * @return 是否在超时前写完
+     */
+    public boolean shutdown(long timeoutMs) {
+        Thread thread;
+        synchronized (this) {
+            if (writer == null) {
+                return true;
+            }
+            writer.stopping = true;
+            thread = writer.thread;
+        }
+        try {
+            thread.join(timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        boolean drained = !thread.isAlive();
+        if (!drained) {
+            Log.w(TAG, "Shutdown timed out with " + queue.size() + " pending files");
+        }
+        return drained;
+    }
+
+    public Stats getStats() {
+        return new Stats(submitted.get(), written.get(), dropped.get(), failed.get(), batches.get(), queue.size());
+    }
+
+    private synchronized void ensureStarted() {
+        if (writer != null) {
+            // 正在停止的写线程还没有退出：撤销停止，由它继续处理新提交的文件
+            writer.stopping = false;
+            return;
+        }
+        writer = new Writer();
+        writer.thread.start();
+    }
+
+    private void onDropped(String fileName) {
+        long count = dropped.incrementAndGet();
+        droppedCounter.inc();
+        if (count == 1 || count % DROP_LOG_INTERVAL == 0) {
+            Log.w(TAG, "Storage falling behind, dropped " + count + " files (latest " + fileName + ")");
+        }
+    }
+
+    /**
+     * 写线程及其停止标记
+     */
+    private final class Writer implements Runnable {
+        final Thread thread;
+        // 受 FileWriteService.this 保护的写入，写线程无锁读取
+        volatile boolean stopping = false;
+
+        Writer() {
+            thread = new Thread(this, TAG);
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                drain();
+            } finally {
+                // 被中断或 Error 退出时同样注销，之后的提交会启动新线程
+                synchronized (FileWriteService.this) {
+                    if (writer == this) {
+                        writer = null;
+                    }
+                }
+            }
+        }
+
+        /**
+         * 队列为空且已停止时注销自己并退出；判断和注销与 ensureStarted 在同一把锁下，
+         * 不会出现新文件入队后既没有线程处理、也没有启动新线程的情况
+         */
+        private boolean shouldExit() {
+            synchronized (FileWriteService.this) {
+                if (!stopping || !queue.isEmpty()) {
+                    return false;
+                }
+                if (writer == this) {
+                    writer = null;
+                }
+                return true;
+            }
+        }
+
+        private void drain() {
+            List<WriteRequest> batch = new ArrayList<>(maxBatch);
+            while (true) {
+                WriteRequest first;
+                try {
+                    first = queue.poll(100, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Log.w(TAG, "Writer interrupted");
+                    return;
+                }
+                if (first == null) {
+                    if (shouldExit()) {
+                        return;
+                    }
+                    continue;
+                }
+
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                int ok;
+                try {
+                    ok = sink.write(batch);
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "Batch write failed", e);
+                    ok = 0;
+                }
+                written.addAndGet(ok);
+                failed.addAndGet(batch.size() - ok);
+                batches.incrementAndGet();
+                for (WriteRequest request : batch) {
+                    bufferPool.release(request.data);
+                }
+                batch.clear();
+            }
+        }
+    }
+}
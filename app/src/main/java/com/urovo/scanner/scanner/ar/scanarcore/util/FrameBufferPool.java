@@ -0,0 +1,123 @@
+package com.urovo.scanner.scanner.ar.scanarcore.util;
+
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * 帧缓冲区池
+ * <p>
+ * 按缓冲区大小分组复用 byte[]，避免每帧分配 width*height*1.5 的大数组。
+ * <p>
+ * 使用约定：
+ * - acquire() 取得的缓冲区归调用方所有，直到调用 release() 归还
+ * - 归还后调用方不得再读写该缓冲区
+ * - 池容量有上限，超出上限的缓冲区直接丢弃交给 GC
+ * <p>
+ * 线程安全：所有方法都可以在多线程环境中调用
+ */
+public class FrameBufferPool {
+
+    private static final String TAG = "FrameBufferPool";
+
+    // 每种尺寸最多缓存的缓冲区数量
+    private final int maxBuffersPerSize;
+
+    private final Map<Integer, ArrayDeque<byte[]>> freeBuffers = new HashMap<>();
+
+    // 统计信息
+    private long allocatedCount = 0;
+    private long reusedCount = 0;
+
+    /**
+     * @param maxBuffersPerSize 每种尺寸最多缓存的缓冲区数量（至少为1）
+     */
+    public FrameBufferPool(int maxBuffersPerSize) {
+        this.maxBuffersPerSize = Math.max(1, maxBuffersPerSize);
+    }
+
+    /**
+     * 获取指定大小的缓冲区
+     * <p>
+     * 池中有空闲缓冲区时直接复用，否则新分配。
+     * 缓冲区内容未清零，调用方需要自行覆盖全部有效数据。
+     *
+     * @param size 缓冲区大小（字节）
+     * @return 长度恰好为 size 的缓冲区
+     */
+    public synchronized byte[] acquire(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Invalid buffer size: " + size);
+        }
+
+        ArrayDeque<byte[]> queue = freeBuffers.get(size);
+        if (queue != null && !queue.isEmpty()) {
+            reusedCount++;
+            return queue.pollFirst();
+        }
+
+        // 分辨率切换后旧尺寸的缓冲区不会再被用到，及时释放
+        if (queue == null && !freeBuffers.isEmpty()) {
+            trimOtherSizes(size);
+        }
+
+        allocatedCount++;
+        return new byte[size];
+    }
+
+    /**
+     * 归还缓冲区
+     *
+     * @param buffer 由 acquire() 获取的缓冲区，null 时忽略
+     */
+    public synchronized void release(byte[] buffer) {
+        if (buffer == null) {
+            return;
+        }
+
+        ArrayDeque<byte[]> queue = freeBuffers.get(buffer.length);
+        if (queue == null) {
+            queue = new ArrayDeque<>(maxBuffersPerSize);
+            freeBuffers.put(buffer.length, queue);
+        }
+
+        if (queue.size() < maxBuffersPerSize) {
+            queue.offerFirst(buffer);
+        }
+    }
+
+    /**
+     * 清空池中所有空闲缓冲区
+     */
+    public synchronized void clear() {
+        freeBuffers.clear();
+    }
+
+    /**
+     * 累计新分配的缓冲区数量（稳定运行时应不再增长）
+     */
+    public synchronized long getAllocatedCount() {
+        return allocatedCount;
+    }
+
+    /**
+     * 累计复用的缓冲区数量
+     */
+    public synchronized long getReusedCount() {
+        return reusedCount;
+    }
+
+    private void trimOtherSizes(int keepSize) {
+        Iterator<Map.Entry<Integer, ArrayDeque<byte[]>>> it = freeBuffers.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, ArrayDeque<byte[]>> entry = it.next();
+            if (entry.getKey() != keepSize) {
+                Log.d(TAG, "Drop pooled buffers of size " + entry.getKey());
+                it.remove();
+            }
+        }
+    }
+}
@@ -126,6 +126,8 @@ public class ImageEnhancer {
      * <p>
      * 直接提取Y通道作为灰度图，应用CLAHE增强和锐化。
      * 适用于条码识别等场景。
+     * <p>
+     * 每次调用都会分配 Mat 和结果数组，逐帧增强请使用 {@link EnhancerSession}。
      *
      * @param image  YUV_420_888格式的Image
      * @param params 增强参数，null时使用默认参数
@@ -256,12 +258,15 @@ public class ImageEnhancer {
         Mat blurred = null;
 
         try {
-            CLAHE claheInstance = getCLAHE();
-            claheInstance.setClipLimit(clipLimit);
-            claheInstance.setTilesGridSize(new Size(tileSize, tileSize));
-
             enhanced = new Mat();
-            claheInstance.apply(gray, enhanced);
+            // 共享的 CLAHE 实例：设置参数和应用必须在同一把锁内完成，
+            // 高频调用方应使用各自的 EnhancerSession
+            synchronized (ImageEnhancer.class) {
+                CLAHE claheInstance = getCLAHE();
+                claheInstance.setClipLimit(clipLimit);
+                claheInstance.setTilesGridSize(new Size(tileSize, tileSize));
+                claheInstance.apply(gray, enhanced);
+            }
 
             // 锐化（Unsharp Mask）
             if (sharpenStrength > 0.01f) {
@@ -6,7 +6,8 @@ import android.media.Image;
 import android.util.Log;
 
 import java.nio.ByteBuffer;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * 图像处理工具类
@@ -23,14 +24,11 @@ public class PicUtil {
     /**
      * 异步保存YUV数据（不阻塞解码流程）
      * <p>
-     * 注意事项：
-     * 1. 这是调试功能，不保证数据100%正确
-     * 2. 由于缓冲区复用，异步保存时数据可能被后续帧覆盖
-     * 3. 为避免性能损耗，不进行数组复制
-     * 4. 如需保证数据完整性，调用方应传入独立的数据副本
+     * 数据在调用线程拷贝到 {@link FileWriteService} 的池化缓冲区，返回后调用方即可复用 yuvData。
+     * 存储跟不上时文件被丢弃（计入 FileWriteService 统计），不会阻塞调用方。
      *
      * @param context 上下文
-     * @param yuvData YUV数据（注意：可能在保存过程中被修改）
+     * @param yuvData YUV数据（NV21格式）
      * @param width   图像宽度
      * @param height  图像高度
      * @param prefix  文件名前缀
@@ -40,14 +38,7 @@ public class PicUtil {
             Log.w(TAG, "Invalid parameters for saveYuvDataAsync");
             return;
         }
-        // 使用独立线程保存，避免阻塞解码
-        Executors.newSingleThreadExecutor().execute(() -> {
-            try {
-                FileManager.saveYuvAndJpeg(context, yuvData, width, height, prefix);
-            } catch (Exception e) {
-                Log.e(TAG, "Failed to save YUV data", e);
-            }
-        });
+        FileWriteService.getInstance(context).submitYuv(yuvData, width, height, prefix);
     }
 
     /**
@@ -95,6 +86,74 @@ public class PicUtil {
         return imageToNV21(image, reuseBuffer);
     }
 
+    /**
+     * 只提取Image的Y平面（亮度）数据（支持缓冲区复用）
+     * <p>
+     * 条码解码和清晰度检测只使用Y通道，跳过色度平面可以省掉逐像素的UV交错拷贝。
+     * 按行批量拷贝，自动处理 rowStride 大于宽度的情况。
+     *
+     * @param image       YUV_420_888格式的Image，不能为null
+     * @param reuseBuffer 可复用的缓冲区，长度至少为 width*height，否则会创建新缓冲区
+     * @return 行优先紧密排列的Y数据（可能是reuseBuffer或新分配的数组）
+     * @throws IllegalArgumentException 如果image为null或尺寸无效
+     */
+    public static byte[] imageToLuma(Image image, byte[] reuseBuffer) {
+        if (image == null) {
+            throw new IllegalArgumentException("Image cannot be null");
+        }
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Invalid image dimensions: " + width + "x" + height);
+        }
+
+        int requiredSize = width * height;
+        byte[] lumaBuffer = (reuseBuffer != null && reuseBuffer.length >= requiredSize)
+                ? reuseBuffer
+                : new byte[requiredSize];
+
+        Image.Plane yPlane = image.getPlanes()[0];
+        copyLumaPlane(yPlane.getBuffer(), yPlane.getRowStride(), width, height, lumaBuffer);
+        return lumaBuffer;
+    }
+
+    /**
+     * 按行批量拷贝Y平面到紧密排列的缓冲区
+     *
+     * @param yBuffer   Y平面数据
+     * @param rowStride Y平面行步长
+     * @param width     图像宽度
+     * @param height    图像高度
+     * @param out       输出缓冲区，长度至少为 width*height
+     */
+    public static void copyLumaPlane(ByteBuffer yBuffer, int rowStride, int width, int height, byte[] out) {
+        // 使用副本操作position，不影响Image内部缓冲区状态
+        ByteBuffer src = yBuffer.duplicate();
+        src.rewind();
+
+        if (rowStride == width && src.remaining() >= width * height) {
+            // 无行填充，一次拷贝整个平面
+            src.get(out, 0, width * height);
+            return;
+        }
+
+        int capacity = src.capacity();
+        int dstPos = 0;
+        for (int row = 0; row < height; row++) {
+            int srcPos = row * rowStride;
+            // 最后一行通常不包含行尾填充，按实际剩余长度拷贝
+            int length = Math.min(width, capacity - srcPos);
+            if (length <= 0) {
+                Log.w(TAG, "Y plane row " + row + " exceeds buffer capacity");
+                break;
+            }
+            src.position(srcPos);
+            src.get(out, dstPos, length);
+            dstPos += width;
+        }
+    }
 
     /**
      * 将Image转换为NV21格式（支持缓冲区复用）
@@ -123,35 +182,97 @@ public class PicUtil {
             yuvBuffer = new byte[requiredSize];
         }
 
-        ByteBuffer yBuffer = planes[0].getBuffer();
-        ByteBuffer uBuffer = planes[1].getBuffer();
-        ByteBuffer vBuffer = planes[2].getBuffer();
+        planesToNV21(planes[0].getBuffer(), planes[0].getRowStride(),
+                planes[1].getBuffer(), planes[2].getBuffer(),
+                planes[1].getRowStride(), planes[1].getPixelStride(),
+                width, height, yuvBuffer);
+        return yuvBuffer;
+    }
 
-        int yRowStride = planes[0].getRowStride();
-        int uvRowStride = planes[1].getRowStride();
-        int uvPixelStride = planes[1].getPixelStride();
+    /**
+     * 将 YUV_420_888 的三个平面转换为NV21格式
+     * <p>
+     * U/V 平面 pixelStride 为 2（常见的半平面布局，无论两个平面是否共享内存）时按行批量拷贝；
+     * 否则逐像素交错拷贝。两种路径输出逐字节一致。
+     *
+     * @param yBuffer       Y平面
+     * @param yRowStride    Y平面行步长
+     * @param uBuffer       U平面
+     * @param vBuffer       V平面
+     * @param uvRowStride   UV平面行步长
+     * @param uvPixelStride UV平面像素步长
+     * @param width         图像宽度
+     * @param height        图像高度
+     * @param out           输出缓冲区，长度至少为 width*height*3/2
+     */
+    public static void planesToNV21(ByteBuffer yBuffer, int yRowStride,
+                                    ByteBuffer uBuffer, ByteBuffer vBuffer,
+                                    int uvRowStride, int uvPixelStride,
+                                    int width, int height, byte[] out) {
+        // 复制Y平面
+        copyLumaPlane(yBuffer, yRowStride, width, height, out);
 
-        // 重置buffer位置
-        yBuffer.rewind();
-        uBuffer.rewind();
-        vBuffer.rewind();
+        // 使用副本操作position，不影响Image内部缓冲区状态
+        ByteBuffer u = uBuffer.duplicate();
+        ByteBuffer v = vBuffer.duplicate();
+        u.rewind();
+        v.rewind();
 
-        // 复制Y平面
-        int yIndex = 0;
-        for (int row = 0; row < height; row++) {
-            int srcPos = row * yRowStride;
-            if (srcPos + width <= yBuffer.capacity()) {
-                yBuffer.position(srcPos);
-                int remaining = Math.min(width, yBuffer.remaining());
-                yBuffer.get(yuvBuffer, yIndex, remaining);
-                yIndex += width;
-            } else {
-                Log.w(TAG, "Y plane row " + row + " exceeds buffer capacity");
+        // 复制UV平面为NV21格式（VU交错）
+        if (uvPixelStride == 2 && (width & 1) == 0) {
+            copySemiPlanarChroma(u, v, uvRowStride, width, height, out);
+        } else {
+            copyChromaPerPixel(u, v, uvRowStride, uvPixelStride, width, height, out);
+        }
+    }
+
+    // 半平面色度拷贝的U行缓冲区（每个线程一份）
+    private static final ThreadLocal<byte[]> chromaRow = new ThreadLocal<>();
+
+    /**
+     * 快速路径：pixelStride 为 2 的半平面色度，按行批量读取
+     * <p>
+     * V平面一行的 width-1 个字节直接批量读入输出（偶数位置即V样本），U平面同一行批量读入行缓冲区，
+     * 再把U样本写到奇数位置。不需要判断U/V平面是否共享内存（VUVU 交错时奇数位置本来就是U样本，
+     * 覆盖后不变），每帧只有两次批量读取和一次数组内循环，不会逐字节调用 ByteBuffer.get。
+     */
+    private static void copySemiPlanarChroma(ByteBuffer u, ByteBuffer v, int uvRowStride,
+                                             int width, int height, byte[] out) {
+        int uvIndex = width * height;
+        int uvHeight = height / 2;
+        // 一行色度最后一个样本位于 width-2，最后一行可能恰好结束于此
+        int rowBytes = width - 1;
+        int uCapacity = u.capacity();
+        int vCapacity = v.capacity();
+
+        byte[] uRow = chromaRow.get();
+        if (uRow == null || uRow.length < rowBytes) {
+            uRow = new byte[rowBytes];
+            chromaRow.set(uRow);
+        }
+
+        for (int row = 0; row < uvHeight; row++) {
+            int srcPos = row * uvRowStride;
+            if (srcPos + rowBytes > vCapacity || srcPos + rowBytes > uCapacity) {
+                Log.w(TAG, "UV plane row " + row + " exceeds buffer capacity");
                 break;
             }
+            v.position(srcPos);
+            v.get(out, uvIndex, rowBytes);
+            u.position(srcPos);
+            u.get(uRow, 0, rowBytes);
+            for (int i = 0; i < rowBytes; i += 2) {
+                out[uvIndex + i + 1] = uRow[i];
+            }
+            uvIndex += width;
         }
+    }
 
-        // 复制UV平面为NV21格式（VU交错）
+    /**
+     * 通用路径：逐像素交错拷贝（任意 pixelStride）
+     */
+    static void copyChromaPerPixel(ByteBuffer u, ByteBuffer v, int uvRowStride, int uvPixelStride,
+                                   int width, int height, byte[] out) {
         int uvIndex = width * height;
         int uvHeight = height / 2;
         int uvWidth = width / 2;
@@ -161,37 +282,117 @@ public class PicUtil {
                 int uvOffset = row * uvRowStride + col * uvPixelStride;
 
                 // 检查边界
-                if (uvOffset < vBuffer.capacity() && uvOffset < uBuffer.capacity() && uvIndex + 1 < yuvBuffer.length) {
-                    yuvBuffer[uvIndex++] = vBuffer.get(uvOffset);
-                    yuvBuffer[uvIndex++] = uBuffer.get(uvOffset);
+                if (uvOffset < v.capacity() && uvOffset < u.capacity() && uvIndex + 1 < out.length) {
+                    out[uvIndex++] = v.get(uvOffset);
+                    out[uvIndex++] = u.get(uvOffset);
                 } else {
                     Log.w(TAG, "UV plane access out of bounds at row=" + row + ", col=" + col);
                     break;
                 }
             }
         }
+    }
 
-        return yuvBuffer;
+    // Bitmap 转换按行条带并行，每条带行数（偶数，保证2x2色度块不跨条带）
+    private static final int STRIP_ROWS = 64;
+    // 每个条带单独 fork 的最小条带数，更小的图直接在调用线程转换
+    private static final int MIN_PARALLEL_STRIPS = 4;
+    // 条带像素缓冲区（每个线程一份，避免整幅 int[] ARGB 数组）
+    private static final ThreadLocal<int[]> stripPixels = new ThreadLocal<>();
+
+    /**
+     * 按行读取 ARGB 像素的来源（Bitmap.getPixels 的抽象，便于在 JVM 单元测试中验证条带转换）
+     */
+    interface ArgbRowSource {
+        /**
+         * 读取 [top, top+rows) 行到 pixels（行步长为图像宽度）
+         */
+        void getRows(int[] pixels, int top, int rows);
     }
 
     /**
      * 将Bitmap转换为NV21格式
+     * <p>
+     * 按 {@link #STRIP_ROWS} 行分条带，在 ForkJoin 公共线程池中并行：
+     * 每个条带用 getPixels 读取到线程内缓冲区后立即编码，不再分配整幅 ARGB 数组。
      *
      * @param bitmap 源Bitmap
      * @return NV21格式的YUV数据
      */
     private static byte[] bitmapToNV21(Bitmap bitmap) {
         int width = bitmap.getWidth();
-        int height = bitmap.getHeight();
-        int[] argb = new int[width * height];
-
-        bitmap.getPixels(argb, 0, width, 0, 0, width, height);
+        return argbToNV21((pixels, top, rows) -> bitmap.getPixels(pixels, 0, width, 0, top, width, rows),
+                width, bitmap.getHeight());
+    }
 
+    /**
+     * 将按行读取的 ARGB 图像转换为NV21格式（条带并行）
+     */
+    static byte[] argbToNV21(ArgbRowSource source, int width, int height) {
         byte[] yuv = new byte[width * height * 3 / 2];
-        encodeYUV420SP(yuv, argb, width, height);
+
+        int strips = (height + STRIP_ROWS - 1) / STRIP_ROWS;
+        if (strips < MIN_PARALLEL_STRIPS) {
+            encodeStrips(source, yuv, width, height, 0, strips);
+        } else {
+            ForkJoinPool.commonPool().invoke(new StripTask(source, yuv, width, height, 0, strips));
+        }
         return yuv;
     }
 
+    /**
+     * 编码 [firstStrip, endStrip) 范围内的条带
+     */
+    private static void encodeStrips(ArgbRowSource source, byte[] yuv, int width, int height,
+                                     int firstStrip, int endStrip) {
+        int[] pixels = stripPixels.get();
+        if (pixels == null || pixels.length < width * STRIP_ROWS) {
+            pixels = new int[width * STRIP_ROWS];
+            stripPixels.set(pixels);
+        }
+
+        for (int strip = firstStrip; strip < endStrip; strip++) {
+            int top = strip * STRIP_ROWS;
+            int rows = Math.min(STRIP_ROWS, height - top);
+            source.getRows(pixels, top, rows);
+            encodeRows(pixels, 0, yuv, width, height, top, rows);
+        }
+    }
+
+    /**
+     * 条带二分任务（只在 ForkJoin 线程池内使用，不会被序列化）
+     */
+    private static class StripTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient ArgbRowSource source;
+        private final byte[] yuv;
+        private final int width;
+        private final int height;
+        private final int firstStrip;
+        private final int endStrip;
+
+        StripTask(ArgbRowSource source, byte[] yuv, int width, int height, int firstStrip, int endStrip) {
+            this.source = source;
+            this.yuv = yuv;
+            this.width = width;
+            this.height = height;
+            this.firstStrip = firstStrip;
+            this.endStrip = endStrip;
+        }
+
+        @Override
+        protected void compute() {
+            if (endStrip - firstStrip <= 1) {
+                encodeStrips(source, yuv, width, height, firstStrip, endStrip);
+                return;
+            }
+            int middle = (firstStrip + endStrip) >>> 1;
+            invokeAll(new StripTask(source, yuv, width, height, firstStrip, middle),
+                    new StripTask(source, yuv, width, height, middle, endStrip));
+        }
+    }
+
     /**
      * RGB转YUV420SP(NV21)
      * 使用ITU-R BT.601标准转换公式
@@ -201,31 +402,51 @@ public class PicUtil {
      * @param width    图像宽度
      * @param height   图像高度
      */
-    private static void encodeYUV420SP(byte[] yuv420sp, int[] argb, int width, int height) {
-        final int frameSize = width * height;
-
-        int yIndex = 0;
-        int uvIndex = frameSize;
-
-        for (int j = 0; j < height; j++) {
-            for (int i = 0; i < width; i++) {
-                int index = j * width + i;
-                int R = (argb[index] & 0xff0000) >> 16;
-                int G = (argb[index] & 0xff00) >> 8;
-                int B = (argb[index] & 0xff);
-
-                // ITU-R BT.601转换公式
-                int Y = ((66 * R + 129 * G + 25 * B + 128) >> 8) + 16;
-                int U = ((-38 * R - 74 * G + 112 * B + 128) >> 8) + 128;
-                int V = ((112 * R - 94 * G - 18 * B + 128) >> 8) + 128;
+    public static void encodeYUV420SP(byte[] yuv420sp, int[] argb, int width, int height) {
+        encodeRows(argb, 0, yuv420sp, width, height, 0, height);
+    }
 
-                yuv420sp[yIndex++] = (byte) Math.max(0, Math.min(255, Y));
+    /**
+     * 编码图像中 [top, top+rows) 行
+     * <p>
+     * 先逐像素计算Y，再单独遍历偶数行/偶数列，用每个2x2块左上角像素计算VU。
+     * BT.601 整数系数下 Y 落在 [16,235]、U/V 落在 [16,240]，不需要再做范围钳制。
+     * 宽或高为奇数时，超出NV21缓冲区（width*height*3/2）的色度样本被丢弃。
+     *
+     * @param argb       ARGB像素，argbOffset 处是第 top 行的第一个像素
+     * @param argbOffset 像素起始偏移
+     * @param out        整幅NV21输出缓冲区
+     * @param width      图像宽度
+     * @param height     图像高度
+     * @param top        起始行
+     * @param rows       行数
+     */
+    static void encodeRows(int[] argb, int argbOffset, byte[] out, int width, int height, int top, int rows) {
+        // Y平面
+        int yIndex = top * width;
+        int yEnd = yIndex + rows * width;
+        int p = argbOffset;
+        while (yIndex < yEnd) {
+            int color = argb[p++];
+            int r = (color >> 16) & 0xff;
+            int g = (color >> 8) & 0xff;
+            int b = color & 0xff;
+            out[yIndex++] = (byte) (((66 * r + 129 * g + 25 * b + 128) >> 8) + 16);
+        }
 
-                // UV采样：每2x2的Y对应一个UV
-                if (j % 2 == 0 && i % 2 == 0) {
-                    yuv420sp[uvIndex++] = (byte) Math.max(0, Math.min(255, V));
-                    yuv420sp[uvIndex++] = (byte) Math.max(0, Math.min(255, U));
-                }
+        // VU平面：每2x2的Y对应一个VU
+        int uvRowBytes = (width + 1) / 2 * 2;
+        int uvLimit = out.length - 1;
+        for (int row = top + (top & 1); row < top + rows; row += 2) {
+            int uvIndex = width * height + (row / 2) * uvRowBytes;
+            int rowStart = argbOffset + (row - top) * width;
+            for (int col = 0; col < width && uvIndex < uvLimit; col += 2) {
+                int color = argb[rowStart + col];
+                int r = (color >> 16) & 0xff;
+                int g = (color >> 8) & 0xff;
+                int b = color & 0xff;
+                out[uvIndex++] = (byte) (((112 * r - 94 * g - 18 * b + 128) >> 8) + 128);
+                out[uvIndex++] = (byte) (((-38 * r - 74 * g + 112 * b + 128) >> 8) + 128);
             }
         }
     }
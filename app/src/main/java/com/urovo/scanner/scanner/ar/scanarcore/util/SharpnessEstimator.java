@@ -0,0 +1,108 @@
+package com.urovo.scanner.scanner.ar.scanarcore.util;
+
+/**
+ * 纯Java清晰度估计（稀疏网格上的 Laplacian 方差）
+ * <p>
+ * 与 {@link ImageEnhancer#calculateSharpness} 的量纲一致，可以直接沿用同一个阈值：
+ * 后者把图像缩小到 1/4（双线性缩小4倍等价于取每个4x4块中心2x2像素的均值），
+ * 再在小图上计算 3x3 Laplacian 的方差。这里不生成小图，而是在原图上按4像素间距
+ * 直接取这些2x2均值计算 Laplacian，并且只在稀疏网格上采样。
+ * 采样点数有固定上限（默认16K），耗时与分辨率基本无关。
+ * <p>
+ * 不分配内存、不依赖 OpenCV，可在任意线程调用。
+ */
+public final class SharpnessEstimator {
+
+    /** 默认最大采样点数 */
+    public static final int DEFAULT_MAX_SAMPLES = 16 * 1024;
+
+    // 缩小倍数（与 ImageEnhancer 的 1/4 缩放一致）
+    private static final int SCALE = 4;
+
+    private SharpnessEstimator() {
+    }
+
+    /**
+     * 计算清晰度（Laplacian 方差），越大越清晰
+     *
+     * @param luma   Y数据（NV21 或纯Y，只读取前 width*height 字节）
+     * @param width  图像宽度
+     * @param height 图像高度
+     */
+    public static double estimate(byte[] luma, int width, int height) {
+        return estimate(luma, width, height, DEFAULT_MAX_SAMPLES);
+    }
+
+    /**
+     * 计算清晰度（Laplacian 方差），越大越清晰
+     *
+     * @param maxSamples 最大采样点数，超过时按比例增大网格间距
+     */
+    public static double estimate(byte[] luma, int width, int height, int maxSamples) {
+        if (luma == null || width <= 0 || height <= 0 || luma.length < width * height) {
+            return 0;
+        }
+
+        // 缩小后的尺寸，Laplacian 需要上下左右各一个邻居
+        int smallWidth = width / SCALE;
+        int smallHeight = height / SCALE;
+        if (smallWidth < 3 || smallHeight < 3) {
+            return 0;
+        }
+
+        // 网格间距（小图像素）：使内部采样点数不超过 maxSamples
+        long interior = (long) (smallWidth - 2) * (smallHeight - 2);
+        int step = Math.max(1, (int) Math.ceil(Math.sqrt((double) interior / Math.max(1, maxSamples))));
+
+        // 小图像素 (sx, sy) 对应原图2x2块左上角 (SCALE*sx+1, SCALE*sy+1)
+        int rowOffset = SCALE * width;
+        long count = 0;
+        long sum = 0;
+        long sumSquares = 0;
+
+        // 每个网格行的行/列起点按行号哈希抖动，
+        // 避免网格间距与条码/纹理周期成倍数时总采到同一相位
+        for (int gridRow = 0; ; gridRow++) {
+            int hash = gridRow * 0x9E3779B1;
+            int sy = 1 + gridRow * step + ((hash >>> 24) % step);
+            if (sy >= smallHeight - 1) {
+                break;
+            }
+            int base = (SCALE * sy + 1) * width + 1;
+            for (int sx = 1 + ((hash >>> 16) & 0xff) % step; sx < smallWidth - 1; sx += step) {
+                int center = base + SCALE * sx;
+                // 2x2 和（未除以4），Laplacian 结果是真实值的4倍
+                int lap = block(luma, center - SCALE, width)
+                        + block(luma, center + SCALE, width)
+                        + block(luma, center - rowOffset, width)
+                        + block(luma, center + rowOffset, width)
+                        - 4 * block(luma, center, width);
+                sum += lap;
+                sumSquares += (long) lap * lap;
+                count++;
+            }
+        }
+
+        if (count == 0) {
+            return 0;
+        }
+        double mean = (double) sum / count;
+        double variance = (double) sumSquares / count - mean * mean;
+        // 还原2x2均值的缩放（4倍 → 方差16倍）
+        return Math.max(0, variance / 16.0);
+    }
+
+    /**
+     * 判断图像是否清晰
+     *
+     * @param threshold 模糊阈值，与 {@link ImageEnhancer#isSharp} 相同
+     */
+    public static boolean isSharp(byte[] luma, int width, int height, double threshold) {
+        return estimate(luma, width, height) >= threshold;
+    }
+
+    private static int block(byte[] luma, int index, int width) {
+        return (luma[index] & 0xff) + (luma[index + 1] & 0xff)
+                + (luma[index + width] & 0xff) + (luma[index + width + 1] & 0xff);
+    }
+}
@@ -0,0 +1,124 @@
+package com.urovo.scanner.scanner.ar.scanarcore.anchor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * AnchorRegistry 测试
+ */
+public class AnchorRegistryTest {
+
+    @Test
+    public void lookupByValue_andReplaceRemove() {
+        AnchorRegistry<Integer> registry = new AnchorRegistry<>(0.1f);
+        AnchorRegistry.Entry<Integer> first = registry.add("A", 1, 0, 0, -1);
+        assertSame(first, registry.get("A"));
+
+        registry.add("A", 2, 2, 0, -1);
+        assertEquals(1, registry.size());
+        assertEquals(2, (int) registry.get("A").getPayload());
+        assertFalse(registry.isOccupied(0, 0, -1, 0.05f));
+        assertTrue(registry.isOccupied(2.02f, 0.01f, -1.01f, 0.05f));
+
+        assertEquals(2, (int) registry.remove("A").getPayload());
+        assertNull(registry.get("A"));
+        assertFalse(registry.isOccupied(2, 0, -1, 0.05f));
+        assertNull(registry.remove("A"));
+    }
+
+    @Test
+    public void entryAt_coversEveryEntryAfterRemovals() {
+        AnchorRegistry<Integer> registry = new AnchorRegistry<>(0.1f);
+        for (int i = 0; i < 10; i++) {
+            registry.add("B" + i, i, i, 0, 0);
+        }
+        registry.remove("B0");
+        registry.remove("B5");
+        registry.remove("B9");
+        registry.add("B3", 33, 3, 0, 0);
+
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < registry.size(); i++) {
+            values.add(registry.entryAt(i).getValue());
+        }
+        values.sort(null);
+        assertEquals(Arrays.asList("B1", "B2", "B3", "B4", "B6", "B7", "B8"), values);
+
+        registry.clear();
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    public void moveTo_followsPoseRefinementAcrossVoxels() {
+        AnchorRegistry<String> registry = new AnchorRegistry<>(0.1f);
+        AnchorRegistry.Entry<String> entry = registry.add("A", "a", 0.05f, 0.05f, -0.5f);
+
+        // 即时放置的深度被修正：从 0.5 米处移到 1.3 米处
+        registry.moveTo(entry, 0.05f, 0.05f, -1.3f);
+
+        assertFalse(registry.isOccupied(0.05f, 0.05f, -0.5f, 0.05f));
+        assertTrue(registry.isOccupied(0.06f, 0.04f, -1.32f, 0.05f));
+        assertEquals(-1.3f, entry.getZ(), 0);
+    }
+
+    @Test
+    public void negativeCoordinates_doNotAlias() {
+        AnchorRegistry<String> registry = new AnchorRegistry<>(0.1f);
+        registry.add("A", "a", -0.05f, -0.05f, -0.05f);
+
+        assertTrue(registry.isOccupied(-0.04f, -0.04f, -0.04f, 0.05f));
+        assertFalse(registry.isOccupied(0.15f, -0.05f, -0.05f, 0.05f));
+        assertFalse(registry.isOccupied(-0.05f, -0.05f, 104857.5f, 0.05f));
+    }
+
+    @Test
+    public void findNearest_matchesBruteForce() {
+        Random random = new Random(7);
+        AnchorRegistry<Integer> registry = new AnchorRegistry<>(0.1f);
+        List<float[]> positions = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            float[] position = {random.nextFloat() * 6 - 3, random.nextFloat() * 2 - 1, random.nextFloat() * 6 - 3};
+            positions.add(position);
+            AnchorRegistry.Entry<Integer> entry = registry.add("code-" + i, i, 0, 0, 0);
+            registry.moveTo(entry, position[0], position[1], position[2]);
+        }
+
+        for (int q = 0; q < 2000; q++) {
+            float x = random.nextFloat() * 6 - 3;
+            float y = random.nextFloat() * 2 - 1;
+            float z = random.nextFloat() * 6 - 3;
+            // 覆盖小于和大于体素边长的半径
+            float radius = 0.01f + random.nextFloat() * 0.25f;
+            int expected = -1;
+            float bestSq = radius * radius;
+            for (int i = 0; i < positions.size(); i++) {
+                float[] position = positions.get(i);
+                float dx = position[0] - x;
+                float dy = position[1] - y;
+                float dz = position[2] - z;
+                float distanceSq = dx * dx + dy * dy + dz * dz;
+                if (distanceSq < bestSq) {
+                    bestSq = distanceSq;
+                    expected = i;
+                }
+            }
+            AnchorRegistry.Entry<Integer> nearest = registry.findNearest(x, y, z, radius);
+            assertEquals("query " + q, expected, nearest != null ? (int) nearest.getPayload() : -1);
+        }
+
+        registry.clear();
+        assertEquals(0, registry.size());
+        float[] first = positions.get(0);
+        assertFalse(registry.isOccupied(first[0], first[1], first[2], 0.1f));
+    }
+}
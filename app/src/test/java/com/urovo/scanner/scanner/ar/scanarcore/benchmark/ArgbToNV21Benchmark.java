@@ -0,0 +1,63 @@
+package com.urovo.scanner.scanner.ar.scanarcore.benchmark;
+
+import com.urovo.scanner.scanner.ar.scanarcore.util.PicUtil;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ARGB → NV21 转换基准
+ * <p>
+ * encodeYUV420SP 写入复用缓冲区；bitmapToNV21Style 模拟 PicUtil.bitmapToNV21 的完整开销
+ * （getPixels 拷贝到新数组 + 分配输出数组）。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArgbToNV21Benchmark {
+
+    @Param({BenchmarkFrames.VGA, BenchmarkFrames.FULL_HD, BenchmarkFrames.TWELVE_MP})
+    public String size;
+
+    private int width;
+    private int height;
+    private int[] argb;
+    private byte[] out;
+
+    @Setup
+    public void setup() {
+        width = BenchmarkFrames.width(size);
+        height = BenchmarkFrames.height(size);
+        argb = BenchmarkFrames.syntheticArgb(width, height, 42);
+        out = new byte[width * height * 3 / 2];
+    }
+
+    @Benchmark
+    public byte[] encodeYUV420SP() {
+        PicUtil.encodeYUV420SP(out, argb, width, height);
+        return out;
+    }
+
+    @Benchmark
+    public byte[] bitmapToNV21Style() {
+        int[] pixels = new int[width * height];
+        System.arraycopy(argb, 0, pixels, 0, pixels.length);
+        byte[] yuv = new byte[width * height * 3 / 2];
+        PicUtil.encodeYUV420SP(yuv, pixels, width, height);
+        return yuv;
+    }
+}
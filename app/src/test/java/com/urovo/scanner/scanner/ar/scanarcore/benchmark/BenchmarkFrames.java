@@ -0,0 +1,42 @@
+package com.urovo.scanner.scanner.ar.scanarcore.benchmark;
+
+import java.util.Random;
+
+/**
+ * 基准测试共用的帧尺寸和合成数据
+ */
+final class BenchmarkFrames {
+
+    /** 基准测试统一使用的帧尺寸：VGA、1080p、1200万像素 */
+    static final String VGA = "640x480";
+    static final String FULL_HD = "1920x1080";
+    static final String TWELVE_MP = "4032x3024";
+
+    private BenchmarkFrames() {
+    }
+
+    static int width(String size) {
+        return Integer.parseInt(size.substring(0, size.indexOf('x')));
+    }
+
+    static int height(String size) {
+        return Integer.parseInt(size.substring(size.indexOf('x') + 1));
+    }
+
+    /**
+     * 合成ARGB像素：平滑渐变叠加随机噪声，避免全随机数据让分支预测失真
+     */
+    static int[] syntheticArgb(int width, int height, long seed) {
+        Random random = new Random(seed);
+        int[] argb = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int r = (x * 255 / width + random.nextInt(32)) & 0xff;
+                int g = (y * 255 / height + random.nextInt(32)) & 0xff;
+                int b = ((x + y) & 0xff) ^ random.nextInt(16);
+                argb[y * width + x] = 0xff000000 | (r << 16) | (g << 8) | b;
+            }
+        }
+        return argb;
+    }
+}
@@ -0,0 +1,37 @@
+package com.urovo.scanner.scanner.ar.scanarcore.benchmark;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 通过单元测试任务运行 JMH 基准
+ * <p>
+ * 默认跳过，避免拖慢普通单元测试。运行方式：
+ * <pre>
+ * ./gradlew :app:testDebugUnitTest --tests '*BenchmarkRunner' -Pjmh=.
+ * ./gradlew :app:testDebugUnitTest --tests '*BenchmarkRunner' -Pjmh=PlanesToNV21
+ * </pre>
+ * -Pjmh 的值是基准类名的正则；结果（JSON）写入 app/build/jmh-result.json。
+ */
+public class BenchmarkRunner {
+
+    @Test
+    public void runBenchmarks() throws Exception {
+        String include = System.getProperty("jmh.include");
+        Assume.assumeTrue("Set -Pjmh=<regex> to run benchmarks", include != null && !include.isEmpty());
+
+        Options options = new OptionsBuilder()
+                .include(BenchmarkRunner.class.getPackage().getName() + ".*" + include + ".*")
+                // Gradle 测试进程的 classpath 不在 java.class.path 中，fork 出的JVM找不到基准类，
+                // 因此在当前进程内运行
+                .forks(0)
+                .resultFormat(ResultFormatType.JSON)
+                .result(System.getProperty("jmh.result", "build/jmh-result.json"))
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,75 @@
+package com.urovo.scanner.scanner.ar.scanarcore.benchmark;
+
+import com.urovo.scanner.scanner.ar.scanarcore.decoder.CoordinateTransformer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图像坐标 → 屏幕坐标转换基准
+ * <p>
+ * 对比返回 PointF 的版本与写入调用方数组的无分配版本。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoordinateTransformerBenchmark {
+
+    private static final int POINTS = 256;
+
+    @Param({BenchmarkFrames.VGA, BenchmarkFrames.FULL_HD, BenchmarkFrames.TWELVE_MP})
+    public String size;
+
+    @Param({"0", "90"})
+    public int rotation;
+
+    private CoordinateTransformer transformer;
+    private float[] points;
+    private final float[] screen = new float[2];
+
+    @Setup
+    public void setup() {
+        int width = BenchmarkFrames.width(size);
+        int height = BenchmarkFrames.height(size);
+        transformer = new CoordinateTransformer(width, height, 1080, 2400, rotation,
+                CoordinateTransformer.ScaleMode.CENTER_CROP);
+        points = new float[POINTS * 2];
+        for (int i = 0; i < POINTS; i++) {
+            points[i * 2] = (i * 37) % width;
+            points[i * 2 + 1] = (i * 53) % height;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public void imageToScreenPointF(Blackhole blackhole) {
+        for (int i = 0; i < points.length; i += 2) {
+            blackhole.consume(transformer.imageToScreen(points[i], points[i + 1]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public void imageToScreenArray(Blackhole blackhole) {
+        for (int i = 0; i < points.length; i += 2) {
+            transformer.imageToScreen(points[i], points[i + 1], screen);
+            blackhole.consume(screen[0] + screen[1]);
+        }
+    }
+}
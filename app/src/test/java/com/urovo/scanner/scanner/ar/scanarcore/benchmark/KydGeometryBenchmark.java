@@ -0,0 +1,84 @@
+package com.urovo.scanner.scanner.ar.scanarcore.benchmark;
+
+import com.urovo.scanner.scanner.ar.scanarcore.decoder.kyd.KydGeometry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * KYD解码结果几何转换基准（角点旋转、中心点、边界框）
+ * <p>
+ * 每次调用转换 {@link #RESULTS} 个结果，结果按单个条码计时。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KydGeometryBenchmark {
+
+    private static final int RESULTS = 64;
+
+    @Param({BenchmarkFrames.VGA, BenchmarkFrames.FULL_HD, BenchmarkFrames.TWELVE_MP})
+    public String size;
+
+    @Param({"0", "90"})
+    public int rotation;
+
+    private int width;
+    private int height;
+    private int[][] bounds;
+    private final float[] corners = new float[8];
+    private final float[] box = new float[4];
+    private final float[] center = new float[2];
+
+    @Setup
+    public void setup() {
+        width = BenchmarkFrames.width(size);
+        height = BenchmarkFrames.height(size);
+        Random random = new Random(42);
+        bounds = new int[RESULTS][];
+        for (int i = 0; i < RESULTS; i++) {
+            int x = random.nextInt(width - 100);
+            int y = random.nextInt(height - 100);
+            int w = 20 + random.nextInt(80);
+            int h = 20 + random.nextInt(80);
+            bounds[i] = new int[]{x, y, x + w, y, x + w, y + h, x, y + h};
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RESULTS)
+    public void convertBounds(Blackhole blackhole) {
+        for (int[] b : bounds) {
+            KydGeometry.transformCorners(b, width, height, rotation, corners);
+            KydGeometry.center(corners, center);
+            KydGeometry.boundingBox(corners, box);
+            blackhole.consume(center[0] + center[1] + box[0] + box[3]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RESULTS)
+    public void transformPoint(Blackhole blackhole) {
+        for (int[] b : bounds) {
+            KydGeometry.transformPoint(b[0], b[1], width, height, rotation, center, 0);
+            blackhole.consume(center[0] + center[1]);
+        }
+    }
+}
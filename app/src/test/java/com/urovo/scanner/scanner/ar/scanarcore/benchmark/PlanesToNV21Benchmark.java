@@ -0,0 +1,65 @@
+package com.urovo.scanner.scanner.ar.scanarcore.benchmark;
+
+import com.urovo.scanner.scanner.ar.scanarcore.util.PicUtil;
+import com.urovo.scanner.scanner.ar.scanarcore.util.SyntheticYuvPlanes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * YUV_420_888 平面 → NV21 转换基准
+ * <p>
+ * 对比三种色度布局：交错布局走批量拷贝快速路径，其余走逐像素路径。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlanesToNV21Benchmark {
+
+    @Param({"INTERLEAVED_VU", "SEPARATE_SEMI_PLANAR", "PLANAR"})
+    public SyntheticYuvPlanes.Layout layout;
+
+    @Param({"640x480", "1920x1080", "4032x3024"})
+    public String size;
+
+    @Param({"0", "64"})
+    public int rowPadding;
+
+    private SyntheticYuvPlanes planes;
+    private byte[] out;
+
+    @Setup
+    public void setup() {
+        String[] parts = size.split("x");
+        int width = Integer.parseInt(parts[0]);
+        int height = Integer.parseInt(parts[1]);
+        planes = SyntheticYuvPlanes.create(layout, width, height, rowPadding, true, 42);
+        out = new byte[width * height * 3 / 2];
+    }
+
+    @Benchmark
+    public byte[] planesToNV21() {
+        PicUtil.planesToNV21(planes.y, planes.yRowStride, planes.u, planes.v,
+                planes.uvRowStride, planes.uvPixelStride, planes.width, planes.height, out);
+        return out;
+    }
+
+    @Benchmark
+    public byte[] perPixelReference() {
+        return planes.referenceNV21();
+    }
+}
@@ -0,0 +1,58 @@
+package com.urovo.scanner.scanner.ar.scanarcore.benchmark;
+
+import com.urovo.scanner.scanner.ar.scanarcore.util.SharpnessEstimator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 清晰度估计基准
+ * <p>
+ * OpenCV 版本（ImageEnhancer.calculateSharpness）依赖 Android 原生库，无法在JVM上运行，
+ * 设备上的对比见 androidTest 中的 SharpnessComparisonTest。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SharpnessBenchmark {
+
+    @Param({BenchmarkFrames.VGA, BenchmarkFrames.FULL_HD, "3840x2160", BenchmarkFrames.TWELVE_MP})
+    public String size;
+
+    private int width;
+    private int height;
+    private byte[] luma;
+
+    @Setup
+    public void setup() {
+        width = BenchmarkFrames.width(size);
+        height = BenchmarkFrames.height(size);
+        luma = new byte[width * height];
+        new Random(42).nextBytes(luma);
+    }
+
+    @Benchmark
+    public double estimate() {
+        return SharpnessEstimator.estimate(luma, width, height);
+    }
+
+    @Benchmark
+    public double estimateDense() {
+        return SharpnessEstimator.estimate(luma, width, height, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,252 @@
+package com.urovo.scanner.scanner.ar.scanarcore.decoder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * AdaptiveEnhanceController 测试：用合成的暗、亮、低对比度和正常帧驱动 beginFrame/endFrame
+ */
+public class AdaptiveEnhanceControllerTest {
+
+    private static final int WIDTH = 160;
+    private static final int HEIGHT = 120;
+
+    private final Random random = new Random(5);
+
+    @Test
+    public void darkFramesWithFailingRawDecode_enableEnhancementWithRawProbes() {
+        AdaptiveEnhanceController controller = new AdaptiveEnhanceController(testConfig());
+
+        // 最少决策帧数之前不开启
+        for (int i = 0; i < 5; i++) {
+            assertFalse(step(controller, noise(30, 10), false, true));
+        }
+
+        // 开启后每 rawProbeInterval 帧插入一次原始探测帧
+        StringBuilder pattern = new StringBuilder();
+        for (int i = 0; i < 12; i++) {
+            pattern.append(step(controller, noise(30, 10), false, true) ? 'E' : 'R');
+        }
+        assertEquals("EEEREEEREEER", pattern.toString());
+
+        AdaptiveEnhanceController.Stats stats = controller.getStats();
+        assertTrue(stats.enhancing);
+        assertEquals(1, stats.enableCount);
+        assertEquals(0, stats.disableCount);
+        assertEquals(9, stats.framesEnhanced);
+        assertEquals(0f, stats.rawSuccessRate, 0f);
+        assertEquals(1f, stats.enhancedSuccessRate, 0f);
+    }
+
+    @Test
+    public void brightAndLowContrastFrames_enableEnhancement() {
+        AdaptiveEnhanceController bright = new AdaptiveEnhanceController(testConfig());
+        AdaptiveEnhanceController flat = new AdaptiveEnhanceController(testConfig());
+        for (int i = 0; i < 6; i++) {
+            step(bright, noise(235, 10), false, true);
+            step(flat, noise(128, 15), false, true);
+        }
+        assertTrue(bright.getStats().enhancing);
+        assertTrue(flat.getStats().enhancing);
+    }
+
+    @Test
+    public void goodLighting_neverEnablesEvenWhenRawDecodeFails() {
+        AdaptiveEnhanceController controller = new AdaptiveEnhanceController(testConfig());
+        for (int i = 0; i < 40; i++) {
+            assertFalse(step(controller, noise(128, 100), false, true));
+        }
+        assertEquals(0, controller.getStats().enableCount);
+    }
+
+    @Test
+    public void hysteresis_rateBetweenThresholdsKeepsCurrentState() {
+        // 关闭状态：原始成功率 0.5 高于开启阈值，不开启
+        AdaptiveEnhanceController off = new AdaptiveEnhanceController(testConfig());
+        for (int i = 0; i < 40; i++) {
+            assertFalse(step(off, noise(30, 10), i % 2 == 0, true));
+        }
+
+        // 开启状态：探测帧交替成功，成功率在两个阈值之间，保持开启
+        AdaptiveEnhanceController on = new AdaptiveEnhanceController(testConfig());
+        for (int i = 0; i < 6; i++) {
+            step(on, noise(30, 10), false, true);
+        }
+        assertTrue(on.getStats().enhancing);
+        int probes = 0;
+        for (int i = 0; i < 80; i++) {
+            FrameOutcome outcome = new FrameOutcome(on, noise(30, 10));
+            if (!outcome.enhanced) {
+                outcome.finish(probes++ % 2 == 0);
+            } else {
+                outcome.finish(true);
+            }
+        }
+        AdaptiveEnhanceController.Stats stats = on.getStats();
+        assertTrue(stats.toString(), stats.enhancing);
+        assertEquals(0, stats.disableCount);
+
+        // 探测帧全部成功后原始成功率超过关闭阈值，关闭增强
+        for (int i = 0; i < 40 && on.getStats().enhancing; i++) {
+            step(on, noise(30, 10), true, true);
+        }
+        stats = on.getStats();
+        assertFalse(stats.enhancing);
+        assertEquals(1, stats.disableCount);
+        assertTrue(stats.lastReason, stats.lastReason.startsWith("raw success recovered"));
+    }
+
+    @Test
+    public void lightingRecovered_disablesEnhancement() {
+        AdaptiveEnhanceController controller = new AdaptiveEnhanceController(testConfig());
+        for (int i = 0; i < 6; i++) {
+            step(controller, noise(30, 10), false, true);
+        }
+        assertTrue(controller.getStats().enhancing);
+
+        // 光照恢复后原始解码仍然失败：光照良好的帧按原始数据解码，窗口均值恢复后关闭
+        int frames = 0;
+        while (controller.getStats().enhancing && frames < 40) {
+            assertFalse(step(controller, noise(128, 100), false, true));
+            frames++;
+        }
+        AdaptiveEnhanceController.Stats stats = controller.getStats();
+        assertFalse(stats.enhancing);
+        assertEquals("lighting recovered", stats.lastReason);
+        assertTrue("frames=" + frames, frames < 20);
+    }
+
+    @Test
+    public void parameters_followContrastAndSharpnessAndAreQuantized() {
+        BarcodeDecoder.EnhanceConfig flat = lastEnhance(() -> noise(30, 5));
+        BarcodeDecoder.EnhanceConfig wider = lastEnhance(() -> noise(35, 25));
+        BarcodeDecoder.EnhanceConfig smooth = lastEnhance(() -> gradient(20, 50));
+
+        // 对比度越低 clipLimit 越大
+        assertTrue(flat.claheClipLimit + " vs " + wider.claheClipLimit,
+                flat.claheClipLimit > wider.claheClipLimit);
+        // 平滑（模糊）画面锐化更强
+        assertTrue(smooth.sharpenStrength + " vs " + wider.sharpenStrength,
+                smooth.sharpenStrength > wider.sharpenStrength);
+
+        for (BarcodeDecoder.EnhanceConfig config : new BarcodeDecoder.EnhanceConfig[]{flat, wider, smooth}) {
+            assertQuantized(config.claheClipLimit, 4);
+            assertQuantized(config.sharpenStrength, 20);
+            assertTrue(config.claheClipLimit >= 1.5f && config.claheClipLimit <= 4.0f);
+            assertTrue(config.sharpenStrength >= 0.1f - 1e-6f && config.sharpenStrength <= 0.6f + 1e-6f);
+        }
+    }
+
+    @Test
+    public void steadyStatistics_reuseTheSameEnhanceConfig() {
+        // 参数量化后窗口统计稳定，连续增强帧复用同一配置对象，工作线程的增强会话不会被重新配置
+        AdaptiveEnhanceController controller = new AdaptiveEnhanceController(testConfig());
+        BarcodeDecoder.EnhanceConfig previous = null;
+        int changes = 0;
+        for (int i = 0; i < 60; i++) {
+            FrameOutcome outcome = new FrameOutcome(controller, noise(30, 10));
+            outcome.finish(outcome.enhanced);
+            if (outcome.enhanced) {
+                if (previous != null && previous != outcome.decision.enhance) {
+                    changes++;
+                }
+                previous = outcome.decision.enhance;
+            }
+        }
+        assertNotNull(previous);
+        assertTrue("changes=" + changes, changes <= 2);
+    }
+
+    private static AdaptiveEnhanceController.Config testConfig() {
+        AdaptiveEnhanceController.Config config = new AdaptiveEnhanceController.Config();
+        config.windowSize = 20;
+        config.minFramesForDecision = 5;
+        config.rawProbeInterval = 4;
+        config.enableBelowSuccessRate = 0.3f;
+        config.disableAboveSuccessRate = 0.7f;
+        return config;
+    }
+
+    /**
+     * 走一帧：增强帧按 enhancedSuccess、原始帧按 rawSuccess 报告结果
+     *
+     * @return 本帧是否增强
+     */
+    private static boolean step(AdaptiveEnhanceController controller, byte[] frame,
+                                boolean rawSuccess, boolean enhancedSuccess) {
+        FrameOutcome outcome = new FrameOutcome(controller, frame);
+        outcome.finish(outcome.enhanced ? enhancedSuccess : rawSuccess);
+        return outcome.enhanced;
+    }
+
+    /**
+     * 用同一种帧驱动一个新控制器，返回最后一个增强帧的配置
+     */
+    private static BarcodeDecoder.EnhanceConfig lastEnhance(Supplier<byte[]> frames) {
+        AdaptiveEnhanceController controller = new AdaptiveEnhanceController(testConfig());
+        BarcodeDecoder.EnhanceConfig last = null;
+        for (int i = 0; i < 20; i++) {
+            FrameOutcome outcome = new FrameOutcome(controller, frames.get());
+            outcome.finish(false);
+            if (outcome.enhanced) {
+                last = outcome.decision.enhance;
+            }
+        }
+        assertNotNull(controller.getStats().toString(), last);
+        return last;
+    }
+
+    private static void assertQuantized(float value, int stepsPerUnit) {
+        float scaled = value * stepsPerUnit;
+        assertEquals(value + " not quantized", Math.round(scaled), scaled, 1e-4f);
+    }
+
+    /**
+     * 均匀噪声帧：亮度在 [base - amplitude, base + amplitude] 内
+     */
+    private byte[] noise(int base, int amplitude) {
+        byte[] frame = new byte[WIDTH * HEIGHT];
+        for (int i = 0; i < frame.length; i++) {
+            int value = base - amplitude + random.nextInt(2 * amplitude + 1);
+            frame[i] = (byte) Math.max(0, Math.min(255, value));
+        }
+        return frame;
+    }
+
+    /**
+     * 水平渐变帧（平滑，清晰度很低）
+     */
+    private static byte[] gradient(int from, int to) {
+        byte[] frame = new byte[WIDTH * HEIGHT];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                frame[y * WIDTH + x] = (byte) (from + (to - from) * x / (WIDTH - 1));
+            }
+        }
+        return frame;
+    }
+
+    private static final class FrameOutcome {
+        final AdaptiveEnhanceController controller;
+        final AdaptiveEnhanceController.FrameDecision decision;
+        final boolean enhanced;
+
+        FrameOutcome(AdaptiveEnhanceController controller, byte[] frame) {
+            this.controller = controller;
+            this.decision = controller.beginFrame(frame, WIDTH, HEIGHT);
+            assertNotNull(decision);
+            this.enhanced = decision.enhance != null;
+        }
+
+        void finish(boolean success) {
+            controller.endFrame(decision, success);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.urovo.scanner.scanner.ar.scanarcore.decoder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DecodeEngine 测试：按序交付、多工作线程重叠解码和上下文生命周期
+ */
+public class DecodeEngineTest {
+
+    private DecodeEngine<Object> engine;
+
+    @Before
+    public void setUp() {
+        engine = new DecodeEngine<>("test", 1, new DecodeEngine.WorkerContextFactory<Object>() {
+            @Override
+            public Object create(int workerIndex) {
+                return new Object();
+            }
+
+            @Override
+            public void destroy(Object context) {
+            }
+
+            @Override
+            public boolean isThreadSafe() {
+                return true;
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        engine.shutdown();
+    }
+
+    @Test
+    public void deliver_runsInSequenceOrder() {
+        List<Long> delivered = new ArrayList<>();
+        long first = engine.nextSequence();
+        long second = engine.nextSequence();
+        long third = engine.nextSequence();
+
+        engine.deliver(third, () -> delivered.add(third));
+        engine.deliver(first, () -> delivered.add(first));
+        assertEquals(Arrays.asList(first), delivered);
+
+        engine.deliver(second, () -> delivered.add(second));
+        assertEquals(Arrays.asList(first, second, third), delivered);
+    }
+
+    @Test
+    public void deliver_keepsWorkingAfterCallbackThrowsError() {
+        List<Long> delivered = new ArrayList<>();
+        long failing = engine.nextSequence();
+        try {
+            engine.deliver(failing, () -> {
+                throw new AssertionError("callback error");
+            });
+            fail("Error should propagate to the delivering thread");
+        } catch (AssertionError expected) {
+            assertEquals("callback error", expected.getMessage());
+        }
+
+        long next = engine.nextSequence();
+        engine.deliver(next, () -> delivered.add(next));
+        assertEquals(Arrays.asList(next), delivered);
+    }
+
+    @Test
+    public void deliver_afterErrorDeliversResultsCompletedDuringTheDrain() {
+        List<Long> delivered = new ArrayList<>();
+        long failing = engine.nextSequence();
+        long second = engine.nextSequence();
+        long third = engine.nextSequence();
+        engine.deliver(second, () -> delivered.add(second));
+        engine.deliver(third, () -> delivered.add(third));
+
+        try {
+            engine.deliver(failing, () -> {
+                throw new AssertionError("callback error");
+            });
+            fail("Error should propagate to the delivering thread");
+        } catch (AssertionError expected) {
+            assertEquals("callback error", expected.getMessage());
+        }
+
+        // 之后没有新帧，已完成的结果也不能滞留
+        assertEquals(Arrays.asList(second, third), delivered);
+    }
+
+    @Test
+    public void threadSafeFactory_decodesFramesInOverlapAndDeliversInOrder() throws Exception {
+        int workers = 4;
+        int frames = 40;
+        RecordingFactory factory = new RecordingFactory(true);
+        DecodeEngine<Integer> parallel = new DecodeEngine<>("parallel", workers, factory);
+        assertEquals(workers, parallel.getWorkerCount());
+
+        // 前 workers 帧必须同时在解码才能全部通过屏障，证明各帧在不同线程上重叠执行
+        CountDownLatch barrier = new CountDownLatch(workers);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        Set<Integer> contexts = Collections.synchronizedSet(new HashSet<>());
+        List<Long> delivered = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(frames);
+
+        for (int i = 0; i < frames; i++) {
+            long sequence = parallel.nextSequence();
+            boolean first = i < workers;
+            long sleepMs = (frames - i) % 5;
+            parallel.execute(() -> {
+                int now = running.incrementAndGet();
+                maxRunning.accumulateAndGet(now, Math::max);
+                contexts.add(parallel.currentContext());
+                try {
+                    if (first) {
+                        barrier.countDown();
+                        assertTrue("frames did not overlap", barrier.await(5, TimeUnit.SECONDS));
+                    }
+                    // 后提交的帧先完成，交付仍须按序
+                    Thread.sleep(sleepMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    running.decrementAndGet();
+                }
+                parallel.deliver(sequence, () -> {
+                    delivered.add(sequence);
+                    done.countDown();
+                });
+            });
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        parallel.shutdown();
+        assertTrue(factory.awaitDestroyed(workers));
+
+        assertEquals(0, barrier.getCount());
+        assertEquals(workers, maxRunning.get());
+        assertEquals(workers, contexts.size());
+        List<Long> expected = new ArrayList<>();
+        for (long i = 0; i < frames; i++) {
+            expected.add(i);
+        }
+        assertEquals(expected, delivered);
+    }
+
+    @Test
+    public void notThreadSafeFactory_fallsBackToOneWorker() {
+        DecodeEngine<Integer> serial = new DecodeEngine<>("serial", 4, new RecordingFactory(false));
+        assertEquals(1, serial.getWorkerCount());
+        serial.shutdown();
+    }
+
+    @Test
+    public void shutdown_destroysContextOnlyAfterItsWorkerFinishes() throws Exception {
+        RecordingFactory factory = new RecordingFactory(true);
+        DecodeEngine<Integer> slow = new DecodeEngine<>("slow", 1, factory);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Boolean> destroyedDuringRun = new ArrayList<>();
+        slow.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            destroyedDuringRun.add(factory.destroyed.get() > 0);
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        slow.shutdown();
+        assertFalse(factory.awaitDestroyed(1, 200));
+
+        release.countDown();
+        assertTrue(factory.awaitDestroyed(1));
+        assertEquals(Arrays.asList(false), destroyedDuringRun);
+    }
+
+    /**
+     * 以序号作为上下文并记录销毁次数
+     */
+    private static final class RecordingFactory implements DecodeEngine.WorkerContextFactory<Integer> {
+        final boolean threadSafe;
+        final AtomicInteger destroyed = new AtomicInteger();
+        private final Object lock = new Object();
+
+        RecordingFactory(boolean threadSafe) {
+            this.threadSafe = threadSafe;
+        }
+
+        @Override
+        public Integer create(int workerIndex) {
+            return workerIndex;
+        }
+
+        @Override
+        public void destroy(Integer context) {
+            synchronized (lock) {
+                destroyed.incrementAndGet();
+                lock.notifyAll();
+            }
+        }
+
+        @Override
+        public boolean isThreadSafe() {
+            return threadSafe;
+        }
+
+        boolean awaitDestroyed(int count) throws InterruptedException {
+            return awaitDestroyed(count, 5000);
+        }
+
+        boolean awaitDestroyed(int count, long timeoutMs) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + timeoutMs;
+            synchronized (lock) {
+                while (destroyed.get() < count) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    lock.wait(remaining);
+                }
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.urovo.scanner.scanner.ar.scanarcore.decoder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * FrameScheduler 准入测试：用手动执行器控制解码何时结束
+ */
+public class FrameSchedulerTest {
+
+    private final ManualExecutor executor = new ManualExecutor();
+    private final List<String> ran = new ArrayList<>();
+    private final List<String> dropped = new ArrayList<>();
+    private int submitted = 0;
+
+    @Test
+    public void dropNewest_dropsFramesWhileAllSlotsBusy() {
+        FrameScheduler scheduler = new FrameScheduler(executor, 2);
+
+        assertTrue(submit(scheduler, "a"));
+        assertTrue(submit(scheduler, "b"));
+        assertFalse(submit(scheduler, "c"));
+        assertEquals(Arrays.asList("c"), dropped);
+
+        executor.runNext();
+        assertTrue(submit(scheduler, "d"));
+        executor.runAll();
+
+        assertEquals(Arrays.asList("a", "b", "d"), ran);
+        assertStats(scheduler, 3, 1, 0);
+    }
+
+    @Test
+    public void keepLatest_replacesThePendingFrame() {
+        FrameScheduler scheduler = new FrameScheduler(executor, 1);
+        scheduler.setPolicy(BarcodeDecoder.FrameDropPolicy.KEEP_LATEST, 0);
+
+        assertTrue(submit(scheduler, "a"));
+        assertTrue(submit(scheduler, "b"));
+        assertTrue(submit(scheduler, "c"));
+        assertEquals(Arrays.asList("b"), dropped);
+        assertStats(scheduler, 1, 1, 1);
+
+        // 当前帧结束后只解码最新的等待帧
+        executor.runAll();
+        assertEquals(Arrays.asList("a", "c"), ran);
+        assertStats(scheduler, 2, 1, 0);
+    }
+
+    @Test
+    public void boundedQueue_queuesInOrderAndDropsWhenFull() {
+        FrameScheduler scheduler = new FrameScheduler(executor, 1);
+        scheduler.setPolicy(BarcodeDecoder.FrameDropPolicy.BOUNDED_QUEUE, 2);
+
+        assertTrue(submit(scheduler, "a"));
+        assertTrue(submit(scheduler, "b"));
+        assertTrue(submit(scheduler, "c"));
+        assertFalse(submit(scheduler, "d"));
+        assertEquals(Arrays.asList("d"), dropped);
+        assertStats(scheduler, 1, 1, 2);
+
+        executor.runAll();
+        assertEquals(Arrays.asList("a", "b", "c"), ran);
+        assertStats(scheduler, 3, 1, 0);
+    }
+
+    @Test
+    public void setPolicy_shrinkingTheQueueDropsOldestPendingFrames() {
+        FrameScheduler scheduler = new FrameScheduler(executor, 1);
+        scheduler.setPolicy(BarcodeDecoder.FrameDropPolicy.BOUNDED_QUEUE, 3);
+        for (String name : new String[]{"a", "b", "c", "d"}) {
+            submit(scheduler, name);
+        }
+        assertStats(scheduler, 1, 0, 3);
+
+        scheduler.setPolicy(BarcodeDecoder.FrameDropPolicy.BOUNDED_QUEUE, 1);
+        assertEquals(Arrays.asList("b", "c"), dropped);
+        assertStats(scheduler, 1, 2, 1);
+
+        // 切换到 DROP_NEWEST 不保留等待帧
+        scheduler.setPolicy(BarcodeDecoder.FrameDropPolicy.DROP_NEWEST, 1);
+        assertEquals(Arrays.asList("b", "c", "d"), dropped);
+        assertStats(scheduler, 1, 3, 0);
+
+        executor.runAll();
+        assertEquals(Arrays.asList("a"), ran);
+    }
+
+    @Test
+    public void dropIfBusy_countsOnlyUnderDropNewestWhenBusy() {
+        FrameScheduler scheduler = new FrameScheduler(executor, 1);
+        assertFalse(scheduler.dropIfBusy());
+
+        submit(scheduler, "a");
+        assertTrue(scheduler.dropIfBusy());
+        submitted++;
+        assertStats(scheduler, 1, 1, 0);
+
+        // 其他策略下繁忙时帧仍可进入等待队列，不提前丢弃
+        scheduler.setPolicy(BarcodeDecoder.FrameDropPolicy.KEEP_LATEST, 0);
+        assertFalse(scheduler.dropIfBusy());
+
+        executor.runAll();
+        scheduler.setPolicy(BarcodeDecoder.FrameDropPolicy.DROP_NEWEST, 0);
+        assertFalse(scheduler.dropIfBusy());
+        assertStats(scheduler, 1, 1, 0);
+    }
+
+    @Test
+    public void rejectedExecution_rollsBackAdmissionAndReleasesTheSlot() {
+        FrameScheduler scheduler = new FrameScheduler(executor, 1);
+
+        executor.rejecting = true;
+        assertFalse(submit(scheduler, "a"));
+        assertEquals(Arrays.asList("a"), dropped);
+        assertStats(scheduler, 0, 1, 0);
+
+        // 槽位已释放，执行器恢复后新帧可以直接解码
+        executor.rejecting = false;
+        assertTrue(submit(scheduler, "b"));
+        executor.runAll();
+        assertEquals(Arrays.asList("b"), ran);
+        assertStats(scheduler, 1, 1, 0);
+    }
+
+    @Test
+    public void rejectedPendingFrame_isDroppedWhenThePreviousFrameFinishes() {
+        FrameScheduler scheduler = new FrameScheduler(executor, 1);
+        scheduler.setPolicy(BarcodeDecoder.FrameDropPolicy.KEEP_LATEST, 0);
+        submit(scheduler, "a");
+        submit(scheduler, "b");
+
+        executor.rejecting = true;
+        executor.runNext();
+        assertEquals(Arrays.asList("a"), ran);
+        assertEquals(Arrays.asList("b"), dropped);
+        assertStats(scheduler, 1, 1, 0);
+
+        executor.rejecting = false;
+        assertTrue(submit(scheduler, "c"));
+        executor.runAll();
+        assertEquals(Arrays.asList("a", "c"), ran);
+    }
+
+    @Test
+    public void clear_dropsAllPendingFrames() {
+        FrameScheduler scheduler = new FrameScheduler(executor, 1);
+        scheduler.setPolicy(BarcodeDecoder.FrameDropPolicy.BOUNDED_QUEUE, 4);
+        for (String name : new String[]{"a", "b", "c"}) {
+            submit(scheduler, name);
+        }
+        scheduler.clear();
+        assertEquals(Arrays.asList("b", "c"), dropped);
+        assertStats(scheduler, 1, 2, 0);
+
+        executor.runAll();
+        assertEquals(Arrays.asList("a"), ran);
+    }
+
+    @Test
+    public void mixedTraffic_keepsAccountingInvariant() {
+        FrameScheduler scheduler = new FrameScheduler(executor, 2);
+        BarcodeDecoder.FrameDropPolicy[] policies = BarcodeDecoder.FrameDropPolicy.values();
+        int droppedBeforeSubmit = 0;
+        for (int i = 0; i < 300; i++) {
+            if (i % 50 == 0) {
+                scheduler.setPolicy(policies[(i / 50) % policies.length], 1 + (i / 50) % 3);
+            }
+            if (i % 7 == 0 && scheduler.dropIfBusy()) {
+                submitted++;
+                droppedBeforeSubmit++;
+            } else {
+                submit(scheduler, "f" + i);
+            }
+            if (i % 3 == 0) {
+                executor.runNext();
+            }
+            BarcodeDecoder.FrameStats stats = scheduler.getStats();
+            assertEquals(stats.toString(), submitted, stats.admitted + stats.dropped + stats.pending);
+        }
+        executor.runAll();
+        BarcodeDecoder.FrameStats stats = scheduler.getStats();
+        assertEquals(0, stats.pending);
+        assertEquals(stats.admitted, ran.size());
+        assertEquals(submitted, ran.size() + dropped.size() + droppedBeforeSubmit);
+    }
+
+    private boolean submit(FrameScheduler scheduler, String name) {
+        submitted++;
+        return scheduler.submit(new FrameScheduler.FrameTask() {
+            @Override
+            public void run() {
+                ran.add(name);
+            }
+
+            @Override
+            public void onDropped() {
+                dropped.add(name);
+            }
+        });
+    }
+
+    /**
+     * 检查统计值，以及 admitted + dropped + pending 等于提交的总帧数
+     */
+    private void assertStats(FrameScheduler scheduler, long admitted, long droppedFrames, int pending) {
+        BarcodeDecoder.FrameStats stats = scheduler.getStats();
+        assertEquals(stats.toString(), admitted, stats.admitted);
+        assertEquals(stats.toString(), droppedFrames, stats.dropped);
+        assertEquals(stats.toString(), pending, stats.pending);
+        assertEquals(stats.toString(), submitted, stats.admitted + stats.dropped + stats.pending);
+    }
+
+    /**
+     * 手动执行器：任务排队，由测试逐个运行；rejecting 为 true 时拒绝新任务
+     */
+    private static final class ManualExecutor implements Executor {
+        final ArrayDeque<Runnable> queue = new ArrayDeque<>();
+        boolean rejecting;
+
+        @Override
+        public void execute(Runnable command) {
+            if (rejecting) {
+                throw new RejectedExecutionException("rejecting");
+            }
+            queue.addLast(command);
+        }
+
+        void runNext() {
+            Runnable next = queue.pollFirst();
+            if (next != null) {
+                next.run();
+            }
+        }
+
+        void runAll() {
+            while (!queue.isEmpty()) {
+                runNext();
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.urovo.scanner.scanner.ar.scanarcore.decoder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * KnownBarcodeTracker 测试
+ */
+public class KnownBarcodeTrackerTest {
+
+    @Test
+    public void newRegion_needsDecode() {
+        KnownBarcodeTracker tracker = new KnownBarcodeTracker();
+
+        KnownBarcodeTracker.Track[] assigned = tracker.assign(boxes(box(100, 100, 200, 150)));
+
+        assertNull(assigned[0]);
+        assertEquals(1, tracker.getDecodedRegions());
+    }
+
+    @Test
+    public void decodedRegion_isTrackedWhileMoving() {
+        KnownBarcodeTracker tracker = new KnownBarcodeTracker();
+        tracker.assign(boxes(box(100, 100, 200, 150)));
+        tracker.onDecoded("A", "QR_CODE", box(100, 100, 200, 150));
+
+        // 每帧移动10像素，尺寸略变
+        for (int i = 1; i <= 5; i++) {
+            float shift = i * 10;
+            KnownBarcodeTracker.Track[] assigned = tracker.assign(
+                    boxes(box(100 + shift, 100, 205 + shift, 152)));
+            assertNotNull("frame " + i, assigned[0]);
+            assertEquals("A", assigned[0].content);
+        }
+        assertEquals(5, tracker.getTrackedRegions());
+    }
+
+    @Test
+    public void farOrResizedRegion_isNotMatched() {
+        KnownBarcodeTracker tracker = new KnownBarcodeTracker();
+        tracker.assign(boxes(box(100, 100, 200, 150)));
+        tracker.onDecoded("A", "QR_CODE", box(100, 100, 200, 150));
+
+        assertNull(tracker.assign(boxes(box(400, 400, 500, 450)))[0]);
+        assertNull(tracker.assign(boxes(box(100, 100, 400, 300)))[0]);
+    }
+
+    @Test
+    public void eachTrack_matchesOnlyNearestBox() {
+        KnownBarcodeTracker tracker = new KnownBarcodeTracker();
+        tracker.assign(boxes(box(100, 100, 200, 150)));
+        tracker.onDecoded("A", "QR_CODE", box(100, 100, 200, 150));
+
+        KnownBarcodeTracker.Track[] assigned = tracker.assign(
+                boxes(box(130, 100, 230, 150), box(102, 100, 202, 150)));
+
+        assertNull(assigned[0]);
+        assertNotNull(assigned[1]);
+    }
+
+    @Test
+    public void trackedRegion_isRedecodedAfterInterval() {
+        KnownBarcodeTracker.Config config = new KnownBarcodeTracker.Config();
+        config.redecodeInterval = 3;
+        KnownBarcodeTracker tracker = new KnownBarcodeTracker(config);
+        tracker.assign(boxes(box(0, 0, 100, 100)));
+        tracker.onDecoded("A", "QR_CODE", box(0, 0, 100, 100));
+
+        assertNotNull(tracker.assign(boxes(box(0, 0, 100, 100)))[0]);
+        assertNotNull(tracker.assign(boxes(box(0, 0, 100, 100)))[0]);
+        assertNull(tracker.assign(boxes(box(0, 0, 100, 100)))[0]);
+
+        // 重新解码后继续跟踪
+        tracker.onDecoded("A", "QR_CODE", box(0, 0, 100, 100));
+        KnownBarcodeTracker.Track[] assigned = tracker.assign(boxes(box(0, 0, 100, 100)));
+        assertNotNull(assigned[0]);
+        assertEquals(1, tracker.size());
+    }
+
+    @Test
+    public void missingTrack_isEvicted() {
+        KnownBarcodeTracker.Config config = new KnownBarcodeTracker.Config();
+        config.maxMissedFrames = 2;
+        KnownBarcodeTracker tracker = new KnownBarcodeTracker(config);
+        tracker.assign(boxes(box(0, 0, 100, 100)));
+        tracker.onDecoded("A", "QR_CODE", box(0, 0, 100, 100));
+
+        for (int i = 0; i < 3; i++) {
+            tracker.assign(Collections.emptyList());
+        }
+
+        assertEquals(0, tracker.size());
+    }
+
+    @Test
+    public void sameContentAtSamePlace_refreshesExistingTrack() {
+        KnownBarcodeTracker tracker = new KnownBarcodeTracker();
+        tracker.assign(boxes(box(0, 0, 100, 100)));
+        tracker.onDecoded("A", "QR_CODE", box(0, 0, 100, 100));
+        KnownBarcodeTracker.Track first = tracker.assign(boxes(box(0, 0, 100, 100)))[0];
+
+        tracker.onDecoded("A", "QR_CODE", box(5, 5, 105, 105));
+
+        assertEquals(1, tracker.size());
+        assertSame(first, tracker.assign(boxes(box(5, 5, 105, 105)))[0]);
+    }
+
+    private static float[] box(float left, float top, float right, float bottom) {
+        return new float[]{left, top, right, bottom};
+    }
+
+    private static List<float[]> boxes(float[]... boxes) {
+        return Arrays.asList(boxes);
+    }
+}
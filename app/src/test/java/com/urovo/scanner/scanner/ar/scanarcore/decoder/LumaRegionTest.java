@@ -0,0 +1,56 @@
+package com.urovo.scanner.scanner.ar.scanarcore.decoder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * LumaRegion 裁剪与写回测试（ROI 增强后写回整帧依赖二者互逆）
+ */
+public class LumaRegionTest {
+
+    private static final int WIDTH = 37;
+    private static final int HEIGHT = 23;
+
+    @Test
+    public void paste_restoresCroppedRegion() {
+        byte[] frame = frame();
+        LumaRegion region = new LumaRegion(5, 3, 11, 7);
+        byte[] packed = new byte[4 + region.size()];
+        region.crop(frame, WIDTH, packed, 4);
+
+        byte[] restored = new byte[WIDTH * HEIGHT];
+        region.paste(packed, 4, restored, WIDTH);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                boolean inside = x >= 5 && x < 16 && y >= 3 && y < 10;
+                assertEquals(x + "," + y, inside ? frame[y * WIDTH + x] : 0, restored[y * WIDTH + x]);
+            }
+        }
+    }
+
+    @Test
+    public void paste_onlyTouchesRegionPixels() {
+        byte[] frame = frame();
+        byte[] target = frame.clone();
+        LumaRegion left = new LumaRegion(0, 0, 10, HEIGHT);
+        LumaRegion corner = new LumaRegion(WIDTH - 8, HEIGHT - 6, 8, 6);
+        byte[] packed = new byte[left.size() + corner.size()];
+        left.crop(frame, WIDTH, packed, 0);
+        corner.crop(frame, WIDTH, packed, left.size());
+
+        // 把区域数据原样写回，整帧应保持不变
+        left.paste(packed, 0, target, WIDTH);
+        corner.paste(packed, left.size(), target, WIDTH);
+        assertArrayEquals(frame, target);
+    }
+
+    private static byte[] frame() {
+        byte[] frame = new byte[WIDTH * HEIGHT];
+        for (int i = 0; i < frame.length; i++) {
+            frame[i] = (byte) (i * 31 + 7);
+        }
+        return frame;
+    }
+}
@@ -0,0 +1,63 @@
+package com.urovo.scanner.scanner.ar.scanarcore.decoder;
+
+import static com.urovo.scanner.scanner.ar.scanarcore.decoder.TileDecoderTest.rect;
+import static com.urovo.scanner.scanner.ar.scanarcore.decoder.TileDecoderTest.result;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ResultDeduplicator 测试：重叠块解出的同一条码合并，货架上的相同标签保留
+ */
+public class ResultDeduplicatorTest {
+
+    @Test
+    public void sameContentOverlapping_keepsTheLargerBox() {
+        BarcodeResult small = result("123", rect(100, 100, 190, 150));
+        BarcodeResult large = result("123", rect(105, 98, 200, 152));
+
+        List<BarcodeResult> unique = ResultDeduplicator.deduplicate(Arrays.asList(small, large));
+        assertEquals(1, unique.size());
+        assertSame(large, unique.get(0));
+    }
+
+    @Test
+    public void sameContentFarApart_keepsBoth() {
+        BarcodeResult left = result("123", rect(100, 100, 200, 150));
+        BarcodeResult right = result("123", rect(600, 100, 700, 150));
+
+        List<BarcodeResult> unique = ResultDeduplicator.deduplicate(Arrays.asList(left, right));
+        assertEquals(2, unique.size());
+    }
+
+    @Test
+    public void truncatedBoxInsideFullBox_isMerged() {
+        // 块边缘截断的条码：交并比低于阈值，但中心落在完整边界框内
+        BarcodeResult truncated = result("123", rect(180, 100, 200, 150));
+        BarcodeResult full = result("123", rect(100, 100, 300, 150));
+
+        List<BarcodeResult> unique = ResultDeduplicator.deduplicate(Arrays.asList(truncated, full));
+        assertEquals(1, unique.size());
+        assertSame(full, unique.get(0));
+    }
+
+    @Test
+    public void differentContentOverlapping_keepsBoth() {
+        BarcodeResult a = result("123", rect(100, 100, 200, 150));
+        BarcodeResult b = result("456", rect(100, 100, 200, 150));
+
+        assertEquals(2, ResultDeduplicator.deduplicate(Arrays.asList(a, b)).size());
+    }
+
+    @Test
+    public void missingGeometry_fallsBackToContent() {
+        BarcodeResult a = result("123", null);
+        BarcodeResult b = result("123", rect(100, 100, 200, 150));
+
+        assertEquals(1, ResultDeduplicator.deduplicate(Arrays.asList(a, b)).size());
+    }
+}
@@ -0,0 +1,294 @@
+package com.urovo.scanner.scanner.ar.scanarcore.decoder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * RoiContentCache 测试
+ */
+public class RoiContentCacheTest {
+
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+    // barcodeFrame 的条码区域
+    private static final float[] BOX = {100, 100, 400, 200};
+
+    // EAN-13 数字编码：L 码（左侧奇校验），G 码为 R 码倒序，R 码为 L 码取反
+    private static final String[] EAN_L = {"0001101", "0011001", "0010011", "0111101", "0100011",
+            "0110001", "0101111", "0111011", "0110111", "0001011"};
+    // 首位数字决定左侧6位的 L/G 组合
+    private static final String[] EAN_PARITY = {"LLLLLL", "LLGLGG", "LLGGLG", "LLGGGL", "LGLLGG",
+            "LGGLLG", "LGGGLL", "LGLGLG", "LGLGGL", "LGGLGL"};
+
+    @Test
+    public void hash_ignoresBrightnessAndNoise() {
+        byte[] frame = barcodeFrame(1, 0, 0);
+        byte[] brighter = barcodeFrame(1, 40, 2);
+
+        long[] a = RoiContentCache.hash(frame, WIDTH, HEIGHT, 100, 100, 400, 200);
+        long[] b = RoiContentCache.hash(brighter, WIDTH, HEIGHT, 100, 100, 400, 200);
+
+        RoiContentCache cache = new RoiContentCache();
+        cache.put(a, BOX, "A", "CODE_128", 0);
+        assertNotNull(cache.get(b, BOX, 1));
+    }
+
+    @Test
+    public void hash_distinguishesDifferentBarcodes() {
+        long[] a = RoiContentCache.hash(barcodeFrame(1, 0, 0), WIDTH, HEIGHT, 100, 100, 400, 200);
+        long[] b = RoiContentCache.hash(barcodeFrame(2, 0, 0), WIDTH, HEIGHT, 100, 100, 400, 200);
+
+        RoiContentCache cache = new RoiContentCache();
+        cache.put(a, BOX, "A", "CODE_128", 0);
+        assertNull(cache.get(b, BOX, 1));
+    }
+
+    @Test
+    public void sequentialEan13Labels_doNotHitEachOther() {
+        // 流水号标签：只有末位数字和校验位不同，每张都放在同一位置（传送带上依次经过）
+        RoiContentCache cache = new RoiContentCache();
+        String previous = null;
+        for (int serial = 0; serial < 20; serial++) {
+            String digits = "69012345678" + String.format("%02d", serial).substring(0, 1) + (serial % 10);
+            String modules = ean13(digits);
+            long[] hash = eanHash(modules, 120, 3f, 0, 0, 1);
+            if (previous != null) {
+                assertNull(digits + " served as " + previous, cache.get(hash, BOX, serial));
+            }
+            cache.put(hash, BOX, digits, "EAN_13", serial);
+            previous = digits;
+        }
+    }
+
+    @Test
+    public void sameEan13Label_hitsDespiteJitterBlurAndLighting() {
+        String modules = ean13("690123456781");
+        RoiContentCache cache = new RoiContentCache();
+        cache.put(eanHash(modules, 120, 3f, 0, 0, 1), BOX, "6901234567818", "EAN_13", 0);
+
+        Random random = new Random(3);
+        for (int frame = 0; frame < 20; frame++) {
+            // 亚像素位移、±3% 缩放、亮度偏移和噪声
+            float x0 = 120 + random.nextFloat() * 3 - 1.5f;
+            float module = 3f * (0.97f + random.nextFloat() * 0.06f);
+            long[] hash = eanHash(modules, x0, module, random.nextInt(41) - 20, 10, frame);
+            RoiContentCache.Entry entry = cache.get(hash, BOX, 1 + frame);
+            assertNotNull("frame " + frame, entry);
+            assertEquals("6901234567818", entry.content);
+        }
+    }
+
+    @Test
+    public void sameAppearanceAtAnotherPlace_isNotServed() {
+        long[] hash = RoiContentCache.hash(barcodeFrame(1, 0, 0), WIDTH, HEIGHT, 100, 100, 400, 200);
+        RoiContentCache cache = new RoiContentCache();
+        cache.put(hash, BOX, "A", "CODE_128", 0);
+
+        // 并排的另一张相同外观的标签
+        assertNull(cache.get(hash, new float[]{100, 220, 400, 320}, 1));
+        assertNull(cache.get(hash, new float[]{420, 100, 720, 200}, 1));
+        // 同一标签随相机小幅移动，位置跟随更新
+        assertNotNull(cache.get(hash, new float[]{130, 120, 430, 220}, 2));
+        assertNotNull(cache.get(hash, new float[]{160, 140, 460, 240}, 3));
+    }
+
+    @Test
+    public void twoDimensionalCode_usesGridHash() {
+        long[] a = RoiContentCache.hash(matrixFrame(1, 0, 0), WIDTH, HEIGHT, 200, 100, 410, 310);
+        long[] brighter = RoiContentCache.hash(matrixFrame(1, 30, 3), WIDTH, HEIGHT, 200, 100, 410, 310);
+        long[] other = RoiContentCache.hash(matrixFrame(2, 0, 0), WIDTH, HEIGHT, 200, 100, 410, 310);
+        float[] box = {200, 100, 410, 310};
+
+        RoiContentCache cache = new RoiContentCache();
+        cache.put(a, box, "Q1", "QR_CODE", 0);
+        assertNotNull(cache.get(brighter, box, 1));
+        assertNull(cache.get(other, box, 2));
+    }
+
+    @Test
+    public void hash_rejectsTinyRoi() {
+        assertNull(RoiContentCache.hash(new byte[WIDTH * HEIGHT], WIDTH, HEIGHT, 10, 10, 20, 20));
+    }
+
+    @Test
+    public void entry_expiresAfterTtl() {
+        RoiContentCache.Config config = new RoiContentCache.Config();
+        config.ttlMs = 100;
+        RoiContentCache cache = new RoiContentCache(config);
+        long[] hash = RoiContentCache.hash(barcodeFrame(1, 0, 0), WIDTH, HEIGHT, 100, 100, 400, 200);
+
+        cache.put(hash, BOX, "A", "CODE_128", 1000);
+
+        assertNotNull(cache.get(hash, BOX, 1099));
+        assertNull(cache.get(hash, BOX, 1100));
+        RoiContentCache.Stats stats = cache.getStats();
+        assertEquals(1, stats.hits);
+        assertEquals(1, stats.misses);
+        assertEquals(1, stats.expirations);
+        assertEquals(0, stats.size);
+    }
+
+    @Test
+    public void leastRecentlyUsed_isEvicted() {
+        RoiContentCache.Config config = new RoiContentCache.Config();
+        config.capacity = 2;
+        config.maxHammingDistance = 0;
+        RoiContentCache cache = new RoiContentCache(config);
+        long[] a = {1, 0, 0, 0, 0, 0, 0, 0, 0};
+        long[] b = {2, 0, 0, 0, 0, 0, 0, 0, 0};
+        long[] c = {4, 0, 0, 0, 0, 0, 0, 0, 0};
+
+        cache.put(a, BOX, "A", "QR_CODE", 0);
+        cache.put(b, BOX, "B", "QR_CODE", 0);
+        cache.get(a, BOX, 1);
+        cache.put(c, BOX, "C", "QR_CODE", 2);
+
+        assertEquals("A", cache.get(a, BOX, 3).content);
+        assertNull(cache.get(b, BOX, 3));
+        assertEquals("C", cache.get(c, BOX, 3).content);
+        assertEquals(1, cache.getStats().evictions);
+        assertTrue(cache.getStats().getHitRate() > 0.5f);
+    }
+
+    @Test
+    public void hash_rejectsFlatRoi() {
+        byte[] frame = new byte[WIDTH * HEIGHT];
+        Arrays.fill(frame, (byte) 128);
+        assertNull(RoiContentCache.hash(frame, WIDTH, HEIGHT, 100, 100, 400, 200));
+    }
+
+    /**
+     * 12位数字加校验位编码为 EAN-13 的95个模块（'1' 为暗条）
+     */
+    private static String ean13(String digits12) {
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            int digit = digits12.charAt(i) - '0';
+            sum += i % 2 == 0 ? digit : 3 * digit;
+        }
+        String digits = digits12 + (10 - sum % 10) % 10;
+
+        StringBuilder modules = new StringBuilder("101");
+        String parity = EAN_PARITY[digits.charAt(0) - '0'];
+        for (int i = 1; i <= 6; i++) {
+            String code = EAN_L[digits.charAt(i) - '0'];
+            if (parity.charAt(i - 1) == 'G') {
+                code = new StringBuilder(invert(code)).reverse().toString();
+            }
+            modules.append(code);
+        }
+        modules.append("01010");
+        for (int i = 7; i <= 12; i++) {
+            modules.append(invert(EAN_L[digits.charAt(i) - '0']));
+        }
+        return modules.append("101").toString();
+    }
+
+    private static String invert(String code) {
+        StringBuilder inverted = new StringBuilder(code.length());
+        for (int i = 0; i < code.length(); i++) {
+            inverted.append(code.charAt(i) == '0' ? '1' : '0');
+        }
+        return inverted.toString();
+    }
+
+    /**
+     * 在 y∈[100,200) 画 EAN-13 条码（按像素覆盖面积抗锯齿），返回检测框 (100,100)-(420,200) 的哈希
+     *
+     * @param x0     第一个模块的左边缘
+     * @param module 模块宽度（像素）
+     */
+    private static long[] eanHash(String modules, float x0, float module, int offset, int noise, long seed) {
+        Random random = new Random(seed);
+        byte[] frame = new byte[WIDTH * HEIGHT];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                float value = 200;
+                if (y >= 100 && y < 200) {
+                    float dark = 0;
+                    for (int m = 0; m < modules.length(); m++) {
+                        if (modules.charAt(m) == '1') {
+                            float start = x0 + m * module;
+                            dark += Math.max(0f, Math.min(x + 1, start + module) - Math.max(x, start));
+                        }
+                    }
+                    value = 200 - 170 * dark;
+                }
+                if (noise > 0) {
+                    value += random.nextInt(2 * noise + 1) - noise;
+                }
+                frame[y * WIDTH + x] = (byte) Math.max(0, Math.min(255, Math.round(value) + offset));
+            }
+        }
+        return RoiContentCache.hash(frame, WIDTH, HEIGHT, 100, 100, 420, 200);
+    }
+
+    /**
+     * 在 (205,105) 起画 20x20 个 10 像素的随机黑白模块（类似二维码），其余为灰色背景
+     */
+    private static byte[] matrixFrame(long seed, int offset, int noise) {
+        Random pattern = new Random(seed);
+        Random random = new Random(99);
+        boolean[] modules = new boolean[20 * 20];
+        for (int i = 0; i < modules.length; i++) {
+            modules[i] = pattern.nextBoolean();
+        }
+
+        byte[] frame = new byte[WIDTH * HEIGHT];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                int value = 128;
+                if (x >= 205 && x < 405 && y >= 105 && y < 305) {
+                    value = modules[(y - 105) / 10 * 20 + (x - 205) / 10] ? 30 : 200;
+                }
+                if (noise > 0) {
+                    value += random.nextInt(2 * noise + 1) - noise;
+                }
+                frame[y * WIDTH + x] = (byte) Math.max(0, Math.min(255, value + offset));
+            }
+        }
+        return frame;
+    }
+
+    /**
+     * 在 (100,100)-(400,200) 画一个随机条纹"条码"，其余为灰色背景
+     *
+     * @param seed   条纹图案
+     * @param offset 整体亮度偏移
+     * @param noise  噪声幅度
+     */
+    private static byte[] barcodeFrame(long seed, int offset, int noise) {
+        Random pattern = new Random(seed);
+        Random random = new Random(99);
+        int[] bars = new int[300];
+        for (int x = 0; x < bars.length; ) {
+            int barWidth = 2 + pattern.nextInt(6);
+            int value = pattern.nextBoolean() ? 30 : 200;
+            for (int i = 0; i < barWidth && x < bars.length; i++, x++) {
+                bars[x] = value;
+            }
+        }
+
+        byte[] frame = new byte[WIDTH * HEIGHT];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                int value = 128;
+                if (x >= 100 && x < 400 && y >= 100 && y < 200) {
+                    value = bars[x - 100];
+                }
+                if (noise > 0) {
+                    value += random.nextInt(2 * noise + 1) - noise;
+                }
+                frame[y * WIDTH + x] = (byte) Math.max(0, Math.min(255, value + offset));
+            }
+        }
+        return frame;
+    }
+}
@@ -0,0 +1,169 @@
+package com.urovo.scanner.scanner.ar.scanarcore.decoder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.RectF;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * TileDecoder 测试：网格覆盖、ROI 扩展与裁剪，以及分块结果去重
+ */
+public class TileDecoderTest {
+
+    @Test
+    public void planGrid_smallFrameIsOneRegion() {
+        List<LumaRegion> regions = TileDecoder.planGrid(640, 480, new TileDecoder.TileConfig(1024, 192));
+        assertEquals(1, regions.size());
+        assertRegion(regions.get(0), 0, 0, 640, 480);
+    }
+
+    @Test
+    public void planGrid_coversEveryPixelWithFullSizeTiles() {
+        int[][] sizes = {{2048, 1536}, {2049, 1537}, {1025, 4000}, {4000, 1023}, {3001, 2999}};
+        for (int[] size : sizes) {
+            TileDecoder.TileConfig config = new TileDecoder.TileConfig(1024, 192);
+            assertCoversFrame(size[0], size[1], config, TileDecoder.planGrid(size[0], size[1], config));
+        }
+        // 步长为奇数时内部块起点向下对齐，仍然覆盖
+        TileDecoder.TileConfig odd = new TileDecoder.TileConfig(301, 0);
+        assertCoversFrame(1000, 700, odd, TileDecoder.planGrid(1000, 700, odd));
+    }
+
+    @Test
+    public void planGrid_oddWidthEdgeTileEndsAtFrameEdge() {
+        List<LumaRegion> regions = TileDecoder.planGrid(2049, 1024, new TileDecoder.TileConfig(1024, 192));
+        LumaRegion last = regions.get(regions.size() - 1);
+        assertEquals(2049, last.x + last.width);
+        assertEquals(1024, last.width);
+        for (int i = 0; i < regions.size() - 1; i++) {
+            assertEquals(regions.get(i).toString(), 0, regions.get(i).x & 1);
+        }
+    }
+
+    @Test
+    public void planGrid_neighboursOverlapByConfiguredAmount() {
+        List<LumaRegion> regions = TileDecoder.planGrid(2048, 1024, new TileDecoder.TileConfig(1024, 192));
+        assertEquals(3, regions.size());
+        assertRegion(regions.get(0), 0, 0, 1024, 1024);
+        assertRegion(regions.get(1), 832, 0, 1024, 1024);
+        assertRegion(regions.get(2), 1024, 0, 1024, 1024);
+    }
+
+    @Test
+    public void planRois_padsClampsAndDropsTinyRegions() {
+        List<RectF> rois = Arrays.asList(
+                rect(100.4f, 50.6f, 200.2f, 120.0f),
+                rect(-20, -30, 40, 30),
+                rect(600, 440, 700, 520),
+                rect(300, 300, 300, 300),
+                rect(639, 100, 700, 200));
+        List<LumaRegion> regions = TileDecoder.planRois(rois, 640, 480, 10);
+
+        assertEquals(4, regions.size());
+        // 左上角向外取整后扩展，对齐到偶数
+        assertRegion(regions.get(0), 90, 40, 121, 90);
+        // 超出左上边界时裁剪到 0
+        assertRegion(regions.get(1), 0, 0, 50, 40);
+        // 超出右下边界时裁剪到图像尺寸
+        assertRegion(regions.get(2), 590, 430, 50, 50);
+        // 空 ROI 扩展边距后保留
+        assertRegion(regions.get(3), 290, 290, 20, 20);
+        // 贴着右边缘的 ROI 裁剪后宽度不足 16，丢弃
+    }
+
+    @Test
+    public void decode_mergesBarcodeSeenByOverlappingTiles() {
+        int width = 2048;
+        int height = 1024;
+        byte[] frame = new byte[width * height];
+        // 条码位于第一、二块的重叠区域
+        RectF barcode = rect(900, 400, 1000, 460);
+        List<LumaRegion> decoded = new ArrayList<>();
+
+        TileDecoder tiles = new TileDecoder(null);
+        List<BarcodeResult> results = tiles.decode(frame, width, height,
+                TileDecoder.planGrid(width, height, new TileDecoder.TileConfig(1024, 192)),
+                (luma, region) -> {
+                    decoded.add(region);
+                    boolean inside = barcode.left >= region.x && barcode.right <= region.x + region.width
+                            && barcode.top >= region.y && barcode.bottom <= region.y + region.height;
+                    return inside
+                            ? Collections.singletonList(result("shelf-1", barcode))
+                            : Collections.emptyList();
+                });
+
+        assertEquals(3, decoded.size());
+        assertEquals(1, results.size());
+        assertEquals("shelf-1", results.get(0).getContent());
+    }
+
+    @Test
+    public void decodePacked_passesEachRegionItsOwnData() {
+        LumaRegion first = new LumaRegion(0, 0, 4, 2);
+        LumaRegion second = new LumaRegion(10, 10, 2, 3);
+        byte[] packed = new byte[first.size() + second.size()];
+        Arrays.fill(packed, 0, first.size(), (byte) 1);
+        Arrays.fill(packed, first.size(), packed.length, (byte) 2);
+
+        List<String> seen = new ArrayList<>();
+        new TileDecoder(null).decodePacked(packed, Arrays.asList(first, second), (luma, region) -> {
+            for (int i = 0; i < region.size(); i++) {
+                assertEquals(region.toString(), region == first ? 1 : 2, luma[i]);
+            }
+            seen.add(region.toString());
+            return Collections.emptyList();
+        });
+        assertEquals(Arrays.asList(first.toString(), second.toString()), seen);
+    }
+
+    private static void assertCoversFrame(int width, int height, TileDecoder.TileConfig config,
+                                          List<LumaRegion> regions) {
+        boolean[] covered = new boolean[width * height];
+        for (LumaRegion region : regions) {
+            String label = width + "x" + height + " " + region;
+            assertTrue(label, region.x >= 0 && region.y >= 0);
+            assertTrue(label, region.x + region.width <= width && region.y + region.height <= height);
+            assertEquals(label, Math.min(config.tileSize, width), region.width);
+            assertEquals(label, Math.min(config.tileSize, height), region.height);
+            for (int y = region.y; y < region.y + region.height; y++) {
+                Arrays.fill(covered, y * width + region.x, y * width + region.x + region.width, true);
+            }
+        }
+        for (int i = 0; i < covered.length; i++) {
+            if (!covered[i]) {
+                throw new AssertionError(width + "x" + height + " misses pixel "
+                        + (i % width) + "," + (i / width));
+            }
+        }
+    }
+
+    private static void assertRegion(LumaRegion region, int x, int y, int width, int height) {
+        assertEquals(region.toString(), x, region.x);
+        assertEquals(region.toString(), y, region.y);
+        assertEquals(region.toString(), width, region.width);
+        assertEquals(region.toString(), height, region.height);
+    }
+
+    static BarcodeResult result(String content, RectF box) {
+        return new BarcodeResult(content, "EAN_13", null, box, null);
+    }
+
+    /**
+     * 直接写字段：单元测试中 android.graphics 的构造函数不执行
+     */
+    static RectF rect(float left, float top, float right, float bottom) {
+        RectF rect = new RectF();
+        rect.left = left;
+        rect.top = top;
+        rect.right = right;
+        rect.bottom = bottom;
+        return rect;
+    }
+}
@@ -0,0 +1,99 @@
+package com.urovo.scanner.scanner.ar.scanarcore.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * LatencyHistogram 测试
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketIndex_isMonotonicAndCoversRange() {
+        int previous = -1;
+        for (long value = 0; value < 1 << 20; value++) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(index >= previous);
+            assertTrue(LatencyHistogram.bucketLowerBound(index) <= value);
+            previous = index;
+        }
+        LatencyHistogram.bucketIndex(LatencyHistogram.MAX_VALUE);
+    }
+
+    @Test
+    public void percentiles_matchExactValuesWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        Random random = new Random(3);
+        long[] values = new long[100_000];
+        for (int i = 0; i < values.length; i++) {
+            // 对数均匀分布：1us 到 1s
+            values[i] = (long) Math.pow(10, 3 + random.nextDouble() * 6);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double percentile : new double[]{50, 90, 99, 99.9}) {
+            long exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+            long estimate = histogram.getValueAtPercentile(percentile);
+            assertEquals("p" + percentile, exact, estimate, exact * 0.04);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(values.length, snapshot.count);
+        assertEquals(values[0], snapshot.min);
+        assertEquals(values[values.length - 1], snapshot.max);
+    }
+
+    @Test
+    public void concurrentRecording_countsEverySample() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final long offset = t * 1000L;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    histogram.record(offset + i);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(200_000, snapshot.count);
+        assertEquals(0, snapshot.min);
+        assertEquals(3000 + 49_999, snapshot.max);
+    }
+
+    @Test
+    public void negativeValues_areIgnoredAndResetClears() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        histogram.record(-5);
+        histogram.record(100);
+        assertEquals(1, histogram.getCount());
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertEquals(0, histogram.snapshot().min);
+    }
+
+    @Test
+    public void pipelineMetrics_rejectsImplausibleFrameAges() {
+        PipelineMetrics metrics = new PipelineMetrics();
+        metrics.recordFrameAge(PipelineStage.FRAME_TO_RESULT, 1_000, 2_000_000);
+        metrics.recordFrameAge(PipelineStage.FRAME_TO_RESULT, 5_000_000, 1_000);
+        metrics.recordFrameAge(PipelineStage.FRAME_TO_RESULT, 0, 1_000);
+
+        assertEquals(1, metrics.getSnapshot(PipelineStage.FRAME_TO_RESULT).count);
+        assertEquals(1, metrics.getRejectedFrameAges());
+        assertTrue(metrics.report().contains("FRAME_TO_RESULT"));
+    }
+}
@@ -0,0 +1,121 @@
+package com.urovo.scanner.scanner.ar.scanarcore.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * MetricsRegistry 测试
+ */
+public class MetricsRegistryTest {
+
+    @Test
+    public void counter_isSharedByNameAndCountsConcurrently() throws InterruptedException {
+        MetricsRegistry registry = new MetricsRegistry();
+        MetricsRegistry.Counter counter = registry.counter("frames");
+        assertSame(counter, registry.counter("frames"));
+
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    counter.inc();
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(40_000, counter.get());
+    }
+
+    @Test
+    public void offLevel_skipsRecordingAndDebugLogs() {
+        MetricsRegistry registry = new MetricsRegistry();
+        MetricsRegistry.Counter counter = registry.counter("frames");
+        MetricsRegistry.Timer timer = registry.timer("decode");
+        assertFalse(registry.isDebugLogEnabled());
+
+        registry.setLevel(MetricsRegistry.Level.OFF);
+        counter.inc();
+        timer.record(1000);
+
+        assertEquals(0, counter.get());
+        assertEquals(0, timer.getCount());
+        assertFalse(registry.isDebugLogEnabled());
+
+        registry.setLevel(MetricsRegistry.Level.DEBUG);
+        counter.inc();
+        assertEquals(1, counter.get());
+        assertTrue(registry.isDebugLogEnabled());
+    }
+
+    @Test
+    public void gauges_andReport() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.gauge("anchors").set(7);
+        registry.gauge("pending", () -> 3);
+        registry.counter("frames").add(5);
+        registry.timer("decode").record(2_000_000);
+
+        String report = registry.report();
+
+        assertTrue(report, report.contains("gauge anchors=7"));
+        assertTrue(report, report.contains("gauge pending=3"));
+        assertTrue(report, report.contains("counter frames=5"));
+        assertTrue(report, report.contains("timer decode{count=1"));
+
+        registry.reset();
+        assertEquals(0, registry.counter("frames").get());
+        assertEquals(7, registry.gauge("anchors").get());
+    }
+
+    @Test
+    public void pipelineMetrics_followRegistryLevel() {
+        MetricsRegistry registry = new MetricsRegistry();
+        PipelineMetrics metrics = new PipelineMetrics(registry);
+
+        registry.setLevel(MetricsRegistry.Level.OFF);
+        metrics.record(PipelineStage.DECODE, 1_000);
+        metrics.recordFrameAge(PipelineStage.FRAME_TO_RESULT, 1_000, 2_000_000);
+        assertFalse(metrics.isEnabled());
+        assertEquals(0, metrics.getSnapshot(PipelineStage.DECODE).count);
+        assertEquals(0, metrics.getSnapshot(PipelineStage.FRAME_TO_RESULT).count);
+
+        registry.setLevel(MetricsRegistry.Level.METRICS);
+        metrics.record(PipelineStage.DECODE, 1_000);
+        assertTrue(metrics.isEnabled());
+        assertEquals(1, metrics.getSnapshot(PipelineStage.DECODE).count);
+    }
+
+    @Test
+    public void dump_writesReportForBothRegistries() throws IOException {
+        File dir = Files.createTempDirectory("metrics").toFile();
+        File registryFile = new File(dir, "nested/registry.txt");
+        File pipelineFile = new File(dir, "pipeline.txt");
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("frames").add(3);
+        PipelineMetrics metrics = new PipelineMetrics(registry);
+        metrics.record(PipelineStage.DECODE, 2_000_000);
+
+        assertTrue(registry.dump(registryFile));
+        assertTrue(metrics.dump(pipelineFile));
+
+        assertEquals(registry.report(), new String(Files.readAllBytes(registryFile.toPath()), StandardCharsets.UTF_8));
+        assertEquals(metrics.report(), new String(Files.readAllBytes(pipelineFile.toPath()), StandardCharsets.UTF_8));
+        registryFile.delete();
+        registryFile.getParentFile().delete();
+        pipelineFile.delete();
+        dir.delete();
+    }
+}
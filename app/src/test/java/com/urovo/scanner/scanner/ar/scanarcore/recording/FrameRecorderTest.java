@@ -0,0 +1,137 @@
+package com.urovo.scanner.scanner.ar.scanarcore.recording;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * FrameRecorder / FrameRecordReader 测试
+ */
+public class FrameRecorderTest {
+
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("recording").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void recordedFrames_roundTripWithPoseAndCompression() throws IOException, InterruptedException {
+        FrameRecorder recorder = new FrameRecorder(new FrameRecorder.Config(4, 1 << 20, true));
+        recorder.start(directory);
+
+        byte[][] frames = new byte[10][];
+        for (int i = 0; i < frames.length; i++) {
+            boolean nv21 = i % 2 == 0;
+            frames[i] = frame(16, 8, nv21, i);
+            float[] pose = nv21 ? new float[]{i, 2, 3, 0, 0, 0, 1} : null;
+            while (!recorder.record(frames[i], 16, 8,
+                    nv21 ? FrameRecordFormat.FORMAT_NV21 : FrameRecordFormat.FORMAT_LUMA,
+                    90, 1000L * i, pose)) {
+                Thread.sleep(1);
+            }
+        }
+        recorder.stop();
+
+        FrameRecorder.Stats stats = recorder.getStats();
+        assertEquals(10, stats.framesWritten);
+        assertTrue(stats.toString(), stats.bytesWritten < stats.rawBytes + 10 * 80);
+
+        try (FrameRecordReader reader = new FrameRecordReader(directory)) {
+            assertEquals(10, reader.getFrameCount());
+            for (int i = 0; i < frames.length; i++) {
+                FrameRecordReader.Frame frame = reader.read(i);
+                assertEquals(i, frame.frameIndex);
+                assertEquals(16, frame.width);
+                assertEquals(90, frame.rotation);
+                assertEquals(1000L * i, frame.timestampNs);
+                assertArrayEquals(frames[i], frame.data);
+                if (i % 2 == 0) {
+                    assertEquals(FrameRecordFormat.FORMAT_NV21, frame.format);
+                    assertEquals(i, frame.pose[0], 0);
+                    assertEquals(1, frame.pose[6], 0);
+                } else {
+                    assertEquals(FrameRecordFormat.FORMAT_LUMA, frame.format);
+                    assertNull(frame.pose);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void segmentsRollAndMissingIndexIsRebuilt() throws IOException, InterruptedException {
+        // 每帧约 80+128+64 字节，分段上限 600 字节时每个分段放两帧
+        FrameRecorder recorder = new FrameRecorder(new FrameRecorder.Config(2, 600, false));
+        recorder.start(directory);
+        for (int i = 0; i < 5; i++) {
+            while (!recorder.record(frame(16, 8, true, i), 16, 8, FrameRecordFormat.FORMAT_NV21, 0, i, null)) {
+                Thread.sleep(1);
+            }
+        }
+        recorder.stop();
+        assertEquals(3, recorder.getStats().segments);
+
+        assertTrue(new File(directory, FrameRecordFormat.INDEX_FILE_NAME).delete());
+        try (FrameRecordReader reader = new FrameRecordReader(directory)) {
+            assertEquals(5, reader.getFrameCount());
+            assertEquals(2, reader.getIndexEntry(4).segment);
+            assertArrayEquals(frame(16, 8, true, 4), reader.read(4).data);
+        }
+    }
+
+    @Test
+    public void fullRing_dropsInsteadOfBlocking() throws IOException {
+        FrameRecorder recorder = new FrameRecorder(new FrameRecorder.Config(1, 1 << 20, false));
+        assertFalse(recorder.record(frame(16, 8, false, 0), 16, 8, FrameRecordFormat.FORMAT_LUMA, 0, 0, null));
+
+        recorder.start(directory);
+        int accepted = 0;
+        for (int i = 0; i < 200; i++) {
+            if (recorder.record(frame(64, 64, false, i), 64, 64, FrameRecordFormat.FORMAT_LUMA, 0, i, null)) {
+                accepted++;
+            }
+        }
+        recorder.stop();
+
+        FrameRecorder.Stats stats = recorder.getStats();
+        assertEquals(accepted, stats.framesWritten);
+        assertEquals(200 - accepted, stats.framesDropped);
+        assertFalse(recorder.isRecording());
+    }
+
+    /**
+     * 生成测试帧：亮度为成片的渐变（可压缩），色度为噪声
+     */
+    private static byte[] frame(int width, int height, boolean nv21, int seed) {
+        byte[] data = new byte[nv21 ? width * height * 3 / 2 : width * height];
+        for (int i = 0; i < width * height; i++) {
+            data[i] = (byte) (seed + i / 16);
+        }
+        for (int i = width * height; i < data.length; i++) {
+            data[i] = (byte) (i * 31 + seed);
+        }
+        return data;
+    }
+}
@@ -0,0 +1,214 @@
+package com.urovo.scanner.scanner.ar.scanarcore.renderer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.urovo.scanner.scanner.ar.scanarcore.anchor.AnchorRegistry;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.FloatBuffer;
+
+/**
+ * 渲染循环纯 Java 部分的测试：视图投影矩阵、点批次、锚点收集，以及逐帧不分配对象
+ */
+public class RenderLoopAllocationTest {
+
+    private static final float[] GREEN = {0.0f, 1.0f, 0.0f, 1.0f};
+    private static final float[] YELLOW = {1.0f, 1.0f, 0.0f, 0.8f};
+
+    // 整个测量区间允许的分配量：计量接口本身可能有少量开销，
+    // 每帧哪怕只分配一个小对象，累计也会远超这个值
+    private static final long ALLOCATION_BUDGET_BYTES = 4096;
+    private static final int FRAMES = 20_000;
+
+    @Test
+    public void viewProjection_matchesReferenceProduct() {
+        float[] view = new float[16];
+        float[] projection = new float[16];
+        for (int i = 0; i < 16; i++) {
+            view[i] = i + 1;
+            projection[i] = 16 - i;
+        }
+
+        ViewProjection viewProjection = new ViewProjection();
+        viewProjection.update(view, projection);
+
+        // 列主序：element(row, column) = m[column * 4 + row]
+        float[] expected = new float[16];
+        for (int row = 0; row < 4; row++) {
+            for (int column = 0; column < 4; column++) {
+                float sum = 0;
+                for (int k = 0; k < 4; k++) {
+                    sum += projection[k * 4 + row] * view[column * 4 + k];
+                }
+                expected[column * 4 + row] = sum;
+            }
+        }
+        assertArrayEquals(expected, viewProjection.getMatrix(), 0.0f);
+    }
+
+    @Test
+    public void pointBatch_growsAndKeepsInterleavedData() {
+        PointBatch batch = new PointBatch(2);
+        for (int i = 0; i < 5; i++) {
+            batch.add(i, i + 0.5f, -i, i % 2 == 0 ? GREEN : YELLOW);
+        }
+        assertEquals(5, batch.size());
+        assertTrue(batch.capacity() >= 5);
+        assertEquals(5 * PointBatch.STRIDE_BYTES, batch.sizeInBytes());
+
+        FloatBuffer data = batch.data();
+        assertEquals(0, data.position());
+        assertEquals(5 * PointBatch.FLOATS_PER_VERTEX, data.limit());
+        int base = 3 * PointBatch.FLOATS_PER_VERTEX;
+        assertEquals(3.0f, data.get(base), 0.0f);
+        assertEquals(3.5f, data.get(base + 1), 0.0f);
+        assertEquals(-3.0f, data.get(base + 2), 0.0f);
+        assertEquals(0.8f, data.get(base + 6), 0.0f);
+
+        batch.clear();
+        assertEquals(0, batch.size());
+        assertEquals(0, batch.data().limit());
+    }
+
+    @Test
+    public void collect_colorsByStateAndMovesOnlyTrackingAnchors() {
+        AnchorRegistry<FakeAnchor> anchors = new AnchorRegistry<>(0.1f);
+        FakeAnchor tracking = new FakeAnchor(0.0f, 0.0f, -1.0f, true);
+        FakeAnchor stopped = new FakeAnchor(1.0f, 0.0f, -1.0f, false);
+        FakeAnchor unreadable = new FakeAnchor(2.0f, 0.0f, -1.0f, true);
+        anchors.add("tracking", tracking, tracking.x, tracking.y, tracking.z);
+        anchors.add("stopped", stopped, stopped.x, stopped.y, stopped.z);
+        anchors.add("unreadable", unreadable, unreadable.x, unreadable.y, unreadable.z);
+
+        // ARCore 修正位姿：三个锚点都移动到新体素
+        tracking.x = 0.5f;
+        stopped.x = 1.5f;
+        unreadable.readable = false;
+
+        FakePoseSource poses = new FakePoseSource();
+        AnchorPointCollector<FakeAnchor> collector = new AnchorPointCollector<>(poses, GREEN, YELLOW);
+        PointBatch batch = new PointBatch(4);
+        assertEquals(2, collector.collect(anchors, batch));
+        assertEquals(2, batch.size());
+
+        FloatBuffer data = batch.data();
+        int second = PointBatch.FLOATS_PER_VERTEX;
+        assertEquals(0.5f, data.get(0), 0.0f);
+        assertEquals(GREEN[3], data.get(6), 0.0f);
+        assertEquals(1.5f, data.get(second), 0.0f);
+        assertEquals(YELLOW[3], data.get(second + 6), 0.0f);
+
+        // 只有跟踪中的锚点更新登记位置，读取失败的锚点保留
+        assertEquals(3, anchors.size());
+        assertEquals(0.5f, anchors.get("tracking").getX(), 0.0f);
+        assertEquals(1.0f, anchors.get("stopped").getX(), 0.0f);
+        assertTrue(anchors.isOccupied(0.5f, 0.0f, -1.0f, 0.01f));
+        assertFalse(anchors.isOccupied(1.5f, 0.0f, -1.0f, 0.01f));
+    }
+
+    @Test
+    public void steadyStateFrames_doNotAllocate() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue("thread allocation counter unavailable",
+                bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue("thread allocation counter unavailable",
+                threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        AnchorRegistry<FakeAnchor> anchors = new AnchorRegistry<>(0.1f);
+        for (int i = 0; i < 500; i++) {
+            FakeAnchor anchor = new FakeAnchor((i % 20) * 0.2f, (i / 20) * 0.2f, -1.05f, i % 3 != 0);
+            anchors.add("code-" + i, anchor, anchor.x, anchor.y, anchor.z);
+        }
+        FakePoseSource poses = new FakePoseSource();
+        AnchorPointCollector<FakeAnchor> collector = new AnchorPointCollector<>(poses, GREEN, YELLOW);
+        PointBatch batch = new PointBatch(16);
+        ViewProjection viewProjection = new ViewProjection();
+        float[] view = new float[16];
+        float[] projection = new float[16];
+
+        // 预热：批次扩容到稳定容量，JIT 编译完成
+        for (int frame = 0; frame < FRAMES; frame++) {
+            renderFrame(frame, anchors, poses, collector, batch, viewProjection, view, projection);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        float checksum = 0;
+        for (int frame = 0; frame < FRAMES; frame++) {
+            checksum += renderFrame(frame, anchors, poses, collector, batch, viewProjection, view, projection);
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        assertEquals(500, batch.size());
+        assertTrue("checksum " + checksum, checksum != 0);
+        assertTrue("allocated " + allocated + " bytes over " + FRAMES + " frames",
+                allocated < ALLOCATION_BUDGET_BYTES);
+    }
+
+    /**
+     * BarcodeARActivity.onDrawFrame 的逐帧步骤（去掉 GL 和 ARCore 调用）：
+     * 更新视图投影矩阵，再用 renderAnchors 使用的同一个收集器填充点批次
+     */
+    private static float renderFrame(int frame, AnchorRegistry<FakeAnchor> anchors, FakePoseSource poses,
+                                     AnchorPointCollector<FakeAnchor> collector, PointBatch batch,
+                                     ViewProjection viewProjection, float[] view, float[] projection) {
+        view[0] = view[5] = view[10] = view[15] = 1.0f;
+        view[12] = frame * 1e-4f;
+        projection[0] = projection[5] = 1.5f;
+        projection[10] = projection[11] = -1.0f;
+        viewProjection.update(view, projection);
+
+        // 模拟 ARCore 的小幅位姿修正，不跨体素
+        poses.jitterZ = (frame & 1) == 0 ? 1e-4f : -1e-4f;
+        batch.clear();
+        collector.collect(anchors, batch);
+        FloatBuffer data = batch.data();
+        return data.get(data.limit() - 1) + viewProjection.getMatrix()[12];
+    }
+
+    /**
+     * 代替 ARCore Anchor 的可变位姿
+     */
+    private static final class FakeAnchor {
+        float x;
+        float y;
+        float z;
+        boolean tracking;
+        boolean readable = true;
+
+        FakeAnchor(float x, float y, float z, boolean tracking) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.tracking = tracking;
+        }
+    }
+
+    private static final class FakePoseSource implements AnchorPointCollector.PoseSource<FakeAnchor> {
+        float jitterZ;
+
+        @Override
+        public boolean isTracking(FakeAnchor anchor) {
+            return anchor.tracking;
+        }
+
+        @Override
+        public boolean readPosition(FakeAnchor anchor, float[] position) {
+            if (!anchor.readable) {
+                return false;
+            }
+            position[0] = anchor.x;
+            position[1] = anchor.y;
+            position[2] = anchor.z + jitterZ;
+            return true;
+        }
+    }
+}
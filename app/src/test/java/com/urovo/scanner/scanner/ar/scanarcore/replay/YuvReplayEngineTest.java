@@ -0,0 +1,225 @@
+package com.urovo.scanner.scanner.ar.scanarcore.replay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.Bitmap;
+import android.media.Image;
+
+import com.urovo.scanner.scanner.ar.scanarcore.decoder.BarcodeDecoder;
+import com.urovo.scanner.scanner.ar.scanarcore.decoder.BarcodeResult;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * YuvDumpIndex / YuvReplayEngine 测试
+ */
+public class YuvReplayEngineTest {
+
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("replay").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void index_parsesNamesAndSortsByTimestamp() throws IOException {
+        write("image_decode_20240102_030405_200_8x4.yuv", 48, 0);
+        write("20240102_030405_100_8x4.yuv", 32, 0);
+        write("a_20240102_030405_300_8x4.yuv", 10, 0);
+        write("notes.txt", 48, 0);
+
+        List<YuvDumpIndex.Entry> entries = YuvDumpIndex.scan(directory);
+
+        assertEquals(2, entries.size());
+        assertEquals("", entries.get(0).prefix);
+        assertFalse(entries.get(0).nv21);
+        assertEquals(32, entries.get(0).dataLength());
+        assertEquals("image_decode", entries.get(1).prefix);
+        assertTrue(entries.get(1).nv21);
+        assertEquals(8, entries.get(1).width);
+        assertEquals(4, entries.get(1).height);
+        assertEquals(100, entries.get(1).timestampMs - entries.get(0).timestampMs);
+    }
+
+    @Test
+    public void replay_routesFramesAndReportsResults() throws InterruptedException, IOException {
+        write("f_20240102_030405_000_8x4.yuv", 48, 1);
+        write("f_20240102_030405_033_8x4.yuv", 48, 0);
+        write("f_20240102_030405_066_8x4.yuv", 32, 2);
+        FakeDecoder decoder = new FakeDecoder();
+
+        YuvReplayEngine.Config config = new YuvReplayEngine.Config(YuvReplayEngine.Speed.MAX, 2);
+        config.loops = 2;
+        ReplayReport report = new YuvReplayEngine(decoder, config).run(directory);
+        decoder.release();
+
+        assertEquals(6, report.frames);
+        assertEquals(4, report.decodedFrames);
+        assertEquals(2, report.emptyFrames);
+        assertEquals(6, report.results);
+        assertEquals(4, decoder.yuvFrames);
+        assertEquals(2, decoder.lumaFrames);
+        assertEquals(6, report.latency.count);
+        assertEquals("code-1", report.frameResults.get(0).contents.get(0));
+        assertEquals(ReplayReport.Status.EMPTY, report.frameResults.get(1).status);
+        assertEquals(1, report.frameResults.get(3).loop);
+        assertTrue(report.getThroughputFps() > 0);
+
+        File csv = new File(directory, "report.csv");
+        report.writeCsv(csv);
+        List<String> lines = Files.readAllLines(csv.toPath());
+        assertEquals(7, lines.size());
+        assertTrue(lines.get(1), lines.get(1).startsWith("f_20240102_030405_000_8x4.yuv,0,8,4,DECODED,"));
+    }
+
+    @Test
+    public void recordedSpeed_followsTimestampGaps() throws InterruptedException, IOException {
+        write("f_20240102_030405_000_8x4.yuv", 48, 0);
+        write("f_20240102_030405_200_8x4.yuv", 48, 0);
+        FakeDecoder decoder = new FakeDecoder();
+
+        YuvReplayEngine.Config config = new YuvReplayEngine.Config(YuvReplayEngine.Speed.RECORDED, 1);
+        config.speedFactor = 2.0f;
+        ReplayReport report = new YuvReplayEngine(decoder, config).run(directory);
+        decoder.release();
+
+        assertEquals(2, report.frames);
+        assertTrue(report.wallTimeNs >= 100_000_000L);
+    }
+
+    @Test
+    public void droppedFrames_areCountedSeparately() throws InterruptedException, IOException {
+        write("f_20240102_030405_000_8x4.yuv", 48, 0);
+        write("f_20240102_030405_033_8x4.yuv", 48, 0);
+        FakeDecoder decoder = new FakeDecoder();
+        decoder.dropAll = true;
+
+        ReplayReport report = new YuvReplayEngine(decoder).run(directory);
+        decoder.release();
+
+        assertEquals(2, report.droppedFrames);
+        assertEquals(0, report.latency.count);
+        assertEquals(0, report.getThroughputFps(), 0);
+    }
+
+    /**
+     * 写入一帧：首字节为解码器应返回的条码数量
+     */
+    private void write(String name, int length, int barcodes) throws IOException {
+        byte[] data = new byte[length];
+        if (length > 0) {
+            data[0] = (byte) barcodes;
+        }
+        try (FileOutputStream out = new FileOutputStream(new File(directory, name))) {
+            out.write(data);
+        }
+    }
+
+    /**
+     * 按首字节返回对应数量结果的异步解码器
+     */
+    private static class FakeDecoder implements BarcodeDecoder {
+        private final ExecutorService executor = Executors.newSingleThreadExecutor();
+        volatile boolean dropAll = false;
+        volatile int yuvFrames = 0;
+        volatile int lumaFrames = 0;
+
+        @Override
+        public void decodeYuv(byte[] yuvData, int width, int height, int rotationDegrees, long frameTimestampNs,
+                              DecodeCallback callback) {
+            yuvFrames++;
+            submit(yuvData, callback);
+        }
+
+        @Override
+        public void decodeLuma(byte[] lumaData, int width, int height, int rotationDegrees, long frameTimestampNs,
+                               DecodeCallback callback) {
+            lumaFrames++;
+            submit(lumaData, callback);
+        }
+
+        private void submit(byte[] data, DecodeCallback callback) {
+            if (dropAll) {
+                callback.onDropped();
+                return;
+            }
+            int count = data[0];
+            executor.execute(() -> {
+                BarcodeResult[] results = new BarcodeResult[count];
+                for (int i = 0; i < count; i++) {
+                    results[i] = new BarcodeResult("code-" + (i + 1), "QR_CODE", null, null, null);
+                }
+                callback.onSuccess(Arrays.asList(results));
+            });
+        }
+
+        @Override
+        public void setEnhanceConfig(EnhanceConfig config) {
+        }
+
+        @Override
+        public void setFrameDropPolicy(FrameDropPolicy policy, int queueCapacity) {
+        }
+
+        @Override
+        public FrameStats getFrameStats() {
+            return new FrameStats(FrameDropPolicy.DROP_NEWEST, 0, 0, 0);
+        }
+
+        @Override
+        public void decode(Bitmap bitmap, int rotationDegrees, DecodeCallback callback) {
+            callback.onSuccess(Collections.emptyList());
+        }
+
+        @Override
+        public void decode(Bitmap bitmap, int rotationDegrees, boolean saveDebugFile, DecodeCallback callback) {
+            callback.onSuccess(Collections.emptyList());
+        }
+
+        @Override
+        public void decode(Image image, int rotationDegrees, DecodeCallback callback) {
+            callback.onSuccess(Collections.emptyList());
+        }
+
+        @Override
+        public void decode(byte[] jpegData, int rotationDegrees, DecodeCallback callback) {
+            callback.onSuccess(Collections.emptyList());
+        }
+
+        @Override
+        public void decode(byte[] grayData, int width, int height, int rotationDegrees, DecodeCallback callback) {
+            callback.onSuccess(Collections.emptyList());
+        }
+
+        @Override
+        public void release() {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.urovo.scanner.scanner.ar.scanarcore.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * FileWriteService 测试
+ */
+public class FileWriteServiceTest {
+
+    /**
+     * 记录写入内容的目标，可以阻塞写线程模拟存储变慢
+     */
+    private static class RecordingSink implements FileWriteService.Sink {
+        final List<byte[]> files = new ArrayList<>();
+        final List<Integer> batchSizes = new ArrayList<>();
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        final Set<Thread> writerThreads = Collections.synchronizedSet(new HashSet<>());
+        final AtomicInteger activeWriters = new AtomicInteger();
+        final AtomicInteger maxActiveWriters = new AtomicInteger();
+        volatile boolean blocking = false;
+
+        @Override
+        public int write(List<FileWriteService.WriteRequest> batch) {
+            writerThreads.add(Thread.currentThread());
+            int active = activeWriters.incrementAndGet();
+            maxActiveWriters.accumulateAndGet(active, Math::max);
+            started.countDown();
+            if (blocking) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            activeWriters.decrementAndGet();
+            synchronized (this) {
+                batchSizes.add(batch.size());
+                for (FileWriteService.WriteRequest request : batch) {
+                    files.add(request.data.clone());
+                }
+            }
+            return batch.size();
+        }
+    }
+
+    @Test
+    public void submit_copiesDataSoCallerCanReuseBuffer() {
+        RecordingSink sink = new RecordingSink();
+        FileWriteService service = new FileWriteService(sink, 4, 4);
+        byte[] buffer = {1, 2, 3, 4};
+
+        assertTrue(service.submit("a.yuv", "application/octet-stream", buffer, 3));
+        buffer[0] = 9;
+        assertTrue(service.shutdown(5000));
+
+        assertEquals(1, sink.files.size());
+        assertArrayEquals(new byte[]{1, 2, 3}, sink.files.get(0));
+        assertEquals(1, service.getStats().written);
+    }
+
+    @Test
+    public void fullQueue_dropsWithoutBlockingAndBatchesBacklog() throws InterruptedException {
+        RecordingSink sink = new RecordingSink();
+        sink.blocking = true;
+        FileWriteService service = new FileWriteService(sink, 3, 8);
+        byte[] data = new byte[16];
+
+        // 第一个文件占住写线程，之后3个排队，其余丢弃
+        assertTrue(service.submit("0", "x", data, data.length));
+        assertTrue(sink.started.await(5, TimeUnit.SECONDS));
+        int accepted = 0;
+        for (int i = 0; i < 10; i++) {
+            if (service.submit(Integer.toString(i + 1), "x", data, data.length)) {
+                accepted++;
+            }
+        }
+        assertEquals(3, accepted);
+        assertEquals(7, service.getStats().dropped);
+
+        sink.release.countDown();
+        assertTrue(service.shutdown(5000));
+
+        FileWriteService.Stats stats = service.getStats();
+        assertEquals(11, stats.submitted);
+        assertEquals(4, stats.written);
+        assertEquals(2, stats.batches);
+        assertEquals(3, (int) sink.batchSizes.get(1));
+        assertEquals(0, stats.pending);
+    }
+
+    @Test
+    public void submitAfterShutdown_restartsWriter() {
+        RecordingSink sink = new RecordingSink();
+        FileWriteService service = new FileWriteService(sink, 2, 2);
+        assertTrue(service.shutdown(1000));
+
+        assertTrue(service.submitYuv(new byte[6], 2, 2, "image_decode"));
+        assertTrue(service.shutdown(5000));
+        assertFalse(sink.files.isEmpty());
+        assertEquals(1, service.getStats().written);
+    }
+
+    @Test
+    public void submitAfterTimedOutShutdown_keepsSingleWriter() throws InterruptedException {
+        RecordingSink sink = new RecordingSink();
+        sink.blocking = true;
+        FileWriteService service = new FileWriteService(sink, 4, 1);
+        byte[] data = new byte[8];
+
+        // 写线程阻塞在存储上，shutdown 超时返回
+        assertTrue(service.submit("0", "x", data, data.length));
+        assertTrue(sink.started.await(5, TimeUnit.SECONDS));
+        assertFalse(service.shutdown(50));
+
+        // 旧线程仍在写：新的提交不能再启动第二个写线程，旧线程也不能因停止标记丢下这些文件
+        assertTrue(service.submit("1", "x", data, data.length));
+        assertTrue(service.submit("2", "x", data, data.length));
+        Thread.sleep(300);
+        sink.release.countDown();
+        assertTrue(service.shutdown(5000));
+
+        assertEquals(1, sink.maxActiveWriters.get());
+        assertEquals(1, sink.writerThreads.size());
+        assertEquals(3, service.getStats().written);
+        assertEquals(0, service.getStats().pending);
+
+        // 完全停止后再提交会启动新的写线程
+        assertTrue(service.submit("3", "x", data, data.length));
+        assertTrue(service.shutdown(5000));
+        assertEquals(4, service.getStats().written);
+        assertEquals(2, sink.writerThreads.size());
+    }
+}
@@ -0,0 +1,158 @@
+package com.urovo.scanner.scanner.ar.scanarcore.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.urovo.scanner.scanner.ar.scanarcore.util.SyntheticYuvPlanes.Layout;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * PicUtil 转换测试：快速路径、条带并行路径与逐像素参考实现逐字节一致
+ */
+public class PicUtilTest {
+
+    private static final int[][] SIZES = {
+            {640, 480},
+            {1920, 1080},
+            {322, 242},
+            {2, 2},
+    };
+
+    private static final int[] ROW_PADDINGS = {0, 64, 6};
+
+    @Test
+    public void planesToNV21_matchesReference_forAllLayouts() {
+        long seed = 1;
+        for (Layout layout : Layout.values()) {
+            for (int[] size : SIZES) {
+                for (int padding : ROW_PADDINGS) {
+                    for (boolean direct : new boolean[]{true, false}) {
+                        SyntheticYuvPlanes planes = SyntheticYuvPlanes.create(
+                                layout, size[0], size[1], padding, direct, seed++);
+                        assertConversion(planes, layout + " " + size[0] + "x" + size[1]
+                                + " padding=" + padding + " direct=" + direct);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void planesToNV21_repeatedFrames() {
+        for (int frame = 0; frame < 3; frame++) {
+            SyntheticYuvPlanes planes = SyntheticYuvPlanes.create(
+                    Layout.INTERLEAVED_VU, 640, 480, 64, true, 100 + frame);
+            assertConversion(planes, "frame " + frame);
+        }
+    }
+
+    @Test
+    public void planesToNV21_nearGreySeparatePlanesAfterUniformFrame() {
+        // 相机启动时色度全为128：独立U/V平面内容上与交错布局无法区分
+        SyntheticYuvPlanes grey = SyntheticYuvPlanes.create(
+                Layout.SEPARATE_SEMI_PLANAR, 640, 480, 0, true, 20).fillChroma((byte) 128);
+        assertConversion(grey, "uniform chroma");
+
+        // 之后接近灰色的帧：只有少数U样本不同，且不在等间隔抽查位置上
+        SyntheticYuvPlanes nearGrey = SyntheticYuvPlanes.create(
+                Layout.SEPARATE_SEMI_PLANAR, 640, 480, 0, true, 21).fillChroma((byte) 128);
+        for (int i = 1; i < nearGrey.u.capacity(); i += 4097) {
+            nearGrey.u.put(i, (byte) 120);
+        }
+        assertConversion(nearGrey, "near-grey chroma after uniform frame");
+    }
+
+    @Test
+    public void planesToNV21_layoutChangeAfterVerification() {
+        // 先转换交错布局，再换成同尺寸的独立U/V平面，输出仍须与参考实现一致
+        SyntheticYuvPlanes interleaved = SyntheticYuvPlanes.create(
+                Layout.INTERLEAVED_VU, 640, 480, 0, true, 7);
+        assertConversion(interleaved, "interleaved");
+
+        SyntheticYuvPlanes separate = SyntheticYuvPlanes.create(
+                Layout.SEPARATE_SEMI_PLANAR, 640, 480, 0, true, 8);
+        assertConversion(separate, "separate after interleaved");
+    }
+
+    @Test
+    public void planesToNV21_leavesPlanePositionsUntouched() {
+        SyntheticYuvPlanes planes = SyntheticYuvPlanes.create(
+                Layout.INTERLEAVED_VU, 320, 240, 32, true, 9);
+        planes.toNV21(new byte[320 * 240 * 3 / 2]);
+
+        assertTrue(planes.y.position() == 0 && planes.u.position() == 0 && planes.v.position() == 0);
+    }
+
+    @Test
+    public void planesToNV21_separateSemiPlanarTakesUSamplesFromUPlane() {
+        // 独立平面时V平面中紧跟V样本的字节不是U样本，输出的U位置只能来自U平面
+        SyntheticYuvPlanes separate = SyntheticYuvPlanes.create(
+                Layout.SEPARATE_SEMI_PLANAR, 64, 48, 16, true, 11).fillChroma((byte) 0x11);
+        for (int i = 1; i < separate.v.capacity(); i += 2) {
+            separate.v.put(i, (byte) 0x55);
+        }
+        byte[] out = new byte[64 * 48 * 3 / 2];
+        separate.toNV21(out);
+
+        for (int i = 64 * 48; i < out.length; i += 2) {
+            assertTrue("offset " + i, out[i] == 0x11 && out[i + 1] == 0x11);
+        }
+    }
+
+    @Test
+    public void argbToNV21_stripsMatchSerialConversion() {
+        // 覆盖调用线程转换（少于4个条带）、并行条带以及最后一个条带不满的情况
+        int[][] sizes = {{322, 242}, {640, 480}, {1280, 720}, {100, 258}};
+        Random random = new Random(12);
+        for (int[] size : sizes) {
+            int width = size[0];
+            int height = size[1];
+            int[] argb = new int[width * height];
+            for (int i = 0; i < argb.length; i++) {
+                argb[i] = random.nextInt() | 0xff000000;
+            }
+
+            byte[] actual = PicUtil.argbToNV21(
+                    (pixels, top, rows) -> System.arraycopy(argb, top * width, pixels, 0, rows * width),
+                    width, height);
+
+            assertArrayEquals(width + "x" + height, serialNV21(argb, width, height), actual);
+        }
+    }
+
+    /**
+     * 优化前的逐像素串行转换（BT.601，带范围钳制）
+     */
+    private static byte[] serialNV21(int[] argb, int width, int height) {
+        byte[] yuv = new byte[width * height * 3 / 2];
+        int yIndex = 0;
+        int uvIndex = width * height;
+        for (int j = 0; j < height; j++) {
+            for (int i = 0; i < width; i++) {
+                int color = argb[j * width + i];
+                int r = (color & 0xff0000) >> 16;
+                int g = (color & 0xff00) >> 8;
+                int b = color & 0xff;
+                int y = ((66 * r + 129 * g + 25 * b + 128) >> 8) + 16;
+                int u = ((-38 * r - 74 * g + 112 * b + 128) >> 8) + 128;
+                int v = ((112 * r - 94 * g - 18 * b + 128) >> 8) + 128;
+                yuv[yIndex++] = (byte) Math.max(0, Math.min(255, y));
+                if (j % 2 == 0 && i % 2 == 0) {
+                    yuv[uvIndex++] = (byte) Math.max(0, Math.min(255, v));
+                    yuv[uvIndex++] = (byte) Math.max(0, Math.min(255, u));
+                }
+            }
+        }
+        return yuv;
+    }
+
+    private static void assertConversion(SyntheticYuvPlanes planes, String message) {
+        byte[] expected = planes.referenceNV21();
+        byte[] actual = new byte[expected.length];
+        planes.toNV21(actual);
+        assertArrayEquals(message, expected, actual);
+    }
+}
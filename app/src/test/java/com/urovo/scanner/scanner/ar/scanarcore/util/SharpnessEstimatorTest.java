@@ -0,0 +1,143 @@
+package com.urovo.scanner.scanner.ar.scanarcore.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * SharpnessEstimator 测试
+ * <p>
+ * 参考实现按 ImageEnhancer.calculateSharpness 的步骤在JVM上重做一遍：
+ * 双线性缩小到1/4（每个4x4块中心2x2均值）、3x3 Laplacian（边界反射）、整图方差。
+ */
+public class SharpnessEstimatorTest {
+
+    @Test
+    public void flatImage_hasZeroSharpness() {
+        byte[] luma = new byte[640 * 480];
+        java.util.Arrays.fill(luma, (byte) 128);
+
+        assertEquals(0, SharpnessEstimator.estimate(luma, 640, 480), 1e-9);
+    }
+
+    @Test
+    public void tooSmallImage_hasZeroSharpness() {
+        assertEquals(0, SharpnessEstimator.estimate(new byte[8 * 8], 8, 8), 1e-9);
+        assertEquals(0, SharpnessEstimator.estimate(null, 640, 480), 1e-9);
+        assertEquals(0, SharpnessEstimator.estimate(new byte[10], 640, 480), 1e-9);
+    }
+
+    @Test
+    public void denseGrid_matchesOpenCvStyleReference() {
+        byte[] luma = texturedImage(640, 480, 3);
+
+        double reference = referenceSharpness(luma, 640, 480);
+        double estimate = SharpnessEstimator.estimate(luma, 640, 480, Integer.MAX_VALUE);
+
+        // 只有边界像素的处理不同
+        assertEquals(reference, estimate, reference * 0.05);
+    }
+
+    @Test
+    public void sparseGrid_staysCloseToReference() {
+        byte[] luma = texturedImage(3840, 2160, 3);
+
+        double reference = referenceSharpness(luma, 3840, 2160);
+        double estimate = SharpnessEstimator.estimate(luma, 3840, 2160);
+
+        assertEquals(reference, estimate, reference * 0.15);
+    }
+
+    @Test
+    public void blurredImage_scoresLowerThanSharpImage() {
+        byte[] sharp = texturedImage(1920, 1080, 1);
+        byte[] blurred = boxBlur(sharp, 1920, 1080, 4);
+
+        double sharpScore = SharpnessEstimator.estimate(sharp, 1920, 1080);
+        double blurredScore = SharpnessEstimator.estimate(blurred, 1920, 1080);
+
+        assertTrue("sharp=" + sharpScore + " blurred=" + blurredScore, sharpScore > blurredScore * 4);
+    }
+
+    @Test
+    public void isSharp_usesThreshold() {
+        byte[] sharp = texturedImage(1280, 720, 1);
+        double score = SharpnessEstimator.estimate(sharp, 1280, 720);
+
+        assertTrue(SharpnessEstimator.isSharp(sharp, 1280, 720, score - 1));
+        assertTrue(!SharpnessEstimator.isSharp(sharp, 1280, 720, score + 1));
+    }
+
+    /**
+     * 类似条码的纹理：条纹块 + 噪声
+     */
+    private static byte[] texturedImage(int width, int height, int barWidth) {
+        Random random = new Random(7);
+        byte[] luma = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int bar = ((x / (barWidth * 8)) + (y / 64)) % 2 == 0 ? 40 : 210;
+                luma[y * width + x] = (byte) Math.max(0, Math.min(255, bar + random.nextInt(31) - 15));
+            }
+        }
+        return luma;
+    }
+
+    private static byte[] boxBlur(byte[] src, int width, int height, int radius) {
+        byte[] dst = new byte[src.length];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int sum = 0;
+                int count = 0;
+                for (int dy = -radius; dy <= radius; dy++) {
+                    int yy = Math.max(0, Math.min(height - 1, y + dy));
+                    for (int dx = -radius; dx <= radius; dx++) {
+                        int xx = Math.max(0, Math.min(width - 1, x + dx));
+                        sum += src[yy * width + xx] & 0xff;
+                        count++;
+                    }
+                }
+                dst[y * width + x] = (byte) (sum / count);
+            }
+        }
+        return dst;
+    }
+
+    private static double referenceSharpness(byte[] luma, int width, int height) {
+        int sw = width / 4;
+        int sh = height / 4;
+        double[] small = new double[sw * sh];
+        for (int y = 0; y < sh; y++) {
+            for (int x = 0; x < sw; x++) {
+                int i = (4 * y + 1) * width + 4 * x + 1;
+                small[y * sw + x] = ((luma[i] & 0xff) + (luma[i + 1] & 0xff)
+                        + (luma[i + width] & 0xff) + (luma[i + width + 1] & 0xff)) / 4.0;
+            }
+        }
+
+        double sum = 0;
+        double sumSquares = 0;
+        for (int y = 0; y < sh; y++) {
+            for (int x = 0; x < sw; x++) {
+                double lap = small[reflect(y - 1, sh) * sw + x] + small[reflect(y + 1, sh) * sw + x]
+                        + small[y * sw + reflect(x - 1, sw)] + small[y * sw + reflect(x + 1, sw)]
+                        - 4 * small[y * sw + x];
+                sum += lap;
+                sumSquares += lap * lap;
+            }
+        }
+        double n = (double) sw * sh;
+        double mean = sum / n;
+        return sumSquares / n - mean * mean;
+    }
+
+    private static int reflect(int i, int n) {
+        if (i < 0) {
+            return -i;
+        }
+        return i >= n ? 2 * n - i - 2 : i;
+    }
+}
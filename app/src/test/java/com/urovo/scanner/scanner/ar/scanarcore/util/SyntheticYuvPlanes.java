@@ -0,0 +1,143 @@
+package com.urovo.scanner.scanner.ar.scanarcore.util;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * 合成的 YUV_420_888 平面，模拟相机输出的几种常见内存布局
+ * <p>
+ * 供单元测试和基准测试使用，平面内容为固定种子的随机数据。
+ */
+public class SyntheticYuvPlanes {
+
+    /**
+     * 色度平面内存布局
+     */
+    public enum Layout {
+        /** V/U 平面是同一块 VUVU 内存错开一个字节（NV21半平面，最常见） */
+        INTERLEAVED_VU,
+        /** pixelStride 为 2，但 U/V 是两块独立内存 */
+        SEPARATE_SEMI_PLANAR,
+        /** pixelStride 为 1 的平面布局（I420） */
+        PLANAR
+    }
+
+    public final int width;
+    public final int height;
+    public final int yRowStride;
+    public final int uvRowStride;
+    public final int uvPixelStride;
+    public final ByteBuffer y;
+    public final ByteBuffer u;
+    public final ByteBuffer v;
+
+    private SyntheticYuvPlanes(int width, int height, int yRowStride, int uvRowStride, int uvPixelStride,
+                               ByteBuffer y, ByteBuffer u, ByteBuffer v) {
+        this.width = width;
+        this.height = height;
+        this.yRowStride = yRowStride;
+        this.uvRowStride = uvRowStride;
+        this.uvPixelStride = uvPixelStride;
+        this.y = y;
+        this.u = u;
+        this.v = v;
+    }
+
+    /**
+     * 创建合成平面
+     *
+     * @param rowPadding 每行末尾的填充字节数（最后一行不含填充，与相机缓冲区一致）
+     * @param direct     是否使用直接缓冲区（相机 Image 平面是直接缓冲区）
+     */
+    public static SyntheticYuvPlanes create(Layout layout, int width, int height, int rowPadding,
+                                            boolean direct, long seed) {
+        Random random = new Random(seed);
+        int yRowStride = width + rowPadding;
+        ByteBuffer y = filled(yRowStride * (height - 1) + width, direct, random);
+
+        int uvWidth = width / 2;
+        int uvHeight = height / 2;
+        switch (layout) {
+            case INTERLEAVED_VU: {
+                int uvRowStride = width + rowPadding;
+                int chromaSize = uvRowStride * (uvHeight - 1) + width;
+                ByteBuffer chroma = filled(chromaSize, direct, random);
+                ByteBuffer v = slice(chroma, 0, chromaSize - 1);
+                ByteBuffer u = slice(chroma, 1, chromaSize);
+                return new SyntheticYuvPlanes(width, height, yRowStride, uvRowStride, 2, y, u, v);
+            }
+            case SEPARATE_SEMI_PLANAR: {
+                int uvRowStride = width + rowPadding;
+                int planeSize = uvRowStride * (uvHeight - 1) + width - 1;
+                ByteBuffer u = filled(planeSize, direct, random);
+                ByteBuffer v = filled(planeSize, direct, random);
+                return new SyntheticYuvPlanes(width, height, yRowStride, uvRowStride, 2, y, u, v);
+            }
+            case PLANAR:
+            default: {
+                int uvRowStride = uvWidth + rowPadding / 2;
+                int planeSize = uvRowStride * (uvHeight - 1) + uvWidth;
+                ByteBuffer u = filled(planeSize, direct, random);
+                ByteBuffer v = filled(planeSize, direct, random);
+                return new SyntheticYuvPlanes(width, height, yRowStride, uvRowStride, 1, y, u, v);
+            }
+        }
+    }
+
+    /**
+     * 用常量填充U/V平面（模拟相机启动时的纯灰色度）
+     */
+    public SyntheticYuvPlanes fillChroma(byte value) {
+        for (int i = 0; i < u.capacity(); i++) {
+            u.put(i, value);
+        }
+        for (int i = 0; i < v.capacity(); i++) {
+            v.put(i, value);
+        }
+        return this;
+    }
+
+    /**
+     * 转换为NV21
+     */
+    public void toNV21(byte[] out) {
+        PicUtil.planesToNV21(y, yRowStride, u, v, uvRowStride, uvPixelStride, width, height, out);
+    }
+
+    /**
+     * 参考实现：逐像素读取，与优化前 imageToNV21 的语义一致
+     */
+    public byte[] referenceNV21() {
+        byte[] out = new byte[width * height * 3 / 2];
+        int index = 0;
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                out[index++] = y.get(row * yRowStride + col);
+            }
+        }
+        for (int row = 0; row < height / 2; row++) {
+            for (int col = 0; col < width / 2; col++) {
+                int offset = row * uvRowStride + col * uvPixelStride;
+                out[index++] = v.get(offset);
+                out[index++] = u.get(offset);
+            }
+        }
+        return out;
+    }
+
+    private static ByteBuffer filled(int size, boolean direct, Random random) {
+        byte[] data = new byte[size];
+        random.nextBytes(data);
+        ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+        buffer.put(data);
+        buffer.rewind();
+        return buffer;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int from, int to) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(from);
+        view.limit(to);
+        return view.slice();
+    }
+}